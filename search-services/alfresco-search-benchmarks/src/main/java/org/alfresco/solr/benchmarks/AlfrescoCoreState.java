@@ -0,0 +1,240 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.benchmarks;
+
+import static org.alfresco.solr.AlfrescoSolrUtils.addAcl;
+import static org.alfresco.solr.AlfrescoSolrUtils.addNode;
+import static org.alfresco.solr.AlfrescoSolrUtils.addStoreRoot;
+import static org.alfresco.solr.AlfrescoSolrUtils.createGUID;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.alfresco.model.ContentModel;
+import org.alfresco.service.cmr.repository.ChildAssociationRef;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.repository.StoreRef;
+import org.alfresco.service.cmr.repository.datatype.DefaultTypeConverter;
+import org.alfresco.service.namespace.NamespaceService;
+import org.alfresco.service.namespace.QName;
+import org.alfresco.solr.AbstractAlfrescoSolrIT;
+import org.alfresco.solr.AlfrescoCoreAdminHandler;
+import org.alfresco.solr.SolrInformationServer;
+import org.alfresco.solr.client.ContentPropertyValue;
+import org.alfresco.solr.client.MLTextPropertyValue;
+import org.alfresco.solr.client.PropertyValue;
+import org.alfresco.solr.client.StringPropertyValue;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.request.LocalSolrQueryRequest;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.search.SolrCache;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.update.CommitUpdateCommand;
+import org.apache.solr.util.RefCounted;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * An in-memory Alfresco core, created with the integration test harness and filled with generated nodes.
+ *
+ * The layout follows the authentication test data: a store root and a base folder, {@link #FOLDERS} folders
+ * below it and the documents spread across the folders. ACL i grants read to READER-i and up to
+ * {@link #READERS_PER_ACL} - 1 of the previous readers, every document uses one of the ACLs.
+ *
+ * The test files are unpacked from the alfresco-search test jar into target/test-classes, so the benchmarks
+ * have to be started from the module directory.
+ */
+@State(Scope.Benchmark)
+public class AlfrescoCoreState extends AbstractAlfrescoSolrIT
+{
+    static final int FOLDERS = 100;
+    static final int READERS_PER_ACL = 10;
+
+    private static final long FIRST_ACL_ID = 10;
+    private static final long FIRST_DOCUMENT_DBID = 1000;
+
+    @Param({"10000"})
+    public int nodeCount;
+
+    @Param({"1000"})
+    public int aclCount;
+
+    private RefCounted<SolrIndexSearcher> searcher;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("deprecation")
+    public void createCore() throws Exception
+    {
+        // The test base has no other way to create the harness, the core itself is then reached through it
+        initAlfrescoCore("schema.xml");
+        SolrCore core = h.getCore();
+
+        NodeRef rootNodeRef = newNodeRef();
+        addStoreRoot(core, dataModel, rootNodeRef, 1, 1, 1, 1);
+
+        Map<QName, PropertyValue> baseFolderProperties = new HashMap<>();
+        baseFolderProperties.put(ContentModel.PROP_NAME, new StringPropertyValue("Base Folder"));
+        NodeRef baseFolderNodeRef = newNodeRef();
+        QName baseFolderQName = QName.createQName(NamespaceService.CONTENT_MODEL_1_0_URI, "baseFolder");
+        ChildAssociationRef baseFolderCAR = new ChildAssociationRef(ContentModel.ASSOC_CHILDREN, rootNodeRef,
+                    baseFolderQName, baseFolderNodeRef, true, 0);
+        addNode(core, dataModel, 1, 2, 1, ContentModel.TYPE_FOLDER, null, baseFolderProperties, null, "andy",
+                    new ChildAssociationRef[] { baseFolderCAR }, new NodeRef[] { rootNodeRef },
+                    new String[] { "/" + baseFolderQName }, baseFolderNodeRef, false);
+
+        NodeRef[] folderNodeRefs = new NodeRef[FOLDERS];
+        QName[] folderQNames = new QName[FOLDERS];
+        for (int i = 0; i < FOLDERS; i++)
+        {
+            Map<QName, PropertyValue> folderProperties = new HashMap<>();
+            folderProperties.put(ContentModel.PROP_NAME, new StringPropertyValue("Folder " + i));
+            folderNodeRefs[i] = newNodeRef();
+            folderQNames[i] = QName.createQName(NamespaceService.CONTENT_MODEL_1_0_URI, "Folder-" + i);
+            ChildAssociationRef folderCAR = new ChildAssociationRef(ContentModel.ASSOC_CONTAINS, baseFolderNodeRef,
+                        folderQNames[i], folderNodeRefs[i], true, 0);
+            addNode(core, dataModel, 1, 3 + i, 1, ContentModel.TYPE_FOLDER, null, folderProperties, null, "andy",
+                        new ChildAssociationRef[] { folderCAR }, new NodeRef[] { baseFolderNodeRef, rootNodeRef },
+                        new String[] { "/" + baseFolderQName + "/" + folderQNames[i] }, folderNodeRefs[i], false);
+        }
+
+        for (int i = 0; i < aclCount; i++)
+        {
+            int aclId = (int) FIRST_ACL_ID + i;
+            addAcl(core, dataModel, aclId, aclId, i % READERS_PER_ACL, i);
+        }
+
+        String now = DefaultTypeConverter.INSTANCE.convert(String.class, new Date());
+        for (int i = 0; i < nodeCount; i++)
+        {
+            int folder = i % FOLDERS;
+
+            Map<QName, PropertyValue> properties = new HashMap<>();
+            MLTextPropertyValue title = new MLTextPropertyValue();
+            title.addValue(Locale.ENGLISH, "Doc " + i);
+            title.addValue(Locale.US, "Doc " + i);
+            properties.put(ContentModel.PROP_TITLE, title);
+            properties.put(ContentModel.PROP_DESCRIPTION, title);
+            properties.put(ContentModel.PROP_CONTENT, new ContentPropertyValue(Locale.UK, 0L, "UTF-8", "text/plain", null));
+            properties.put(ContentModel.PROP_NAME, new StringPropertyValue("Doc " + i));
+            properties.put(ContentModel.PROP_CREATOR, new StringPropertyValue("Test"));
+            properties.put(ContentModel.PROP_MODIFIER, new StringPropertyValue("Test"));
+            properties.put(ContentModel.PROP_CREATED, new StringPropertyValue(now));
+            properties.put(ContentModel.PROP_MODIFIED, new StringPropertyValue(now));
+            Map<QName, String> content = new HashMap<>();
+            content.put(ContentModel.PROP_CONTENT, "Test doc number " + i);
+
+            NodeRef nodeRef = newNodeRef();
+            QName qName = QName.createQName(NamespaceService.CONTENT_MODEL_1_0_URI, "Doc-" + i);
+            ChildAssociationRef car = new ChildAssociationRef(ContentModel.ASSOC_CONTAINS, folderNodeRefs[folder],
+                        qName, nodeRef, true, 0);
+            addNode(core, dataModel, 1, (int) FIRST_DOCUMENT_DBID + i, (int) FIRST_ACL_ID + (i % aclCount),
+                        ContentModel.TYPE_CONTENT, new QName[] { ContentModel.ASPECT_OWNABLE, ContentModel.ASPECT_TITLED },
+                        properties, content, "andy", new ChildAssociationRef[] { car },
+                        new NodeRef[] { baseFolderNodeRef, rootNodeRef, folderNodeRefs[folder] },
+                        new String[] { "/" + baseFolderQName + "/" + folderQNames[folder] + "/" + qName },
+                        nodeRef, false);
+        }
+        commit();
+
+        searcher = core.getSearcher();
+    }
+
+    @TearDown(Level.Trial)
+    public void closeCore() throws IOException
+    {
+        searcher.decref();
+        tearDown();
+    }
+
+    SolrCore core()
+    {
+        return h.getCore();
+    }
+
+    SolrIndexSearcher searcher()
+    {
+        return searcher.get();
+    }
+
+    SolrInformationServer informationServer()
+    {
+        AlfrescoCoreAdminHandler admin = (AlfrescoCoreAdminHandler) h.getCoreContainer().getMultiCoreHandler();
+        return (SolrInformationServer) admin.getInformationServers().get(h.getCore().getName());
+    }
+
+    SolrQueryRequest request()
+    {
+        return new LocalSolrQueryRequest(h.getCore(), new ModifiableSolrParams());
+    }
+
+    void commit() throws IOException
+    {
+        try (SolrQueryRequest request = request())
+        {
+            h.getCore().getUpdateHandler().commit(new CommitUpdateCommand(request, false));
+        }
+    }
+
+    /**
+     * Empties a user cache of the searcher, if the core configuration defines it.
+     */
+    void clearCache(String name)
+    {
+        SolrCache<?, ?> cache = searcher().getCache(name);
+        if (cache != null)
+        {
+            cache.clear();
+        }
+    }
+
+    /**
+     * @return an authority set, in the query syntax, of readers spread evenly over the generated ACLs
+     */
+    String authorities(int count)
+    {
+        StringBuilder authorities = new StringBuilder();
+        int step = Math.max(1, aclCount / count);
+        for (int i = 0; i < count; i++)
+        {
+            authorities.append("|READER-").append((i * step) % aclCount);
+        }
+        return authorities.toString();
+    }
+
+    private static NodeRef newNodeRef()
+    {
+        return new NodeRef(new StoreRef("workspace", "SpacesStore"), createGUID());
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.benchmarks;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.alfresco.solr.query.DocValuesCache;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.store.RAMDirectory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loading and scanning of the {@link DocValuesCache} against plain Lucene docValues, over an in-memory index
+ * of ACLID values split in several segments.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DocValuesCacheBenchmark
+{
+    private static final String FIELD = "ACLID";
+    private static final int SEGMENTS = 8;
+
+    @State(Scope.Benchmark)
+    public static class Index
+    {
+        @Param({"100000", "1000000"})
+        public int docCount;
+
+        @Param({"1000", "100000"})
+        public int aclCount;
+
+        RAMDirectory directory;
+
+        @Setup(Level.Trial)
+        public void createIndex() throws IOException
+        {
+            directory = new RAMDirectory();
+            IndexWriterConfig config = new IndexWriterConfig(new KeywordAnalyzer())
+                    .setMergePolicy(NoMergePolicy.INSTANCE)
+                    .setMaxBufferedDocs(docCount / SEGMENTS + 1)
+                    .setRAMBufferSizeMB(IndexWriterConfig.DISABLE_AUTO_FLUSH);
+
+            Random random = new Random(42);
+            try (IndexWriter writer = new IndexWriter(directory, config))
+            {
+                for (int i = 0; i < docCount; i++)
+                {
+                    Document document = new Document();
+                    document.add(new NumericDocValuesField(FIELD, random.nextInt(aclCount)));
+                    writer.addDocument(document);
+                }
+                writer.commit();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void closeIndex()
+        {
+            directory.close();
+        }
+    }
+
+    /**
+     * A reader opened for every invocation, so its segments are not in the cache yet.
+     */
+    @State(Scope.Thread)
+    public static class ColdReader
+    {
+        DirectoryReader reader;
+
+        @Setup(Level.Invocation)
+        public void open(Index index) throws IOException
+        {
+            reader = DirectoryReader.open(index.directory);
+        }
+
+        @TearDown(Level.Invocation)
+        public void close() throws IOException
+        {
+            // Closing the segment cores evicts them from the cache
+            reader.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class WarmReader
+    {
+        DirectoryReader reader;
+
+        @Setup(Level.Trial)
+        public void open(Index index) throws IOException
+        {
+            reader = DirectoryReader.open(index.directory);
+            DocValuesCache.warm(FIELD, reader);
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws IOException
+        {
+            reader.close();
+        }
+    }
+
+    @Benchmark
+    public long coldLoad(ColdReader cold) throws IOException
+    {
+        DocValuesCache.warm(FIELD, cold.reader);
+        return DocValuesCache.ramBytesUsed();
+    }
+
+    @Benchmark
+    public long cachedScan(WarmReader warm) throws IOException
+    {
+        long sum = 0;
+        for (LeafReaderContext context : warm.reader.leaves())
+        {
+            NumericDocValues values = DocValuesCache.getNumericDocValues(FIELD, context.reader());
+            int maxDoc = context.reader().maxDoc();
+            for (int doc = 0; doc < maxDoc; doc++)
+            {
+                sum += values.get(doc);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long docValuesScan(WarmReader warm) throws IOException
+    {
+        long sum = 0;
+        for (LeafReaderContext context : warm.reader.leaves())
+        {
+            NumericDocValues values = DocValues.getNumeric(context.reader(), FIELD);
+            int maxDoc = context.reader().maxDoc();
+            for (int doc = 0; doc < maxDoc; doc++)
+            {
+                sum += values.get(doc);
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.benchmarks;
+
+import static org.alfresco.solr.AlfrescoSolrUtils.getAcl;
+import static org.alfresco.solr.AlfrescoSolrUtils.getAclChangeSet;
+import static org.alfresco.solr.AlfrescoSolrUtils.getNode;
+import static org.alfresco.solr.AlfrescoSolrUtils.getNodeMetaData;
+import static org.alfresco.solr.AlfrescoSolrUtils.getTransaction;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.alfresco.model.ContentModel;
+import org.alfresco.solr.client.Acl;
+import org.alfresco.solr.client.Node;
+import org.alfresco.solr.client.NodeMetaData;
+import org.alfresco.solr.client.SOLRAPIQueueClient;
+import org.alfresco.solr.client.StringPropertyValue;
+import org.alfresco.solr.client.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Document building in SolrInformationServer.indexNodes for a batch of updated nodes. The metadata is served
+ * by the in-memory SOLRAPIQueueClient of the test harness, so no repository is involved. Every invocation
+ * overwrites the documents of the previous one, the core is committed after each iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndexNodesBenchmark
+{
+    @Param({"100", "1000"})
+    public int batchSize;
+
+    private List<Node> nodes;
+
+    @Setup(Level.Trial)
+    public void createNodes()
+    {
+        Acl acl = getAcl(getAclChangeSet(1), 10);
+        Transaction txn = getTransaction(0, batchSize);
+
+        nodes = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++)
+        {
+            Node node = getNode(txn, acl, Node.SolrApiNodeStatus.UPDATED);
+            NodeMetaData nodeMetaData = getNodeMetaData(node, txn, acl, "andy", new HashSet<>(), false);
+            nodeMetaData.getProperties().put(ContentModel.PROP_NAME, new StringPropertyValue("Indexed doc " + i));
+            nodeMetaData.getProperties().put(ContentModel.PROP_CREATOR, new StringPropertyValue("Test"));
+            SOLRAPIQueueClient.NODE_META_DATA_MAP.put(node.getId(), nodeMetaData);
+            nodes.add(node);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void commit(AlfrescoCoreState core) throws IOException
+    {
+        core.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void removeNodes()
+    {
+        nodes.forEach(node -> SOLRAPIQueueClient.NODE_META_DATA_MAP.remove(node.getId()));
+    }
+
+    @Benchmark
+    public void indexNodes(AlfrescoCoreState core) throws Exception
+    {
+        core.informationServer().indexNodes(nodes, true);
+    }
+}
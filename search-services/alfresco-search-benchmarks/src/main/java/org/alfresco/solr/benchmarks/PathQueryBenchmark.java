@@ -0,0 +1,89 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.alfresco.solr.cache.CacheConstants;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TotalHitCountCollector;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.search.QParser;
+import org.apache.solr.search.SyntaxError;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Evaluation of PATH queries, through SolrPathQuery and SolrContainerScorer. The query is parsed once and
+ * the path cache is emptied before every search, so each search walks the path again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathQueryBenchmark
+{
+    @Param({
+        "/cm:baseFolder/*",
+        "/cm:baseFolder/cm:Folder-7/*",
+        "/cm:baseFolder//*",
+        "//cm:Doc-42"})
+    public String path;
+
+    private Query query;
+
+    @Setup
+    public void parse(AlfrescoCoreState core) throws SyntaxError
+    {
+        try (SolrQueryRequest request = core.request())
+        {
+            query = QParser.getParser("PATH:\"" + path + "\"", "afts", request).getQuery();
+        }
+    }
+
+    @Benchmark
+    public int evaluate(AlfrescoCoreState core) throws IOException
+    {
+        core.clearCache(CacheConstants.ALFRESCO_PATH_CACHE);
+
+        TotalHitCountCollector hits = new TotalHitCountCollector();
+        core.searcher().search(query, hits);
+        return hits.getTotalHits();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.alfresco.solr.cache.CacheConstants;
+import org.alfresco.solr.query.DocValuesCache;
+import org.alfresco.solr.query.SolrReaderSetQuery;
+import org.alfresco.solr.query.SolrReaderSetScorer2;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Weight;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cold builds of the readable doc set in {@link SolrReaderSetScorer2}: the reader and ACL id caches and the
+ * ACLID docValues are emptied before every search, so the ACL docs are looked up, their ids loaded and translated
+ * to the docs they protect each time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReaderSetScorerBenchmark
+{
+    @Param({"1", "10", "100"})
+    public int authorityCount;
+
+    private String authorities;
+
+    @Setup
+    public void setUp(AlfrescoCoreState core)
+    {
+        authorities = core.authorities(authorityCount);
+    }
+
+    @Benchmark
+    public int coldBuild(AlfrescoCoreState core) throws IOException
+    {
+        core.clearCache(CacheConstants.ALFRESCO_READER_CACHE);
+        core.clearCache(CacheConstants.ALFRESCO_ACLID_CACHE);
+        DocValuesCache.clear();
+
+        SolrIndexSearcher searcher = core.searcher();
+        Weight weight = searcher.createNormalizedWeight(new SolrReaderSetQuery(authorities), false);
+        int count = 0;
+        for (LeafReaderContext context : searcher.getTopReaderContext().leaves())
+        {
+            Scorer scorer = weight.scorer(context);
+            if (scorer != null)
+            {
+                DocIdSetIterator iterator = scorer.iterator();
+                while (iterator.nextDoc() != DocIdSetIterator.NO_MORE_DOCS)
+                {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
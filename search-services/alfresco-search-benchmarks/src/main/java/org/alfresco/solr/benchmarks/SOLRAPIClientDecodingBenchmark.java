@@ -0,0 +1,280 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.alfresco.httpclient.AlfrescoHttpClient;
+import org.alfresco.httpclient.Request;
+import org.alfresco.httpclient.Response;
+import org.alfresco.repo.dictionary.NamespaceDAO;
+import org.alfresco.service.cmr.dictionary.DataTypeDefinition;
+import org.alfresco.service.cmr.dictionary.DictionaryService;
+import org.alfresco.service.cmr.dictionary.PropertyDefinition;
+import org.alfresco.service.namespace.QName;
+import org.alfresco.solr.client.GetNodesParameters;
+import org.alfresco.solr.client.Node;
+import org.alfresco.solr.client.NodeMetaData;
+import org.alfresco.solr.client.NodeMetaDataParameters;
+import org.alfresco.solr.client.SOLRAPIClient;
+import org.alfresco.solr.client.Transactions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Decoding of the transactions, nodes and metadata payloads of the repository SOLR API.
+ * The http client is replaced by canned responses, so only the JSON decoding is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SOLRAPIClientDecodingBenchmark
+{
+    private static final String CONTENT_MODEL = "{http://www.alfresco.org/model/content/1.0}";
+    private static final String SYSTEM_MODEL = "{http://www.alfresco.org/model/system/1.0}";
+
+    @Param({"100", "1000"})
+    public int batchSize;
+
+    private SOLRAPIClient client;
+    private Map<String, byte[]> payloads;
+
+    @Setup
+    public void setUp()
+    {
+        payloads = new HashMap<>();
+        payloads.put("api/solr/transactions", transactions().getBytes(StandardCharsets.UTF_8));
+        payloads.put("api/solr/nodes", nodes().getBytes(StandardCharsets.UTF_8));
+        payloads.put("api/solr/metadata", metadata().getBytes(StandardCharsets.UTF_8));
+
+        Map<QName, PropertyDefinition> properties = new HashMap<>();
+        properties.put(QName.createQName(CONTENT_MODEL + "name"), property(DataTypeDefinition.TEXT, false));
+        properties.put(QName.createQName(CONTENT_MODEL + "title"), property(DataTypeDefinition.MLTEXT, false));
+        properties.put(QName.createQName(CONTENT_MODEL + "content"), property(DataTypeDefinition.CONTENT, false));
+        properties.put(QName.createQName(CONTENT_MODEL + "created"), property(DataTypeDefinition.DATETIME, false));
+        properties.put(QName.createQName(CONTENT_MODEL + "taggable"), property(DataTypeDefinition.NODE_REF, true));
+
+        AlfrescoHttpClient httpClient = stub(AlfrescoHttpClient.class, (method, args) ->
+                "sendRequest".equals(method) ? respond((Request) args[0]) : null);
+        DictionaryService dictionaryService = stub(DictionaryService.class, (method, args) ->
+                "getProperty".equals(method) ? properties.get(args[0]) : null);
+        NamespaceDAO namespaceDAO = stub(NamespaceDAO.class, (method, args) -> null);
+
+        client = new SOLRAPIClient(httpClient, dictionaryService, namespaceDAO);
+    }
+
+    @Benchmark
+    public Transactions getTransactions() throws Exception
+    {
+        return client.getTransactions(null, 0L, null, null, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<Node> getNodes() throws Exception
+    {
+        return client.getNodes(new GetNodesParameters(), Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<NodeMetaData> getNodesMetaData() throws Exception
+    {
+        return client.getNodesMetaData(new NodeMetaDataParameters());
+    }
+
+    private Response respond(Request request)
+    {
+        String uri = request.getFullUri();
+        byte[] payload = payloads.entrySet().stream()
+                .filter(entry -> uri.startsWith(entry.getKey()))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No payload for " + uri));
+        return stub(Response.class, (method, args) -> {
+            switch (method)
+            {
+                case "getStatus":
+                    return 200;
+                case "getContentAsStream":
+                    return new ByteArrayInputStream(payload);
+                case "getContentType":
+                    return "application/json";
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private String transactions()
+    {
+        StringBuilder json = new StringBuilder("{\"transactions\":[");
+        for (int i = 1; i <= batchSize; i++)
+        {
+            json.append(i > 1 ? "," : "")
+                .append("{\"id\":").append(i)
+                .append(",\"commitTimeMs\":").append(1600000000000L + i)
+                .append(",\"updates\":").append(i % 50)
+                .append(",\"deletes\":").append(i % 3)
+                .append('}');
+        }
+        return json.append("],\"maxTxnCommitTime\":").append(1600000000000L + batchSize)
+                .append(",\"maxTxnId\":").append(batchSize)
+                .append('}').toString();
+    }
+
+    private String nodes()
+    {
+        StringBuilder json = new StringBuilder("{\"nodes\":[");
+        for (int i = 1; i <= batchSize; i++)
+        {
+            json.append(i > 1 ? "," : "")
+                .append("{\"id\":").append(i)
+                .append(",\"nodeRef\":\"").append(nodeRef(i)).append('"')
+                .append(",\"txnId\":").append(i / 10)
+                .append(",\"aclId\":").append(i % 100)
+                .append(",\"status\":\"").append(i % 10 == 0 ? 'd' : 'u').append('"')
+                .append(",\"tenant\":\"\"}");
+        }
+        return json.append("]}").toString();
+    }
+
+    private String metadata()
+    {
+        StringBuilder json = new StringBuilder("{\"nodes\":[");
+        for (int i = 1; i <= batchSize; i++)
+        {
+            json.append(i > 1 ? "," : "")
+                .append("{\"id\":").append(i)
+                .append(",\"tenantDomain\":\"\"")
+                .append(",\"aclId\":").append(i % 100)
+                .append(",\"txnId\":").append(i / 10)
+                .append(",\"nodeRef\":\"").append(nodeRef(i)).append('"')
+                .append(",\"type\":\"").append(CONTENT_MODEL).append("content\"")
+                .append(",\"properties\":{")
+                .append('"').append(CONTENT_MODEL).append("name\":\"Document ").append(i).append(".pdf\",")
+                .append('"').append(CONTENT_MODEL).append("title\":[{\"locale\":\"en\",\"value\":\"Quarterly report ").append(i)
+                        .append("\"},{\"locale\":\"fr\",\"value\":\"Rapport trimestriel ").append(i).append("\"}],")
+                .append('"').append(CONTENT_MODEL).append("content\":{\"contentId\":").append(i)
+                        .append(",\"encoding\":\"UTF-8\",\"locale\":\"en_GB\",\"mimetype\":\"application/pdf\",\"size\":").append(1024 * i).append("},")
+                .append('"').append(CONTENT_MODEL).append("created\":\"2020-01-01T10:00:00.000Z\",")
+                .append('"').append(CONTENT_MODEL).append("taggable\":[\"").append(nodeRef(i + 1)).append("\",\"").append(nodeRef(i + 2)).append("\"],")
+                .append('"').append(SYSTEM_MODEL).append("node-uuid\":\"").append(uuid(i)).append('"')
+                .append('}')
+                .append(",\"aspects\":[\"").append(CONTENT_MODEL).append("titled\",\"").append(SYSTEM_MODEL).append("referenceable\"]")
+                .append(",\"paths\":[{\"path\":\"/{http://www.alfresco.org/model/application/1.0}company_home/").append(CONTENT_MODEL)
+                        .append("doc-").append(i).append("\",\"qname\":\"").append(CONTENT_MODEL).append("doc-").append(i)
+                        .append("\",\"apath\":\"/").append(uuid(0)).append("\"}]")
+                .append(",\"namePaths\":[{\"namePath\":[\"Company Home\",\"Document ").append(i).append(".pdf\"]}]")
+                .append(",\"ancestors\":[\"").append(nodeRef(0)).append("\"]")
+                .append(",\"parentAssocs\":[\"").append(nodeRef(0)).append('|').append(nodeRef(i)).append('|')
+                        .append(CONTENT_MODEL).append("contains|").append(CONTENT_MODEL).append("doc-").append(i).append("|true|-1\"]")
+                .append(",\"parentAssocsCrc\":").append(31L * i)
+                .append(",\"owner\":\"admin\"}");
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String nodeRef(int i)
+    {
+        return "workspace://SpacesStore/" + uuid(i);
+    }
+
+    private static String uuid(int i)
+    {
+        return String.format("5b8c7c6f-8dfa-4b7b-9b2a-%012d", i);
+    }
+
+    private static PropertyDefinition property(QName dataTypeName, boolean multiValued)
+    {
+        DataTypeDefinition dataType = stub(DataTypeDefinition.class, (method, args) ->
+                "getName".equals(method) ? dataTypeName : null);
+        return stub(PropertyDefinition.class, (method, args) -> {
+            switch (method)
+            {
+                case "getDataType":
+                    return dataType;
+                case "isMultiValued":
+                    return multiValued;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private interface Answer
+    {
+        Object answer(String method, Object[] args);
+    }
+
+    /**
+     * Implements the interface with the given answers, unanswered primitive results get their default value.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, Answer answer)
+    {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class)
+            {
+                switch (method.getName())
+                {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return type.getSimpleName();
+                }
+            }
+
+            Object result = answer.answer(method.getName(), args);
+            Class<?> returnType = method.getReturnType();
+            if (result == null && returnType.isPrimitive() && returnType != void.class)
+            {
+                return Array.get(Array.newInstance(returnType, 1), 0);
+            }
+            return result;
+        });
+    }
+}
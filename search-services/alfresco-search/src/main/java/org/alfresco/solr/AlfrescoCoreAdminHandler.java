@@ -79,6 +79,7 @@ import java.util.Objects;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -1464,11 +1465,18 @@ public class AlfrescoCoreAdminHandler extends CoreAdminHandler
 
             if (metadataTracker.isEnabled() & aclTracker.isEnabled())
             {
-                apply(params, ARG_TXID, metadataTracker::addTransactionToPurge);
-                apply(params, ARG_ACLTXID, aclTracker::addAclChangeSetToPurge);
-                apply(params, ARG_NODEID, metadataTracker::addNodeToPurge);
-                apply(params, ARG_ACLID, aclTracker::addAclToPurge);
-                coreResponse.add(ACTION_STATUS_LABEL, ACTION_STATUS_SCHEDULED);
+                try
+                {
+                    apply(params, ARG_TXID, metadataTracker::addTransactionToPurge);
+                    apply(params, ARG_ACLTXID, aclTracker::addAclChangeSetToPurge);
+                    apply(params, ARG_NODEID, metadataTracker::addNodeToPurge);
+                    apply(params, ARG_ACLID, aclTracker::addAclToPurge);
+                    coreResponse.add(ACTION_STATUS_LABEL, ACTION_STATUS_SCHEDULED);
+                }
+                catch (IllegalStateException exception)
+                {
+                    addQueueFullMessage(coreResponse, exception);
+                }
             }
             else
             {
@@ -1520,13 +1528,20 @@ public class AlfrescoCoreAdminHandler extends CoreAdminHandler
 
             if (metadataTracker.isEnabled() & aclTracker.isEnabled())
             {
-                apply(params, ARG_TXID, metadataTracker::addTransactionToReindex);
-                apply(params, ARG_ACLTXID, aclTracker::addAclChangeSetToReindex);
-                apply(params, ARG_NODEID, metadataTracker::addNodeToReindex);
-                apply(params, ARG_ACLID, aclTracker::addAclToReindex);
+                try
+                {
+                    apply(params, ARG_TXID, metadataTracker::addTransactionToReindex);
+                    apply(params, ARG_ACLTXID, aclTracker::addAclChangeSetToReindex);
+                    apply(params, ARG_NODEID, metadataTracker::addNodeToReindex);
+                    apply(params, ARG_ACLID, aclTracker::addAclToReindex);
 
-                coreResponse.add(ACTION_STATUS_LABEL, ACTION_STATUS_SCHEDULED);
-                ofNullable(params.get(ARG_QUERY)).ifPresent(metadataTracker::addQueryToReindex);
+                    coreResponse.add(ACTION_STATUS_LABEL, ACTION_STATUS_SCHEDULED);
+                    ofNullable(params.get(ARG_QUERY)).ifPresent(metadataTracker::addQueryToReindex);
+                }
+                catch (IllegalStateException exception)
+                {
+                    addQueueFullMessage(coreResponse, exception);
+                }
             }
             else
             {
@@ -1581,7 +1596,12 @@ public class AlfrescoCoreAdminHandler extends CoreAdminHandler
                     }
                     coreResponse.add("Error Nodes", srv.getErrorDocIds());
                     coreResponse.add(ACTION_STATUS_LABEL, ACTION_STATUS_SCHEDULED);
-                } catch (Exception exception)
+                }
+                catch (IllegalStateException exception)
+                {
+                    addQueueFullMessage(coreResponse, exception);
+                }
+                catch (Exception exception)
                 {
                     LOGGER.error("I/O Exception while adding Node to reindex.", exception);
                     coreResponse.add(ACTION_STATUS_LABEL, ACTION_STATUS_ERROR);
@@ -1638,11 +1658,18 @@ public class AlfrescoCoreAdminHandler extends CoreAdminHandler
 
             if (metadataTracker.isEnabled() & aclTracker.isEnabled())
             {
-                apply(params, ARG_TXID, metadataTracker::addTransactionToIndex);
-                apply(params, ARG_ACLTXID, aclTracker::addAclChangeSetToIndex);
-                apply(params, ARG_NODEID, metadataTracker::addNodeToIndex);
-                apply(params, ARG_ACLID, aclTracker::addAclToIndex);
-                coreResponse.add(ACTION_STATUS_LABEL, ACTION_STATUS_SCHEDULED);
+                try
+                {
+                    apply(params, ARG_TXID, metadataTracker::addTransactionToIndex);
+                    apply(params, ARG_ACLTXID, aclTracker::addAclChangeSetToIndex);
+                    apply(params, ARG_NODEID, metadataTracker::addNodeToIndex);
+                    apply(params, ARG_ACLID, aclTracker::addAclToIndex);
+                    coreResponse.add(ACTION_STATUS_LABEL, ACTION_STATUS_SCHEDULED);
+                }
+                catch (IllegalStateException exception)
+                {
+                    addQueueFullMessage(coreResponse, exception);
+                }
             }
             else
             {
@@ -1822,13 +1849,15 @@ public class AlfrescoCoreAdminHandler extends CoreAdminHandler
                     dryRun,
                     maxTransactionsToSchedule);
 
+            final AtomicBoolean queueFull = new AtomicBoolean(false);
+
             NamedList<Object> response = new SimpleOrderedMap<>();
             response.add(ACTION_TX_TO_REINDEX,
                          txToReindex(
                                 coreName,
                                 metadataTracker,
                                 metadataTrackerIndexHealthReport,
-                                dryRun ? txid -> {} : metadataTracker::addTransactionToReindex,
+                                dryRun ? txid -> {} : recordingQueueFull(metadataTracker::addTransactionToReindex, queueFull),
                                 maxTransactionsToSchedule));
 
             response.add(ACTION_ACL_CHANGE_SET_TO_REINDEX,
@@ -1836,8 +1865,13 @@ public class AlfrescoCoreAdminHandler extends CoreAdminHandler
                                  coreName,
                                  aclTracker,
                                  aclTrackerIndexHealthReport,
-                                 dryRun ? txid -> {} : aclTracker::addAclChangeSetToReindex,
+                                 dryRun ? txid -> {} : recordingQueueFull(aclTracker::addAclChangeSetToReindex, queueFull),
                                  maxTransactionsToSchedule));
+
+            if (queueFull.get())
+            {
+                response.add(ADDITIONAL_INFO, "The tracker maintenance queues are full: only the listed transactions have been scheduled; please resubmit this command once they have been processed.");
+            }
             return response;
         }
         catch(Exception exception)
@@ -1986,13 +2020,41 @@ public class AlfrescoCoreAdminHandler extends CoreAdminHandler
         long txid = -1;
         while ((txid = transactions.nextSetBit(txid + 1)) != -1 && limit.decrementAndGet() >= 0)
         {
+            try
+            {
+                scheduler.accept(txid);
+            }
+            catch (IllegalStateException exception)
+            {
+                // The tracker queue is full, nothing else can be scheduled
+                LOGGER.warn(exception.getMessage());
+                limit.set(0);
+                break;
+            }
             transactionsList.add(String.valueOf(txid), nodesCounter.applyAsInt(txid));
-            scheduler.accept(txid);
         }
 
         return transactionsList;
     }
 
+    /**
+     * Wraps the input scheduler, raising the given flag when a transaction is refused because the tracker queue is full.
+     */
+    private Consumer<Long> recordingQueueFull(Consumer<Long> scheduler, AtomicBoolean queueFull)
+    {
+        return txid -> {
+            try
+            {
+                scheduler.accept(txid);
+            }
+            catch (IllegalStateException exception)
+            {
+                queueFull.set(true);
+                throw exception;
+            }
+        };
+    }
+
     /**
      * Get detailed report for a core or for every core including information
      * related with handlers and trackers.
@@ -2143,6 +2205,17 @@ public class AlfrescoCoreAdminHandler extends CoreAdminHandler
                 .ifPresent(executeSideEffectAction);
     }
 
+    /**
+     * Reports a request refused because a tracker maintenance queue is full.
+     * Any id of the request scheduled before the refusal stays scheduled.
+     */
+    private void addQueueFullMessage(NamedList<Object> coreResponse, IllegalStateException exception)
+    {
+        LOGGER.warn(exception.getMessage());
+        coreResponse.add(ACTION_STATUS_LABEL, ACTION_STATUS_NOT_SCHEDULED);
+        coreResponse.add(ADDITIONAL_INFO, exception.getMessage());
+    }
+
     /**
      * Returns the core name indicated in the request parameters.
      * A first attempt is done in order to check if a standard {@link CoreAdminParams#CORE} parameter is in the request.
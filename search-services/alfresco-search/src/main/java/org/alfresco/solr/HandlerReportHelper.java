@@ -28,6 +28,7 @@ package org.alfresco.solr;
 
 import org.alfresco.error.AlfrescoRuntimeException;
 import org.alfresco.service.cmr.repository.datatype.Duration;
+import org.alfresco.solr.cache.SearcherCacheLoader;
 import org.alfresco.solr.client.Node;
 import org.alfresco.solr.tracker.*;
 import org.alfresco.util.CachingDateFormat;
@@ -516,6 +517,11 @@ class HandlerReportHelper
         coreSummary.add("Id for last TX in index", lastIndexedTxId);
         coreSummary.add("Approx transactions remaining", transactionsToDo);
         coreSummary.add("Approx transaction indexing time remaining", remainingTx.largestComponentformattedString());
+        if (metaTrkr.isBatchJournalEnabled())
+        {
+            coreSummary.add("Transactions waiting for retry", metaTrkr.getBatchJournal().getRetryCount());
+            coreSummary.add("Quarantined transactions", metaTrkr.getBatchJournal().getQuarantinedIds());
+        }
 
         // Change set
 
@@ -530,6 +536,11 @@ class HandlerReportHelper
         coreSummary.add("Approx change sets remaining", changeSetsToDo);
         coreSummary.add("Approx change set indexing time remaining",
                 remainingChangeSet.largestComponentformattedString());
+        if (aclTrkr.isBatchJournalEnabled())
+        {
+            coreSummary.add("Change sets waiting for retry", aclTrkr.getBatchJournal().getRetryCount());
+            coreSummary.add("Quarantined change sets", aclTrkr.getBatchJournal().getQuarantinedIds());
+        }
 
         coreSummary.add("Approx content indexing time remaining",
                 remainingContent.largestComponentformattedString());
@@ -545,6 +556,23 @@ class HandlerReportHelper
         coreSummary.add("Docs/Tx", srv.getTrackerStats().getTxDocs().getNamedList(detail, hist, values));
         coreSummary.add("Doc Transformation time (ms)", srv.getTrackerStats().getDocTransformationTimes()
                 .getNamedList(detail, hist, values));
+        coreSummary.add("Cascade update time per doc (ms)", srv.getTrackerStats().getCascadeTimes()
+                .getNamedList(detail, hist, values));
+        coreSummary.add("Content lane time per doc (ms)", srv.getTrackerStats().getContentLaneTimes()
+                .getNamedList(true, hist, values));
+
+        NamedList<Object> contentLaneDepths = new SimpleOrderedMap<>();
+        srv.getTrackerStats().getContentLaneDepths().forEach(contentLaneDepths::add);
+        coreSummary.add("Content lane queue depths", contentLaneDepths);
+
+        NamedList<Object> batchSizes = new SimpleOrderedMap<>();
+        metaTrkr.getBatchSizes().forEach(batchSize -> batchSizes.add(batchSize.getName(), batchSize.get()));
+        aclTrkr.getBatchSizes().forEach(batchSize -> batchSizes.add(batchSize.getName(), batchSize.get()));
+        coreSummary.add("Batch sizes", batchSizes);
+
+        NamedList<Object> sharedCacheLoads = new SimpleOrderedMap<>();
+        SearcherCacheLoader.getSharedLoads(cname).forEach(sharedCacheLoads::add);
+        coreSummary.add("Cache loads shared between concurrent requests", sharedCacheLoads);
 
         // Model
 
@@ -30,6 +30,7 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import org.alfresco.httpclient.AuthenticationException;
 import org.alfresco.repo.dictionary.DictionaryComponent;
@@ -44,6 +45,7 @@ import org.alfresco.solr.client.AlfrescoModel;
 import org.alfresco.solr.client.Node;
 import org.alfresco.solr.client.NodeMetaData;
 import org.alfresco.solr.client.Transaction;
+import org.alfresco.solr.tracker.ContentLane;
 import org.alfresco.solr.tracker.IndexHealthReport;
 import org.alfresco.solr.tracker.TrackerStats;
 import org.apache.solr.common.util.NamedList;
@@ -72,8 +74,18 @@ public interface InformationServer extends InformationServerCollectionProvider
 
     void indexAclTransaction(AclChangeSet changeSet, boolean overwrite) throws IOException;
 
+    /**
+     * Indexes the ACL change set document, leaving the tracker state document as it is when updateTrackerState is false.
+     */
+    void indexAclTransaction(AclChangeSet changeSet, boolean overwrite, boolean updateTrackerState) throws IOException;
+
     void indexTransaction(Transaction info, boolean overwrite) throws IOException;
 
+    /**
+     * Indexes the transaction document, leaving the tracker state document as it is when updateTrackerState is false.
+     */
+    void indexTransaction(Transaction info, boolean overwrite, boolean updateTrackerState) throws IOException;
+
     void deleteByTransactionId(Long transactionId) throws IOException;
 
     void deleteByAclChangeSetId(Long aclChangeSetId) throws IOException;
@@ -82,6 +94,17 @@ public interface InformationServer extends InformationServerCollectionProvider
 
     void deleteByNodeId(Long nodeId) throws IOException;
 
+    /**
+     * Deletes the documents of a batch of transactions within a single update session.
+     */
+    void deleteByTransactionIds(long[] transactionIds) throws IOException;
+
+    void deleteByAclChangeSetIds(long[] aclChangeSetIds) throws IOException;
+
+    void deleteByAclIds(long[] aclIds) throws IOException;
+
+    void deleteByNodeIds(long[] nodeIds) throws IOException;
+
     void capIndex(long nodeId) throws IOException;
 
     long getIndexCap() throws IOException;
@@ -126,8 +149,6 @@ public interface InformationServer extends InformationServerCollectionProvider
 
     boolean isInIndex(String id) throws IOException;
 
-    void setCleanContentTxnFloor(long cleanContentTxnFloor);
-
     void setCleanCascadeTxnFloor(long cleanCascadeTxnFloor);
 
     Set<Long> getErrorDocIds() throws IOException;
@@ -156,10 +177,31 @@ public interface InformationServer extends InformationServerCollectionProvider
 
     IndexHealthReport reportIndexTransactions(Long minTxId, IOpenBitSet txIdsInDb, long maxTxId) throws IOException;
 
-    List<TenantDbId> getDocsWithUncleanContent() throws IOException;
+    /**
+     * Takes the next documents of the given lane whose text content has to be fetched.
+     *
+     * @param lane the lane where the documents are waiting.
+     * @param max the maximum number of documents to return.
+     * @return the documents, an empty list when there is nothing left to do in the lane.
+     */
+    List<TenantDbId> getDocsWithUncleanContent(ContentLane lane, int max) throws IOException;
 
     void updateContent(TenantDbId docRef) throws Exception;
 
+    /**
+     * Updates the text content of a batch of documents within a single update session.
+     *
+     * @param docRefs the documents to update.
+     * @param fetchPool the pool where the text content is fetched.
+     * @param maxConcurrentFetches the maximum number of text content requests running at any time for this batch.
+     */
+    void updateContent(List<TenantDbId> docRefs, ForkJoinPool fetchPool, int maxConcurrentFetches) throws Exception;
+
+    /**
+     * Puts back documents whose text content couldn't be updated, so they are handed out again after the next commit.
+     */
+    void retryContentUpdate(List<TenantDbId> docRefs);
+
     void addCommonNodeReportInfo(NodeReport nodeReport);
 
     /**
@@ -89,21 +89,25 @@ import static org.alfresco.service.cmr.security.AuthorityType.GUEST;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.StringReader;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
 import java.text.DecimalFormat;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.IsoFields;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
@@ -113,6 +117,9 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
@@ -120,13 +127,18 @@ import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 import java.util.zip.GZIPInputStream;
 
 import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.LongArrayDeque;
+import com.carrotsearch.hppc.LongArrayList;
 import com.carrotsearch.hppc.LongHashSet;
-import com.carrotsearch.hppc.cursors.LongCursor;
+import com.carrotsearch.hppc.LongLongHashMap;
+import com.carrotsearch.hppc.cursors.LongLongCursor;
+import com.google.common.collect.Lists;
 
-import org.alfresco.httpclient.AuthenticationException;
 import org.alfresco.model.ContentModel;
 import org.alfresco.opencmis.dictionary.CMISStrictDictionaryService;
 import org.alfresco.repo.dictionary.DictionaryComponent;
@@ -165,8 +177,11 @@ import org.alfresco.solr.client.StringPropertyValue;
 import org.alfresco.solr.client.Transaction;
 import org.alfresco.solr.config.ConfigUtil;
 import org.alfresco.solr.logging.Log;
+import org.alfresco.solr.tracker.ContentLane;
 import org.alfresco.solr.tracker.IndexHealthReport;
 import org.alfresco.solr.tracker.TrackerStats;
+import org.alfresco.solr.utils.LongBitmap;
+import org.alfresco.solr.utils.LongLongCache;
 import org.alfresco.solr.utils.Utils;
 import org.alfresco.util.ISO9075;
 import org.alfresco.util.Pair;
@@ -175,11 +190,11 @@ import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.IndexCommit;
 import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.NumericDocValues;
-import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
@@ -191,9 +206,10 @@ import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermInSetQuery;
 import org.apache.lucene.search.TermQuery;
-import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TopFieldCollector;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.common.SolrDocument;
@@ -219,7 +235,6 @@ import org.apache.solr.schema.SchemaField;
 import org.apache.solr.search.DelegatingCollector;
 import org.apache.solr.search.DocIterator;
 import org.apache.solr.search.DocList;
-import org.apache.solr.search.QueryWrapperFilter;
 import org.apache.solr.search.SolrIndexSearcher;
 import org.apache.solr.update.AddUpdateCommand;
 import org.apache.solr.update.CommitUpdateCommand;
@@ -230,7 +245,6 @@ import org.apache.solr.util.ConcurrentLRUCache;
 import org.apache.solr.util.RefCounted;
 import org.json.JSONException;
 import org.springframework.extensions.surf.util.I18NUtil;
-import org.springframework.util.FileCopyUtils;
 
 /**
  * This is the Apache Solr implementation of the information server (index).
@@ -398,6 +412,8 @@ public class SolrInformationServer implements InformationServer
      */
     private static final int BATCH_FACET_TXS = 4096;
     private static final String FINGERPRINT_FIELD = "MINHASH";
+    private static final int TEXT_CONTENT_READ_BUFFER_SIZE = 8192;
+    private static final int TEXT_CONTENT_INITIAL_CAPACITY = 16384;
     /** Shared property to determine if the cascade tracking is enabled. */
     public static final String CASCADE_TRACKER_ENABLED = "alfresco.cascade.tracker.enabled";
 
@@ -427,11 +443,12 @@ public class SolrInformationServer implements InformationServer
     private final boolean fingerprintHasBeenEnabledOnThisInstance;
     private final int contentStreamLimit;
 
-    private long cleanContentLastPurged;
-    
     // Get Paths information from Repository for a batch of nodes (true by default)
     // When false, Paths information is only recovered for single nodes
     private final boolean getPathsInNodeBatches;
+
+    // Number of nodes whose metadata is requested at once when cascading updates
+    private final int cascadeMetadataBatchSize;
     
     // Metadata pulling control
     private boolean skipDescendantDocsForSpecificTypes;
@@ -445,10 +462,10 @@ public class SolrInformationServer implements InformationServer
     private final ReentrantReadWriteLock commitAndRollbackLock = new ReentrantReadWriteLock();
     private final String hostName;
     private final Properties props;
-    private final LRU txnIdCache = new LRU(250000);
-    private final LRU aclChangeSetCache = new LRU(250000);
-    private final Map<Long, Long> cleanContentCache = Collections.synchronizedMap(new LRU(250000));
-    private final LRU cleanCascadeCache = new LRU(250000);
+    private final IndexedIds indexedTransactions = new IndexedIds(DOC_TYPE_TX, FIELD_TXID);
+    private final IndexedIds indexedAclChangeSets = new IndexedIds(DOC_TYPE_ACL_TX, FIELD_ACLTXID);
+    private final OutdatedContentQueue outdatedContent;
+    private final LongLongCache cleanCascadeCache = new LongLongCache(250000);
 
     private final int port;
     private final String baseUrl;
@@ -493,11 +510,11 @@ public class SolrInformationServer implements InformationServer
     static class TxnCacheFilter extends DelegatingCollector
     {
         private NumericDocValues currentLongs;
-        private final Map<Long, Long> txnLRU;
+        private final LongLongCache txnCache;
 
-        TxnCacheFilter(Map<Long, Long> txnLRU)
+        TxnCacheFilter(LongLongCache txnCache)
         {
-            this.txnLRU = txnLRU;
+            this.txnCache = txnCache;
         }
 
         public void doSetNextReader(LeafReaderContext context) throws IOException
@@ -510,30 +527,22 @@ public class SolrInformationServer implements InformationServer
         {
             long txnId = currentLongs.get(doc);
 
-            if(!txnLRU.containsKey(txnId))
+            if(!txnCache.containsKey(txnId))
             {
                 this.leafDelegate.collect(doc);
             }
         }
     }
 
-    static class TxnCollector extends DelegatingCollector
+    static class DbIdCollector extends DelegatingCollector
     {
         private NumericDocValues currentLongs;
-        private final LongHashSet txnSet = new LongHashSet(1000);
-        private final long txnFloor;
-        private final long txnCeil;
-
-        TxnCollector(long txnFloor)
-        {
-            this.txnFloor = txnFloor;
-            this.txnCeil = txnFloor+500;
-        }
+        private final LongArrayList ids = new LongArrayList();
 
         @Override
         public void doSetNextReader(LeafReaderContext context) throws IOException
         {
-            currentLongs = context.reader().getNumericDocValues(FIELD_INTXID);
+            currentLongs = DocValues.getNumeric(context.reader(), FIELD_DBID);
         }
 
         @Override
@@ -545,34 +554,393 @@ public class SolrInformationServer implements InformationServer
         @Override
         public void collect(int doc)
         {
-            long txnId = currentLongs.get(doc);
-            if(txnId >= txnFloor && txnId < txnCeil)
+            ids.add(currentLongs.get(doc));
+        }
+
+        long[] getIds()
+        {
+            long[] sortedIds = ids.toArray();
+            Arrays.sort(sortedIds);
+            return sortedIds;
+        }
+    }
+
+    /**
+     * Ids of the transactions (or ACL change sets) whose document is in the index.
+     * The ids are loaded from the index the first time they are needed and then maintained on commit,
+     * so checking an id needs neither a searcher nor a query.
+     */
+    static class IndexedIds
+    {
+        private final String docType;
+        private final String idField;
+
+        // Ids found in the index or committed after that, null until they are loaded
+        private volatile LongBitmap committed;
+
+        // Ids committed before the committed ids are loaded, merged on load
+        private LongBitmap committedBeforeLoad = new LongBitmap();
+
+        // Ids added to the index since the last commit
+        private final AtomicReference<LongBitmap> uncommitted = new AtomicReference<>(new LongBitmap());
+
+        // Ids which have been checked for processing since the tracker state has been invalidated
+        private volatile LongBitmap processed = new LongBitmap();
+
+        IndexedIds(String docType, String idField)
+        {
+            this.docType = docType;
+            this.idField = idField;
+        }
+
+        boolean isInIndex(long id, boolean markAsProcessed, SolrCore core) throws IOException
+        {
+            // Safe to mark the id here because processed ids are cleared on rollback.
+            if (markAsProcessed ? !processed.add(id) : processed.contains(id))
+            {
+                return true;
+            }
+            return committed(core).contains(id);
+        }
+
+        void added(long id)
+        {
+            uncommitted.get().add(id);
+        }
+
+        void deleted(long id)
+        {
+            uncommitted.get().remove(id);
+            LongBitmap committedIds = committed;
+            if (committedIds == null)
+            {
+                synchronized (this)
+                {
+                    committedBeforeLoad.remove(id);
+                    committedIds = committed;
+                }
+            }
+            ofNullable(committedIds).ifPresent(ids -> ids.remove(id));
+        }
+
+        /**
+         * Takes the ids added so far: they are part of the commit which is about to start.
+         */
+        LongBitmap beforeCommit()
+        {
+            return uncommitted.getAndSet(new LongBitmap());
+        }
+
+        void afterCommit(LongBitmap ids)
+        {
+            LongBitmap committedIds = committed;
+            if (committedIds == null)
+            {
+                synchronized (this)
+                {
+                    committedIds = committed;
+                    if (committedIds == null)
+                    {
+                        // The searcher which will load the ids may have been opened before this commit
+                        committedBeforeLoad.addAll(ids);
+                        return;
+                    }
+                }
+            }
+            committedIds.addAll(ids);
+        }
+
+        void rollback()
+        {
+            uncommitted.set(new LongBitmap());
+        }
+
+        void clearProcessed()
+        {
+            processed = new LongBitmap();
+        }
+
+        private LongBitmap committed(SolrCore core) throws IOException
+        {
+            LongBitmap ids = committed;
+            if (ids == null)
+            {
+                synchronized (this)
+                {
+                    ids = committed;
+                    if (ids == null)
+                    {
+                        ids = load(core);
+                        ids.addAll(committedBeforeLoad);
+                        committedBeforeLoad = new LongBitmap();
+                        committed = ids;
+                    }
+                }
+            }
+            return ids;
+        }
+
+        private LongBitmap load(SolrCore core) throws IOException
+        {
+            RefCounted<SolrIndexSearcher> refCounted = null;
+            try
+            {
+                refCounted = core.getSearcher();
+                IdCollector collector = new IdCollector(idField);
+                refCounted.get().search(new TermQuery(new Term(FIELD_DOC_TYPE, docType)), collector);
+
+                LOGGER.info("[CORE {}] Loaded {} {} ids from the index", core.getName(), collector.getIds().cardinality(), docType);
+                return collector.getIds();
+            }
+            finally
+            {
+                ofNullable(refCounted).ifPresent(RefCounted::decref);
+            }
+        }
+    }
+
+    /**
+     * Nodes whose text content may have to be fetched, in the order they have been indexed, split in
+     * {@link ContentLane}s. Nodes are collected while they are indexed and handed out once a searcher opened after
+     * their commit, so their state can be checked against the index. Each node is handed out once, unless it is
+     * indexed again or the queue is rebuilt from the index.
+     */
+    static class OutdatedContentQueue
+    {
+        static final long UNKNOWN_SIZE = -1;
+
+        private static final long REBUILD_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(20);
+
+        private final long recentAgeNanos;
+        private final long smallContentSize;
+
+        // Nodes indexed since the last commit
+        private CommittedNodes uncommitted = new CommittedNodes();
+
+        // Committed nodes waiting for a searcher which can see them, in commit order
+        private final Deque<CommittedNodes> committed = new ArrayDeque<>();
+
+        private final Map<ContentLane, LongArrayDeque> lanes = new EnumMap<>(ContentLane.class);
+        private final LongHashSet queued = new LongHashSet();
+
+        // Commit time and content size of the nodes in the recent lane, so they can move to another lane when they get old
+        private final LongArrayDeque recentCommitNanoTimes = new LongArrayDeque();
+        private final LongArrayDeque recentSizes = new LongArrayDeque();
+
+        private boolean rebuilt;
+        private long lastRebuildNanoTime;
+
+        OutdatedContentQueue(long recentAgeMs, long smallContentSize)
+        {
+            this.recentAgeNanos = TimeUnit.MILLISECONDS.toNanos(recentAgeMs);
+            this.smallContentSize = smallContentSize;
+            for (ContentLane lane : ContentLane.values())
+            {
+                lanes.put(lane, new LongArrayDeque());
+            }
+        }
+
+        synchronized void added(long dbId, long size)
+        {
+            uncommitted.sizes.put(dbId, size);
+        }
+
+        /**
+         * Takes the nodes indexed so far: they are part of the commit which is about to start.
+         */
+        synchronized CommittedNodes beforeCommit()
+        {
+            CommittedNodes nodes = uncommitted;
+            nodes.commitNanoTime = System.nanoTime();
+            uncommitted = new CommittedNodes();
+            return nodes;
+        }
+
+        synchronized void afterCommit(CommittedNodes nodes)
+        {
+            if (!nodes.sizes.isEmpty())
+            {
+                committed.add(nodes);
+            }
+        }
+
+        /**
+         * Puts back nodes whose content update failed. They are handed out again in the bulk lane once a searcher
+         * opened after this call, so a node which keeps failing is retried once per commit rather than in a loop.
+         */
+        synchronized void retry(long[] dbIds)
+        {
+            if (dbIds.length > 0)
+            {
+                CommittedNodes nodes = new CommittedNodes();
+                nodes.commitNanoTime = System.nanoTime();
+                nodes.retried = true;
+                for (long dbId : dbIds)
+                {
+                    nodes.sizes.put(dbId, UNKNOWN_SIZE);
+                }
+                committed.add(nodes);
+            }
+        }
+
+        synchronized void rollback()
+        {
+            uncommitted = new CommittedNodes();
+
+            // The content updates of the nodes handed out since the last commit have been rolled back as well
+            rebuilt = false;
+        }
+
+        synchronized boolean needsRebuild()
+        {
+            return !rebuilt || (size() == 0 && System.nanoTime() - lastRebuildNanoTime > REBUILD_INTERVAL_NANOS);
+        }
+
+        /**
+         * Replaces the queued nodes with the nodes found by a searcher, including the commits it can see.
+         * Their content size is not known, so they all go to the bulk lane.
+         */
+        synchronized void rebuild(long[] dbIds, long searcherOpenNanoTime)
+        {
+            lanes.values().forEach(LongArrayDeque::clear);
+            recentCommitNanoTimes.clear();
+            recentSizes.clear();
+            queued.clear();
+            committed.removeIf(nodes -> searcherOpenNanoTime - nodes.commitNanoTime > 0);
+            for (long dbId : dbIds)
+            {
+                if (queued.add(dbId))
+                {
+                    lanes.get(ContentLane.BULK).addLast(dbId);
+                }
+            }
+            rebuilt = true;
+            lastRebuildNanoTime = System.nanoTime();
+        }
+
+        /**
+         * @return up to max nodes of the given lane, among the ones committed before the searcher has been opened.
+         */
+        synchronized long[] poll(ContentLane lane, int max, long searcherOpenNanoTime)
+        {
+            long now = System.nanoTime();
+            while (!committed.isEmpty() && searcherOpenNanoTime - committed.peek().commitNanoTime > 0)
+            {
+                CommittedNodes nodes = committed.poll();
+                for (LongLongCursor cursor : nodes.sizes)
+                {
+                    if (nodes.retried)
+                    {
+                        if (queued.add(cursor.key))
+                        {
+                            lanes.get(ContentLane.BULK).addLast(cursor.key);
+                        }
+                    }
+                    else
+                    {
+                        offer(cursor.key, cursor.value, nodes.commitNanoTime, now);
+                    }
+                }
+            }
+
+            // Recent nodes are in commit order, the ones which got old are at the head
+            LongArrayDeque recent = lanes.get(ContentLane.RECENT);
+            while (!recent.isEmpty() && now - recentCommitNanoTimes.getFirst() >= recentAgeNanos)
             {
-                txnSet.add(txnId);
+                recentCommitNanoTimes.removeFirst();
+                lanes.get(laneBySize(recentSizes.removeFirst())).addLast(recent.removeFirst());
+            }
 
+            LongArrayDeque queue = lanes.get(lane);
+            long[] dbIds = new long[Math.min(max, queue.size())];
+            for (int i = 0; i < dbIds.length; i++)
+            {
+                dbIds[i] = queue.removeFirst();
+                queued.remove(dbIds[i]);
+                if (lane == ContentLane.RECENT)
+                {
+                    recentCommitNanoTimes.removeFirst();
+                    recentSizes.removeFirst();
+                }
             }
+            return dbIds;
+        }
+
+        synchronized int size()
+        {
+            return lanes.values().stream().mapToInt(LongArrayDeque::size).sum();
         }
 
-        LongHashSet getTxnSet()
+        synchronized int size(ContentLane lane)
         {
-            return txnSet;
+            return lanes.get(lane).size();
+        }
+
+        private void offer(long dbId, long size, long commitNanoTime, long now)
+        {
+            if (queued.add(dbId))
+            {
+                if (now - commitNanoTime < recentAgeNanos)
+                {
+                    lanes.get(ContentLane.RECENT).addLast(dbId);
+                    recentCommitNanoTimes.addLast(commitNanoTime);
+                    recentSizes.addLast(size);
+                }
+                else
+                {
+                    lanes.get(laneBySize(size)).addLast(dbId);
+                }
+            }
+        }
+
+        private ContentLane laneBySize(long size)
+        {
+            return size != UNKNOWN_SIZE && size <= smallContentSize ? ContentLane.SMALL : ContentLane.BULK;
         }
     }
 
-    static class LRU extends LinkedHashMap<Long,Long>
+    static class CommittedNodes
     {
-        private final int maxSize;
+        // Content size of each node
+        private final LongLongHashMap sizes = new LongLongHashMap();
+        private long commitNanoTime;
+
+        // Nodes put back after a failed content update, rather than indexed
+        private boolean retried;
+    }
 
-        LRU(int maxSize)
+    static class IdCollector extends DelegatingCollector
+    {
+        private NumericDocValues currentLongs;
+        private final LongBitmap ids = new LongBitmap();
+        private final String field;
+
+        IdCollector(String field)
         {
-            super((int)(maxSize*1.35));
-            this.maxSize = maxSize;
+            this.field = field;
         }
 
         @Override
-        protected boolean removeEldestEntry(Map.Entry eldest)
+        public void doSetNextReader(LeafReaderContext context) throws IOException
         {
-            return size() > this.maxSize;
+            currentLongs = DocValues.getNumeric(context.reader(), field);
+        }
+
+        @Override
+        public boolean needsScores()
+        {
+            return false;
+        }
+
+        @Override
+        public void collect(int doc)
+        {
+            ids.add(currentLongs.get(doc));
+        }
+
+        LongBitmap getIds()
+        {
+            return ids;
         }
     }
 
@@ -632,6 +1000,12 @@ public class SolrInformationServer implements InformationServer
         
         getPathsInNodeBatches = Boolean.parseBoolean(coreConfiguration.getProperty("alfresco.metadata.getPathsInNodeBatches", "true"));
 
+        cascadeMetadataBatchSize = Integer.parseInt(coreConfiguration.getProperty("alfresco.cascade.tracker.metadataBatchSize", "100"));
+
+        outdatedContent = new OutdatedContentQueue(
+                Long.parseLong(coreConfiguration.getProperty("alfresco.content.lanes.recentAge", "600000")),
+                Long.parseLong(coreConfiguration.getProperty("alfresco.content.lanes.smallContentSize", "1048576")));
+
         props = AlfrescoSolrDataModel.getCommonConfig();
         hostName = ConfigUtil.locateProperty(SOLR_HOST, props.getProperty(SOLR_HOST));
 
@@ -864,159 +1238,50 @@ public class SolrInformationServer implements InformationServer
     }
 
     @Override
-    public List<TenantDbId> getDocsWithUncleanContent() throws IOException
+    public List<TenantDbId> getDocsWithUncleanContent(ContentLane lane, int max) throws IOException
     {
         RefCounted<SolrIndexSearcher> refCounted = null;
         try
         {
-            List<TenantDbId> docIds = new ArrayList<>();
             refCounted = this.core.getSearcher();
             SolrIndexSearcher searcher = refCounted.get();
 
             /*
-            *  Below is the code for purging the cleanContentCache.
-            *  The cleanContentCache is an in-memory LRU cache of the transactions that have already
-            *  had their content fetched. This is needed because the ContentTracker does not have an up-to-date
-            *  snapshot of the index to determine which nodes are marked as dirty/new. The cleanContentCache is used
-            *  to filter out nodes that belong to transactions that have already been processed, which stops them from
-            *  being re-processed.
-            *
-            *  The cleanContentCache needs to be purged periodically to support retrying of failed content fetches.
-            *  This is because fetches for individual nodes within the transaction may have failed, but the transaction will still be in the
-            *  cleanContentCache, which prevents it from being retried.
-            *
-            *  Once a transaction is purged from the cleanContentCache it will be retried automatically if it is marked dirty/new
-            *  in current snapshot of the index.
-            *
-            *  The code below runs every two minutes and purges transactions from the
-            *  cleanContentCache that is more than 20 minutes old.
-            *
+            *  Nodes are queued for the ContentTracker while they are indexed, so there is no need to scan the index
+            *  for documents with outdated content. Nodes whose content update failed are put back in the queue.
+            *  The queue is rebuilt from the index the first time, after a rollback, then whenever it has been drained
+            *  and the previous rebuild is more than 20 minutes old, in case some nodes have been missed.
             */
-            long purgeTime = System.currentTimeMillis();
-            if(purgeTime - cleanContentLastPurged > 120000)
+            if (outdatedContent.needsRebuild())
             {
-                Iterator<Entry<Long,Long>> entries = cleanContentCache.entrySet().iterator();
-                while (entries.hasNext())
-                {
-                    Entry<Long, Long> entry = entries.next();
-                    long txnTime = entry.getValue();
-                    if (purgeTime - txnTime > 1200000)
-                    {
-                        //Purge the clean content cache of records more then 20 minutes old.
-                        entries.remove();
-                    }
-                }
-                cleanContentLastPurged = purgeTime;
-            }
-
-            long txnFloor;
-            Sort sort = new Sort(new SortField(FIELD_INTXID, SortField.Type.LONG));
-            sort = sort.rewrite(searcher);
-            TopFieldCollector collector = TopFieldCollector.create(sort,
-                    1,
-                    null,
-                    false,
-                    false,
-                    false);
-
-            DelegatingCollector delegatingCollector = new TxnCacheFilter(cleanContentCache); //Filter transactions that have already been processed.
-            delegatingCollector.setLastDelegate(collector);
-            searcher.search(documentsWithOutdatedContentQuery(), delegatingCollector);
+                DbIdCollector collector = new DbIdCollector();
+                searcher.search(documentsWithOutdatedContentQuery(), collector);
+                long[] dbIds = collector.getIds();
+                outdatedContent.rebuild(dbIds, searcher.getOpenNanoTime());
 
-            LOGGER.debug("{}-[CORE {}] Processing {} documents with content to be indexed", Thread.currentThread().getId(), core.getName(), collector.getTotalHits());
-
-
-            if(collector.getTotalHits() == 0)
-            {
-                LOGGER.debug("No documents with outdated text content have been found.");
-                return docIds;
+                LOGGER.info("[CORE {}] Found {} documents with outdated text content in the index.", core.getName(), dbIds.length);
             }
 
-            LOGGER.debug("Found {} documents with outdated text content.", collector.getTotalHits());
-
-            ScoreDoc[] scoreDocs = collector.topDocs().scoreDocs;
-            List<LeafReaderContext> leaves = searcher.getTopReaderContext().leaves();
-            int index = ReaderUtil.subIndex(scoreDocs[0].doc, leaves);
-            LeafReaderContext context = leaves.get(index);
-            NumericDocValues longs = context.reader().getNumericDocValues(FIELD_INTXID);
-            txnFloor = longs.get(scoreDocs[0].doc - context.docBase);
-
-            //Find the next N transactions
-            //The TxnCollector collects the transaction ids from the matching documents
-            //The txnIds are limited to a range >= the txnFloor and < an arbitrary transaction ceiling.
-            TxnCollector txnCollector = new TxnCollector(txnFloor);
-            searcher.search(documentsWithOutdatedContentQuery(), txnCollector);
-            LongHashSet txnSet = txnCollector.getTxnSet();
-
-            if(txnSet.size() == 0)
-            {
-                //This should really never be the case, at a minimum the transaction floor should be collected.
-                return docIds;
-            }
-
-            FieldType fieldType = searcher.getSchema().getField(FIELD_INTXID).getType();
-            BooleanQuery.Builder builder = new BooleanQuery.Builder();
-
-            for (LongCursor cursor : txnSet)
-            {
-                long txnID = cursor.value;
-                //Build up the query for the filter of transactions we need to pull the dirty content for.
-                TermQuery txnIDQuery = new TermQuery(new Term(FIELD_INTXID, fieldType.readableToIndexed(Long.toString(txnID))));
-                builder.add(new BooleanClause(txnIDQuery, BooleanClause.Occur.SHOULD));
-            }
-
-            BooleanQuery txnFilterQuery = builder.build();
-
-            //Get the docs with dirty content for the transactions gathered above.
-            DocListCollector docListCollector = new DocListCollector();
-            BooleanQuery.Builder builder2 = new BooleanQuery.Builder();
-
-            builder2.add(documentsWithOutdatedContentQuery(), BooleanClause.Occur.MUST);
-            builder2.add(new QueryWrapperFilter(txnFilterQuery), BooleanClause.Occur.MUST);
-
-            searcher.search(builder2.build(), docListCollector);
-            IntArrayList docList = docListCollector.getDocs();
-            int size = docList.size();
-
-            List<Long> processedTxns = new ArrayList<>();
-            for (int i = 0; i < size; ++i)
+            List<TenantDbId> docIds = new ArrayList<>();
+            while (docIds.isEmpty())
             {
-                int doc = docList.get(i);
-                Document document = searcher.doc(doc, ID_AND_CONTENT_VERSION_ID_AND_CONTENT_LOCALE);
-                index = ReaderUtil.subIndex(doc, leaves);
-                context = leaves.get(index);
-                longs = context.reader().getNumericDocValues(FIELD_INTXID);
-
-                long txnId = longs.get(doc - context.docBase);
-
-                if(!cleanContentCache.containsKey(txnId))
+                long[] dbIds = outdatedContent.poll(lane, max, searcher.getOpenNanoTime());
+                if (dbIds.length == 0)
                 {
-                    processedTxns.add(txnId);
-                    IndexableField id = document.getField(FIELD_SOLR4_ID);
-                    String idString = id.stringValue();
-                    TenantDbId tenantAndDbId = AlfrescoSolrDataModel.decodeNodeDocumentId(idString);
-
-                    ofNullable(document.getField(CONTENT_LOCALE_FIELD))
-                            .map(IndexableField::stringValue)
-                            .ifPresent(value -> tenantAndDbId.setProperty(CONTENT_LOCALE_FIELD, value));
-
-                    tenantAndDbId.setProperty(
-                            LATEST_APPLIED_CONTENT_VERSION_ID,
-                            ofNullable(document.getField(LATEST_APPLIED_CONTENT_VERSION_ID))
-                                    .map(IndexableField::stringValue)
-                                    .orElse(null));
-                    docIds.add(tenantAndDbId);
+                    LOGGER.debug("No documents with outdated text content have been found in the {} lane.", lane);
+                    break;
                 }
-            }
 
-            long txnTime = System.currentTimeMillis();
+                // Queued nodes could have been updated again or deleted in the meantime
+                docIds.addAll(documentsWithOutdatedContent(searcher, dbIds));
+            }
 
-            for(Long l : processedTxns)
+            for (ContentLane queuedLane : ContentLane.values())
             {
-                //Save the indexVersion so we know when we can clean out this entry
-                cleanContentCache.put(l, txnTime);
+                trackerStats.setContentLaneDepth(queuedLane.name(), outdatedContent.size(queuedLane));
             }
 
+            LOGGER.debug("{}-[CORE {}] Processing {} documents with content to be indexed in the {} lane", Thread.currentThread().getId(), core.getName(), docIds.size(), lane);
             return docIds;
         }
         finally
@@ -1025,6 +1290,48 @@ public class SolrInformationServer implements InformationServer
         }
     }
 
+    private List<TenantDbId> documentsWithOutdatedContent(SolrIndexSearcher searcher, long[] dbIds) throws IOException
+    {
+        FieldType fieldType = searcher.getSchema().getField(FIELD_DBID).getType();
+        List<BytesRef> terms = new ArrayList<>(dbIds.length);
+        for (long dbId : dbIds)
+        {
+            BytesRefBuilder bytesRefBuilder = new BytesRefBuilder();
+            fieldType.readableToIndexed(Long.toString(dbId), bytesRefBuilder);
+            terms.add(bytesRefBuilder.toBytesRef());
+        }
+
+        Query query = new BooleanQuery.Builder()
+                .add(documentsWithOutdatedContentQuery(), BooleanClause.Occur.MUST)
+                .add(new TermInSetQuery(FIELD_DBID, terms), BooleanClause.Occur.FILTER)
+                .build();
+
+        DocListCollector docListCollector = new DocListCollector();
+        searcher.search(query, docListCollector);
+        IntArrayList docList = docListCollector.getDocs();
+        int size = docList.size();
+
+        List<TenantDbId> docIds = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i)
+        {
+            Document document = searcher.doc(docList.get(i), ID_AND_CONTENT_VERSION_ID_AND_CONTENT_LOCALE);
+            IndexableField id = document.getField(FIELD_SOLR4_ID);
+            TenantDbId tenantAndDbId = AlfrescoSolrDataModel.decodeNodeDocumentId(id.stringValue());
+
+            ofNullable(document.getField(CONTENT_LOCALE_FIELD))
+                    .map(IndexableField::stringValue)
+                    .ifPresent(value -> tenantAndDbId.setProperty(CONTENT_LOCALE_FIELD, value));
+
+            tenantAndDbId.setProperty(
+                    LATEST_APPLIED_CONTENT_VERSION_ID,
+                    ofNullable(document.getField(LATEST_APPLIED_CONTENT_VERSION_ID))
+                            .map(IndexableField::stringValue)
+                            .orElse(null));
+            docIds.add(tenantAndDbId);
+        }
+        return docIds;
+    }
+
     @Override
     public void addCommonNodeReportInfo(NodeReport nodeReport)
     {
@@ -1046,7 +1353,13 @@ public class SolrInformationServer implements InformationServer
             try (SolrQueryRequest request = newSolrQueryRequest())
             {
                 processor = this.core.getUpdateProcessingChain(null).createProcessor(request, newSolrQueryResponse());
+                LongBitmap transactions = indexedTransactions.beforeCommit();
+                LongBitmap aclChangeSets = indexedAclChangeSets.beforeCommit();
+                CommittedNodes nodes = outdatedContent.beforeCommit();
                 processor.processCommit(new CommitUpdateCommand(request, false));
+                indexedTransactions.afterCommit(transactions);
+                indexedAclChangeSets.afterCommit(aclChangeSets);
+                outdatedContent.afterCommit(nodes);
             }
             finally
             {
@@ -1077,7 +1390,13 @@ public class SolrInformationServer implements InformationServer
                 commitUpdateCommand.openSearcher = false;
                 commitUpdateCommand.softCommit = false;
                 commitUpdateCommand.waitSearcher = false;
+                LongBitmap transactions = indexedTransactions.beforeCommit();
+                LongBitmap aclChangeSets = indexedAclChangeSets.beforeCommit();
+                CommittedNodes nodes = outdatedContent.beforeCommit();
                 processor.processCommit(commitUpdateCommand);
+                indexedTransactions.afterCommit(transactions);
+                indexedAclChangeSets.afterCommit(aclChangeSets);
+                outdatedContent.afterCommit(nodes);
             }
             finally
             {
@@ -1096,75 +1415,126 @@ public class SolrInformationServer implements InformationServer
     @Override
     public boolean commit(boolean openSearcher) throws IOException
     {
-        canUpdate();
-
-        UpdateRequestProcessor processor = null;
-        boolean searcherOpened = false;
-        try (SolrQueryRequest request = newSolrQueryRequest())
+        // indexing carries on during non-blocking commits, but commits and rollbacks must not overlap
+        commitAndRollbackLock.writeLock().lock();
+        try
         {
-            processor = this.core.getUpdateProcessingChain(null).createProcessor(request, newSolrQueryResponse());
-            CommitUpdateCommand command = new CommitUpdateCommand(request, false);
-            if (openSearcher)
+            canUpdate();
+
+            UpdateRequestProcessor processor = null;
+            boolean searcherOpened = false;
+            try (SolrQueryRequest request = newSolrQueryRequest())
             {
-                RefCounted<SolrIndexSearcher> active = null;
-                RefCounted<SolrIndexSearcher> newest = null;
-                try
+                processor = this.core.getUpdateProcessingChain(null).createProcessor(request, newSolrQueryResponse());
+                CommitUpdateCommand command = new CommitUpdateCommand(request, false);
+                if (openSearcher)
                 {
-                    active = core.getSearcher();
-                    newest = core.getNewestSearcher(false);
-                    if (active.get() == newest.get())
+                    RefCounted<SolrIndexSearcher> active = null;
+                    RefCounted<SolrIndexSearcher> newest = null;
+                    try
                     {
-                        searcherOpened = command.openSearcher = true;
-                        command.waitSearcher = false;
+                        active = core.getSearcher();
+                        newest = core.getNewestSearcher(false);
+                        if (active.get() == newest.get())
+                        {
+                            searcherOpened = command.openSearcher = true;
+                            command.waitSearcher = false;
+                        }
+                        else
+                        {
+                            searcherOpened = command.openSearcher = false;
+                        }
                     }
-                    else
+                    finally
                     {
-                        searcherOpened = command.openSearcher = false;
+                        ofNullable(active).ifPresent(RefCounted::decref);
+                        ofNullable(newest).ifPresent(RefCounted::decref);
                     }
                 }
-                finally
+                LongBitmap transactions = indexedTransactions.beforeCommit();
+                LongBitmap aclChangeSets = indexedAclChangeSets.beforeCommit();
+                CommittedNodes nodes = outdatedContent.beforeCommit();
+                processor.processCommit(command);
+                indexedTransactions.afterCommit(transactions);
+                indexedAclChangeSets.afterCommit(aclChangeSets);
+                outdatedContent.afterCommit(nodes);
+            }
+            finally
+            {
+                if (processor != null)
                 {
-                    ofNullable(active).ifPresent(RefCounted::decref);
-                    ofNullable(newest).ifPresent(RefCounted::decref);
+                    processor.finish();
                 }
             }
-            processor.processCommit(command);
+
+            return searcherOpened;
         }
         finally
         {
-            if (processor != null)
-            {
-                processor.finish();
-            }
+            commitAndRollbackLock.writeLock().unlock();
         }
-
-        return searcherOpened;
     }
 
     @Override
     public void deleteByAclChangeSetId(Long aclChangeSetId) throws IOException
     {
-        deleteById(FIELD_INACLTXID, aclChangeSetId);
+        indexedAclChangeSets.deleted(aclChangeSetId);
+        deleteByIds(FIELD_INACLTXID, new long[] {aclChangeSetId});
     }
 
     @Override
     public void deleteByAclId(Long aclId) throws IOException
     {
         isIdIndexCache.clear();
-        deleteById(FIELD_ACLID, aclId);
+        deleteByIds(FIELD_ACLID, new long[] {aclId});
     }
 
     @Override
     public void deleteByNodeId(Long nodeId) throws IOException
     {
-        deleteById(FIELD_DBID, nodeId);
+        deleteByIds(FIELD_DBID, new long[] {nodeId});
     }
 
     @Override
     public void deleteByTransactionId(Long transactionId) throws IOException
     {
         isIdIndexCache.clear();
-        deleteById(FIELD_INTXID, transactionId);
+        indexedTransactions.deleted(transactionId);
+        deleteByIds(FIELD_INTXID, new long[] {transactionId});
+    }
+
+    @Override
+    public void deleteByTransactionIds(long[] transactionIds) throws IOException
+    {
+        isIdIndexCache.clear();
+        for (long transactionId : transactionIds)
+        {
+            indexedTransactions.deleted(transactionId);
+        }
+        deleteByIds(FIELD_INTXID, transactionIds);
+    }
+
+    @Override
+    public void deleteByAclChangeSetIds(long[] aclChangeSetIds) throws IOException
+    {
+        for (long aclChangeSetId : aclChangeSetIds)
+        {
+            indexedAclChangeSets.deleted(aclChangeSetId);
+        }
+        deleteByIds(FIELD_INACLTXID, aclChangeSetIds);
+    }
+
+    @Override
+    public void deleteByAclIds(long[] aclIds) throws IOException
+    {
+        isIdIndexCache.clear();
+        deleteByIds(FIELD_ACLID, aclIds);
+    }
+
+    @Override
+    public void deleteByNodeIds(long[] nodeIds) throws IOException
+    {
+        deleteByIds(FIELD_DBID, nodeIds);
     }
 
     @Override
@@ -1233,14 +1603,10 @@ public class SolrInformationServer implements InformationServer
                     coreSummary.add("/queryResultCache", infoMBean.getStatistics());
                 }
 
-                if (key.equals("alfrescoAuthorityCache"))
+                // Hit ratio, evictions and, for the caches bounded by maxRamMB, RAM used of the alfresco caches
+                if (key.startsWith("alfresco") && key.endsWith("Cache"))
                 {
-                    coreSummary.add("/alfrescoAuthorityCache", infoMBean.getStatistics());
-                }
-
-                if (key.equals("alfrescoPathCache"))
-                {
-                    coreSummary.add("/alfrescoPathCache", infoMBean.getStatistics());
+                    coreSummary.add("/" + key, infoMBean.getStatistics());
                 }
             }
 
@@ -1255,7 +1621,10 @@ public class SolrInformationServer implements InformationServer
                 searcherIndex++;
             }
 
+            coreSummary.add("/alfrescoCleanCascadeCache", cacheStatistics(cleanCascadeCache));
+
             coreSummary.add("Number of Searchers", searchers.size());
+            coreSummary.add("Documents with Outdated Content Queued", outdatedContent.size());
             // This is zero for Solr4, whereas we had some local caches before
             coreSummary.add("Total Searcher Cache (GB)", 0);
 
@@ -1561,6 +1930,12 @@ public class SolrInformationServer implements InformationServer
 
     @Override
     public void indexAclTransaction(AclChangeSet changeSet, boolean overwrite) throws IOException
+    {
+        indexAclTransaction(changeSet, overwrite, true);
+    }
+
+    @Override
+    public void indexAclTransaction(AclChangeSet changeSet, boolean overwrite, boolean updateTrackerState) throws IOException
     {
         canUpdate();
         UpdateRequestProcessor processor = null;
@@ -1581,7 +1956,11 @@ public class SolrInformationServer implements InformationServer
             cmd.solrDoc = aclTx;
             processor.processAdd(cmd);
 
-            putAclTransactionState(processor, request, changeSet);
+            if (updateTrackerState)
+            {
+                putAclTransactionState(processor, request, changeSet);
+            }
+            indexedAclChangeSets.added(changeSet.getId());
         }
         finally
         {
@@ -1609,7 +1988,6 @@ public class SolrInformationServer implements InformationServer
     @Override
     public void dirtyTransaction(long txnId)
     {
-        this.cleanContentCache.remove(txnId);
         if (cascadeTrackingEnabled())
         {
             this.cleanCascadeCache.remove(txnId);
@@ -1726,7 +2104,6 @@ public class SolrInformationServer implements InformationServer
                 if (node.getTxnId() == Long.MAX_VALUE)
                 {
                     LOGGER.debug("Node {} index request is part of a re-index.", node.getId());
-                    this.cleanContentCache.remove(nodeMetaData.getTxnId());
                 }
 
                 if (node.getStatus() == SolrApiNodeStatus.UPDATED || node.getStatus() == SolrApiNodeStatus.UNKNOWN)
@@ -1756,6 +2133,10 @@ public class SolrInformationServer implements InformationServer
                     if (addDocCmd != null)
                     {
                         processor.processAdd(addDocCmd);
+                        if (isIndexed)
+                        {
+                            queueForContentUpdate(nodeMetaData);
+                        }
                     }
                     
                 }
@@ -1856,11 +2237,10 @@ public class SolrInformationServer implements InformationServer
 
         List<NodeMetaData> allNodeMetaDatas = new ArrayList<>();
 
-        for (Long parentNodeId : parentNodesId)
+        for (List<Long> parentNodeIds : Lists.partition(new ArrayList<>(parentNodesId), cascadeMetadataBatchSize))
         {
             NodeMetaDataParameters nmdp = new NodeMetaDataParameters();
-            nmdp.setFromNodeId(parentNodeId);
-            nmdp.setToNodeId(parentNodeId);
+            nmdp.setNodeIds(parentNodeIds);
             nmdp.setIncludeAclId(true);
             nmdp.setIncludeChildAssociations(false);
             nmdp.setIncludeChildIds(true);
@@ -1869,8 +2249,7 @@ public class SolrInformationServer implements InformationServer
             nmdp.setIncludePaths(true);
             nmdp.setIncludeProperties(false);
             nmdp.setIncludeTxnId(true);
-            nmdp.setMaxResults(1);
-            // Gets only one
+            nmdp.setMaxResults(Integer.MAX_VALUE);
             Optional<Collection<NodeMetaData>> nodeMetaDatas = getNodesMetaDataFromRepository(nmdp);
             allNodeMetaDatas.addAll(nodeMetaDatas.orElse(Collections.emptyList()));
         }
@@ -1881,15 +2260,13 @@ public class SolrInformationServer implements InformationServer
     @Override
     public void cascadeNodes(List<NodeMetaData> nodeMetaDatas, boolean overwrite) throws IOException, JSONException
     {
-        UpdateRequestProcessor processor = null;
-        try (SolrQueryRequest request = newSolrQueryRequest())
+        try
         {
-            processor = this.core.getUpdateProcessingChain(null).createProcessor(request, newSolrQueryResponse());
             for (NodeMetaData nodeMetaData : nodeMetaDatas)
             {
                 if (mayHaveChildren(nodeMetaData))
                 {
-                    cascadeUpdateV2(nodeMetaData, overwrite, request, processor);
+                    cascadeUpdateV2(nodeMetaData, overwrite);
                 }
             }
         }
@@ -1898,69 +2275,124 @@ public class SolrInformationServer implements InformationServer
             LOGGER.error("Exception while processing cascading updates from the parent nodes. " +
                     "See the stacktrace below for further details.",
                     exception);
-        }
-        finally
-        {
-            if (processor != null)
-            {
-                processor.finish();
-            }
+            throw exception;
         }
     }
 
     @Override
     public void updateContent(TenantDbId docRef) throws Exception
     {
-        LOGGER.debug("Text content of Document DBID={} is going to be updated.", docRef.dbId);
+        updateContent(Collections.singletonList(docRef), ForkJoinPool.commonPool(), 1);
+    }
+
+    @Override
+    public void updateContent(List<TenantDbId> docRefs, ForkJoinPool fetchPool, int maxConcurrentFetches) throws Exception
+    {
+        LOGGER.debug("Text content of {} documents is going to be updated.", docRefs.size());
+
+        String qNamePart = CONTENT_LOCALE_FIELD.substring(AlfrescoSolrDataModel.CONTENT_S_LOCALE_PREFIX.length());
+        QName propertyQName = QName.createQName(qNamePart);
+
+        Map<Long, TenantDbId> docRefsWithContent =
+                docRefs.stream()
+                    .filter(docRef -> docRef.optionalBag.containsKey(CONTENT_LOCALE_FIELD))
+                    .collect(Collectors.toMap(docRef -> docRef.dbId, Function.identity(), (first, second) -> first));
 
         UpdateRequestProcessor processor = null;
         try (SolrQueryRequest request = newSolrQueryRequest())
         {
             processor = this.core.getUpdateProcessingChain(null).createProcessor(request, newSolrQueryResponse());
 
-            SolrInputDocument doc = new PartialSolrInputDocument();
-            doc.removeField(FIELD_DBID);
-            doc.addField(FIELD_DBID, docRef.dbId);
-            doc.setField(FIELD_SOLR4_ID,
-                    AlfrescoSolrDataModel.getNodeDocumentId(
-                            docRef.tenant,
-                            docRef.dbId));
-
-            if (docRef.optionalBag.containsKey(CONTENT_LOCALE_FIELD))
+            LongArrayList failedDbIds = new LongArrayList();
+            for (TenantDbId docRef : docRefs)
             {
-                addContentToDoc(docRef, doc, docRef.dbId);
+                if (!docRefsWithContent.containsKey(docRef.dbId))
+                {
+                    try
+                    {
+                        addContentUpdate(request, processor, docRef, newContentUpdateDocument(docRef));
+                    }
+                    catch (Exception exception)
+                    {
+                        failedDbIds.add(docRef.dbId);
+                        LOGGER.error("Unable to update the text content of node {}. See the stacktrace below for further details.", docRef.dbId, exception);
+                    }
+                }
             }
 
-            LOGGER.debug("Text content of Document DBID={} has been updated (not yet indexed)", docRef.dbId);
+            // The text content is fetched and decoded concurrently, and each document is added to the session as soon
+            // as it is decoded: only the documents being fetched are held in memory, not the whole batch.
+            final UpdateRequestProcessor sessionProcessor = processor;
+            repositoryClient.getTextContent(
+                    new ArrayList<>(docRefsWithContent.keySet()),
+                    propertyQName,
+                    fetchPool,
+                    maxConcurrentFetches,
+                    (dbId, response) -> {
+                        TenantDbId docRef = docRefsWithContent.get(dbId);
+                        SolrInputDocument doc = newContentUpdateDocument(docRef);
+                        addContentPropertyToDoc(doc, propertyQName, (String) docRef.optionalBag.get(CONTENT_LOCALE_FIELD), response);
+                        addContentUpdate(request, sessionProcessor, docRef, doc);
+                    })
+                    .forEach((dbId, exception) -> {
+                        failedDbIds.add(dbId);
+                        LOGGER.error("Unable to update the text content of node {}. See the stacktrace below for further details.", dbId, exception);
+                    });
 
-            final Long latestAppliedVersionId =
-                        ofNullable(docRef.optionalBag.get(LATEST_APPLIED_CONTENT_VERSION_ID))
-                                .map(String.class::cast)
-                                .map(Long::parseLong)
-                                .orElse(CONTENT_UPDATED_MARKER);
+            outdatedContent.retry(failedDbIds.toArray());
+        }
+        finally
+        {
+            if(processor != null) {processor.finish();}
+        }
+    }
 
-            markAsContentInSynch(doc, latestAppliedVersionId);
+    /**
+     * Marks the document as in sync with the repository content and adds it to the update session.
+     * The processors of an update session are not thread safe, so the adds of concurrent fetches are serialised.
+     */
+    private void addContentUpdate(SolrQueryRequest request, UpdateRequestProcessor processor, TenantDbId docRef, SolrInputDocument doc) throws IOException
+    {
+        final Long latestAppliedVersionId =
+                ofNullable(docRef.optionalBag.get(LATEST_APPLIED_CONTENT_VERSION_ID))
+                        .map(String.class::cast)
+                        .map(Long::parseLong)
+                        .orElse(CONTENT_UPDATED_MARKER);
 
-            // Add to index
-            AddUpdateCommand addDocCmd = new AddUpdateCommand(request);
-            addDocCmd.overwrite = true;
-            addDocCmd.solrDoc = doc;
+        markAsContentInSynch(doc, latestAppliedVersionId);
 
-            processor.processAdd(addDocCmd);
+        // Add to index
+        AddUpdateCommand addDocCmd = new AddUpdateCommand(request);
+        addDocCmd.overwrite = true;
+        addDocCmd.solrDoc = doc;
 
-            LOGGER.debug(
-                    "Text content of Document DBID={} has been marked as updated (latest content version ID = {})",
-                    docRef.dbId,
-                    (latestAppliedVersionId == CONTENT_UPDATED_MARKER ? "N.A." : latestAppliedVersionId));
-        }
-        catch (Exception exception)
-        {
-            LOGGER.error("Unable to update the text content of node {}. See the stacktrace below for further details.", docRef.dbId, exception);
-        }
-        finally
+        synchronized (processor)
         {
-            if(processor != null) {processor.finish();}
+            processor.processAdd(addDocCmd);
         }
+
+        LOGGER.debug(
+                "Text content of Document DBID={} has been marked as updated (latest content version ID = {})",
+                docRef.dbId,
+                (latestAppliedVersionId == CONTENT_UPDATED_MARKER ? "N.A." : latestAppliedVersionId));
+    }
+
+    @Override
+    public void retryContentUpdate(List<TenantDbId> docRefs)
+    {
+        outdatedContent.retry(docRefs.stream().mapToLong(docRef -> docRef.dbId).toArray());
+    }
+
+    private SolrInputDocument newContentUpdateDocument(TenantDbId docRef)
+    {
+        SolrInputDocument doc = new PartialSolrInputDocument();
+        doc.removeField(FIELD_DBID);
+        doc.addField(FIELD_DBID, docRef.dbId);
+        doc.setField(FIELD_SOLR4_ID,
+                AlfrescoSolrDataModel.getNodeDocumentId(
+                        docRef.tenant,
+                        docRef.dbId));
+        return doc;
     }
 
 
@@ -2035,8 +2467,11 @@ public class SolrInformationServer implements InformationServer
 
                 LOGGER.debug("Deleting");
                 DeleteUpdateCommand delDocCmd = new DeleteUpdateCommand(request);
-                String query = this.cloud.getQuery(FIELD_DBID, OR, deletedNodeIds, shardDeletedNodeIds, shardUpdatedNodeIds, unknownNodeIds);
-                delDocCmd.setQuery(query);
+                long[] nodeIdsToDelete = Stream.of(deletedNodeIds, shardDeletedNodeIds, shardUpdatedNodeIds, unknownNodeIds)
+                        .flatMap(List::stream)
+                        .mapToLong(Long::longValue)
+                        .toArray();
+                delDocCmd.setQuery(termsQuery(FIELD_DBID, nodeIdsToDelete));
                 processor.processDelete(delDocCmd);
             }
 
@@ -2117,6 +2552,7 @@ public class SolrInformationServer implements InformationServer
                             populateWithMetadata(basicDocument(nodeMetaData, DOC_TYPE_NODE, PartialSolrInputDocument::new),
                                     nodeMetaData, nmdp);
                     processor.processAdd(addDocCmd);
+                    queueForContentUpdate(nodeMetaData);
 
                     this.trackerStats.addNodeTime(System.nanoTime() - start);
                 }
@@ -2674,6 +3110,26 @@ public class SolrInformationServer implements InformationServer
                         () ->  document.setField(LAST_INCOMING_CONTENT_VERSION_ID, CONTENT_OUTDATED_MARKER));
     }
 
+    /**
+     * Queues the node for the ContentTracker, when it has at least one content property.
+     * The queue is only a hint: the node is checked against the index before fetching its content.
+     * The total length of its content properties decides the lane where the node waits once it is no longer recent.
+     */
+    private void queueForContentUpdate(NodeMetaData nodeMetaData)
+    {
+        long[] lengths = nodeMetaData.getProperties().values().stream()
+                .flatMap(value -> value instanceof MultiPropertyValue
+                        ? ((MultiPropertyValue) value).getValues().stream()
+                        : Stream.of(value))
+                .filter(ContentPropertyValue.class::isInstance)
+                .mapToLong(value -> ((ContentPropertyValue) value).getLength())
+                .toArray();
+        if (lengths.length > 0)
+        {
+            outdatedContent.added(nodeMetaData.getId(), LongStream.of(lengths).sum());
+        }
+    }
+
     private void addContentProperty(
             BiConsumer<String, Object> consumer,
             SolrInputDocument document,
@@ -2693,24 +3149,20 @@ public class SolrInformationServer implements InformationServer
         }
     }
 
-    private void addContentToDoc(TenantDbId docRef, SolrInputDocument doc, long dbId) throws AuthenticationException, IOException
-    {
-        String locale = (String) docRef.optionalBag.get(CONTENT_LOCALE_FIELD);
-        String qNamePart = CONTENT_LOCALE_FIELD.substring(AlfrescoSolrDataModel.CONTENT_S_LOCALE_PREFIX.length());
-        QName propertyQName = QName.createQName(qNamePart);
-        addContentPropertyToDocUsingAlfrescoRepository(doc, propertyQName, dbId, locale);
-    }
-
-
-
     /**
-     * Extracts the text content from the given API response.
+     * Decodes the text content from the given API response and appends it to the given buffer.
+     * The content is read in small chunks straight into the buffer that will produce the stored field value,
+     * so it is not copied through intermediate byte arrays and strings on the way.
+     *
+     * The text can't be streamed any further: the stored content field, and the atomic updates the content tracker
+     * sends through the update chain, take a String value and not a Reader. Building that String from the buffer is
+     * the one full copy left, so a document takes about twice its size only while its field value is created.
      *
      * @param response the API (GetTextContent) response.
-     * @return the text content from the given API response.
+     * @param target the buffer where the text content will be appended.
      * @throws IOException in case of I/O failure.
      */
-    private String textContentFrom(GetTextContentResponse response) throws IOException
+    void appendTextContent(GetTextContentResponse response, StringBuilder target) throws IOException
     {
         try (final InputStream ris = ofNullable(response.getContentEncoding())
                 .map(c -> c.equals("gzip")).orElse(false)?
@@ -2718,10 +3170,14 @@ public class SolrInformationServer implements InformationServer
         {
             if (ris != null)
             {
-                byte[] bytes = FileCopyUtils.copyToByteArray(new BoundedInputStream(ris, contentStreamLimit));
-                return new String(bytes, StandardCharsets.UTF_8);
+                Reader reader = new InputStreamReader(new BoundedInputStream(ris, contentStreamLimit), StandardCharsets.UTF_8);
+                char[] buffer = new char[TEXT_CONTENT_READ_BUFFER_SIZE];
+                int read;
+                while ((read = reader.read(buffer)) != -1)
+                {
+                    target.append(buffer, 0, read);
+                }
             }
-            return "";
         }
         finally
         {
@@ -2729,52 +3185,56 @@ public class SolrInformationServer implements InformationServer
         }
     }
 
-    private void addContentPropertyToDocUsingAlfrescoRepository(
+    private void addContentPropertyToDoc(
             SolrInputDocument doc,
             QName propertyQName,
-            long dbId,
-            String locale) throws AuthenticationException, IOException
+            String locale,
+            GetTextContentResponse response) throws IOException
     {
         long start = System.nanoTime();
 
-        // Expensive call to be done with ContentTracker
-        try (GetTextContentResponse response = repositoryClient.getTextContent(dbId, propertyQName, null)) {
-            addContentPropertyMetadata(doc, propertyQName, AlfrescoSolrDataModel.SpecializedFieldType.TRANSFORMATION_STATUS, response);
-            addContentPropertyMetadata(doc, propertyQName, AlfrescoSolrDataModel.SpecializedFieldType.TRANSFORMATION_EXCEPTION, response);
-            addContentPropertyMetadata(doc, propertyQName, AlfrescoSolrDataModel.SpecializedFieldType.TRANSFORMATION_TIME, response);
-
-            final String textContent = textContentFrom(response);
-
-            if (fingerprintHasBeenEnabledOnThisInstance && !textContent.isBlank()) {
-                Analyzer analyzer = core.getLatestSchema().getFieldType("min_hash").getIndexAnalyzer();
-                TokenStream ts = analyzer.tokenStream("dummy_field", textContent);
-                CharTermAttribute termAttribute = ts.getAttribute(CharTermAttribute.class);
-                ts.reset();
-                doc.removeField(FINGERPRINT_FIELD);
-                while (ts.incrementToken())
-                {
-                    StringBuilder tokenBuff = new StringBuilder();
-                    char[] buff = termAttribute.buffer();
-
-                    for (int i = 0; i < termAttribute.length(); i++) {
-                        tokenBuff.append(Integer.toHexString(buff[i]));
-                    }
-                    doc.addField(FINGERPRINT_FIELD, tokenBuff.toString());
+        addContentPropertyMetadata(doc, propertyQName, AlfrescoSolrDataModel.SpecializedFieldType.TRANSFORMATION_STATUS, response);
+        addContentPropertyMetadata(doc, propertyQName, AlfrescoSolrDataModel.SpecializedFieldType.TRANSFORMATION_EXCEPTION, response);
+        addContentPropertyMetadata(doc, propertyQName, AlfrescoSolrDataModel.SpecializedFieldType.TRANSFORMATION_TIME, response);
+
+        // The stored value is "\u0000" + language + "\u0000" + text: the text is decoded directly after the prefix
+        StringBuilder storedValue = new StringBuilder(TEXT_CONTENT_INITIAL_CAPACITY)
+                .append('\u0000').append(languageFrom(locale)).append('\u0000');
+        int textContentOffset = storedValue.length();
+        appendTextContent(response, storedValue);
+        String storedContent = storedValue.toString();
+
+        if (fingerprintHasBeenEnabledOnThisInstance && !isBlank(storedContent, textContentOffset)) {
+            Analyzer analyzer = core.getLatestSchema().getFieldType("min_hash").getIndexAnalyzer();
+            StringReader textContent = new StringReader(storedContent);
+            textContent.skip(textContentOffset);
+            TokenStream ts = analyzer.tokenStream("dummy_field", textContent);
+            CharTermAttribute termAttribute = ts.getAttribute(CharTermAttribute.class);
+            ts.reset();
+            doc.removeField(FINGERPRINT_FIELD);
+            while (ts.incrementToken())
+            {
+                StringBuilder tokenBuff = new StringBuilder();
+                char[] buff = termAttribute.buffer();
 
+                for (int i = 0; i < termAttribute.length(); i++) {
+                    tokenBuff.append(Integer.toHexString(buff[i]));
                 }
-                ts.end();
-                ts.close();
+                doc.addField(FINGERPRINT_FIELD, tokenBuff.toString());
+
             }
+            ts.end();
+            ts.close();
+        }
 
-            this.getTrackerStats().addDocTransformationTime(System.nanoTime() - start);
+        this.getTrackerStats().addDocTransformationTime(System.nanoTime() - start);
 
-            String storedField = dataModel.getStoredContentField(propertyQName);
-            doc.setField(storedField, "\u0000" + languageFrom(locale) + "\u0000" + textContent);
+        String storedField = dataModel.getStoredContentField(propertyQName);
+        doc.setField(storedField, storedContent);
 
-            dataModel.getIndexedFieldNamesForProperty(propertyQName)
-                    .getFields()
-                    .forEach(field -> addFieldIfNotSet(doc, field.getField()));
-        }
+        dataModel.getIndexedFieldNamesForProperty(propertyQName)
+                .getFields()
+                .forEach(field -> addFieldIfNotSet(doc, field.getField()));
     }
 
     private void keepContentFields(PartialSolrInputDocument doc)
@@ -2801,6 +3261,18 @@ public class SolrInformationServer implements InformationServer
         doc.keepField(dataModel.getStoredContentField(propertyQName));
     }
 
+    private static boolean isBlank(CharSequence value, int from)
+    {
+        for (int i = from; i < value.length(); i++)
+        {
+            if (!Character.isWhitespace(value.charAt(i)))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private String languageFrom(String locale)
     {
         int indexOfSeparator = locale.indexOf("_");
@@ -2918,6 +3390,12 @@ public class SolrInformationServer implements InformationServer
 
     @Override
     public void indexTransaction(Transaction info, boolean overwrite) throws IOException
+    {
+        indexTransaction(info, overwrite, true);
+    }
+
+    @Override
+    public void indexTransaction(Transaction info, boolean overwrite, boolean updateTrackerState) throws IOException
     {
         canUpdate();
         UpdateRequestProcessor processor = null;
@@ -2953,7 +3431,11 @@ public class SolrInformationServer implements InformationServer
             cmd.solrDoc = input;
             processor.processAdd(cmd);
 
-            putTransactionState(processor, request, info);
+            if (updateTrackerState)
+            {
+                putTransactionState(processor, request, info);
+            }
+            indexedTransactions.added(info.getId());
         }
         finally
         {
@@ -3079,7 +3561,7 @@ public class SolrInformationServer implements InformationServer
 
                 IndexableField txID = doc.getField(FIELD_S_TXID);
                 long txnID = txID.numericValue().longValue();
-                cleanCascadeCache.put(txnID, null);
+                cleanCascadeCache.put(txnID, 0);
                 transaction.setId(txnID);
 
                 IndexableField txnCommitTime = doc.getField(FIELD_S_TXCOMMITTIME);
@@ -3099,25 +3581,25 @@ public class SolrInformationServer implements InformationServer
     @Override
     public boolean txnInIndex(long txnId, boolean populateCache) throws IOException
     {
-        return isInIndex(txnId, txnIdCache, FIELD_TXID, populateCache, core);
+        return indexedTransactions.isInIndex(txnId, populateCache, core);
     }
 
     @Override
     public boolean aclChangeSetInIndex(long changeSetId, boolean populateCache) throws IOException
     {
-        return isInIndex(changeSetId, aclChangeSetCache, FIELD_ACLTXID, populateCache, core);
+        return indexedAclChangeSets.isInIndex(changeSetId, populateCache, core);
     }
 
     @Override
     public void clearProcessedTransactions()
     {
-        this.txnIdCache.clear();
+        this.indexedTransactions.clearProcessed();
     }
 
     @Override
     public void clearProcessedAclChangeSets()
     {
-        this.aclChangeSetCache.clear();
+        this.indexedAclChangeSets.clearProcessed();
     }
 
     @Override
@@ -3142,6 +3624,13 @@ public class SolrInformationServer implements InformationServer
                 {
                     processor = this.core.getUpdateProcessingChain(null).createProcessor(request, newSolrQueryResponse());
                     processor.processRollback(new RollbackUpdateCommand(request));
+                    indexedTransactions.rollback();
+                    indexedAclChangeSets.rollback();
+
+                    outdatedContent.rollback();
+
+                    // Cascades of the rolled back transactions have to be processed again
+                    cleanCascadeCache.clear();
                 }
                 finally
                 {
@@ -3252,12 +3741,6 @@ public class SolrInformationServer implements InformationServer
        return hostName;
     }
 
-    @Override
-    public void setCleanContentTxnFloor(long cleanContentTxnFloor)
-    {
-        // Nothing to be done here
-    }
-
     @Override
     public void setCleanCascadeTxnFloor(long cleanCascadeTxnFloor)
     {
@@ -3353,35 +3836,6 @@ public class SolrInformationServer implements InformationServer
                 .orElse(0);
     }
 
-    private boolean isInIndex(long id, LRU cache, String fieldName, boolean populateCache, SolrCore core) throws IOException
-    {
-        if(cache.containsKey(id))
-        {
-            return true;
-        }
-        else
-        {
-            RefCounted<SolrIndexSearcher> refCounted = null;
-            try
-            {
-                if(populateCache)
-                {
-                    cache.put(id, null); // Safe to add this here because we reset this on rollback.
-                }
-                refCounted = core.getSearcher();
-                SolrIndexSearcher searcher = refCounted.get();
-                FieldType fieldType = searcher.getSchema().getField(fieldName).getType();
-                TermQuery q = new TermQuery(new Term(fieldName, fieldType.readableToIndexed(Long.toString(id))));
-                TopDocs topDocs = searcher.search(q, 1);
-                return topDocs.totalHits > 0;
-            }
-            finally
-            {
-                ofNullable(refCounted).ifPresent(RefCounted::decref);
-            }
-        }
-    }
-
     private SolrDocumentList executeQueryRequest(SolrQueryRequest request, SolrQueryResponse response, SolrRequestHandler handler)
     {
         handler.handleRequest(request, response);
@@ -3527,9 +3981,7 @@ public class SolrInformationServer implements InformationServer
 
     private void cascadeUpdateV2(
             NodeMetaData parentNodeMetaData,
-            boolean overwrite,
-            SolrQueryRequest request,
-            UpdateRequestProcessor processor) throws IOException, JSONException
+            boolean overwrite) throws IOException
     {
         RefCounted<SolrIndexSearcher> refCounted = null;
         IntArrayList docList;
@@ -3563,54 +4015,113 @@ public class SolrInformationServer implements InformationServer
             ofNullable(refCounted).ifPresent(RefCounted::decref);
         }
 
-        for (Long childId : childIds)
+        cascadeUpdateChildren(parentNodeMetaData, childIds, overwrite);
+    }
+
+    /**
+     * Updates the path related fields of the given children of a parent node.
+     * The metadata of the children is requested in batches, which are processed in parallel on the pool of the
+     * calling tracker. Every batch is processed even if some of them fail.
+     *
+     * @throws IOException if any batch failed, with the failure of each batch as a suppressed exception.
+     */
+    void cascadeUpdateChildren(NodeMetaData parentNodeMetaData, Collection<Long> childIds, boolean overwrite) throws IOException
+    {
+        long start = System.nanoTime();
+        List<Exception> failures = Collections.synchronizedList(new ArrayList<>());
+        int cascadedDocs =
+                Lists.partition(new ArrayList<>(childIds), cascadeMetadataBatchSize)
+                    .parallelStream()
+                    .mapToInt(batch -> {
+                        try
+                        {
+                            return cascadeUpdateBatch(parentNodeMetaData, batch, overwrite);
+                        }
+                        catch (Exception exception)
+                        {
+                            failures.add(exception);
+                            return 0;
+                        }
+                    })
+                    .sum();
+        trackerStats.addElapsedCascadeTime(cascadedDocs, System.nanoTime() - start);
+
+        if (!failures.isEmpty())
         {
-            NodeMetaDataParameters nmdp = new NodeMetaDataParameters();
-            nmdp.setFromNodeId(childId);
-            nmdp.setToNodeId(childId);
-            nmdp.setIncludeAclId(true);
-            nmdp.setIncludeAspects(false);
-            nmdp.setIncludeChildAssociations(false);
-            nmdp.setIncludeChildIds(true);
-            nmdp.setIncludeNodeRef(true);
-            nmdp.setIncludeOwner(false);
-            nmdp.setIncludeParentAssociations(false);
+            IOException exception = new IOException("Unable to cascade the updates of node " + parentNodeMetaData.getId()
+                    + " to " + failures.size() + " batches of its children");
+            failures.forEach(exception::addSuppressed);
+            throw exception;
+        }
+    }
 
-            // We only care about the path and ancestors (which is included) for this case
-            nmdp.setIncludePaths(true);
-            nmdp.setIncludeProperties(false);
-            nmdp.setIncludeType(true);
-            nmdp.setIncludeTxnId(true);
-            nmdp.setMaxResults(1);
-            // Gets only one
-            Optional<Collection<NodeMetaData>> nodeMetaDatas = getNodesMetaDataFromRepository(nmdp);
+    /**
+     * Updates the path related fields of a batch of children of the given parent node, in a single update session.
+     *
+     * @return the number of updated children.
+     * @throws IOException if the metadata of the children couldn't be fetched or the children couldn't be updated.
+     */
+    private int cascadeUpdateBatch(NodeMetaData parentNodeMetaData, List<Long> childIds, boolean overwrite) throws IOException
+    {
+        NodeMetaDataParameters nmdp = new NodeMetaDataParameters();
+        nmdp.setNodeIds(childIds);
+        nmdp.setIncludeAclId(true);
+        nmdp.setIncludeAspects(false);
+        nmdp.setIncludeChildAssociations(false);
+        nmdp.setIncludeChildIds(true);
+        nmdp.setIncludeNodeRef(true);
+        nmdp.setIncludeOwner(false);
+        nmdp.setIncludeParentAssociations(false);
+
+        // We only care about the path and ancestors (which is included) for this case
+        nmdp.setIncludePaths(true);
+        nmdp.setIncludeProperties(false);
+        nmdp.setIncludeType(true);
+        nmdp.setIncludeTxnId(true);
+        nmdp.setMaxResults(Integer.MAX_VALUE);
 
-            if (nodeMetaDatas.isPresent() && !nodeMetaDatas.get().isEmpty())
-            {
-                NodeMetaData nodeMetaData = nodeMetaDatas.get().iterator().next();
+        // The children may have been deleted meanwhile, but no metadata at all means the request failed
+        Collection<NodeMetaData> nodeMetaDatas = getNodesMetaDataFromRepository(nmdp)
+                .orElseThrow(() -> new IOException("Unable to get the metadata of " + childIds.size()
+                        + " children of node " + parentNodeMetaData.getId()));
 
-                // Only cascade update nods we know can not have changed and must be in this shard
-                // Node in the current TX will be explicitly updated in the outer loop
-                // We do not bring in changes from the future as nodes may switch shards and we do not want the logic here.
-                if (nodeMetaData.getTxnId() < parentNodeMetaData.getTxnId())
+        int updatedChildren = 0;
+        try (SolrQueryRequest request = newSolrQueryRequest())
+        {
+            UpdateRequestProcessor processor = this.core.getUpdateProcessingChain(null).createProcessor(request, newSolrQueryResponse());
+            try
+            {
+                for (NodeMetaData nodeMetaData : nodeMetaDatas)
                 {
-                    LOGGER.debug("Cascade update child doc {}", childId);
+                    // Only cascade update nods we know can not have changed and must be in this shard
+                    // Node in the current TX will be explicitly updated in the outer loop
+                    // We do not bring in changes from the future as nodes may switch shards and we do not want the logic here.
+                    if (nodeMetaData.getTxnId() < parentNodeMetaData.getTxnId())
+                    {
+                        LOGGER.debug("Cascade update child doc {}", nodeMetaData.getId());
 
-                    SolrInputDocument document = basicDocument(nodeMetaData, DOC_TYPE_NODE, PartialSolrInputDocument::new);
+                        SolrInputDocument document = basicDocument(nodeMetaData, DOC_TYPE_NODE, PartialSolrInputDocument::new);
 
-                    AddUpdateCommand addDocCmd = new AddUpdateCommand(request);
-                    addDocCmd.overwrite = overwrite;
-                    addDocCmd.solrDoc = document;
-                    if (cascadeTrackingEnabled())
-                    {
-                        updatePathRelatedFields(nodeMetaData, document);
-                        updateNamePathRelatedFields(nodeMetaData, document);
-                        updateAncestorRelatedFields(nodeMetaData, document);
-                    }
+                        AddUpdateCommand addDocCmd = new AddUpdateCommand(request);
+                        addDocCmd.overwrite = overwrite;
+                        addDocCmd.solrDoc = document;
+                        if (cascadeTrackingEnabled())
+                        {
+                            updatePathRelatedFields(nodeMetaData, document);
+                            updateNamePathRelatedFields(nodeMetaData, document);
+                            updateAncestorRelatedFields(nodeMetaData, document);
+                        }
                         processor.processAdd(addDocCmd);
+                        updatedChildren++;
+                    }
                 }
             }
+            finally
+            {
+                processor.finish();
+            }
         }
+        return updatedChildren;
     }
 
     private long topNodeId(SolrQuery.ORDER order)
@@ -3802,10 +4313,34 @@ public class SolrInformationServer implements InformationServer
                     .build();
     }
 
-    private void deleteById(String field, Long id) throws IOException
+    /**
+     * Deletes the documents matching any of the ids, with a single terms set query.
+     */
+    private void deleteByIds(String field, long[] ids) throws IOException
     {
-        String query = field + ":" + id;
-        deleteByQuery(query);
+        if (ids.length > 0)
+        {
+            deleteByQuery(termsQuery(field, ids));
+        }
+    }
+
+    /**
+     * Builds a query for the docs having any of the ids in the field. The terms query parser turns the ids
+     * straight into a set of terms, there is no analysis of the values and no boolean clauses limit.
+     */
+    static String termsQuery(String field, long[] ids)
+    {
+        StringBuilder query = new StringBuilder(field.length() + 12 + ids.length * 8)
+                .append("{!terms f=").append(field).append('}');
+        for (int i = 0; i < ids.length; i++)
+        {
+            if (i > 0)
+            {
+                query.append(',');
+            }
+            query.append(ids[i]);
+        }
+        return query.toString();
     }
 
     private void deleteByQuery(String query) throws IOException
@@ -4034,6 +4569,21 @@ public class SolrInformationServer implements InformationServer
         return namedList;
     }
 
+    /**
+     * Same statistics names as the Solr caches.
+     */
+    private NamedList<Object> cacheStatistics(LongLongCache cache)
+    {
+        NamedList<Object> statistics = new SimpleOrderedMap<>();
+        statistics.add("lookups", cache.getHits() + cache.getMisses());
+        statistics.add("hits", cache.getHits());
+        statistics.add("hitratio", cache.getHitRatio());
+        statistics.add("evictions", cache.getEvictions());
+        statistics.add("size", cache.size());
+        statistics.add("maxSize", cache.getMaxSize());
+        return statistics;
+    }
+
     private List<SolrIndexSearcher> getRegisteredSearchers()
     {
         List<SolrIndexSearcher> searchers = new ArrayList<>();
@@ -4078,7 +4628,8 @@ public class SolrInformationServer implements InformationServer
      *
      * @param parameters A parameters object containing either a list of nodes ({@link NodeMetaDataParameters#getNodeIds})
      * or a node range ({@link NodeMetaDataParameters#getFromNodeId} and {@link NodeMetaDataParameters#getToNodeId}).
-     * @return Either the metadata returned by the repository, or null if there was a problem.
+     * @return Either the metadata returned by the repository, or empty if there was a problem. A malformed payload
+     * has already been logged with its content by the repository client.
      */
     private Optional<Collection<NodeMetaData>> getNodesMetaDataFromRepository(NodeMetaDataParameters parameters)
     {
@@ -4086,12 +4637,6 @@ public class SolrInformationServer implements InformationServer
         {
             return Optional.of(notNullOrEmpty(repositoryClient.getNodesMetaData(parameters)));
         }
-        catch (JSONException exception)
-        {
-            // The exception has been already logged in repositoryClient and could be huge. Simply log a reference to it here.
-            LOGGER.debug("JSON exception swallowed by SolrInformationServer.");
-            return empty();
-        }
         catch (Exception exception)
         {
             LOGGER.error("Unable to get nodes metadata from repository using "
@@ -0,0 +1,312 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.search.CacheRegenerator;
+import org.apache.solr.search.LRUCache;
+import org.apache.solr.search.SolrCache;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link LRUCache} for the alfresco caches, which autowarms the most hit entries first, within a time budget.
+ *
+ * The hits of each cached key are counted while the cache is live, and dropped with the entry when it is evicted.
+ * On autowarm, the entries of the old cache are ranked by hits, then by recency, and regenerated in that order until
+ * autowarmCount entries have been regenerated or maxAutowarmTimeMs has elapsed. The hits of the regenerated keys are
+ * carried over halved, so the ranking follows the hits of the last few searchers rather than the last one only.
+ *
+ * The number of entries warmed and skipped and the warm up time of the last autowarm are part of the statistics.
+ */
+public class AlfrescoLRUCache<K, V> extends LRUCache<K, V>
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(AlfrescoLRUCache.class);
+
+    // Hits of the cached keys, in the access order of the LRU cache: the keys the LRU cache evicts are the eldest ones
+    private final LinkedHashMap<Object, LongAdder> hits = new LinkedHashMap<>(16, 0.75f, true);
+
+    private CacheRegenerator itemRegenerator;
+    private AutoWarmCountRef autowarmCount;
+    private long maxAutowarmTimeMs;
+    private CacheRamBudget ramBudget = CacheRamBudget.NONE;
+    private String description;
+
+    // Entries of the old cache handed over by the LRU cache while warming
+    private List<Candidate<K, V>> candidates;
+
+    private volatile long warmupTime;
+    private volatile int warmedEntries;
+    private volatile int skippedEntries;
+    private volatile boolean warmupTimedOut;
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Override
+    public Object init(Map args, Object persistence, CacheRegenerator regenerator)
+    {
+        this.itemRegenerator = regenerator;
+        this.autowarmCount = new AutoWarmCountRef((String) args.get("autowarmCount"));
+        String maxTime = (String) args.get("maxAutowarmTimeMs");
+        this.maxAutowarmTimeMs = maxTime == null ? -1L : Long.parseLong(maxTime);
+        this.ramBudget = CacheRamBudget.fromArgs(args);
+        String size = (String) args.get("size");
+        this.description = "Alfresco LRU Cache(maxSize=" + (size == null ? 1024 : size)
+                + ", autowarmCount=" + autowarmCount
+                + ", maxAutowarmTimeMs=" + maxAutowarmTimeMs
+                + ", regenerator=" + regenerator + ")";
+
+        // The LRU cache hands over all the entries of the old cache, the ones to regenerate are chosen on warm
+        Map lruArgs = new HashMap(args);
+        if (autowarmCount.isAutoWarmingOn())
+        {
+            lruArgs.put("autowarmCount", "100%");
+        }
+        CacheRegenerator collector = regenerator == null ? null : (searcher, newCache, oldCache, key, value) ->
+        {
+            candidates.add(new Candidate<>((K) key, (V) value, 0L));
+            return true;
+        };
+        return super.init(lruArgs, persistence, collector);
+    }
+
+    @Override
+    public V get(K key)
+    {
+        V value = super.get(key);
+        if (value != null)
+        {
+            synchronized (hits)
+            {
+                LongAdder keyHits = hits.get(key);
+                if (keyHits != null && getState() == State.LIVE)
+                {
+                    keyHits.increment();
+                }
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public V put(K key, V value)
+    {
+        V old = super.put(key, value);
+        synchronized (hits)
+        {
+            hits.computeIfAbsent(key, k -> new LongAdder());
+
+            // Drop the hits of the entries the LRU cache has just evicted
+            int size = size();
+            for (Iterator<Object> eldest = hits.keySet().iterator(); hits.size() > size && eldest.hasNext(); /**/)
+            {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        return old;
+    }
+
+    @Override
+    public void clear()
+    {
+        super.clear();
+        synchronized (hits)
+        {
+            hits.clear();
+        }
+    }
+
+    @Override
+    public void warm(SolrIndexSearcher searcher, SolrCache<K, V> old)
+    {
+        if (itemRegenerator == null || !autowarmCount.isAutoWarmingOn())
+        {
+            return;
+        }
+
+        long start = System.nanoTime();
+        candidates = new ArrayList<>();
+        super.warm(searcher, old);
+        List<Candidate<K, V>> ranked = rank(candidates, old);
+        candidates = null;
+
+        int warmCount = autowarmCount.getWarmCount(ranked.size());
+        long maxAutowarmTime = maxAutowarmTimeMs < 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(maxAutowarmTimeMs);
+        List<K> warmed = new ArrayList<>();
+        int attempted = 0;
+        boolean timedOut = false;
+        for (Candidate<K, V> candidate : ranked.subList(0, warmCount))
+        {
+            if (System.nanoTime() - start > maxAutowarmTime)
+            {
+                timedOut = true;
+                break;
+            }
+
+            attempted++;
+            try
+            {
+                boolean continueRegen = itemRegenerator.regenerateItem(searcher, this, old, candidate.key, candidate.value);
+
+                // The regenerator may have skipped the entry, e.g. when it is bigger than the RAM budget.
+                // The cache is not live yet, so the lookup is not counted.
+                if (super.get(candidate.key) != null)
+                {
+                    warmed.add(candidate.key);
+                    if (candidate.hits > 1)
+                    {
+                        synchronized (hits)
+                        {
+                            LongAdder keyHits = hits.get(candidate.key);
+                            if (keyHits != null)
+                            {
+                                keyHits.add(candidate.hits / 2);
+                            }
+                        }
+                    }
+                }
+                if (!continueRegen)
+                {
+                    break;
+                }
+            }
+            catch (Exception exception)
+            {
+                LOGGER.error("Error during auto-warming of key {} in cache {}", candidate.key, name(), exception);
+            }
+        }
+
+        // Regenerated hottest first: touch them back coldest first so that the hottest are the last to be evicted.
+        // The cache is not live yet, so the lookups are not counted.
+        for (int i = warmed.size() - 1; i >= 0; i--)
+        {
+            get(warmed.get(i));
+        }
+
+        warmupTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        warmedEntries = warmed.size();
+        skippedEntries = warmCount - attempted;
+        warmupTimedOut = timedOut;
+        LOGGER.info("Autowarmed {} of {} entries of cache {} in {} ms{}", warmedEntries, warmCount, name(), warmupTime,
+                timedOut ? ", the remaining entries were skipped after " + maxAutowarmTimeMs + " ms" : "");
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Override
+    public NamedList getStatistics()
+    {
+        NamedList statistics = super.getStatistics();
+        statistics.remove("warmupTime");
+        statistics.add("warmupTime", warmupTime);
+        statistics.add("warmupEntries", warmedEntries);
+        statistics.add("warmupSkippedEntries", skippedEntries);
+        statistics.add("warmupTimedOut", warmupTimedOut);
+        statistics.add("maxAutowarmTimeMs", maxAutowarmTimeMs);
+        return statistics;
+    }
+
+    @Override
+    public String getName()
+    {
+        return AlfrescoLRUCache.class.getName();
+    }
+
+    @Override
+    public String getDescription()
+    {
+        return description;
+    }
+
+    /**
+     * @return the RAM budget set by the maxRamMB argument of the cache.
+     */
+    CacheRamBudget getRamBudget()
+    {
+        return ramBudget;
+    }
+
+    long getHits(Object key)
+    {
+        return getHits().getOrDefault(key, 0L);
+    }
+
+    /**
+     * @return a snapshot of the hits of the cached keys, taken without changing their access order.
+     */
+    private Map<Object, Long> getHits()
+    {
+        synchronized (hits)
+        {
+            Map<Object, Long> snapshot = new HashMap<>(hits.size());
+            hits.forEach((key, keyHits) -> snapshot.put(key, keyHits.sum()));
+            return snapshot;
+        }
+    }
+
+    /**
+     * @return the entries handed over from the oldest to the most recently used, ordered by hits and then by recency.
+     */
+    private static <K, V> List<Candidate<K, V>> rank(List<Candidate<K, V>> entries, SolrCache<K, V> old)
+    {
+        // The old cache is still live: take a snapshot of the hits to sort on
+        Map<Object, Long> oldHits = old instanceof AlfrescoLRUCache ? ((AlfrescoLRUCache<K, V>) old).getHits() : Collections.emptyMap();
+        List<Candidate<K, V>> ranked = new ArrayList<>(entries.size());
+        for (Candidate<K, V> entry : entries)
+        {
+            ranked.add(new Candidate<>(entry.key, entry.value, oldHits.getOrDefault(entry.key, 0L)));
+        }
+        Collections.reverse(ranked);
+        ranked.sort(Comparator.comparingLong((Candidate<K, V> candidate) -> candidate.hits).reversed());
+        return ranked;
+    }
+
+    private static class Candidate<K, V>
+    {
+        final K key;
+        final V value;
+        final long hits;
+
+        Candidate(K key, V value, long hits)
+        {
+            this.key = key;
+            this.value = value;
+            this.hits = hits;
+        }
+    }
+}
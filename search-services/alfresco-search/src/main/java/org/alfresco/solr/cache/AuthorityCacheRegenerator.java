@@ -28,10 +28,14 @@ package org.alfresco.solr.cache;
 
 import java.io.IOException;
 
+import org.alfresco.solr.query.SolrAuthorityQuery;
+import org.alfresco.solr.query.SolrAuthorityScorer;
 import org.apache.lucene.search.Query;
 import org.apache.solr.search.CacheRegenerator;
+import org.apache.solr.search.DocSet;
 import org.apache.solr.search.SolrCache;
 import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.search.WrappedQuery;
 
 /**
  * Cache regeneration for AUTHORITY and AUTHSET queries.
@@ -45,13 +49,23 @@ public class AuthorityCacheRegenerator implements CacheRegenerator
     public boolean regenerateItem(SolrIndexSearcher newSearcher, SolrCache newCache,
                 SolrCache oldCache, Object oldKey, Object oldVal) throws IOException
     {
-        if (oldKey instanceof Query)
+        if (oldKey instanceof SolrAuthorityQuery && CacheRamBudget.fits(newCache, oldVal))
+        {
+            // Match the docs readable by the authority on the segments that are new to the searcher only,
+            // the results of the segments that are still open are carried over when the ACLs have not changed.
+            String authority = ((SolrAuthorityQuery) oldKey).getAuthority();
+            newCache.put(oldKey, SolrAuthorityScorer.getReadableDocs(newSearcher, authority, (DocSet) oldVal));
+        }
+        else if (oldKey instanceof Query && CacheRamBudget.fits(newCache, oldVal))
         {
             // The authority cache contains results keyed by SolrAuthorityQuery
             // and SolrAuthoritySetQuery.
             Query authQuery = (Query) oldKey;
             // Execute the query on the new searcher - resulting in cache population as a side-effect.
-            newSearcher.getDocSet(authQuery);
+            // The results are not cached in the filter cache as well, which is not bounded by the RAM budget.
+            WrappedQuery wrapped = new WrappedQuery(authQuery);
+            wrapped.setCache(false);
+            newSearcher.getDocSet(wrapped);
         }
         return true;
     }
@@ -0,0 +1,83 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.cache;
+
+import java.util.Map;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.solr.search.SolrCache;
+
+/**
+ * RAM budget of the caches bounded by maxRamMB.
+ *
+ * The budget is read from the cache configuration once, when the cache is initialised, so fractions of MB are kept.
+ * Only the {@link AlfrescoLRUCache} caches hold their budget: other caches are considered without budget.
+ */
+final class CacheRamBudget
+{
+    static final CacheRamBudget NONE = new CacheRamBudget(-1L);
+
+    private static final long MB = 1024L * 1024L;
+
+    private final long maxRamBytes;
+
+    private CacheRamBudget(long maxRamBytes)
+    {
+        this.maxRamBytes = maxRamBytes;
+    }
+
+    /**
+     * @param args the configuration of the cache
+     * @return the budget set by its maxRamMB argument, {@link #NONE} if there is none.
+     */
+    @SuppressWarnings({ "rawtypes" })
+    static CacheRamBudget fromArgs(Map args)
+    {
+        Object maxRamMB = args.get("maxRamMB");
+        return maxRamMB == null ? NONE : new CacheRamBudget((long) (Double.parseDouble(maxRamMB.toString()) * MB));
+    }
+
+    /**
+     * @return false if the value alone is bigger than the RAM budget of the cache: caching it would evict every other
+     *         entry and the value itself on the next insert. true otherwise, or if the cache has no RAM budget.
+     */
+    @SuppressWarnings({ "rawtypes" })
+    static boolean fits(SolrCache cache, Object value)
+    {
+        return (cache instanceof AlfrescoLRUCache ? ((AlfrescoLRUCache) cache).getRamBudget() : NONE).fits(value);
+    }
+
+    boolean fits(Object value)
+    {
+        return maxRamBytes <= 0 || !(value instanceof Accountable) || ((Accountable) value).ramBytesUsed() <= maxRamBytes;
+    }
+
+    long getMaxRamBytes()
+    {
+        return maxRamBytes;
+    }
+}
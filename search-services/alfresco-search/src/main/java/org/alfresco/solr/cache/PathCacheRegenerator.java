@@ -31,6 +31,7 @@ import java.io.IOException;
 import org.alfresco.solr.query.SolrCachingPathQuery;
 import org.alfresco.solr.query.SolrPathQuery;
 import org.apache.solr.search.CacheRegenerator;
+import org.apache.solr.search.DocSet;
 import org.apache.solr.search.SolrCache;
 import org.apache.solr.search.SolrIndexSearcher;
 
@@ -46,12 +47,12 @@ public class PathCacheRegenerator implements CacheRegenerator
     public boolean regenerateItem(SolrIndexSearcher newSearcher, SolrCache newCache,
                 SolrCache oldCache, Object oldKey, Object oldVal) throws IOException
     {
-        if (oldKey instanceof SolrPathQuery)
+        if (oldKey instanceof SolrPathQuery && CacheRamBudget.fits(newCache, oldVal))
         {
             SolrPathQuery pathQuery = (SolrPathQuery) oldKey;
-            // Re-execute the path query in a cache-aware context - causing new results to be cached.
-            SolrCachingPathQuery cachingPathQuery = new SolrCachingPathQuery(pathQuery);
-            newSearcher.getDocSet(cachingPathQuery);
+            // Re-execute the path query on the segments that are new to the searcher only,
+            // the results of the segments that are still open are carried over from the old value.
+            newCache.put(pathQuery, SolrCachingPathQuery.getDocs(newSearcher, pathQuery, (DocSet) oldVal));
         }
         return true;
     }
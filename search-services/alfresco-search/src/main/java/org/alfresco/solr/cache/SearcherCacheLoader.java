@@ -0,0 +1,182 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.cache;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.solr.search.SolrIndexSearcher;
+
+/**
+ * Loads the values of the per-searcher alfresco caches (see {@link CacheConstants}).
+ *
+ * A missing value is computed once per searcher and key, even when many requests miss it together, as it happens
+ * for the popular authorities and paths right after a new searcher has been opened: the first request computes and
+ * inserts the value, the others wait for it and share the result. The number of loads avoided that way is counted
+ * per core and cache.
+ */
+public final class SearcherCacheLoader
+{
+    /**
+     * Computes a missing cache value.
+     */
+    @FunctionalInterface
+    public interface Loader<V>
+    {
+        V load() throws IOException;
+    }
+
+    private static final Map<LoadKey, CompletableFuture<Object>> LOADING = new ConcurrentHashMap<>();
+
+    // Core name -> cache name -> number of loads which waited for the same value instead of computing it
+    private static final Map<String, Map<String, LongAdder>> SHARED_LOADS = new ConcurrentHashMap<>();
+
+    private SearcherCacheLoader()
+    {
+    }
+
+    /**
+     * @return the value cached in the searcher for the key, computed by the loader and cached on a miss.
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> V get(SolrIndexSearcher searcher, String cacheName, Object key, Loader<V> loader) throws IOException
+    {
+        V value = (V) searcher.cacheLookup(cacheName, key);
+        if (value != null)
+        {
+            return value;
+        }
+
+        LoadKey loadKey = new LoadKey(searcher, cacheName, key);
+        CompletableFuture<Object> loading = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = LOADING.putIfAbsent(loadKey, loading);
+        if (inFlight != null)
+        {
+            SHARED_LOADS.computeIfAbsent(searcher.getCore().getName(), core -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(cacheName, name -> new LongAdder())
+                    .increment();
+            return (V) await(inFlight);
+        }
+
+        try
+        {
+            // A concurrent load may have inserted the value and finished between the lookup and putIfAbsent
+            value = (V) searcher.cacheLookup(cacheName, key);
+            if (value == null)
+            {
+                value = loader.load();
+                searcher.cacheInsert(cacheName, key, value);
+            }
+            loading.complete(value);
+            return value;
+        }
+        catch (IOException | RuntimeException | Error exception)
+        {
+            loading.completeExceptionally(exception);
+            throw exception;
+        }
+        finally
+        {
+            LOADING.remove(loadKey, loading);
+        }
+    }
+
+    /**
+     * @return the number of loads which shared the value computed by a concurrent request, per cache of the core.
+     */
+    public static Map<String, Long> getSharedLoads(String coreName)
+    {
+        Map<String, Long> sharedLoads = new TreeMap<>();
+        SHARED_LOADS.getOrDefault(coreName, Map.of()).forEach((cacheName, count) -> sharedLoads.put(cacheName, count.sum()));
+        return sharedLoads;
+    }
+
+    private static Object await(CompletableFuture<Object> inFlight) throws IOException
+    {
+        try
+        {
+            return inFlight.get();
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException(exception);
+        }
+        catch (ExecutionException exception)
+        {
+            Throwable cause = exception.getCause();
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * A value being loaded: the searcher is compared by identity, so the loads of different searchers never mix.
+     */
+    private static class LoadKey
+    {
+        private final SolrIndexSearcher searcher;
+        private final String cacheName;
+        private final Object key;
+
+        LoadKey(SolrIndexSearcher searcher, String cacheName, Object key)
+        {
+            this.searcher = searcher;
+            this.cacheName = cacheName;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) return true;
+            if (!(o instanceof LoadKey)) return false;
+
+            LoadKey that = (LoadKey) o;
+            return searcher == that.searcher && cacheName.equals(that.cacheName) && key.equals(that.key);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(System.identityHashCode(searcher), cacheName, key);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.solr.lifecycle;
+
+import java.net.URL;
+
+import org.alfresco.repo.search.adaptor.QueryConstants;
+import org.alfresco.solr.query.DocValuesCache;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.core.AbstractSolrEventListener;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.core.SolrInfoMBean;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Listener for *FIRST SEARCHER* and *NEW SEARCHER* events that loads the ACLID values of the new segments
+ * into the {@link DocValuesCache}, in parallel across segments, before the searcher is registered.
+ *
+ * It also exposes the {@link DocValuesCache} statistics (including heap usage) as the "alfrescoDocValuesCache" MBean.
+ */
+public class DocValuesCacheWarmer extends AbstractSolrEventListener implements SolrInfoMBean
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(DocValuesCacheWarmer.class);
+
+    public static final String NAME = "alfrescoDocValuesCache";
+
+    public DocValuesCacheWarmer(SolrCore core)
+    {
+        super(core);
+        core.getInfoRegistry().put(NAME, this);
+    }
+
+    @Override
+    public void newSearcher(SolrIndexSearcher newSearcher, SolrIndexSearcher currentSearcher)
+    {
+        long start = System.currentTimeMillis();
+        try
+        {
+            DocValuesCache.warm(QueryConstants.FIELD_ACLID, newSearcher.getIndexReader());
+            LOGGER.debug("[{}] DocValuesCache warmed for {} segments in {} ms",
+                    getCore().getName(), newSearcher.getIndexReader().leaves().size(), System.currentTimeMillis() - start);
+        }
+        catch (Exception exception)
+        {
+            // Values will be loaded on first use
+            LOGGER.warn("[{}] Unable to warm the DocValuesCache.", getCore().getName(), exception);
+        }
+    }
+
+    @Override
+    public String getName()
+    {
+        return NAME;
+    }
+
+    @Override
+    public String getVersion()
+    {
+        return getClass().getPackage().getSpecificationVersion();
+    }
+
+    @Override
+    public String getDescription()
+    {
+        return "In-memory cache of numeric docValues used by the ACL filters";
+    }
+
+    @Override
+    public Category getCategory()
+    {
+        return Category.CACHE;
+    }
+
+    @Override
+    public String getSource()
+    {
+        return null;
+    }
+
+    @Override
+    public URL[] getDocs()
+    {
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public NamedList getStatistics()
+    {
+        return DocValuesCache.getStatistics();
+    }
+}
@@ -50,6 +50,11 @@ public abstract class AbstractAuthorityQuery extends Query
         this.authority = authority;
     }
 
+    public String getAuthority()
+    {
+        return authority;
+    }
+
     @Override
     public abstract Weight createWeight(IndexSearcher searcher, boolean needsScores) throws IOException;
     
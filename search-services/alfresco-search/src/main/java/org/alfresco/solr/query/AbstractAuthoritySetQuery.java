@@ -28,9 +28,12 @@ package org.alfresco.solr.query;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.alfresco.repo.search.adaptor.QueryConstants;
+import org.alfresco.solr.cache.CacheConstants;
+import org.alfresco.solr.cache.SearcherCacheLoader;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.NumericDocValues;
@@ -92,10 +95,21 @@ public abstract class AbstractAuthoritySetQuery extends Query
 
 
     /*
-    *  This method collects the bitset of documents that match the authorities.
+    *  This method collects the set of ACL ids that match the authorities.
+    *  The set is cached per searcher, keyed by field and authorities, so it is reused until a new searcher is opened.
     */
 
-    protected HybridBitSet getACLSet(String[] auths, String field, SolrIndexSearcher searcher) throws IOException
+    protected AclIdSet getACLSet(String[] auths, String field, SolrIndexSearcher searcher) throws IOException
+    {
+        List<String> cacheKey = new ArrayList<>(auths.length + 1);
+        cacheKey.add(field);
+        cacheKey.addAll(Arrays.asList(auths));
+
+        return SearcherCacheLoader.get(searcher, CacheConstants.ALFRESCO_ACLID_CACHE, cacheKey,
+                () -> buildACLSet(auths, field, searcher));
+    }
+
+    private AclIdSet buildACLSet(String[] auths, String field, SolrIndexSearcher searcher) throws IOException
     {
         /*
         * Build a query that matches the authorities with a field in the ACL records in the index.
@@ -118,11 +132,10 @@ public abstract class AbstractAuthoritySetQuery extends Query
         DocIterator iterator = docSet.iterator();
         if(!iterator.hasNext())
         {
-            return new EmptyHybridBitSet();
+            return AclIdSet.EMPTY;
         }
 
-        //TODO : makes this configurable. For some systems this is huge and for others not big enough.
-        HybridBitSet hybridBitSet = new HybridBitSet(60000000);
+        AclIdSet.Builder aclIds = AclIdSet.builder();
 
         /*
         * Collect the ACLID's from the matching acl records.
@@ -155,16 +168,16 @@ public abstract class AbstractAuthoritySetQuery extends Query
 
             if(aclValues != null) {
                 long aclId = aclValues.get(doc - base);
-                hybridBitSet.set(aclId);
+                aclIds.add(aclId);
             }
         }
 
-        return hybridBitSet;
+        return aclIds.build();
     }
 
     protected BitsFilter getACLFilter(String[] auths, String field, SolrIndexSearcher searcher) throws IOException
     {
-        HybridBitSet aclBits = getACLSet(auths, field, searcher);
+        AclIdSet aclBits = getACLSet(auths, field, searcher);
         List<LeafReaderContext> leaves = searcher.getTopReaderContext().leaves();
         List<FixedBitSet> bitSets = new ArrayList<FixedBitSet>(leaves.size());
 
@@ -179,7 +192,7 @@ public abstract class AbstractAuthoritySetQuery extends Query
             if (fieldValues != null) {
                 for (int i = 0; i < maxDoc; i++) {
                     long aclID = fieldValues.get(i);
-                    if (aclBits.get(aclID)) {
+                    if (aclBits.contains(aclID)) {
                         bits.set(i);
                     }
                 }
@@ -0,0 +1,319 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.query;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.Bits;
+import org.apache.solr.search.BitsFilteredDocIdSet;
+import org.apache.solr.search.DocIterator;
+import org.apache.solr.search.DocSet;
+import org.apache.solr.search.Filter;
+
+/**
+ * Immutable top level {@link DocSet} stored in the alfresco caches, which can be iterated segment by segment.
+ *
+ * The set operations are computed by looking up the docs of one set into the other and return a
+ * {@link CompressedDocSet}.
+ */
+public abstract class AbstractCachedDocSet implements DocSet, Accountable
+{
+    protected final int maxDoc;
+    protected final int size;
+
+    AbstractCachedDocSet(int maxDoc, int size)
+    {
+        this.maxDoc = maxDoc;
+        this.size = size;
+    }
+
+    /**
+     * @return the docs of the segment, relative to its doc base.
+     */
+    public DocIdSetIterator iterator(LeafReaderContext context)
+    {
+        return iterator(context.docBase, context.reader().maxDoc());
+    }
+
+    /**
+     * @return the docs in [docBase, docBase + segmentMaxDoc), relative to docBase.
+     */
+    abstract DocIdSetIterator iterator(int docBase, int segmentMaxDoc);
+
+    @Override
+    public void add(int doc)
+    {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " is immutable");
+    }
+
+    @Override
+    public void addUnique(int doc)
+    {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " is immutable");
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    @Override
+    public DocIterator iterator()
+    {
+        DocIdSetIterator docs = iterator(0, maxDoc);
+        return new DocIterator()
+        {
+            private int next = nextDocOf(docs);
+
+            @Override
+            public boolean hasNext()
+            {
+                return next != DocIdSetIterator.NO_MORE_DOCS;
+            }
+
+            @Override
+            public Integer next()
+            {
+                return nextDoc();
+            }
+
+            @Override
+            public int nextDoc()
+            {
+                int doc = next;
+                next = nextDocOf(docs);
+                return doc;
+            }
+
+            @Override
+            public float score()
+            {
+                return 0.0f;
+            }
+        };
+    }
+
+    @Override
+    public DocSet intersection(DocSet other)
+    {
+        CompressedDocSet.Builder intersection = CompressedDocSet.builder(maxDoc);
+        intersect(other, intersection, false);
+        return intersection.build();
+    }
+
+    @Override
+    public int intersectionSize(DocSet other)
+    {
+        return intersect(other, null, false);
+    }
+
+    @Override
+    public boolean intersects(DocSet other)
+    {
+        return intersect(other, null, true) > 0;
+    }
+
+    @Override
+    public DocSet union(DocSet other)
+    {
+        CompressedDocSet.Builder union = CompressedDocSet.builder(maxDoc);
+        DocIterator theirs = other.iterator();
+        int their = next(theirs);
+        for (DocIterator ours = iterator(); ours.hasNext(); /**/)
+        {
+            int our = ours.nextDoc();
+            for (; their < our; their = next(theirs))
+            {
+                union.add(their);
+            }
+            if (their == our)
+            {
+                their = next(theirs);
+            }
+            union.add(our);
+        }
+        for (; their != DocIdSetIterator.NO_MORE_DOCS; their = next(theirs))
+        {
+            union.add(their);
+        }
+        return union.build();
+    }
+
+    @Override
+    public int unionSize(DocSet other)
+    {
+        return size + other.size() - intersectionSize(other);
+    }
+
+    @Override
+    public DocSet andNot(DocSet other)
+    {
+        CompressedDocSet.Builder difference = CompressedDocSet.builder(maxDoc);
+        for (DocIterator it = iterator(); it.hasNext(); /**/)
+        {
+            int doc = it.nextDoc();
+            if (!other.exists(doc))
+            {
+                difference.add(doc);
+            }
+        }
+        return difference.build();
+    }
+
+    @Override
+    public int andNotSize(DocSet other)
+    {
+        return size - intersectionSize(other);
+    }
+
+    @Override
+    public Filter getTopFilter()
+    {
+        return new Filter()
+        {
+            @Override
+            public DocIdSet getDocIdSet(LeafReaderContext context, Bits acceptDocs)
+            {
+                DocIdSet segmentDocs = new DocIdSet()
+                {
+                    @Override
+                    public DocIdSetIterator iterator()
+                    {
+                        return AbstractCachedDocSet.this.iterator(context);
+                    }
+
+                    @Override
+                    public long ramBytesUsed()
+                    {
+                        // A view over the top level set
+                        return 0L;
+                    }
+                };
+                return BitsFilteredDocIdSet.wrap(segmentDocs, acceptDocs);
+            }
+
+            @Override
+            public String toString(String field)
+            {
+                return AbstractCachedDocSet.this.getClass().getSimpleName() + "TopFilter";
+            }
+
+            @Override
+            public boolean equals(Object other)
+            {
+                return this == other;
+            }
+
+            @Override
+            public int hashCode()
+            {
+                return System.identityHashCode(this);
+            }
+        };
+    }
+
+    @Override
+    public void addAllTo(DocSet target)
+    {
+        for (DocIterator it = iterator(); it.hasNext(); /**/)
+        {
+            target.add(it.nextDoc());
+        }
+    }
+
+    @Override
+    public AbstractCachedDocSet clone()
+    {
+        // Immutable
+        return this;
+    }
+
+    public void close()
+    {
+        // Nothing to release, the docs are on heap
+    }
+
+    @Override
+    public Collection<Accountable> getChildResources()
+    {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Counts the docs in common with the other set, by looking up the docs of the smaller set into the larger one,
+     * and adds them to the result if one is given.
+     */
+    private int intersect(DocSet other, CompressedDocSet.Builder result, boolean stopAtFirst)
+    {
+        DocSet smaller = other.size() < size ? other : this;
+        DocSet larger = smaller == this ? other : this;
+        int count = 0;
+        for (DocIterator it = smaller.iterator(); it.hasNext(); /**/)
+        {
+            int doc = it.nextDoc();
+            if (larger.exists(doc))
+            {
+                count++;
+                if (result != null)
+                {
+                    result.add(doc);
+                }
+                if (stopAtFirst)
+                {
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int next(DocIterator docs)
+    {
+        return docs.hasNext() ? docs.nextDoc() : DocIdSetIterator.NO_MORE_DOCS;
+    }
+
+    private static int nextDocOf(DocIdSetIterator docs)
+    {
+        try
+        {
+            return docs.nextDoc();
+        }
+        catch (IOException e)
+        {
+            // The cached sets are on heap
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -27,12 +27,21 @@
 package org.alfresco.solr.query;
 
 import java.io.IOException;
-import java.util.stream.LongStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.stream.Collectors;
 
+import org.alfresco.repo.search.adaptor.QueryConstants;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.BitSetIterator;
+import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.FixedBitSet;
 import org.apache.solr.search.BitDocSet;
 import org.apache.solr.search.DocIterator;
@@ -46,34 +55,141 @@ import org.apache.solr.search.SolrIndexSearcher;
  */
 public abstract class AbstractSolrCachingScorer extends Scorer
 {
-    protected static class LongCache 
-		{
-			private static int CACHE_SIZE = 1000000;
-			
-			private LongCache(){}
-	
-			static final long cache[] = LongStream.range(0, CACHE_SIZE).toArray();
-		}
-
-	protected static Long getLong(long l) {
-		if(l > LongCache.CACHE_SIZE)
-		{
-			return Long.valueOf(l);
-		}
-		else
-		{
-			return LongCache.cache[(int)l];
-		}
-	}
+    /**
+     * Reads the ACL ids of the given ACL documents, segment by segment, into a primitive set.
+     * Documents without an ACL id are skipped.
+     */
+    protected static AclIdSet getAclIds(SolrIndexSearcher searcher, DocSet aclDocs) throws IOException
+    {
+        return getAclIds(searcher.getIndexReader(), aclDocs);
+    }
 
-	
-    
-    SolrCachingScorerDoIdSetIterator iterator;
+    static AclIdSet getAclIds(IndexReader reader, DocSet aclDocs) throws IOException
+    {
+        List<LeafReaderContext> leaves = reader.leaves();
+        NumericDocValues[] aclIdValues = new NumericDocValues[leaves.size()];
+        Bits[] withAclId = new Bits[leaves.size()];
+        boolean[] loaded = new boolean[leaves.size()];
+
+        AclIdSet.Builder aclIds = AclIdSet.builder();
+        for (DocIterator it = aclDocs.iterator(); it.hasNext(); /**/)
+        {
+            int docID = it.nextDoc();
+            int leaf = ReaderUtil.subIndex(docID, leaves);
+            if (!loaded[leaf])
+            {
+                LeafReader leafReader = leaves.get(leaf).reader();
+                aclIdValues[leaf] = DocValuesCache.getNumericDocValues(QueryConstants.FIELD_ACLID, leafReader);
+                withAclId[leaf] = leafReader.getDocsWithField(QueryConstants.FIELD_ACLID);
+                loaded[leaf] = true;
+            }
+
+            int leafDocID = docID - leaves.get(leaf).docBase;
+            if (aclIdValues[leaf] != null && withAclId[leaf].get(leafDocID))
+            {
+                aclIds.add(aclIdValues[leaf].get(leafDocID));
+            }
+        }
+        return aclIds.build();
+    }
+
+    /**
+     * Finds the real documents whose ACL id is in the given set. Each segment is matched into its own
+     * bitset, in parallel across segments, and the results are then compressed into a single top level set.
+     * The ACL documents themselves, deleted documents and documents without an ACL id are excluded from the result.
+     */
+    protected static CompressedDocSet getDocsForAclIds(SolrIndexSearcher searcher, AclIdSet aclIds, DocSet aclDocs) throws IOException
+    {
+        return getDocsForAclIds(searcher.getIndexReader(), aclIds, aclDocs);
+    }
+
+    static CompressedDocSet getDocsForAclIds(IndexReader reader, AclIdSet aclIds, DocSet aclDocs) throws IOException
+    {
+        CompressedDocSet.Builder docs = CompressedDocSet.builder(reader.maxDoc());
+
+        if (!aclIds.isEmpty())
+        {
+            List<LeafReaderContext> leaves = reader.leaves();
+            List<FixedBitSet> matches;
+            try
+            {
+                matches = leaves.parallelStream()
+                        .map(context -> getLeafDocsForAclIds(context, aclIds))
+                        .collect(Collectors.toList());
+            }
+            catch (UncheckedIOException e)
+            {
+                throw e.getCause();
+            }
+
+            for (int i = 0; i < leaves.size(); i++)
+            {
+                FixedBitSet leafMatches = matches.get(i);
+                if (leafMatches != null)
+                {
+                    int docBase = leaves.get(i).docBase;
+                    BitSetIterator it = new BitSetIterator(leafMatches, 0);
+                    for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc())
+                    {
+                        if (!aclDocs.exists(docBase + doc))
+                        {
+                            docs.add(docBase + doc);
+                        }
+                    }
+                }
+            }
+        }
+        return docs.build();
+    }
+
+    private static FixedBitSet getLeafDocsForAclIds(LeafReaderContext context, AclIdSet aclIds)
+    {
+        try
+        {
+            LeafReader reader = context.reader();
+            NumericDocValues aclIdValues = DocValuesCache.getNumericDocValues(QueryConstants.FIELD_ACLID, reader);
+            if (aclIdValues == null)
+            {
+                return null;
+            }
+
+            // A document without an ACL id reads as 0, which is not an ACL id
+            Bits withAclId = reader.getDocsWithField(QueryConstants.FIELD_ACLID);
+            Bits liveDocs = reader.getLiveDocs();
+            int maxDoc = reader.maxDoc();
+            FixedBitSet leafMatches = new FixedBitSet(maxDoc);
+            boolean found = false;
+            for (int i = 0; i < maxDoc; i++)
+            {
+                if ((liveDocs == null || liveDocs.get(i)) && withAclId.get(i) && aclIds.contains(aclIdValues.get(i)))
+                {
+                    leafMatches.set(i);
+                    found = true;
+                }
+            }
+            return found ? leafMatches : null;
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    DocIdSetIterator iterator;
     
     AbstractSolrCachingScorer(Weight weight, DocSet in, LeafReaderContext context, SolrIndexSearcher searcher)
     {
         super(weight);
-        iterator = new SolrCachingScorerDoIdSetIterator(in, context, searcher);
+        if (in instanceof BitDocSet)
+        {
+            iterator = new SolrCachingScorerDoIdSetIterator((BitDocSet) in, context);
+        }
+        else
+        {
+            // Cached sets are iterated in place, anything else is compressed rather than copied into maxDoc bits
+            AbstractCachedDocSet cached = in instanceof AbstractCachedDocSet ? (AbstractCachedDocSet) in : CompressedDocSet.of(in, searcher.maxDoc());
+            iterator = cached.iterator(context);
+        }
     }
 
     @Override
@@ -113,22 +229,11 @@ public abstract class AbstractSolrCachingScorer extends Scorer
 
         LeafReaderContext context;
         
-        SolrCachingScorerDoIdSetIterator(DocSet in, LeafReaderContext context, SolrIndexSearcher searcher)
+        SolrCachingScorerDoIdSetIterator(BitDocSet in, LeafReaderContext context)
         {
         	  this.context = context;
               
-              if (in instanceof BitDocSet)
-              {
-                  matches = (BitDocSet) in;
-              }
-              else
-              {
-                  this.matches = new BitDocSet(new FixedBitSet(searcher.maxDoc()));
-                  for (DocIterator it = in.iterator(); it.hasNext(); /* */)
-                  {
-                      matches.addUnique(it.nextDoc());
-                  }
-              }
+              matches = in;
               bitSet = matches.getBits();
               
               doc = getBase() - 1;
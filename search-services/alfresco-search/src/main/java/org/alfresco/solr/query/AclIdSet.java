@@ -0,0 +1,190 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.solr.query;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+
+import com.carrotsearch.hppc.LongHashSet;
+import com.carrotsearch.hppc.cursors.LongCursor;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * Immutable set of ACL ids, sized to fit the ids it contains.
+ *
+ * Sparse sets are stored in a primitive hash set. Dense sets are stored in a bit set covering only the
+ * [min, max] range of the ACL ids found, so the footprint does not depend on the highest ACL id in the repository.
+ */
+public class AclIdSet implements Accountable
+{
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(AclIdSet.class);
+
+    // Dense representation can't be used when the range of ACL ids is bigger than this
+    private static final long MAX_DENSE_RANGE = Integer.MAX_VALUE - 64L;
+
+    public static final AclIdSet EMPTY = new AclIdSet(null, null, 0L, -1L, 0);
+
+    private final LongHashSet sparse;
+    private final FixedBitSet dense;
+    private final long min;
+    private final long max;
+    private final int size;
+
+    private AclIdSet(LongHashSet sparse, FixedBitSet dense, long min, long max, int size)
+    {
+        this.sparse = sparse;
+        this.dense = dense;
+        this.min = min;
+        this.max = max;
+        this.size = size;
+    }
+
+    public boolean contains(long aclId)
+    {
+        if (aclId < min || aclId > max)
+        {
+            return false;
+        }
+        if (dense != null)
+        {
+            return dense.get((int) (aclId - min));
+        }
+        return sparse.contains(aclId);
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    boolean isDense()
+    {
+        return dense != null;
+    }
+
+    @Override
+    public long ramBytesUsed()
+    {
+        long bytes = BASE_RAM_BYTES_USED;
+        if (dense != null)
+        {
+            bytes += dense.ramBytesUsed();
+        }
+        if (sparse != null)
+        {
+            bytes += RamUsageEstimator.sizeOf(sparse.keys);
+        }
+        return bytes;
+    }
+
+    @Override
+    public Collection<Accountable> getChildResources()
+    {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) return true;
+        if (!(o instanceof AclIdSet)) return false;
+
+        AclIdSet that = (AclIdSet) o;
+        return size == that.size
+                && min == that.min
+                && max == that.max
+                && Objects.equals(dense, that.dense)
+                && Objects.equals(sparse, that.sparse);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(size, min, max);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "AclIdSet(size=" + size + ", dense=" + isDense() + ", min=" + min + ", max=" + max + ")";
+    }
+
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    /**
+     * Collects ACL ids and chooses the smallest representation when the set is built.
+     */
+    public static class Builder
+    {
+        private final LongHashSet ids = new LongHashSet();
+        private long min = Long.MAX_VALUE;
+        private long max = Long.MIN_VALUE;
+
+        public Builder add(long aclId)
+        {
+            if (ids.add(aclId))
+            {
+                min = Math.min(min, aclId);
+                max = Math.max(max, aclId);
+            }
+            return this;
+        }
+
+        public AclIdSet build()
+        {
+            if (ids.isEmpty())
+            {
+                return EMPTY;
+            }
+
+            // Use a bit set when it doesn't take more memory than the hash set
+            long range = max - min + 1;
+            if (range > 0 && range <= MAX_DENSE_RANGE && FixedBitSet.bits2words((int) range) <= ids.keys.length)
+            {
+                FixedBitSet bits = new FixedBitSet((int) range);
+                for (LongCursor cursor : ids)
+                {
+                    bits.set((int) (cursor.value - min));
+                }
+                return new AclIdSet(null, bits, min, max, ids.size());
+            }
+            return new AclIdSet(ids, null, min, max, ids.size());
+        }
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.query;
+
+import java.util.Arrays;
+
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.solr.search.DocIterator;
+import org.apache.solr.search.DocSet;
+
+/**
+ * Immutable top level {@link DocSet} stored in blocks of 64K docs, each block sized to fit the docs it contains.
+ *
+ * A block with few docs is stored as the sorted list of its doc offsets, a block with many docs as a bit set and a
+ * block with all its docs set as a reference to a shared full bit set, so the footprint depends on the number and
+ * spread of the docs rather than on maxDoc. Empty blocks take no memory at all.
+ */
+public final class CompressedDocSet extends AbstractCachedDocSet
+{
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(CompressedDocSet.class);
+
+    private static final int BLOCK_SHIFT = 16;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+    private static final int BLOCK_WORDS = BLOCK_SIZE >> 6;
+
+    // Blocks with more docs than this are stored as bit sets, as 4096 offsets take as much memory as a bit block
+    private static final int MAX_SPARSE = BLOCK_WORDS * Long.BYTES / Character.BYTES;
+
+    private static final long[] FULL_BLOCK = new long[BLOCK_WORDS];
+    static
+    {
+        Arrays.fill(FULL_BLOCK, -1L);
+    }
+
+    private final char[][] sparse;
+    private final long[][] dense;
+
+    private CompressedDocSet(char[][] sparse, long[][] dense, int maxDoc, int size)
+    {
+        super(maxDoc, size);
+        this.sparse = sparse;
+        this.dense = dense;
+    }
+
+    /**
+     * @return the given docs as a compressed set, or the set itself if it is already compressed.
+     */
+    public static CompressedDocSet of(DocSet docs, int maxDoc)
+    {
+        if (docs instanceof CompressedDocSet)
+        {
+            return (CompressedDocSet) docs;
+        }
+
+        Builder builder = builder(maxDoc);
+        for (DocIterator it = docs.iterator(); it.hasNext(); /**/)
+        {
+            builder.add(it.nextDoc());
+        }
+        return builder.build();
+    }
+
+    public static Builder builder(int maxDoc)
+    {
+        return new Builder(maxDoc);
+    }
+
+    /**
+     * @return the docs set in the bits.
+     */
+    public static CompressedDocSet of(FixedBitSet bits)
+    {
+        Builder builder = builder(bits.length());
+        int doc = bits.length() > 0 ? bits.nextSetBit(0) : DocIdSetIterator.NO_MORE_DOCS;
+        while (doc != DocIdSetIterator.NO_MORE_DOCS)
+        {
+            builder.add(doc);
+            doc = doc + 1 < bits.length() ? bits.nextSetBit(doc + 1) : DocIdSetIterator.NO_MORE_DOCS;
+        }
+        return builder.build();
+    }
+
+    @Override
+    DocIdSetIterator iterator(int docBase, int segmentMaxDoc)
+    {
+        return new BlockIterator(docBase, docBase + segmentMaxDoc);
+    }
+
+    @Override
+    public boolean exists(int doc)
+    {
+        if (doc < 0 || doc >= maxDoc)
+        {
+            return false;
+        }
+
+        int block = doc >>> BLOCK_SHIFT;
+        int offset = doc & BLOCK_MASK;
+        if (sparse[block] != null)
+        {
+            return Arrays.binarySearch(sparse[block], (char) offset) >= 0;
+        }
+        return dense[block] != null && (dense[block][offset >> 6] & (1L << offset)) != 0;
+    }
+
+    @Override
+    public long ramBytesUsed()
+    {
+        long bytes = BASE_RAM_BYTES_USED + RamUsageEstimator.shallowSizeOf(sparse) + RamUsageEstimator.shallowSizeOf(dense);
+        for (int block = 0; block < sparse.length; block++)
+        {
+            if (sparse[block] != null)
+            {
+                bytes += RamUsageEstimator.sizeOf(sparse[block]);
+            }
+            else if (dense[block] != null && dense[block] != FULL_BLOCK)
+            {
+                bytes += RamUsageEstimator.sizeOf(dense[block]);
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CompressedDocSet(size=" + size + ", maxDoc=" + maxDoc + ", ramBytesUsed=" + ramBytesUsed() + ")";
+    }
+
+    /**
+     * Iterates over the docs in [start, end), returned relative to start.
+     */
+    private class BlockIterator extends DocIdSetIterator
+    {
+        private final int start;
+        private final int end;
+        private int doc = -1;
+
+        // Position of the current doc: the index is only used for the sparse blocks
+        private int block = -1;
+        private int index = -1;
+
+        BlockIterator(int start, int end)
+        {
+            this.start = start;
+            this.end = Math.min(end, maxDoc);
+        }
+
+        @Override
+        public int docID()
+        {
+            return doc;
+        }
+
+        @Override
+        public int nextDoc()
+        {
+            if (doc == NO_MORE_DOCS)
+            {
+                return NO_MORE_DOCS;
+            }
+            if (block >= 0 && sparse[block] != null && index + 1 < sparse[block].length)
+            {
+                index++;
+                return found((block << BLOCK_SHIFT) | sparse[block][index]);
+            }
+            return seek(start + doc + 1);
+        }
+
+        @Override
+        public int advance(int target)
+        {
+            return seek(start + target);
+        }
+
+        @Override
+        public long cost()
+        {
+            return size;
+        }
+
+        private int seek(int from)
+        {
+            for (int current = from >>> BLOCK_SHIFT; from < end && current < sparse.length; current++, from = current << BLOCK_SHIFT)
+            {
+                int offset = from & BLOCK_MASK;
+                if (sparse[current] != null)
+                {
+                    char[] offsets = sparse[current];
+                    int i = Arrays.binarySearch(offsets, (char) offset);
+                    i = i < 0 ? -i - 1 : i;
+                    if (i < offsets.length)
+                    {
+                        block = current;
+                        index = i;
+                        return found((current << BLOCK_SHIFT) | offsets[i]);
+                    }
+                }
+                else if (dense[current] != null)
+                {
+                    int bit = nextSetBit(dense[current], offset);
+                    if (bit != -1)
+                    {
+                        block = current;
+                        index = -1;
+                        return found((current << BLOCK_SHIFT) | bit);
+                    }
+                }
+            }
+            return doc = NO_MORE_DOCS;
+        }
+
+        private int found(int topLevelDoc)
+        {
+            doc = topLevelDoc < end ? topLevelDoc - start : NO_MORE_DOCS;
+            return doc;
+        }
+
+        private int nextSetBit(long[] words, int from)
+        {
+            int word = from >> 6;
+            long bits = words[word] >>> from;
+            if (bits != 0)
+            {
+                return from + Long.numberOfTrailingZeros(bits);
+            }
+            for (word++; word < words.length; word++)
+            {
+                if (words[word] != 0)
+                {
+                    return (word << 6) + Long.numberOfTrailingZeros(words[word]);
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Collects docs in increasing order and chooses the smallest representation of each block once it is complete.
+     */
+    public static class Builder
+    {
+        private final int maxDoc;
+        private final char[][] sparse;
+        private final long[][] dense;
+        private final long[] words = new long[BLOCK_WORDS];
+        private int block = -1;
+        private int blockSize;
+        private int size;
+        private int lastDoc = -1;
+
+        private Builder(int maxDoc)
+        {
+            int blocks = (maxDoc + BLOCK_MASK) >>> BLOCK_SHIFT;
+            this.maxDoc = maxDoc;
+            this.sparse = new char[blocks][];
+            this.dense = new long[blocks][];
+        }
+
+        public Builder add(int doc)
+        {
+            if (doc <= lastDoc || doc >= maxDoc)
+            {
+                throw new IllegalArgumentException("Docs must be added in increasing order and be lower than " + maxDoc + ": " + doc + " after " + lastDoc);
+            }
+
+            int docBlock = doc >>> BLOCK_SHIFT;
+            if (docBlock != block)
+            {
+                flush();
+                block = docBlock;
+            }
+            int offset = doc & BLOCK_MASK;
+            words[offset >> 6] |= 1L << offset;
+            blockSize++;
+            lastDoc = doc;
+            return this;
+        }
+
+        public CompressedDocSet build()
+        {
+            flush();
+            return new CompressedDocSet(sparse, dense, maxDoc, size);
+        }
+
+        private void flush()
+        {
+            if (blockSize == 0)
+            {
+                return;
+            }
+
+            if (blockSize == Math.min(BLOCK_SIZE, maxDoc - (block << BLOCK_SHIFT)))
+            {
+                dense[block] = FULL_BLOCK;
+            }
+            else if (blockSize <= MAX_SPARSE)
+            {
+                char[] offsets = new char[blockSize];
+                int i = 0;
+                for (int word = 0; word < BLOCK_WORDS; word++)
+                {
+                    for (long bits = words[word]; bits != 0; bits &= bits - 1)
+                    {
+                        offsets[i++] = (char) ((word << 6) + Long.numberOfTrailingZeros(bits));
+                    }
+                }
+                sparse[block] = offsets;
+            }
+            else
+            {
+                dense[block] = words.clone();
+            }
+
+            size += blockSize;
+            blockSize = 0;
+            Arrays.fill(words, 0L);
+        }
+    }
+}
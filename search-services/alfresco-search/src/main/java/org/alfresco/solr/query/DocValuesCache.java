@@ -24,15 +24,27 @@
  * #L%
  */
 
+
 package org.alfresco.solr.query;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.packed.PackedInts;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
 
 
 /**
@@ -40,104 +52,186 @@ import org.apache.lucene.index.NumericDocValues;
  * possible access to numeric docValues. The DocValuesCache can be used instead of the Direct DocValues format which also
  * provides uncompressed in-memory docValues. The DocValuesCache can be used in situations when it is not
  * practical to re-index to use Direct docValues.
+ *
+ * Values are cached per segment, keyed by the segment core cache key, and they are released when the segment core
+ * is closed. Each segment is loaded only once, values are stored as packed ints relative to the minimum value of
+ * the segment and lookups don't require any lock.
  **/
 
 public class DocValuesCache
 {
-    private static Map<String, WeakHashMap<Object, NumericDocValues>> cache = new HashMap<String, WeakHashMap<Object, NumericDocValues>>();
+    // Marks a segment field without numeric docValues, as null values can't be stored in a ConcurrentHashMap
+    private static final CachedValues NO_VALUES = new CachedValues(0L, PackedInts.getMutable(0, 1, PackedInts.FAST));
 
-    public static synchronized NumericDocValues getNumericDocValues(String field, LeafReader reader) throws IOException
-    {
-        WeakHashMap<Object, NumericDocValues> fieldCache = cache.get(field);
+    private static final Map<Object, Map<String, CachedValues>> cache = new ConcurrentHashMap<>();
 
-        if(fieldCache == null)
-        {
-            fieldCache = new WeakHashMap<Object, NumericDocValues>();
-            cache.put(field, fieldCache);
-        }
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
 
+    public static NumericDocValues getNumericDocValues(String field, LeafReader reader) throws IOException
+    {
         Object cacheKey = reader.getCoreCacheKey();
-        NumericDocValues cachedValues = fieldCache.get(cacheKey);
+        Map<String, CachedValues> segmentCache = cache.get(cacheKey);
+        if (segmentCache == null)
+        {
+            segmentCache = cache.computeIfAbsent(cacheKey, key -> {
+                reader.addCoreClosedListener(cache::remove);
+                return new ConcurrentHashMap<>();
+            });
+        }
 
-        if(cachedValues == null)
+        CachedValues cachedValues = segmentCache.get(field);
+        if (cachedValues == null)
         {
-            NumericDocValues fieldValues = reader.getNumericDocValues(field);
-            if(fieldValues == null)
+            try
             {
-                return null;
+                cachedValues = segmentCache.computeIfAbsent(field, f -> {
+                    misses.increment();
+                    return load(f, reader);
+                });
             }
-            else
+            catch (UncheckedIOException e)
             {
-                int maxDoc = reader.maxDoc();
-                boolean longs = false;
-                int[] intValues = new int[maxDoc]; //Always start off with an int array.
-                SettableDocValues settableValues = new IntValues(intValues);
-
-                for(int i=0; i<maxDoc; i++)
-                {
-                    long value = fieldValues.get(i);
-                    if(value > Integer.MAX_VALUE && !longs)
-                    {
-                        longs = true;
-                        settableValues = new LongValues(intValues);
-                    }
-
-                    settableValues.set(i, value);
-                }
-                fieldCache.put(cacheKey, settableValues);
-                return settableValues;
+                throw e.getCause();
             }
         }
         else
         {
-            return cachedValues;
+            hits.increment();
         }
+
+        return cachedValues == NO_VALUES ? null : cachedValues;
     }
 
-    private static abstract class SettableDocValues extends NumericDocValues
+    /**
+     * Loads the values of a field for every segment of the reader, in parallel across segments.
+     * Used to fill the cache when a new searcher is warmed, so queries don't pay for the first load.
+     *
+     * @param field numeric docValues field
+     * @param reader top level reader of the searcher being warmed
+     */
+    public static void warm(String field, IndexReader reader)
     {
-        public abstract void set(int index, long value);
+        List<LeafReaderContext> leaves = reader.leaves();
+        leaves.parallelStream().forEach(context -> {
+            try
+            {
+                getNumericDocValues(field, context.reader());
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        });
     }
 
-    private static class IntValues extends SettableDocValues
+    /**
+     * Drops the cached values of every segment, so that they are loaded again on the next lookup.
+     * Used to measure cold loads.
+     */
+    public static void clear()
     {
-        private int[] values;
+        // The segments stay registered, so that their close listener is not added again
+        cache.values().forEach(Map::clear);
+    }
 
-        public IntValues(int[] values)
+    /**
+     * @return heap used by the cached values of every segment and field
+     */
+    public static long ramBytesUsed()
+    {
+        long bytes = 0L;
+        for (Map<String, CachedValues> segmentCache : cache.values())
         {
-            this.values = values;
+            for (CachedValues values : segmentCache.values())
+            {
+                bytes += values.ramBytesUsed();
+            }
         }
+        return bytes;
+    }
+
+    public static NamedList<Object> getStatistics()
+    {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+
+        NamedList<Object> stats = new SimpleOrderedMap<>();
+        stats.add("segments", cache.size());
+        stats.add("lookups", lookups);
+        stats.add("hits", hitCount);
+        stats.add("hitratio", lookups == 0 ? 0.0f : (float) hitCount / lookups);
+        stats.add("ramBytesUsed", ramBytesUsed());
+        stats.add("ramUsed", RamUsageEstimator.humanReadableUnits(ramBytesUsed()));
+        return stats;
+    }
 
-        public void set(int index, long value)
+    private static CachedValues load(String field, LeafReader reader)
+    {
+        try
         {
-            this.values[index] = (int)value;
-        }
+            NumericDocValues fieldValues = reader.getNumericDocValues(field);
+            if (fieldValues == null)
+            {
+                return NO_VALUES;
+            }
 
-        public long get(int index) {
-            return values[index];
+            int maxDoc = reader.maxDoc();
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (int i = 0; i < maxDoc; i++)
+            {
+                long value = fieldValues.get(i);
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            if (maxDoc == 0)
+            {
+                min = max = 0L;
+            }
+
+            PackedInts.Mutable values = PackedInts.getMutable(maxDoc, PackedInts.unsignedBitsRequired(max - min), PackedInts.FAST);
+            for (int i = 0; i < maxDoc; i++)
+            {
+                values.set(i, fieldValues.get(i) - min);
+            }
+            return new CachedValues(min, values);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
         }
     }
 
-    private static class LongValues extends SettableDocValues
+    private static class CachedValues extends NumericDocValues implements Accountable
     {
-        private long[] values;
+        private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(CachedValues.class);
 
-        public LongValues(int[] ivalues)
+        private final long min;
+        private final PackedInts.Mutable values;
+
+        CachedValues(long min, PackedInts.Mutable values)
         {
-            values = new long[ivalues.length];
-            for(int i=0; i< ivalues.length; i++) {
-                values[i] = ivalues[i];
-            }
+            this.min = min;
+            this.values = values;
         }
 
-        public void set(int index, long value)
+        @Override
+        public long get(int index)
         {
-            this.values[index] = value;
+            return min + values.get(index);
         }
 
-        public long get(int index)
+        @Override
+        public long ramBytesUsed()
+        {
+            return BASE_RAM_BYTES_USED + values.ramBytesUsed();
+        }
+
+        @Override
+        public Collection<Accountable> getChildResources()
         {
-            return values[index];
+            return Collections.emptyList();
         }
     }
-}
\ No newline at end of file
+}
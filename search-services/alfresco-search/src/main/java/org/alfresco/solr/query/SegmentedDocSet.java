@@ -0,0 +1,361 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.query;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.solr.search.DocSet;
+import org.apache.solr.search.SolrIndexSearcher;
+
+/**
+ * Immutable top level {@link DocSet} made of one {@link CompressedDocSet} per segment, keyed by the segment core key.
+ *
+ * A new set is built from the previous one by reusing the segments which are still in the index and computing only
+ * the new ones, so the cost of refreshing a cached set after a commit depends on what changed rather than on the size
+ * of the index. Segments can only be reused when the set was computed from the same source, e.g. the same ACL ids.
+ */
+public final class SegmentedDocSet extends AbstractCachedDocSet
+{
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(SegmentedDocSet.class);
+
+    // The segments are computed in a pool of their own, so they neither compete with nor wait for the other users
+    // of the common pool
+    private static final ForkJoinPool SEGMENTS_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("SegmentedDocSet-" + thread.getPoolIndex());
+        return thread;
+    }, null, false);
+
+    /**
+     * Computes the docs of a segment, relative to the segment.
+     */
+    @FunctionalInterface
+    public interface SegmentLoader
+    {
+        CompressedDocSet load(LeafReaderContext context) throws IOException;
+    }
+
+    private final Object source;
+    private final Object[] coreKeys;
+    private final int[] docBases;
+    private final int[] numDeletedDocs;
+    private final CompressedDocSet[] segments;
+    private final int reusedSegments;
+
+    private SegmentedDocSet(Object source, Object[] coreKeys, int[] docBases, int[] numDeletedDocs,
+                CompressedDocSet[] segments, int maxDoc, int size, int reusedSegments)
+    {
+        super(maxDoc, size);
+        this.source = source;
+        this.coreKeys = coreKeys;
+        this.docBases = docBases;
+        this.numDeletedDocs = numDeletedDocs;
+        this.segments = segments;
+        this.reusedSegments = reusedSegments;
+    }
+
+    /**
+     * Builds the set for the searcher, computing the segments in parallel in a dedicated pool.
+     *
+     * @param source what the docs of each segment are computed from, besides the segment itself.
+     * @param previous the set computed for a previous searcher, if any: its segments are reused when the source is
+     *        the same, with the docs deleted since removed.
+     */
+    public static SegmentedDocSet build(SolrIndexSearcher searcher, Object source, DocSet previous, SegmentLoader loader) throws IOException
+    {
+        return build(searcher.getIndexReader(), source, previous, loader);
+    }
+
+    static SegmentedDocSet build(IndexReader reader, Object source, DocSet previous, SegmentLoader loader) throws IOException
+    {
+        List<LeafReaderContext> leaves = reader.leaves();
+
+        Map<Object, Integer> reusable = new HashMap<>();
+        SegmentedDocSet old = previous instanceof SegmentedDocSet ? (SegmentedDocSet) previous : null;
+        if (old != null && Objects.equals(old.source, source))
+        {
+            for (int i = 0; i < old.coreKeys.length; i++)
+            {
+                reusable.put(old.coreKeys[i], i);
+            }
+        }
+
+        CompressedDocSet[] segments;
+        try
+        {
+            segments = SEGMENTS_POOL.submit(() -> leaves.parallelStream()
+                    .map(context -> {
+                        try
+                        {
+                            Integer segment = reusable.get(context.reader().getCoreCacheKey());
+                            return segment == null ? loader.load(context) : old.reuse(segment, context);
+                        }
+                        catch (IOException e)
+                        {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .toArray(CompressedDocSet[]::new)).get();
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException)
+            {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while computing the segments of " + source);
+        }
+
+        Object[] coreKeys = new Object[leaves.size()];
+        int[] docBases = new int[leaves.size()];
+        int[] numDeletedDocs = new int[leaves.size()];
+        int size = 0;
+        int reusedSegments = 0;
+        for (int i = 0; i < leaves.size(); i++)
+        {
+            LeafReaderContext context = leaves.get(i);
+            coreKeys[i] = context.reader().getCoreCacheKey();
+            docBases[i] = context.docBase;
+            numDeletedDocs[i] = context.reader().numDeletedDocs();
+            size += segments[i].size();
+            if (reusable.containsKey(coreKeys[i]))
+            {
+                reusedSegments++;
+            }
+        }
+        return new SegmentedDocSet(source, coreKeys, docBases, numDeletedDocs, segments, reader.maxDoc(), size, reusedSegments);
+    }
+
+    /**
+     * @return the live docs of the segment matched by the weight.
+     */
+    public static CompressedDocSet matches(Weight weight, LeafReaderContext context) throws IOException
+    {
+        CompressedDocSet.Builder matches = CompressedDocSet.builder(context.reader().maxDoc());
+        Scorer scorer = weight.scorer(context);
+        if (scorer != null)
+        {
+            Bits liveDocs = context.reader().getLiveDocs();
+            DocIdSetIterator it = scorer.iterator();
+            for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc())
+            {
+                if (liveDocs == null || liveDocs.get(doc))
+                {
+                    matches.add(doc);
+                }
+            }
+        }
+        return matches.build();
+    }
+
+    /**
+     * @return the number of segments reused from the previous set when this one was built.
+     */
+    public int getReusedSegments()
+    {
+        return reusedSegments;
+    }
+
+    @Override
+    DocIdSetIterator iterator(int docBase, int segmentMaxDoc)
+    {
+        int segment = Arrays.binarySearch(docBases, docBase);
+        if (segment >= 0 && segments[segment].maxDoc == segmentMaxDoc)
+        {
+            return segments[segment].iterator(0, segmentMaxDoc);
+        }
+        return new SegmentsIterator(docBase, docBase + segmentMaxDoc);
+    }
+
+    @Override
+    public boolean exists(int doc)
+    {
+        if (doc < 0 || doc >= maxDoc)
+        {
+            return false;
+        }
+
+        int segment = ReaderUtil.subIndex(doc, docBases);
+        return segments[segment].exists(doc - docBases[segment]);
+    }
+
+    @Override
+    public long ramBytesUsed()
+    {
+        long bytes = BASE_RAM_BYTES_USED
+                + RamUsageEstimator.shallowSizeOf(coreKeys)
+                + RamUsageEstimator.sizeOf(docBases)
+                + RamUsageEstimator.sizeOf(numDeletedDocs)
+                + RamUsageEstimator.shallowSizeOf(segments);
+        for (CompressedDocSet segment : segments)
+        {
+            bytes += segment.ramBytesUsed();
+        }
+        return bytes;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "SegmentedDocSet(size=" + size + ", maxDoc=" + maxDoc + ", segments=" + segments.length
+                + ", reusedSegments=" + reusedSegments + ", ramBytesUsed=" + ramBytesUsed() + ")";
+    }
+
+    /**
+     * @return the docs of the segment, without the docs deleted since it was computed.
+     */
+    private CompressedDocSet reuse(int segment, LeafReaderContext context) throws IOException
+    {
+        CompressedDocSet docs = segments[segment];
+        Bits liveDocs = context.reader().getLiveDocs();
+        if (liveDocs == null || context.reader().numDeletedDocs() == numDeletedDocs[segment])
+        {
+            return docs;
+        }
+
+        CompressedDocSet.Builder live = CompressedDocSet.builder(docs.maxDoc);
+        DocIdSetIterator it = docs.iterator(0, docs.maxDoc);
+        for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc())
+        {
+            if (liveDocs.get(doc))
+            {
+                live.add(doc);
+            }
+        }
+        return live.build();
+    }
+
+    /**
+     * Iterates over the docs in [start, end) of all the segments, returned relative to start.
+     */
+    private class SegmentsIterator extends DocIdSetIterator
+    {
+        private final int start;
+        private final int end;
+        private int doc = -1;
+
+        // Segment of the current doc and its iterator
+        private int segment;
+        private DocIdSetIterator segmentDocs;
+
+        SegmentsIterator(int start, int end)
+        {
+            this.start = start;
+            this.end = Math.min(end, maxDoc);
+            this.segment = start < this.end ? ReaderUtil.subIndex(start, docBases) : segments.length;
+        }
+
+        @Override
+        public int docID()
+        {
+            return doc;
+        }
+
+        @Override
+        public int nextDoc() throws IOException
+        {
+            if (doc == NO_MORE_DOCS)
+            {
+                return NO_MORE_DOCS;
+            }
+            if (segmentDocs != null)
+            {
+                int found = segmentDocs.nextDoc();
+                if (found != NO_MORE_DOCS)
+                {
+                    return found(found);
+                }
+                segment++;
+                segmentDocs = null;
+            }
+            return advance(doc + 1);
+        }
+
+        @Override
+        public int advance(int target) throws IOException
+        {
+            for (; segment < segments.length && docBases[segment] < end; segment++, segmentDocs = null)
+            {
+                if (segmentDocs == null)
+                {
+                    segmentDocs = segments[segment].iterator(0, segments[segment].maxDoc);
+                }
+                int found = segmentDocs.advance(Math.max(0, start + target - docBases[segment]));
+                if (found != NO_MORE_DOCS)
+                {
+                    return found(found);
+                }
+            }
+            return doc = NO_MORE_DOCS;
+        }
+
+        @Override
+        public long cost()
+        {
+            return size;
+        }
+
+        private int found(int segmentDoc)
+        {
+            int topLevelDoc = docBases[segment] + segmentDoc;
+            doc = topLevelDoc < end ? topLevelDoc - start : NO_MORE_DOCS;
+            return doc;
+        }
+    }
+}
@@ -27,16 +27,28 @@
 package org.alfresco.solr.query;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Properties;
 
+import org.alfresco.repo.search.adaptor.QueryConstants;
+import org.alfresco.service.cmr.security.AuthorityType;
 import org.alfresco.service.cmr.security.PermissionService;
 import org.alfresco.solr.cache.CacheConstants;
+import org.alfresco.solr.cache.SearcherCacheLoader;
 import org.alfresco.solr.data.GlobalReaders;
+import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.FixedBitSet;
 import org.apache.solr.search.DocSet;
 import org.apache.solr.search.SolrIndexSearcher;
 
@@ -62,14 +74,6 @@ public class SolrAuthorityScorer extends AbstractSolrCachingScorer
         
         Query key = new SolrAuthorityQuery(authority);
         
-        DocSet answer = (DocSet)searcher.cacheLookup(CacheConstants.ALFRESCO_AUTHORITY_CACHE, key);
-        if(answer != null)
-        {
-            // Answer was in the cache, so return it.
-            return new SolrAuthorityScorer(weight, answer, context, searcher);
-        }
-        
-        // Answer was not in cache, so build the results, cache and return.        
         final HashSet<String> globalReaders = GlobalReaders.getReaders();
 
         if (globalReaders.contains(authority) || (doPermissionChecks == false))
@@ -79,31 +83,82 @@ public class SolrAuthorityScorer extends AbstractSolrCachingScorer
             return new SolrAuthorityScorer(weight, allDocs, context, searcher);
         }
 
-        // Docs for which the authority has explicit read access.
-        DocSet readableDocSet = searcher.getDocSet(new SolrReaderQuery(authority));
+        // Build the results on a cache miss, once for all the concurrent requests of the same authorities.
+        DocSet answer = SearcherCacheLoader.get(searcher, CacheConstants.ALFRESCO_AUTHORITY_CACHE, key, () -> getReadableDocs(searcher, authority, null));
+        return new SolrAuthorityScorer(weight, answer, context, searcher);
+    }
 
+    /**
+     * Finds the docs that the authority can read: the docs with an ACL granting read access to the authority,
+     * and the docs owned by the authority if owners can read them.
+     * <p>
+     * The docs are matched segment by segment. The segments of the previous results are reused as long as the ACL ids
+     * readable by the authority and by the owners are the same, only the segments new to the searcher are matched.
+     *
+     * @param previous the results for the authority on a previous searcher, or null
+     */
+    public static DocSet getReadableDocs(SolrIndexSearcher searcher, String authority, DocSet previous) throws IOException
+    {
         // Are all doc owners granted read permissions at a global level?
-        if (globalReaders.contains(PermissionService.OWNER_AUTHORITY))
+        boolean ownersCanRead = GlobalReaders.getReaders().contains(PermissionService.OWNER_AUTHORITY);
+
+        // ACLs for which the authority has explicit read access.
+        DocSet aclDocs = searcher.getDocSet(new TermQuery(new Term(QueryConstants.FIELD_READER, authority)));
+        AclIdSet aclIds = getAclIds(searcher, aclDocs);
+
+        // ACLs for which the owners have read access, only needed when they are not global readers.
+        DocSet ownerAclDocs = null;
+        AclIdSet ownerAclIds = null;
+        if (!ownersCanRead)
         {
-            // Get the set of docs owned by the authority (which they can therefore read).
-            DocSet authorityOwnedDocs = searcher.getDocSet(new SolrOwnerQuery(authority));
-            // Final set of docs that the authority can read.
-            DocSet toCache = readableDocSet.union(authorityOwnedDocs);
-            searcher.cacheInsert(CacheConstants.ALFRESCO_AUTHORITY_CACHE, key, toCache);
-            return new SolrAuthorityScorer(weight, toCache, context, searcher);
+            ownerAclDocs = searcher.getDocSet(new TermQuery(new Term(QueryConstants.FIELD_READER, PermissionService.OWNER_AUTHORITY)));
+            ownerAclIds = getAclIds(searcher, ownerAclDocs);
         }
-        else
+
+        // Only users own docs.
+        Term ownerTerm = AuthorityType.getAuthorityType(authority) == AuthorityType.USER ? new Term(QueryConstants.FIELD_OWNER, authority) : null;
+
+        DocSet ownerAclDocsForLeaves = ownerAclDocs;
+        AclIdSet ownerAclIdsForLeaves = ownerAclIds;
+        return SegmentedDocSet.build(searcher, Arrays.asList(ownersCanRead, aclIds, ownerAclIds), previous, context ->
         {
-            // for that docs I own that have owner Read rights
-            DocSet ownerReadableDocSet = searcher.getDocSet(new SolrReaderQuery(PermissionService.OWNER_AUTHORITY));
-            DocSet authorityOwnedDocs = searcher.getDocSet(new SolrOwnerQuery(authority));
-           
-            // Docs where the authority is an owner and where owners have read rights.
-            DocSet docsAuthorityOwnsAndCanRead = ownerReadableDocSet.intersection(authorityOwnedDocs);
-            // Final set of docs that the authority can read.
-            DocSet toCache = readableDocSet.union(docsAuthorityOwnsAndCanRead);
-            searcher.cacheInsert(CacheConstants.ALFRESCO_AUTHORITY_CACHE, key, toCache);
-            return new SolrAuthorityScorer(weight, toCache, context, searcher);
-        }
+            LeafReader reader = context.reader();
+            int docBase = context.docBase;
+            Bits liveDocs = reader.getLiveDocs();
+            FixedBitSet readable = new FixedBitSet(reader.maxDoc());
+
+            // Docs with an ACL readable by the authority, leaving out the ACL docs themselves.
+            NumericDocValues aclIdValues = DocValuesCache.getNumericDocValues(QueryConstants.FIELD_ACLID, reader);
+            if (aclIdValues != null && !aclIds.isEmpty())
+            {
+                for (int doc = 0; doc < reader.maxDoc(); doc++)
+                {
+                    if ((liveDocs == null || liveDocs.get(doc))
+                            && aclIds.contains(aclIdValues.get(doc))
+                            && !aclDocs.exists(docBase + doc))
+                    {
+                        readable.set(doc);
+                    }
+                }
+            }
+
+            // Docs owned by the authority which can be read by the owners.
+            PostingsEnum ownedDocs = ownerTerm == null ? null : reader.postings(ownerTerm, PostingsEnum.NONE);
+            if (ownedDocs != null)
+            {
+                for (int doc = ownedDocs.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = ownedDocs.nextDoc())
+                {
+                    if ((liveDocs == null || liveDocs.get(doc))
+                            && (ownersCanRead
+                                    || (aclIdValues != null
+                                            && ownerAclIdsForLeaves.contains(aclIdValues.get(doc))
+                                            && !ownerAclDocsForLeaves.exists(docBase + doc))))
+                    {
+                        readable.set(doc);
+                    }
+                }
+            }
+            return CompressedDocSet.of(readable);
+        });
     }
 }
@@ -166,7 +166,7 @@ public class SolrAuthoritySetQuery extends AbstractAuthoritySetQuery implements
             *  documentation on this query.
             */
 
-            HybridBitSet aclSet = getACLSet(auths, QueryConstants.FIELD_READER, solrIndexSearcher);
+            AclIdSet aclSet = getACLSet(auths, QueryConstants.FIELD_READER, solrIndexSearcher);
 
             /*
             * Collect the documents that the user owns.
@@ -181,7 +181,7 @@ public class SolrAuthoritySetQuery extends AbstractAuthoritySetQuery implements
             else
             {
                 String[] ownerAuth = {PermissionService.OWNER_AUTHORITY};
-                HybridBitSet ownerAclSet = getACLSet(ownerAuth, QueryConstants.FIELD_READER, solrIndexSearcher);
+                AclIdSet ownerAclSet = getACLSet(ownerAuth, QueryConstants.FIELD_READER, solrIndexSearcher);
                 return new AccessControlCollectorWithoutOwnerRead(aclSet, ownerAclSet, ownerFilter);
             }
         }
@@ -293,12 +293,12 @@ public class SolrAuthoritySetQuery extends AbstractAuthoritySetQuery implements
 
     class AccessControlCollector extends DelegatingCollector
     {
-        private HybridBitSet aclIds;
+        private AclIdSet aclIds;
         private NumericDocValues fieldValues;
         private BitsFilter ownerFilter;
         private FixedBitSet ownerDocs;
 
-        public AccessControlCollector(HybridBitSet aclIds, BitsFilter ownerFilter)
+        public AccessControlCollector(AclIdSet aclIds, BitsFilter ownerFilter)
         {
             this.aclIds=aclIds;
             this.ownerFilter = ownerFilter;
@@ -326,7 +326,7 @@ public class SolrAuthoritySetQuery extends AbstractAuthoritySetQuery implements
         {
             long aclId = this.fieldValues.get(doc);
 
-            if(aclIds.get(aclId) || ownerDocs.get(doc))
+            if(aclIds.contains(aclId) || ownerDocs.get(doc))
             {
                 super.collect(doc);
             }
@@ -335,12 +335,12 @@ public class SolrAuthoritySetQuery extends AbstractAuthoritySetQuery implements
 
     class AccessControlCollectorWithoutOwnerRead extends DelegatingCollector
     {
-        private HybridBitSet aclIds;
-        private HybridBitSet ownerAclIds;
+        private AclIdSet aclIds;
+        private AclIdSet ownerAclIds;
         private NumericDocValues fieldValues;
         private BitsFilter ownerFilter;
         private FixedBitSet ownerDocs;
-        public AccessControlCollectorWithoutOwnerRead(HybridBitSet aclIds, HybridBitSet ownerAclIds, BitsFilter ownerFilter)
+        public AccessControlCollectorWithoutOwnerRead(AclIdSet aclIds, AclIdSet ownerAclIds, BitsFilter ownerFilter)
         {
             this.aclIds=aclIds;
             this.ownerAclIds = ownerAclIds;
@@ -362,7 +362,7 @@ public class SolrAuthoritySetQuery extends AbstractAuthoritySetQuery implements
         public void collect(int doc) throws IOException
         {
             long aclId = this.fieldValues.get(doc);
-            if(aclIds.get(aclId) || (ownerDocs.get(doc) && ownerAclIds.get(aclId)))
+            if(aclIds.contains(aclId) || (ownerDocs.get(doc) && ownerAclIds.contains(aclId)))
             {
                 super.collect(doc);
             }
@@ -32,6 +32,7 @@ import java.util.Properties;
 
 import org.alfresco.service.cmr.security.PermissionService;
 import org.alfresco.solr.cache.CacheConstants;
+import org.alfresco.solr.cache.SearcherCacheLoader;
 import org.alfresco.solr.data.GlobalReaders;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.MatchAllDocsQuery;
@@ -63,14 +64,6 @@ public class SolrAuthoritySetScorer extends AbstractSolrCachingScorer
         
         Query key = new SolrAuthoritySetQuery(authorities);
         
-        DocSet answer = (DocSet)searcher.cacheLookup(CacheConstants.ALFRESCO_AUTHORITY_CACHE, key);
-        if(answer != null)
-        {
-            // Answer was in the cache, so return it.
-            return new SolrAuthoritySetScorer(weight, answer, context, searcher);
-        }
-        
-        // Answer was not in cache, so build the results, cache and return.
         String[] auths = authorities.substring(1).split(authorities.substring(0, 1));
         
         boolean hasGlobalRead = false;
@@ -96,41 +89,42 @@ public class SolrAuthoritySetScorer extends AbstractSolrCachingScorer
             return new SolrAuthoritySetScorer(weight, allDocs, context, searcher);
         }
 
-        // Docs for which the authorities have explicit read access.
-        WrappedQuery wrapped;
-        wrapped = new WrappedQuery(new SolrReaderSetQuery(authorities));
-        wrapped.setCache(false);
-        DocSet readableDocSet = searcher.getDocSet(wrapped);
-
-        // Are all doc owners granted read permissions at a global level?
-        if (globalReaders.contains(PermissionService.OWNER_AUTHORITY))
+        // Build the results on a cache miss, once for all the concurrent requests of the same authorities.
+        DocSet answer = SearcherCacheLoader.get(searcher, CacheConstants.ALFRESCO_AUTHORITY_CACHE, key, () ->
         {
-            // Get the set of docs owned by the authorities (which they can therefore read).
-            wrapped = new WrappedQuery(new SolrOwnerSetQuery(authorities));
-            wrapped.setCache(false);
-            DocSet authorityOwnedDocs = searcher.getDocSet(wrapped);
-            // Final set of docs that the authorities can read.
-            DocSet toCache = readableDocSet.union(authorityOwnedDocs);
-            searcher.cacheInsert(CacheConstants.ALFRESCO_AUTHORITY_CACHE, key, toCache);
-            return new SolrAuthoritySetScorer(weight, toCache, context, searcher);
-        }
-        else
-        {
-            // for that docs I own that have owner Read rights
-            wrapped = new WrappedQuery(new SolrReaderSetQuery("|"+PermissionService.OWNER_AUTHORITY));
-            wrapped.setCache(false);
-            DocSet ownerReadableDocSet = searcher.getDocSet(wrapped);
-            wrapped = new WrappedQuery(new SolrOwnerSetQuery(authorities));
+            // Docs for which the authorities have explicit read access.
+            WrappedQuery wrapped;
+            wrapped = new WrappedQuery(new SolrReaderSetQuery(authorities));
             wrapped.setCache(false);
-            DocSet authorityOwnedDocs = searcher.getDocSet(wrapped);
-           
-            // Docs where the authority is an owner and where owners have read rights.
-            DocSet docsAuthorityOwnsAndCanRead = ownerReadableDocSet.intersection(authorityOwnedDocs);
-            // Final set of docs that the authorities can read.
-            DocSet toCache = readableDocSet.union(docsAuthorityOwnsAndCanRead);
-            searcher.cacheInsert(CacheConstants.ALFRESCO_AUTHORITY_CACHE, key, toCache);
-            return new SolrAuthoritySetScorer(weight, toCache, context, searcher);
-        }
+            DocSet readableDocSet = searcher.getDocSet(wrapped);
+
+            // Are all doc owners granted read permissions at a global level?
+            if (globalReaders.contains(PermissionService.OWNER_AUTHORITY))
+            {
+                // Get the set of docs owned by the authorities (which they can therefore read).
+                wrapped = new WrappedQuery(new SolrOwnerSetQuery(authorities));
+                wrapped.setCache(false);
+                DocSet authorityOwnedDocs = searcher.getDocSet(wrapped);
+                // Final set of docs that the authorities can read.
+                return CompressedDocSet.of(readableDocSet.union(authorityOwnedDocs), searcher.maxDoc());
+            }
+            else
+            {
+                // for that docs I own that have owner Read rights
+                wrapped = new WrappedQuery(new SolrReaderSetQuery("|"+PermissionService.OWNER_AUTHORITY));
+                wrapped.setCache(false);
+                DocSet ownerReadableDocSet = searcher.getDocSet(wrapped);
+                wrapped = new WrappedQuery(new SolrOwnerSetQuery(authorities));
+                wrapped.setCache(false);
+                DocSet authorityOwnedDocs = searcher.getDocSet(wrapped);
+
+                // Docs where the authority is an owner and where owners have read rights.
+                DocSet docsAuthorityOwnsAndCanRead = ownerReadableDocSet.intersection(authorityOwnedDocs);
+                // Final set of docs that the authorities can read.
+                return CompressedDocSet.of(readableDocSet.union(docsAuthorityOwnsAndCanRead), searcher.maxDoc());
+            }
+        });
+        return new SolrAuthoritySetScorer(weight, answer, context, searcher);
     }
 }
 
@@ -29,13 +29,13 @@ package org.alfresco.solr.query;
 import java.io.IOException;
 
 import org.alfresco.solr.cache.CacheConstants;
+import org.alfresco.solr.cache.SearcherCacheLoader;
 import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.Weight;
 import org.apache.solr.search.DocSet;
 import org.apache.solr.search.SolrIndexSearcher;
-import org.apache.solr.search.WrappedQuery;
 
 /**
  * Decorator that executes a SolrPathQuery and returns cached results where possible.
@@ -57,29 +57,30 @@ public class SolrCachingPathQuery extends Query
      */
     public Weight createWeight(IndexSearcher indexSearcher, boolean requiresScore) throws IOException
     {
-        SolrIndexSearcher searcher = null;
         if(!(indexSearcher instanceof SolrIndexSearcher))
         {
             throw new IllegalStateException("Must have a SolrIndexSearcher");
         }
-        else
-        {
-            searcher = (SolrIndexSearcher)indexSearcher;
-        }
+        SolrIndexSearcher searcher = (SolrIndexSearcher)indexSearcher;
 
-        DocSet results = (DocSet) searcher.cacheLookup(CacheConstants.ALFRESCO_PATH_CACHE, pathQuery);
-        if (results == null)
-        {
-            // Cache miss: get path query results and cache them
-            WrappedQuery wrapped = new WrappedQuery(pathQuery);
-            wrapped.setCache(false);
-            results = searcher.getDocSet(wrapped);
-            searcher.cacheInsert(CacheConstants.ALFRESCO_PATH_CACHE, pathQuery, results);
-        }
+        // Cache miss: get path query results and cache them
+        DocSet results = SearcherCacheLoader.get(searcher, CacheConstants.ALFRESCO_PATH_CACHE, pathQuery, () -> getDocs(searcher, pathQuery, null));
 
         return new ConstantScoreQuery(results.getTopFilter()).createWeight(searcher, false);
     }
 
+    /**
+     * Executes the path query segment by segment. A path only depends on the document itself, so the segments
+     * already matched by the previous results of the same query are reused.
+     *
+     * @param previous the results of the query on a previous searcher, or null
+     */
+    public static DocSet getDocs(SolrIndexSearcher searcher, SolrPathQuery pathQuery, DocSet previous) throws IOException
+    {
+        Weight weight = pathQuery.createWeight(searcher, false);
+        return SegmentedDocSet.build(searcher, null, previous, context -> SegmentedDocSet.matches(weight, context));
+    }
+
     /*
      * @see org.apache.lucene.search.Query#toString(java.lang.String)
      */
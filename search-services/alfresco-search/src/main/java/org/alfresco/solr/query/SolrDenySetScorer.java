@@ -30,18 +30,14 @@ import java.io.IOException;
 
 import org.alfresco.repo.search.adaptor.QueryConstants;
 import org.alfresco.solr.cache.CacheConstants;
+import org.alfresco.solr.cache.SearcherCacheLoader;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.search.BooleanQuery;
-import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.Weight;
-import org.apache.lucene.util.FixedBitSet;
-import org.apache.solr.schema.SchemaField;
-import org.apache.solr.search.BitDocSet;
-import org.apache.solr.search.DocIterator;
 import org.apache.solr.search.DocSet;
 import org.apache.solr.search.SolrIndexSearcher;
 
@@ -55,15 +51,10 @@ public class SolrDenySetScorer extends AbstractSolrCachingScorer
 
     public static SolrDenySetScorer createDenySetScorer(Weight weight, LeafReaderContext context, SolrIndexSearcher searcher, String authorities, LeafReader reader) throws IOException
     {
-        DocSet deniedDocSet = (DocSet) searcher.cacheLookup(CacheConstants.ALFRESCO_DENIED_CACHE, authorities);
-
-        if (deniedDocSet == null)
+        DocSet deniedDocSet = SearcherCacheLoader.get(searcher, CacheConstants.ALFRESCO_DENIED_CACHE, authorities, () ->
         {
-
             String[] auths = authorities.substring(1).split(authorities.substring(0, 1));
 
-            deniedDocSet = new BitDocSet(new FixedBitSet(searcher.maxDoc()));
-
             BooleanQuery.Builder bQuery = new BooleanQuery.Builder();
             for(String current : auths)
             {
@@ -72,31 +63,9 @@ public class SolrDenySetScorer extends AbstractSolrCachingScorer
 
             DocSet aclDocs = searcher.getDocSet(bQuery.build());
             
-            BooleanQuery.Builder aQuery = new BooleanQuery.Builder();
-            for (DocIterator it = aclDocs.iterator(); it.hasNext(); /**/)
-            {
-                int docID = it.nextDoc();
-                // Obtain the ACL ID for this ACL doc.
-                long aclID = searcher.getSlowAtomicReader().getNumericDocValues(QueryConstants.FIELD_ACLID).get(docID);
-                SchemaField schemaField = searcher.getSchema().getField(QueryConstants.FIELD_ACLID);
-                Query query = schemaField.getType().getFieldQuery(null, schemaField, Long.toString(aclID));
-                aQuery.add(query,  Occur.SHOULD);
-                
-                if((aQuery.build().clauses().size() > 999) || !it.hasNext())
-                {
-                    DocSet docsForAclId = searcher.getDocSet(aQuery.build());                
-                    deniedDocSet = deniedDocSet.union(docsForAclId);
-                       
-                    aQuery = new BooleanQuery.Builder();
-                }
-            }
-          
-            
-            // Exclude the ACL docs from the results, we only want real docs that match.
-            // Probably not very efficient, what we really want is remove(docID)
-            deniedDocSet = deniedDocSet.andNot(aclDocs);
-            searcher.cacheInsert(CacheConstants.ALFRESCO_DENIED_CACHE, authorities, deniedDocSet);
-        }
+            // Translate from ACL docs to real docs, leaving out the ACL docs themselves.
+            return getDocsForAclIds(searcher, getAclIds(searcher, aclDocs), aclDocs);
+        });
         
         // TODO: cache the full set? e.g. searcher.cacheInsert(CacheConstants.ALFRESCO_READERSET_CACHE, authorities, readableDocSet)
         // plus check of course, for presence in cache at start of method.
@@ -27,21 +27,17 @@
 package org.alfresco.solr.query;
 
 import java.io.IOException;
-import java.util.HashSet;
 
 import org.alfresco.repo.search.adaptor.QueryConstants;
 import org.alfresco.solr.cache.CacheConstants;
+import org.alfresco.solr.cache.SearcherCacheLoader;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
-import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.Weight;
-import org.apache.lucene.util.FixedBitSet;
-import org.apache.solr.search.BitDocSet;
-import org.apache.solr.search.DocIterator;
 import org.apache.solr.search.DocSet;
 import org.apache.solr.search.SolrIndexSearcher;
 import org.apache.solr.search.WrappedQuery;
@@ -56,15 +52,10 @@ public class SolrDenySetScorer2 extends AbstractSolrCachingScorer
 
     public static SolrDenySetScorer2 createDenySetScorer(Weight weight, LeafReaderContext context, SolrIndexSearcher searcher, String authorities, LeafReader reader) throws IOException
     {
-        DocSet deniedDocSet = (DocSet) searcher.cacheLookup(CacheConstants.ALFRESCO_DENIED_CACHE, authorities);
-
-        if (deniedDocSet == null)
+        DocSet deniedDocSet = SearcherCacheLoader.get(searcher, CacheConstants.ALFRESCO_DENIED_CACHE, authorities, () ->
         {
-
             String[] auths = authorities.substring(1).split(authorities.substring(0, 1));
 
-            deniedDocSet = new BitDocSet(new FixedBitSet(searcher.maxDoc()));
-
             BooleanQuery.Builder bQuery = new BooleanQuery.Builder();
             for(String current : auths)
             {
@@ -75,44 +66,9 @@ public class SolrDenySetScorer2 extends AbstractSolrCachingScorer
 
             DocSet aclDocs = searcher.getDocSet(wrapped);
             
-            HashSet<Long> aclsFound = new HashSet<Long>(aclDocs.size());
-            NumericDocValues aclDocValues = searcher.getSlowAtomicReader().getNumericDocValues(QueryConstants.FIELD_ACLID);
-            
-            for (DocIterator it = aclDocs.iterator(); it.hasNext(); /**/)
-            {
-                int docID = it.nextDoc();
-                // Obtain the ACL ID for this ACL doc.
-                long aclID = aclDocValues.get(docID);
-                aclsFound.add(getLong(aclID));
-            }
-         
-            if(aclsFound.size() > 0)
-            {
-                for(LeafReaderContext readerContext : searcher.getSlowAtomicReader().leaves() )
-                {
-                    int maxDoc = readerContext.reader().maxDoc();
-                    NumericDocValues fieldValues = DocValuesCache.getNumericDocValues(QueryConstants.FIELD_ACLID, readerContext.reader());
-                    if(fieldValues != null)
-                    {
-                        for(int i = 0; i < maxDoc; i++)
-                        {
-                            long aclID = fieldValues.get(i);
-                            Long key = getLong(aclID);
-                            if(aclsFound.contains(key))
-                            {
-                                deniedDocSet.add(readerContext.docBase + i);
-                            }
-                        }
-                    }
-
-            	}
-            }
-
-            // Exclude the ACL docs from the results, we only want real docs that match.
-            // Probably not very efficient, what we really want is remove(docID)
-            deniedDocSet = deniedDocSet.andNot(aclDocs);
-            searcher.cacheInsert(CacheConstants.ALFRESCO_DENIED_CACHE, authorities, deniedDocSet);
-        }
+            // Translate from ACL docs to real docs, leaving out the ACL docs themselves.
+            return getDocsForAclIds(searcher, getAclIds(searcher, aclDocs), aclDocs);
+        });
         
         // TODO: cache the full set? e.g. searcher.cacheInsert(CacheConstants.ALFRESCO_READERSET_CACHE, authorities, readableDocSet)
         // plus check of course, for presence in cache at start of method.
@@ -31,6 +31,7 @@ import java.io.IOException;
 import org.alfresco.repo.search.adaptor.QueryConstants;
 import org.alfresco.service.cmr.security.AuthorityType;
 import org.alfresco.solr.cache.CacheConstants;
+import org.alfresco.solr.cache.SearcherCacheLoader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.TermQuery;
@@ -57,14 +58,11 @@ public class SolrOwnerScorer extends AbstractSolrCachingScorer
     {
         if (AuthorityType.getAuthorityType(authority) == AuthorityType.USER)
         {
-            DocSet ownedDocs = (DocSet) searcher.cacheLookup(CacheConstants.ALFRESCO_OWNERLOOKUP_CACHE, authority);
-
-            if (ownedDocs == null)
+            DocSet ownedDocs = SearcherCacheLoader.get(searcher, CacheConstants.ALFRESCO_OWNERLOOKUP_CACHE, authority, () ->
             {
                 // Cache miss: query the index for docs where the owner matches the authority. 
-                ownedDocs = searcher.getDocSet(new TermQuery(new Term(QueryConstants.FIELD_OWNER, authority)));
-                searcher.cacheInsert(CacheConstants.ALFRESCO_OWNERLOOKUP_CACHE, authority, ownedDocs);
-            }
+                return CompressedDocSet.of(searcher.getDocSet(new TermQuery(new Term(QueryConstants.FIELD_OWNER, authority))), searcher.maxDoc());
+            });
             return new SolrOwnerScorer(weight, ownedDocs, context, searcher);
         }
         
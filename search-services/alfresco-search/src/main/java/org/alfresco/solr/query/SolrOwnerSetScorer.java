@@ -31,6 +31,7 @@ import java.io.IOException;
 import org.alfresco.repo.search.adaptor.QueryConstants;
 import org.alfresco.service.cmr.security.AuthorityType;
 import org.alfresco.solr.cache.CacheConstants;
+import org.alfresco.solr.cache.SearcherCacheLoader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause.Occur;
@@ -61,9 +62,7 @@ public class SolrOwnerSetScorer extends AbstractSolrCachingScorer
     public static SolrOwnerSetScorer createOwnerSetScorer(Weight weight, LeafReaderContext context, SolrIndexSearcher searcher, String authorities) throws IOException
     {
         
-        DocSet authorityOwnedDocs = (DocSet) searcher.cacheLookup(CacheConstants.ALFRESCO_OWNERLOOKUP_CACHE, authorities);
-        
-        if(authorityOwnedDocs == null)
+        DocSet authorityOwnedDocs = SearcherCacheLoader.get(searcher, CacheConstants.ALFRESCO_OWNERLOOKUP_CACHE, authorities, () ->
         {
             // Split the authorities. The first character in the authorities String
             // specifies the separator, e.g. ",jbloggs,abeecher"
@@ -80,10 +79,8 @@ public class SolrOwnerSetScorer extends AbstractSolrCachingScorer
             
             WrappedQuery wrapped = new WrappedQuery(bQuery.build());
             wrapped.setCache(false);
-            authorityOwnedDocs = searcher.getDocSet(wrapped);
-        
-            searcher.cacheInsert(CacheConstants.ALFRESCO_OWNERLOOKUP_CACHE, authorities, authorityOwnedDocs);
-        }
+            return CompressedDocSet.of(searcher.getDocSet(wrapped), searcher.maxDoc());
+        });
         
         // TODO: Cache the final set? e.g. searcher.cacheInsert(authorities, authorityOwnedDocs)
         return new SolrOwnerSetScorer(weight, authorityOwnedDocs, context, searcher);
@@ -78,6 +78,10 @@ public abstract class AbstractTracker implements Tracker
     private volatile boolean shutdown = false;
 
     protected volatile TrackerState state;
+    /**
+     * The watermark of the last commit, when the state has been invalidated by a rollback.
+     */
+    private CommitWatermark rollbackWatermark;
     protected int shardCount;
     protected int shardInstance;
     ShardMethodEnum shardMethod;
@@ -318,6 +322,20 @@ public abstract class AbstractTracker implements Tracker
     public synchronized void invalidateState()
     {
         state = null;
+        rollbackWatermark = null;
+    }
+
+    /**
+     * Invalidates the state after a rollback. The next state is read from the index as usual, but it does not
+     * go beyond the given watermark: work done after the watermark may be missing from the commit the index
+     * has been rolled back to.
+     *
+     * @param watermark the watermark of the last commit
+     */
+    public synchronized void invalidateState(CommitWatermark watermark)
+    {
+        invalidateState();
+        rollbackWatermark = watermark;
     }
     
     @Override
@@ -327,6 +345,10 @@ public abstract class AbstractTracker implements Tracker
         {
            return this.state;
         }
+        else if(this.rollbackWatermark != null)
+        {
+            return this.rollbackWatermark.rewind(this.infoSrv.getTrackerInitialState(), this.infoSrv.getHoleRetention());
+        }
         else
         {
             return this.infoSrv.getTrackerInitialState();
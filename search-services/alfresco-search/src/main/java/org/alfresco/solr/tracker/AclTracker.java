@@ -28,6 +28,7 @@ package org.alfresco.solr.tracker;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -35,10 +36,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
@@ -83,20 +85,28 @@ public class AclTracker extends ActivatableTracker
     
     // Repository Remote API doesn't accept more than 512 aclChangeSetIds by invocation
     private static final int MAX_ACL_CHANGE_SET_BATCH_SIZE = 512;
+    private static final int DEFAULT_BATCH_JOURNAL_MAX_ATTEMPTS = 3;
+    private static final int DEFAULT_INITIAL_BUILD_PARTITIONS = 1;
+    // Order of the change sets in the tracker state: by commit time, tie-broken by id
+    private static final Comparator<AclChangeSet> COMMIT_ORDER =
+            Comparator.comparingLong(AclChangeSet::getCommitTimeMs).thenComparingLong(AclChangeSet::getId);
 
     private int aclTrackerParallelism;
 
-    private int changeSetAclsBatchSize;
-    private int aclBatchSize;
+    private AdaptiveBatchSize changeSetAclsBatchSize;
+    private AdaptiveBatchSize aclBatchSize;
     private long timeStep;
     private int maxNumberOfAclChangeSets;
-
-    private ConcurrentLinkedQueue<Long> aclChangeSetsToReindex = new ConcurrentLinkedQueue<>();
-    private ConcurrentLinkedQueue<Long> aclChangeSetsToIndex = new ConcurrentLinkedQueue<>();
-    private ConcurrentLinkedQueue<Long> aclChangeSetsToPurge = new ConcurrentLinkedQueue<>();
-    private ConcurrentLinkedQueue<Long> aclsToReindex = new ConcurrentLinkedQueue<>();
-    private ConcurrentLinkedQueue<Long> aclsToIndex = new ConcurrentLinkedQueue<>();
-    private ConcurrentLinkedQueue<Long> aclsToPurge = new ConcurrentLinkedQueue<>();
+    private int initialBuildPartitions;
+    private boolean batchJournalEnabled;
+    private BatchJournal<AclChangeSet> batchJournal;
+
+    private final MaintenanceQueue aclChangeSetsToReindex = new MaintenanceQueue("ACL ChangeSets to be re-indexed", maintenanceQueueCapacity);
+    private final MaintenanceQueue aclChangeSetsToIndex = new MaintenanceQueue("ACL ChangeSets to be indexed", maintenanceQueueCapacity);
+    private final MaintenanceQueue aclChangeSetsToPurge = new MaintenanceQueue("ACL ChangeSets to be purged", maintenanceQueueCapacity);
+    private final MaintenanceQueue aclsToReindex = new MaintenanceQueue("ACLs to be re-indexed", maintenanceQueueCapacity);
+    private final MaintenanceQueue aclsToIndex = new MaintenanceQueue("ACLs to be indexed", maintenanceQueueCapacity);
+    private final MaintenanceQueue aclsToPurge = new MaintenanceQueue("ACLs to be purged", maintenanceQueueCapacity);
     private DocRouter docRouter;
 
     private ForkJoinPool forkJoinPool;
@@ -128,16 +138,16 @@ public class AclTracker extends ActivatableTracker
                 String coreName, InformationServer informationServer)
     {
         super(p, client, coreName, informationServer, Tracker.Type.ACL);
-        changeSetAclsBatchSize = Integer.parseInt(p.getProperty("alfresco.changeSetAclsBatchSize",
+        int configuredChangeSetAclsBatchSize = Integer.parseInt(p.getProperty("alfresco.changeSetAclsBatchSize",
                 String.valueOf(DEFAULT_CHANGE_SET_ACLS_BATCH_SIZE)));
-        if (changeSetAclsBatchSize > MAX_ACL_CHANGE_SET_BATCH_SIZE)
+        if (configuredChangeSetAclsBatchSize > MAX_ACL_CHANGE_SET_BATCH_SIZE)
         {
             LOGGER.warn("Max value for 'alfresco.changeSetAclsBatchSize' is 512. "
-                      + "This value is being taken instead of the one specified in 'solrcore.properties': " + changeSetAclsBatchSize);
-            changeSetAclsBatchSize = MAX_ACL_CHANGE_SET_BATCH_SIZE;
+                      + "This value is being taken instead of the one specified in 'solrcore.properties': " + configuredChangeSetAclsBatchSize);
         }
-        aclBatchSize = Integer.parseInt(p.getProperty("alfresco.aclBatchSize",
-                String.valueOf(DEFAULT_ACL_BATCH_SIZE)));
+        changeSetAclsBatchSize = AdaptiveBatchSize.fromProperties(p, "alfresco.changeSetAclsBatchSize",
+                DEFAULT_CHANGE_SET_ACLS_BATCH_SIZE, MAX_ACL_CHANGE_SET_BATCH_SIZE);
+        aclBatchSize = AdaptiveBatchSize.fromProperties(p, "alfresco.aclBatchSize", DEFAULT_ACL_BATCH_SIZE);
         docRouter = DocRouterFactory.getRouter(p, shardMethod);
 
         aclTrackerParallelism = Integer.parseInt(p.getProperty("alfresco.acl.tracker.maxParallelism",
@@ -150,6 +160,14 @@ public class AclTracker extends ActivatableTracker
         maxNumberOfAclChangeSets = Integer.parseInt(p.getProperty("alfresco.acl.tracker.maxNumberOfAclChangeSets",
                 String.valueOf(MAX_NUMBER_OF_ACL_CHANGE_SETS)));
 
+        initialBuildPartitions = Integer.parseInt(p.getProperty("alfresco.acl.tracker.initialBuild.partitions",
+                String.valueOf(DEFAULT_INITIAL_BUILD_PARTITIONS)));
+
+        batchJournalEnabled = Boolean.parseBoolean(p.getProperty("alfresco.batch.journal.enabled", "false"));
+        batchJournal = new BatchJournal<>(coreName, "ACL change set", AclChangeSet::getId,
+                Integer.parseInt(p.getProperty("alfresco.batch.journal.maxAttempts",
+                        String.valueOf(DEFAULT_BATCH_JOURNAL_MAX_ATTEMPTS))));
+
         RUN_LOCK_BY_CORE.put(coreName, new Semaphore(1, true));
         WRITE_LOCK_BY_CORE.put(coreName, new Semaphore(1, true));
     }
@@ -173,165 +191,161 @@ public class AclTracker extends ActivatableTracker
 
     public boolean hasMaintenance()
     {
-        return  aclChangeSetsToReindex.size() > 0 ||
-                aclChangeSetsToIndex.size() > 0 ||
-                aclChangeSetsToPurge.size() > 0 ||
-                aclsToReindex.size() > 0 ||
-                aclsToIndex.size() > 0 ||
-                aclsToPurge.size() > 0;
+        return  !aclChangeSetsToReindex.isEmpty() ||
+                !aclChangeSetsToIndex.isEmpty() ||
+                !aclChangeSetsToPurge.isEmpty() ||
+                !aclsToReindex.isEmpty() ||
+                !aclsToIndex.isEmpty() ||
+                !aclsToPurge.isEmpty();
     }
 
     protected void indexAclChangeSets() throws AuthenticationException, IOException, JSONException
     {
-        boolean requiresCommit = false;
-        while (aclChangeSetsToIndex.peek() != null)
-        {
-            Long aclChangeSetId = aclChangeSetsToIndex.poll();
-            if (aclChangeSetId != null)
-            {
-                AclChangeSets aclChangeSets = client.getAclChangeSets(null, aclChangeSetId,
-                        null, aclChangeSetId+1, 1);
-                if ((aclChangeSets.getAclChangeSets().size() > 0) &&
-                        aclChangeSetId.equals(aclChangeSets.getAclChangeSets().get(0).getId()))
-                {
-                    AclChangeSet changeSet = aclChangeSets.getAclChangeSets().get(0);
-                    List<Acl> acls = client.getAcls(Collections.singletonList(changeSet), null, Integer.MAX_VALUE);
-                    for (Acl acl : acls)
-                    {
-                        List<AclReaders> readers = client.getAclReaders(Collections.singletonList(acl));
-                        indexAcl(readers, false);
-                    }
-                    this.infoSrv.indexAclTransaction(changeSet, false);
-                    LOGGER.info("[CORE {}] - INDEX ACTION - AclChangeSetId {} has been indexed", coreName, aclChangeSetId);
-                    requiresCommit = true;
-                }
-                else
-                {
-                    LOGGER.info("[CORE {}] - INDEX ACTION - AclChangeSetId {} was not found in database, " +
-                            "it has NOT been reindexed", coreName, aclChangeSetId);
-                }
-            }
-            checkShutdown();
-        }
-        if(requiresCommit)
-        {
-            checkShutdown();
-            //this.infoSrv.commit();
-        }
+        indexAclChangeSets(aclChangeSetsToIndex, false);
     }
     
     protected void indexAcls() throws AuthenticationException, IOException, JSONException
     {
-        while (aclsToIndex.peek() != null)
-        {
-            Long aclId = aclsToIndex.poll();
-            if (aclId != null)
-            {
-                //System.out.println("############## Indexing ACL ID:"+aclId);
-                Acl acl = new Acl(0, aclId);
-                List<AclReaders> readers = client.getAclReaders(Collections.singletonList(acl));
-                //AclReaders r = readers.get(0);
-                //System.out.println("############## READERS ID:"+r.getId()+":"+r.getReaders());
-                indexAcl(readers, false);
-                LOGGER.info("[CORE {}] - INDEX ACTION - AclId {} has been indexed", coreName, aclId);
-            }
-            checkShutdown();
-        }
+        indexAcls(aclsToIndex, false);
     }
 
     protected void reindexAclChangeSets() throws AuthenticationException, IOException, JSONException
     {
-        boolean requiresCommit = false;
-        while (aclChangeSetsToReindex.peek() != null)
+        indexAclChangeSets(aclChangeSetsToReindex, true);
+    }
+
+    protected void reindexAcls() throws AuthenticationException, IOException, JSONException
+    {
+        indexAcls(aclsToReindex, true);
+    }
+
+    /**
+     * Drains the queue in batches of ACL change sets. The change sets of a batch are fetched with id range
+     * requests and their ACLs with a single request, then the ACL readers are fetched and indexed in batches of
+     * aclBatchSize.
+     *
+     * @param reindex true if the change sets documents must be deleted first
+     */
+    private void indexAclChangeSets(MaintenanceQueue queue, boolean reindex)
+            throws AuthenticationException, IOException, JSONException
+    {
+        final String action = reindex ? "REINDEX" : "INDEX";
+        while (!queue.isEmpty())
         {
-            Long aclChangeSetId = aclChangeSetsToReindex.poll();
-            if (aclChangeSetId != null)
+            long[] aclChangeSetIds = queue.poll(changeSetAclsBatchSize.get());
+            if (reindex)
             {
-                this.infoSrv.deleteByAclChangeSetId(aclChangeSetId);
+                this.infoSrv.deleteByAclChangeSetIds(aclChangeSetIds);
+            }
 
-                AclChangeSets aclChangeSets = client.getAclChangeSets(null, aclChangeSetId,
-                        null, aclChangeSetId+1, 1);
-                if ((aclChangeSets.getAclChangeSets().size() > 0) &&
-                        aclChangeSetId.equals(aclChangeSets.getAclChangeSets().get(0).getId()))
-                {
-                    AclChangeSet changeSet = aclChangeSets.getAclChangeSets().get(0);
-                    List<Acl> acls = client.getAcls(Collections.singletonList(changeSet),
-                            null, Integer.MAX_VALUE);
-                    for (Acl acl : acls)
-                    {
-                        List<AclReaders> readers = client.getAclReaders(Collections.singletonList(acl));
-                        indexAcl(readers, true);
-                    }
+            List<AclChangeSet> changeSets = getAclChangeSetsById(aclChangeSetIds);
+            if (changeSets.size() < aclChangeSetIds.length)
+            {
+                Set<Long> found = changeSets.stream().map(AclChangeSet::getId).collect(Collectors.toSet());
+                Arrays.stream(aclChangeSetIds)
+                        .filter(aclChangeSetId -> !found.contains(aclChangeSetId))
+                        .forEach(aclChangeSetId ->
+                                LOGGER.info("[CORE {}] - {} ACTION - AclChangeSetId {} was not found in database, " +
+                                        "it has NOT been reindexed", coreName, action, aclChangeSetId));
+            }
 
-                    this.infoSrv.indexAclTransaction(changeSet, true);
-                    LOGGER.info("[CORE {}] - REINDEX ACTION - AclChangeSetId {} has been reindexed",
-                            coreName, aclChangeSetId);
-                    requiresCommit = true;
-                }
-                else
+            if (!changeSets.isEmpty())
+            {
+                List<Acl> acls = client.getAcls(changeSets, null, Integer.MAX_VALUE);
+                indexAclsReaders(acls, reindex);
+
+                for (AclChangeSet changeSet : changeSets)
                 {
-                    LOGGER.info("[CORE {}] - REINDEX ACTION - AclChangeSetId {} was not found in database, " +
-                                    "it has NOT been reindexed", coreName, aclChangeSetId);
+                    this.infoSrv.indexAclTransaction(changeSet, reindex);
                 }
+                LOGGER.info("[CORE {}] - {} ACTION - AclChangeSetIds {} have been indexed", coreName, action,
+                        changeSets.stream().map(AclChangeSet::getId).collect(Collectors.toList()));
             }
             checkShutdown();
         }
-        if(requiresCommit)
-        {
-            checkShutdown();
-            //this.infoSrv.commit();
-        }
     }
 
-    protected void reindexAcls() throws AuthenticationException, IOException, JSONException
+    /**
+     * Drains the queue in batches of aclBatchSize ACLs, the readers of a batch are fetched with a single request.
+     *
+     * @param reindex true if the ACLs documents must be deleted first
+     */
+    private void indexAcls(MaintenanceQueue queue, boolean reindex)
+            throws AuthenticationException, IOException, JSONException
     {
-        boolean requiresCommit = false;
-        while (aclsToReindex.peek() != null)
+        final String action = reindex ? "REINDEX" : "INDEX";
+        while (!queue.isEmpty())
         {
-            Long aclId = aclsToReindex.poll();
-            if (aclId != null)
+            long[] aclIds = queue.poll(aclBatchSize.get());
+            if (reindex)
             {
-                this.infoSrv.deleteByAclId(aclId);
-
-                Acl acl = new Acl(0, aclId);
-                List<AclReaders> readers = client.getAclReaders(Collections.singletonList(acl));
-                indexAcl(readers, true);
-                LOGGER.info("[CORE {}] - REINDEX ACTION - aclId {} has been reindexed", coreName, aclId);
-                requiresCommit = true;
+                this.infoSrv.deleteByAclIds(aclIds);
             }
+
+            List<Acl> acls = Arrays.stream(aclIds).mapToObj(aclId -> new Acl(0, aclId)).collect(Collectors.toList());
+            indexAclsReaders(acls, reindex);
+            LOGGER.info("[CORE {}] - {} ACTION - AclIds {} have been indexed", coreName, action, Arrays.toString(aclIds));
             checkShutdown();
         }
-        if(requiresCommit)
+    }
+
+    private void indexAclsReaders(List<Acl> acls, boolean overwrite)
+            throws AuthenticationException, IOException, JSONException
+    {
+        for (List<Acl> batch : Lists.partition(acls, aclBatchSize.get()))
         {
+            List<AclReaders> readers = client.getAclReaders(batch);
+            indexAcl(readers, overwrite);
             checkShutdown();
-            //this.infoSrv.commit();
         }
     }
 
-    protected void purgeAclChangeSets() throws IOException, JSONException
-    {       
-        while (aclChangeSetsToPurge.peek() != null)
+    /**
+     * Fetches the ACL change sets with the given ids, close ids are fetched together with a single id range request.
+     *
+     * @param aclChangeSetIds the ACL change set ids, in ascending order
+     * @return the ACL change sets found in the repository
+     */
+    private List<AclChangeSet> getAclChangeSetsById(long[] aclChangeSetIds)
+            throws AuthenticationException, IOException, JSONException
+    {
+        Set<Long> requested = Arrays.stream(aclChangeSetIds).boxed().collect(Collectors.toSet());
+        List<AclChangeSet> changeSets = new ArrayList<>(aclChangeSetIds.length);
+        for (int start = 0, end; start < aclChangeSetIds.length; start = end)
         {
-            Long aclChangeSetId = aclChangeSetsToPurge.poll();
-            if (aclChangeSetId != null)
+            end = MaintenanceQueue.rangeEnd(aclChangeSetIds, start, maxNumberOfAclChangeSets);
+            long minAclChangeSetId = aclChangeSetIds[start];
+            long maxAclChangeSetId = aclChangeSetIds[end - 1] + 1;
+            for (AclChangeSet changeSet : client.getAclChangeSets(null, minAclChangeSetId, null, maxAclChangeSetId,
+                        (int) (maxAclChangeSetId - minAclChangeSetId)).getAclChangeSets())
             {
-                this.infoSrv.deleteByAclChangeSetId(aclChangeSetId);
-                LOGGER.info("[CORE {}] - PURGE ACTION - Purged aclChangeSetId {}", coreName, aclChangeSetId);
+                if (requested.contains(changeSet.getId()))
+                {
+                    changeSets.add(changeSet);
+                }
             }
+        }
+        return changeSets;
+    }
+
+    protected void purgeAclChangeSets() throws IOException, JSONException
+    {       
+        while (!aclChangeSetsToPurge.isEmpty())
+        {
+            long[] aclChangeSetIds = aclChangeSetsToPurge.poll(changeSetAclsBatchSize.get());
+            this.infoSrv.deleteByAclChangeSetIds(aclChangeSetIds);
+            LOGGER.info("[CORE {}] - PURGE ACTION - Purged aclChangeSetIds {}", coreName, Arrays.toString(aclChangeSetIds));
             checkShutdown();
         }
     }
     
     protected void purgeAcls() throws IOException, JSONException
     {
-        while (aclsToPurge.peek() != null)
+        while (!aclsToPurge.isEmpty())
         {
-            Long aclId = aclsToPurge.poll();
-            if (aclId != null)
-            {
-                this.infoSrv.deleteByAclId(aclId);
-                LOGGER.info("[CORE {}] - PURGE ACTION - Purged aclId {}", coreName, aclId);                
-            }
+            long[] aclIds = aclsToPurge.poll(aclBatchSize.get());
+            this.infoSrv.deleteByAclIds(aclIds);
+            LOGGER.info("[CORE {}] - PURGE ACTION - Purged aclIds {}", coreName, Arrays.toString(aclIds));
             checkShutdown();
         }
     }
@@ -339,49 +353,55 @@ public class AclTracker extends ActivatableTracker
 
     // ACL change sets
 
+    // The add methods throw an IllegalStateException when the queue is full
+
     public void addAclChangeSetToReindex(Long aclChangeSetToReindex)
     {
-        aclChangeSetsToReindex.offer(aclChangeSetToReindex);
+        aclChangeSetsToReindex.add(aclChangeSetToReindex);
+        if (batchJournalEnabled)
+        {
+            batchJournal.release(aclChangeSetToReindex);
+        }
     }
 
     public void addAclChangeSetToIndex(Long aclChangeSetToIndex)
     {
-        aclChangeSetsToIndex.offer(aclChangeSetToIndex);
+        aclChangeSetsToIndex.add(aclChangeSetToIndex);
     }
 
     public void addAclChangeSetToPurge(Long aclChangeSetToPurge)
     {
-        aclChangeSetsToPurge.offer(aclChangeSetToPurge);
+        aclChangeSetsToPurge.add(aclChangeSetToPurge);
     }
 
     // ACLs
 
     public void addAclToReindex(Long aclToReindex)
     {
-        aclsToReindex.offer(aclToReindex);
+        aclsToReindex.add(aclToReindex);
     }
 
     public void addAclToIndex(Long aclToIndex)
     {
-        aclsToIndex.offer(aclToIndex);
+        aclsToIndex.add(aclToIndex);
     }
 
     public void addAclToPurge(Long aclToPurge)
     {
-        aclsToPurge.offer(aclToPurge);
+        aclsToPurge.add(aclToPurge);
     }
 
     @Override
     protected void clearScheduledMaintenanceWork()
     {
-        logAndClear(aclChangeSetsToIndex, "ACL ChangeSets to be indexed");
-        logAndClear(aclsToIndex, "ACLs to be indexed");
+        logAndClear(aclChangeSetsToIndex);
+        logAndClear(aclsToIndex);
 
-        logAndClear(aclChangeSetsToReindex, "ACL ChangeSets to be re-indexed");
-        logAndClear(aclsToReindex, "ACLs to be re-indexed");
+        logAndClear(aclChangeSetsToReindex);
+        logAndClear(aclsToReindex);
 
-        logAndClear(aclChangeSetsToPurge, "ACL ChangeSets to be purged");
-        logAndClear(aclsToPurge, "ACLs to be purged");
+        logAndClear(aclChangeSetsToPurge);
+        logAndClear(aclsToPurge);
     }
 
     protected void trackRepository() throws IOException, AuthenticationException, JSONException
@@ -699,6 +719,11 @@ public class AclTracker extends ActivatableTracker
      */
     protected void trackAclChangeSets() throws AuthenticationException, IOException, JSONException
     {
+        if (initialBuildPartitions > 1 && !trackAclChangeSetPartitions())
+        {
+            // Rolled back in the middle of the build, the next cycle splits the range left again
+            return;
+        }
 
         long startElapsed = System.nanoTime();
 
@@ -722,6 +747,8 @@ public class AclTracker extends ActivatableTracker
                 */
 
                 this.state = getTrackerState();
+
+                totalAclCount += retryFailedAclChangeSets();
                 
                 Long fromCommitTime = getChangeSetFromCommitTime(changeSetsFound,
                         state.getLastChangeSetCommitTimeOnServer() == 0 ? state.getLastGoodChangeSetCommitTimeInIndex()
@@ -756,10 +783,11 @@ public class AclTracker extends ActivatableTracker
                 }
 
                 final AtomicInteger counter = new AtomicInteger();
+                final int changeSetsBatchSize = changeSetAclsBatchSize.get();
                 Collection<List<AclChangeSet>> changeSetBatches = aclChangeSets.getAclChangeSets().stream()
                         .peek(changeSetsFound::add)
                         .filter(this::isAclChangeSetAlreadyIndexed)
-                        .collect(Collectors.groupingBy(it -> counter.getAndAdd(1) / changeSetAclsBatchSize))
+                        .collect(Collectors.groupingBy(it -> counter.getAndAdd(1) / changeSetsBatchSize))
                         .values();
 
 
@@ -793,6 +821,135 @@ public class AclTracker extends ActivatableTracker
         
     }
 
+    /**
+     * Initial build mode: when the commit time range left to track spans more than one maximum time step per
+     * partition, it is split in partitions whose change sets are discovered concurrently through the
+     * forkJoinPool. Every round gets the next page of change sets of each partition in progress and indexes
+     * them together, the write lock is released between rounds so the CommitTracker can commit or roll back.
+     *
+     * The partitions do not move the tracker state on their own: it only moves to the merged watermark, the last
+     * change set indexed before the first partition still in progress. If the tracker stops before the end of
+     * the build, nothing after a gap is taken as indexed.
+     *
+     * @return false if the tracker state was rolled back during the build
+     */
+    private boolean trackAclChangeSetPartitions() throws AuthenticationException, IOException, JSONException
+    {
+        List<CommitTimePartition<AclChangeSet>> partitions;
+        TrackerState buildState;
+        try
+        {
+            getWriteLock().acquire();
+
+            this.state = getTrackerState();
+            buildState = state;
+
+            long fromCommitTime = state.getLastGoodChangeSetCommitTimeInIndex();
+            long toCommitTime = state.getTimeToStopIndexing();
+            if (toCommitTime - fromCommitTime <= initialBuildPartitions * MAX_TIME_STEP)
+            {
+                return true;
+            }
+            partitions = CommitTimePartition.split(fromCommitTime, toCommitTime, initialBuildPartitions,
+                    AclChangeSet::getCommitTimeMs, AclChangeSet::getId, ACL_CHANGE_SETS_FOUND_QUEUE_SIZE);
+        }
+        catch (InterruptedException e)
+        {
+            throw new IOException(e);
+        }
+        finally
+        {
+            getWriteLock().release();
+        }
+
+        LOGGER.info("{}-[CORE {}] <init> Tracking ACLs in {} commit time partitions: {}",
+                Thread.currentThread().getId(), coreName, partitions.size(), partitions);
+
+        long startElapsed = System.nanoTime();
+        long totalAclCount = 0;
+        while (partitions.stream().anyMatch(partition -> !partition.isDone()))
+        {
+            try
+            {
+                getWriteLock().acquire();
+
+                this.state = getTrackerState();
+                if (state != buildState)
+                {
+                    LOGGER.info("{}-[CORE {}] Tracker state rolled back, stopping the partitioned build at {}",
+                            Thread.currentThread().getId(), coreName, CommitTimePartition.watermark(partitions));
+                    return false;
+                }
+
+                List<CommitTimePartition<AclChangeSet>> inProgress = partitions.stream()
+                        .filter(partition -> !partition.isDone())
+                        .collect(Collectors.toList());
+                List<ForkJoinTask<AclChangeSets>> discoveries = inProgress.stream()
+                        .map(partition -> forkJoinPool.submit(() ->
+                                getSomeAclChangeSets(partition.getFound(), partition.getNextCommitTime(),
+                                        timeStep, maxNumberOfAclChangeSets, partition.getEndTime())))
+                        .collect(Collectors.toList());
+
+                List<List<AclChangeSet>> changeSetsByPartition = new ArrayList<>(inProgress.size());
+                for (int i = 0; i < inProgress.size(); i++)
+                {
+                    changeSetsByPartition.add(inProgress.get(i).accept(discoveries.get(i).get().getAclChangeSets()));
+                }
+
+                final AtomicInteger counter = new AtomicInteger();
+                final int changeSetsBatchSize = changeSetAclsBatchSize.get();
+                Collection<List<AclChangeSet>> changeSetBatches = changeSetsByPartition.stream()
+                        .flatMap(List::stream)
+                        .filter(this::isAclChangeSetAlreadyIndexed)
+                        .collect(Collectors.groupingBy(it -> counter.getAndAdd(1) / changeSetsBatchSize))
+                        .values();
+
+                Set<Long> notIndexed = new HashSet<>();
+                for (List<AclChangeSet> changeSetBatch : changeSetBatches)
+                {
+                    int aclCount = indexBatchOfChangeSets(changeSetBatch);
+                    notIndexed.addAll(indexPartitionChangeSetsAfterWorker(changeSetBatch));
+
+                    long endElapsed = System.nanoTime();
+                    trackerStats.addElapsedAclTime(aclCount, endElapsed - startElapsed);
+                    startElapsed = endElapsed;
+                    totalAclCount += aclCount;
+                }
+
+                for (int i = 0; i < inProgress.size(); i++)
+                {
+                    inProgress.get(i).indexed(changeSetsByPartition.get(i).stream()
+                            .filter(changeSet -> !notIndexed.contains(changeSet.getId()))
+                            .collect(Collectors.toList()));
+                }
+
+                AclChangeSet watermark = CommitTimePartition.watermark(partitions);
+                if (watermark != null && (watermark.getCommitTimeMs() > state.getLastIndexedChangeSetCommitTime()
+                        || watermark.getCommitTimeMs() == state.getLastIndexedChangeSetCommitTime()
+                        && watermark.getId() > state.getLastIndexedChangeSetId()))
+                {
+                    infoSrv.indexAclTransaction(watermark, true, canMoveStateTo(watermark));
+                    state.setLastIndexedChangeSetCommitTime(watermark.getCommitTimeMs());
+                    state.setLastIndexedChangeSetId(watermark.getId());
+                    setLastChangeSetIdAndCommitTimeInTrackerState(Collections.singletonList(watermark), state);
+                }
+            }
+            catch (InterruptedException | ExecutionException e)
+            {
+                throw new IOException(e);
+            }
+            finally
+            {
+                getWriteLock().release();
+            }
+        }
+
+        LOGGER.info("{}-[CORE {}] <end> Tracked {} ACLs in {} commit time partitions, up to {}",
+                Thread.currentThread().getId(), coreName, totalAclCount, partitions.size(),
+                CommitTimePartition.watermark(partitions));
+        return true;
+    }
+
     private boolean isAclChangeSetAlreadyIndexed(AclChangeSet changeSet)
     {
 
@@ -840,7 +997,13 @@ public class AclTracker extends ActivatableTracker
     {
         for (AclChangeSet set : changeSetsIndexed)
         {
-            infoSrv.indexAclTransaction(set, true);
+            // ACLs of the change set failed: it is not in the index yet
+            if (batchJournalEnabled && !batchJournal.settle(set))
+            {
+                continue;
+            }
+
+            infoSrv.indexAclTransaction(set, true, canMoveStateTo(set));
             // Acl change sets are ordered by commit time and tie-broken by id
             if (set.getCommitTimeMs() > state.getLastIndexedChangeSetCommitTime()
                     || set.getCommitTimeMs() == state.getLastIndexedChangeSetCommitTime()
@@ -854,6 +1017,100 @@ public class AclTracker extends ActivatableTracker
     }
 
 
+    /**
+     * Index the ACL change sets of a partitioned build after their ACLs have been indexed by the worker.
+     * The tracker state is left as it is, it only moves to the merged watermark of the partitions.
+     *
+     * @return the ids of the change sets left out of the index, as their ACLs failed
+     */
+    private Set<Long> indexPartitionChangeSetsAfterWorker(Collection<AclChangeSet> changeSetsIndexed)
+                throws IOException
+    {
+        Set<Long> notIndexed = new HashSet<>();
+        for (AclChangeSet set : changeSetsIndexed)
+        {
+            if (batchJournalEnabled && !batchJournal.settle(set))
+            {
+                notIndexed.add(set.getId());
+                continue;
+            }
+
+            infoSrv.indexAclTransaction(set, true, false);
+            trackerStats.addChangeSetAcls(set.getAclCount());
+        }
+        return notIndexed;
+    }
+
+    /**
+     * Indexes again the ACL change sets whose batch failed in a previous cycle, when the batch journal is enabled.
+     * Change sets failing again are queued for another retry or quarantined by the journal.
+     *
+     * @return Count of ACL indexed
+     */
+    private int retryFailedAclChangeSets()
+            throws AuthenticationException, IOException, JSONException, ExecutionException, InterruptedException
+    {
+        if (!batchJournalEnabled)
+        {
+            return 0;
+        }
+
+        List<AclChangeSet> retries = batchJournal.takeRetries();
+        if (retries.isEmpty())
+        {
+            return 0;
+        }
+
+        LOGGER.info("{}-[CORE {}] Retrying {} ACL change sets whose batch failed: {}",
+                Thread.currentThread().getId(), coreName, retries.size(),
+                retries.stream().map(AclChangeSet::getId).collect(Collectors.toList()));
+
+        int aclCount = 0;
+        try
+        {
+            for (List<AclChangeSet> changeSetBatch : Lists.partition(retries, changeSetAclsBatchSize.get()))
+            {
+                aclCount += indexBatchOfChangeSets(changeSetBatch);
+            }
+        }
+        catch (Exception e)
+        {
+            // Keep the change sets in the journal, the cycle is rolled back
+            retries.forEach(set -> batchJournal.failed(set.getId()));
+            retries.forEach(batchJournal::settle);
+            throw e;
+        }
+        indexAclChangeSetAfterWorker(retries, state);
+        return aclCount;
+    }
+
+    /**
+     * The tracker state document is only moved to a change set when the batch journal holds no change set
+     * committed before it, which would not be found again after a restart otherwise.
+     */
+    private boolean canMoveStateTo(AclChangeSet changeSet)
+    {
+        return !batchJournalEnabled || !batchJournal.hasPendingBefore(changeSet, COMMIT_ORDER);
+    }
+
+    public boolean isBatchJournalEnabled()
+    {
+        return batchJournalEnabled;
+    }
+
+    /**
+     * @return the batch sizes of the tracker, as currently used
+     */
+    public List<AdaptiveBatchSize> getBatchSizes()
+    {
+        return Arrays.asList(changeSetAclsBatchSize, aclBatchSize);
+    }
+
+    public BatchJournal<AclChangeSet> getBatchJournal()
+    {
+        return batchJournal;
+    }
+
     /**
      * Index ACLs from ACL Change Sets contained in changeSetBatch
      * When total ACL indexed count is greater than the specified for a single execution
@@ -869,7 +1126,9 @@ public class AclTracker extends ActivatableTracker
                 .filter(set -> set.getAclCount() > 0)
                 .collect(Collectors.toList());
 
+        long start = System.nanoTime();
         List<Acl> acls = client.getAcls(nonEmptyChangeSets, null, Integer.MAX_VALUE);
+        changeSetAclsBatchSize.record(nonEmptyChangeSets.size(), System.nanoTime() - start);
         
         if (LOGGER.isDebugEnabled())
         {
@@ -877,11 +1136,13 @@ public class AclTracker extends ActivatableTracker
                     coreName, acls.size(), nonEmptyChangeSets);
         }
         
-        List<List<Acl>> aclBatches = Lists.partition(acls, aclBatchSize);
+        List<List<Acl>> aclBatches = Lists.partition(acls, aclBatchSize.get());
 
         return forkJoinPool.submit(() ->
                 aclBatches.parallelStream().map(batch -> {
+                    long batchStart = System.nanoTime();
                     new AclIndexWorker(batch).run();
+                    aclBatchSize.record(batch.size(), System.nanoTime() - batchStart);
                     return batch.size();
                 }).reduce(0, Integer::sum)
         ).get();
@@ -914,7 +1175,15 @@ public class AclTracker extends ActivatableTracker
         @Override
         protected void onFail(Throwable failCausedBy)
         {
-        	setRollback(true, failCausedBy);
+            if (batchJournalEnabled)
+            {
+                // Only the change sets of this batch are indexed again, instead of all the work since the last commit
+                acls.stream().mapToLong(Acl::getAclChangeSetId).distinct().forEach(batchJournal::failed);
+            }
+            else
+            {
+                setRollback(true, failCausedBy);
+            }
         }
         
         private List<Acl> filterAcls(List<Acl> acls)
@@ -30,9 +30,7 @@ import org.alfresco.solr.client.SOLRAPIClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Properties;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -43,17 +41,26 @@ public abstract class ActivatableTracker extends AbstractTracker
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(ActivatableTracker.class);
 
+    static final int DEFAULT_MAINTENANCE_QUEUE_CAPACITY = 1000000;
+
     protected static AtomicBoolean isEnabled = new AtomicBoolean(true);
 
+    // Max number of ids waiting in each queue of scheduled maintenance work
+    protected final int maintenanceQueueCapacity;
+
     protected ActivatableTracker(Type type)
     {
         super(type);
+        maintenanceQueueCapacity = DEFAULT_MAINTENANCE_QUEUE_CAPACITY;
     }
 
     protected ActivatableTracker(Properties properties, SOLRAPIClient client, String coreName, InformationServer informationServer, Type type)
     {
         super(properties, client, coreName, informationServer, type);
 
+        maintenanceQueueCapacity = Integer.parseInt(properties.getProperty("alfresco.maintenance.queueCapacity",
+                String.valueOf(DEFAULT_MAINTENANCE_QUEUE_CAPACITY)));
+
         if (isEnabled.get())
         {
             LOGGER.info("[{} / {} / {}] {} Tracker set to enabled at startup.", coreName, trackerId, state, type);
@@ -121,21 +128,20 @@ public abstract class ActivatableTracker extends AbstractTracker
     };
 
     /**
-     * Logs out the content of the input collection.
+     * Clears the input queue and logs out its content.
      *
-     * @param values the collection which (in case is not empty) contains the identifiers (e.g. txid, aclid) the system
+     * @param queue the queue which (in case is not empty) contains the identifiers (e.g. txid, aclid) the system
      *               is going to clear.
-     * @param kind the kind of identifier (e.g. Transaction, Node ID, ACL ID) in the input collection.
      */
-    protected void logAndClear(Collection<Long> values, String kind)
+    void logAndClear(MaintenanceQueue queue)
     {
-        if (values == null || values.size() == 0) {
+        if (queue == null || queue.isEmpty()) {
             return;
         }
 
-        final List<Long> tmp = new ArrayList<>(values);
-        values.clear();
+        final long[] ids = queue.clear();
 
-        LOGGER.info("[CORE {}] Scheduled work ({}) that will be cleaned: {}", coreName, kind, new ArrayList<>(tmp));
+        LOGGER.info("[CORE {}] Scheduled work ({}) that will be cleaned: {} ids", coreName, queue.getName(), ids.length);
+        LOGGER.debug("[CORE {}] Scheduled work ({}) cleaned: {}", coreName, queue.getName(), Arrays.toString(ids));
     }
 }
@@ -0,0 +1,157 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.tracker;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A batch size of a tracker, tuned at runtime from the time taken by the batches when adaptive batch sizing is
+ * enabled (alfresco.adaptiveBatchSize.enabled), otherwise the value configured in solrcore.properties.
+ *
+ * Every {@link #WINDOW} batches the throughput (items per second) is compared with the one of the previous window:
+ * the size keeps moving by a factor of {@link #STEP} in the same direction while the throughput improves and turns
+ * back when it gets worse. Batches slower than alfresco.adaptiveBatchSize.targetLatency always shrink the size,
+ * so a single request to the Repository does not get close to the socket timeout. The size stays between the
+ * bounds set by the "min" and "max" suffixed properties, by default a quarter and four times the configured value.
+ */
+public class AdaptiveBatchSize
+{
+    protected final static Logger LOGGER = LoggerFactory.getLogger(AdaptiveBatchSize.class);
+
+    static final int WINDOW = 4;
+    static final double STEP = 1.25;
+
+    private static final long DEFAULT_TARGET_LATENCY_MS = 30000;
+
+    private final String name;
+    private final int min;
+    private final int max;
+    private final long targetLatencyNanos;
+    private final boolean adaptive;
+    private volatile int size;
+
+    // Current window
+    private long windowItems;
+    private long windowNanos;
+    private int windowBatches;
+
+    private double lastThroughput;
+    private int direction = 1;
+
+    AdaptiveBatchSize(String name, int size, int min, int max, long targetLatencyMs, boolean adaptive)
+    {
+        this.name = name;
+        this.min = Math.max(1, Math.min(min, size));
+        this.max = Math.max(max, size);
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMs);
+        this.adaptive = adaptive;
+        this.size = size;
+    }
+
+    /**
+     * @param p solrcore.properties
+     * @param property the property holding the configured batch size
+     * @param defaultSize the default batch size
+     * @param limit the largest size accepted, whatever the configured bounds
+     */
+    static AdaptiveBatchSize fromProperties(Properties p, String property, int defaultSize, int limit)
+    {
+        int size = Math.min(Integer.parseInt(p.getProperty(property, String.valueOf(defaultSize))), limit);
+        int min = Integer.parseInt(p.getProperty(property + ".min", String.valueOf(Math.max(1, size / 4))));
+        int max = Integer.parseInt(p.getProperty(property + ".max", String.valueOf(size * 4)));
+        long targetLatencyMs = Long.parseLong(p.getProperty("alfresco.adaptiveBatchSize.targetLatency",
+                String.valueOf(DEFAULT_TARGET_LATENCY_MS)));
+        boolean adaptive = Boolean.parseBoolean(p.getProperty("alfresco.adaptiveBatchSize.enabled", "false"));
+        return new AdaptiveBatchSize(property, size, min, Math.min(max, limit), targetLatencyMs, adaptive);
+    }
+
+    static AdaptiveBatchSize fromProperties(Properties p, String property, int defaultSize)
+    {
+        return fromProperties(p, property, defaultSize, Integer.MAX_VALUE);
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public int get()
+    {
+        return size;
+    }
+
+    /**
+     * Records the time taken by a batch. Safe to call from the workers.
+     *
+     * @param items the number of items in the batch
+     * @param elapsedNanos the time taken by the batch
+     */
+    synchronized void record(int items, long elapsedNanos)
+    {
+        if (!adaptive || items <= 0)
+        {
+            return;
+        }
+
+        windowItems += items;
+        windowNanos += Math.max(elapsedNanos, 1);
+        windowBatches++;
+        if (windowBatches < WINDOW)
+        {
+            return;
+        }
+
+        double throughput = (double) windowItems / windowNanos;
+        long meanLatencyNanos = windowNanos / windowBatches;
+        if (meanLatencyNanos > targetLatencyNanos)
+        {
+            direction = -1;
+        }
+        else if (throughput < lastThroughput)
+        {
+            direction = -direction;
+        }
+        lastThroughput = throughput;
+        windowItems = 0;
+        windowNanos = 0;
+        windowBatches = 0;
+
+        int next = direction > 0 ? (int) Math.ceil(size * STEP) : (int) Math.floor(size / STEP);
+        next = Math.max(min, Math.min(max, next));
+        if (next != size)
+        {
+            LOGGER.debug("{} changed from {} to {}, throughput {} items/s, mean batch time {} ms",
+                    name, size, next, (long) (throughput * TimeUnit.SECONDS.toNanos(1)),
+                    TimeUnit.NANOSECONDS.toMillis(meanLatencyNanos));
+            size = next;
+        }
+    }
+}
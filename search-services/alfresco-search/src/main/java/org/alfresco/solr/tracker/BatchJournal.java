@@ -0,0 +1,169 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.tracker;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Journal of the transactions (or ACL change sets) whose indexing batch failed.
+ *
+ * A failing worker marks the ids of its batch as failed instead of asking for a rollback of all the work done
+ * since the last commit. When the tracker gets to write the transaction documents it settles every transaction:
+ * the failed ones are left out of the index and queued for a retry on the next tracker cycle, until they have
+ * failed maxAttempts times. They are then quarantined: they stay out of the index until they are explicitly
+ * reindexed, or found again in the hole retention window after a restart.
+ *
+ * The journal is only held in memory. The tracker keeps the tracker state document behind the items pending a retry
+ * and the quarantined ones (see {@link #hasPendingBefore(Object, Comparator)}), so that a restart finds them again.
+ *
+ * @param <T> the type of the journaled items, {@link org.alfresco.solr.client.Transaction} or
+ *           {@link org.alfresco.solr.client.AclChangeSet}
+ */
+public class BatchJournal<T>
+{
+    protected final static Logger LOGGER = LoggerFactory.getLogger(BatchJournal.class);
+
+    private final String coreName;
+    private final String itemName;
+    private final ToLongFunction<T> idOf;
+    private final int maxAttempts;
+
+    // Ids whose batch failed since they have been settled for the last time
+    private final Set<Long> failedInBatch = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Integer> attempts = new ConcurrentHashMap<>();
+    private final Map<Long, T> retries = new ConcurrentSkipListMap<>();
+    // Retries taken by the tracker, until they are settled again
+    private final Map<Long, T> retrying = new ConcurrentHashMap<>();
+    private final Map<Long, T> quarantined = new ConcurrentSkipListMap<>();
+
+    BatchJournal(String coreName, String itemName, ToLongFunction<T> idOf, int maxAttempts)
+    {
+        this.coreName = coreName;
+        this.itemName = itemName;
+        this.idOf = idOf;
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    /**
+     * Records that the batch indexing (part of) the item with the given id failed. Safe to call from the workers.
+     */
+    void failed(long id)
+    {
+        failedInBatch.add(id);
+    }
+
+    /**
+     * Settles an item once all of its batches have run.
+     *
+     * @return true if the item has been indexed, false if one of its batches failed: the item is then queued for a
+     * retry or quarantined, and its own document must not be indexed.
+     */
+    boolean settle(T item)
+    {
+        long id = idOf.applyAsLong(item);
+        retrying.remove(id);
+        if (!failedInBatch.remove(id))
+        {
+            attempts.remove(id);
+            return true;
+        }
+
+        int attempt = attempts.merge(id, 1, Integer::sum);
+        if (attempt < maxAttempts)
+        {
+            retries.put(id, item);
+            LOGGER.warn("[CORE {}] Indexing {} {} failed (attempt {} of {}), it will be retried on the next tracker cycle.",
+                    coreName, itemName, id, attempt, maxAttempts);
+        }
+        else
+        {
+            attempts.remove(id);
+            quarantined.put(id, item);
+            LOGGER.error("[CORE {}] Indexing {} {} failed {} times, it has been quarantined until it is reindexed.",
+                    coreName, itemName, id, attempt);
+        }
+        return false;
+    }
+
+    /**
+     * @return the items to be indexed again, in id order. They are removed from the journal until they are settled.
+     */
+    List<T> takeRetries()
+    {
+        List<T> items = new ArrayList<>(retries.values());
+        items.forEach(item -> {
+            long id = idOf.applyAsLong(item);
+            retrying.put(id, item);
+            retries.remove(id);
+        });
+        return items;
+    }
+
+    /**
+     * @return true if an item pending a retry, being retried or quarantined comes before the given one in the given
+     * order. The tracker state document must not move to the given item then, or a restart would not find them again.
+     */
+    boolean hasPendingBefore(T item, Comparator<? super T> order)
+    {
+        return Stream.of(retries, retrying, quarantined)
+                .flatMap(items -> items.values().stream())
+                .anyMatch(pending -> order.compare(pending, item) < 0);
+    }
+
+    /**
+     * Forgets any failure of the item with the given id, when it is reindexed on request.
+     */
+    void release(long id)
+    {
+        attempts.remove(id);
+        retries.remove(id);
+        retrying.remove(id);
+        quarantined.remove(id);
+    }
+
+    public int getRetryCount()
+    {
+        return retries.size();
+    }
+
+    public Collection<Long> getQuarantinedIds()
+    {
+        return new ArrayList<>(quarantined.keySet());
+    }
+}
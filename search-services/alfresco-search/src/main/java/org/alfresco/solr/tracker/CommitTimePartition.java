@@ -0,0 +1,207 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.tracker;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+import org.alfresco.solr.BoundedDeque;
+
+/**
+ * A commit time range of a partitioned build, from its start time (inclusive) to its end time (exclusive).
+ * The transactions or ACL change sets of a partition are discovered and indexed in commit time order,
+ * independently of the other partitions of the range.
+ *
+ * @param <T> the type of the items tracked, transactions or ACL change sets
+ */
+final class CommitTimePartition<T>
+{
+    private final long startTime;
+    private final long endTime;
+    private final ToLongFunction<T> commitTimeOf;
+    private final Comparator<T> commitOrder;
+    private final BoundedDeque<T> found;
+    private long nextCommitTime;
+    private T lastIndexed;
+    private boolean done;
+
+    /**
+     * @param commitTimeOf the commit time of an item
+     * @param idOf the id of an item, breaking the ties between items committed at the same time
+     * @param foundQueueSize the number of items remembered to skip them when found again
+     */
+    CommitTimePartition(long startTime, long endTime, ToLongFunction<T> commitTimeOf, ToLongFunction<T> idOf,
+                int foundQueueSize)
+    {
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.commitTimeOf = commitTimeOf;
+        this.commitOrder = Comparator.comparingLong(commitTimeOf).thenComparingLong(idOf);
+        this.found = new BoundedDeque<>(foundQueueSize);
+        this.nextCommitTime = startTime;
+    }
+
+    /**
+     * Splits the commit time range in partitions of the same length.
+     *
+     * @param fromTime start of the range, inclusive
+     * @param toTime end of the range, exclusive
+     */
+    static <T> List<CommitTimePartition<T>> split(long fromTime, long toTime, int count, ToLongFunction<T> commitTimeOf,
+                ToLongFunction<T> idOf, int foundQueueSize)
+    {
+        long length = (toTime - fromTime) / count;
+        List<CommitTimePartition<T>> partitions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            long start = fromTime + i * length;
+            long end = i == count - 1 ? toTime : start + length;
+            partitions.add(new CommitTimePartition<>(start, end, commitTimeOf, idOf, foundQueueSize));
+        }
+        return partitions;
+    }
+
+    /**
+     * The merged watermark of the partitions: the last item indexed before the first partition still in
+     * progress. Items indexed after a gap, in the later partitions, are not covered.
+     *
+     * @param partitions the partitions of the range, in commit time order
+     * @return the last item indexed without any gap before it, null if there is none yet
+     */
+    static <T> T watermark(List<CommitTimePartition<T>> partitions)
+    {
+        T watermark = null;
+        for (CommitTimePartition<T> partition : partitions)
+        {
+            if (partition.lastIndexed != null)
+            {
+                watermark = partition.lastIndexed;
+            }
+            if (!partition.done)
+            {
+                break;
+            }
+        }
+        return watermark;
+    }
+
+    long getStartTime()
+    {
+        return startTime;
+    }
+
+    long getEndTime()
+    {
+        return endTime;
+    }
+
+    BoundedDeque<T> getFound()
+    {
+        return found;
+    }
+
+    /**
+     * @return the commit time to look for the next items of the partition from
+     */
+    long getNextCommitTime()
+    {
+        return found.size() > 0 ? commitTimeOf.applyAsLong(found.getLast()) : nextCommitTime;
+    }
+
+    T getLastIndexed()
+    {
+        return lastIndexed;
+    }
+
+    boolean isDone()
+    {
+        return done;
+    }
+
+    /**
+     * Moves the partition to the commit time of its first item, as known by the repository.
+     * The partition is done when there is none before its end.
+     *
+     * @param commitTime the first commit time from the start of the partition, -1 if there is none
+     */
+    void skipTo(long commitTime)
+    {
+        if (commitTime < 0 || commitTime >= endTime)
+        {
+            done = true;
+        }
+        else if (commitTime > nextCommitTime)
+        {
+            nextCommitTime = commitTime;
+        }
+    }
+
+    /**
+     * Keeps the items of the partition range not found yet and records them as found.
+     * The partition is done once nothing or an item after its range has been found.
+     *
+     * @param items the items found from {@link #getNextCommitTime()}
+     * @return the new items of the partition, in commit time order
+     */
+    List<T> accept(List<T> items)
+    {
+        Set<T> alreadyFound = new HashSet<>(found.getDeque());
+        List<T> inRange = items.stream()
+                .filter(item -> commitTimeOf.applyAsLong(item) < endTime)
+                .sorted(commitOrder)
+                .collect(Collectors.toList());
+        inRange.forEach(found::add);
+
+        done = inRange.isEmpty() || inRange.size() < items.size();
+        return inRange.stream().filter(item -> !alreadyFound.contains(item)).collect(Collectors.toList());
+    }
+
+    /**
+     * Moves the partition past the given items, once they are in the index.
+     */
+    void indexed(List<T> items)
+    {
+        for (T item : items)
+        {
+            if (lastIndexed == null || commitOrder.compare(item, lastIndexed) > 0)
+            {
+                lastIndexed = item;
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "[" + startTime + ", " + endTime + ")";
+    }
+}
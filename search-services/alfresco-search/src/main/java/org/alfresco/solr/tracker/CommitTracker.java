@@ -29,6 +29,7 @@ package org.alfresco.solr.tracker;
 import static java.util.Optional.empty;
 import static java.util.Optional.ofNullable;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -58,6 +59,9 @@ public class CommitTracker extends AbstractTracker
     /** The cascade tracker. Note that this may be empty if cascade tracking is disabled. */
     private Optional<CascadeTracker> cascadeTracker = empty();
     private AtomicInteger rollbackCount = new AtomicInteger(0);
+    private boolean nonBlockingCommit;
+    /** The watermark of the last commit done by this tracker, null before the first one. */
+    private volatile CommitWatermark lastCommitWatermark;
 
     protected final static Logger LOGGER = LoggerFactory.getLogger(CommitTracker.class);
     
@@ -106,6 +110,7 @@ public class CommitTracker extends AbstractTracker
 
         commitInterval = Long.parseLong(p.getProperty("alfresco.commitInterval", "60000")); // Default: commit once per minute
         newSearcherInterval = Integer.parseInt(p.getProperty("alfresco.newSearcherInterval", "120000")); // Default: Open searchers every two minutes
+        nonBlockingCommit = Boolean.parseBoolean(p.getProperty("alfresco.commit.nonBlocking", "false"));
         lastSearcherOpened = lastCommit = System.currentTimeMillis();
         
         RUN_LOCK_BY_CORE.put(coreName, new Semaphore(1, true));
@@ -122,6 +127,16 @@ public class CommitTracker extends AbstractTracker
         return rollbackCount.get();
     }
 
+    public boolean isNonBlockingCommit()
+    {
+        return nonBlockingCommit;
+    }
+
+    public CommitWatermark getLastCommitWatermark()
+    {
+        return lastCommitWatermark;
+    }
+
     public void maintenance() throws Exception
     {
         metadataTracker.maintenance();
@@ -151,6 +166,7 @@ public class CommitTracker extends AbstractTracker
            openSearcherNeeded = true;
         }
 
+        CommitWatermark watermark;
         try
         {
             metadataTracker.getWriteLock().acquire();
@@ -184,18 +200,23 @@ public class CommitTracker extends AbstractTracker
                 maintenance();
             }
 
-            if (metadataTracker.isEnabled() && aclTracker.isEnabled())
+            if (!metadataTracker.isEnabled() || !aclTracker.isEnabled())
             {
-                boolean searcherOpened = infoSrv.commit(openSearcherNeeded);
-                lastCommit = currentTime;
-                if(searcherOpened)
-                {
-                    lastSearcherOpened = currentTime;
-                }
+                doRollback();
+                return;
             }
-            else
+
+            /*
+            * Everything the metadata and ACL trackers have indexed so far is part of the commit. In non-blocking
+            * mode they carry on as soon as the locks are released and their new documents may or may not make it
+            * into this commit: the watermark records where the commit is known to be complete, so a rollback can
+            * restart the trackers from there.
+            */
+            watermark = CommitWatermark.of(metadataTracker.getTrackerState(), aclTracker.getTrackerState());
+            if (!nonBlockingCommit)
             {
-                doRollback();
+                commit(currentTime, openSearcherNeeded, watermark);
+                return;
             }
         }
         finally
@@ -203,6 +224,20 @@ public class CommitTracker extends AbstractTracker
             metadataTracker.getWriteLock().release();
             aclTracker.getWriteLock().release();
         }
+
+        commit(currentTime, openSearcherNeeded, watermark);
+    }
+
+    private void commit(long currentTime, boolean openSearcherNeeded, CommitWatermark watermark) throws IOException
+    {
+        boolean searcherOpened = infoSrv.commit(openSearcherNeeded);
+        lastCommitWatermark = watermark;
+        lastCommit = currentTime;
+        if(searcherOpened)
+        {
+            lastSearcherOpened = currentTime;
+        }
+        LOGGER.debug("[{}] Committed up to {}, new searcher: {}", coreName, watermark, searcherOpened);
     }
 
     protected void doRollback()
@@ -240,11 +275,11 @@ public class CommitTracker extends AbstractTracker
         {
             //Reset acl Tracker
             aclTracker.setRollback(false, null);
-            aclTracker.invalidateState();
+            invalidateState(aclTracker);
 
             //Reset metadataTracker
             metadataTracker.setRollback(false, null);
-            metadataTracker.invalidateState();
+            invalidateState(metadataTracker);
 
             //Reset contentTracker
             contentTracker.setRollback(false, null);
@@ -262,4 +297,21 @@ public class CommitTracker extends AbstractTracker
         }
     }
 
+    /**
+     * Non-blocking commits may contain part of the work that was in progress when they started, so the metadata
+     * and ACL trackers restart from the last commit watermark instead of the state found in the index.
+     */
+    private void invalidateState(AbstractTracker tracker)
+    {
+        CommitWatermark watermark = lastCommitWatermark;
+        if (nonBlockingCommit && watermark != null)
+        {
+            tracker.invalidateState(watermark);
+        }
+        else
+        {
+            tracker.invalidateState();
+        }
+    }
+
 }
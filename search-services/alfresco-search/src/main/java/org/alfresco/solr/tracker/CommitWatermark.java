@@ -0,0 +1,118 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.tracker;
+
+import org.alfresco.solr.TrackerState;
+
+/**
+ * The positions of the metadata and ACL trackers at the point a commit started.
+ *
+ * The commit tracker takes the watermark while it holds the tracker write locks, so every transaction and
+ * change set up to it has been written before the commit and is part of it. Indexing that carries on while
+ * the commit runs may or may not be in it, so after a rollback the trackers restart from the watermark of the
+ * last commit rather than from whatever the index holds.
+ */
+public final class CommitWatermark
+{
+    private final long txId;
+    private final long txCommitTime;
+    private final long changeSetId;
+    private final long changeSetCommitTime;
+
+    CommitWatermark(long txId, long txCommitTime, long changeSetId, long changeSetCommitTime)
+    {
+        this.txId = txId;
+        this.txCommitTime = txCommitTime;
+        this.changeSetId = changeSetId;
+        this.changeSetCommitTime = changeSetCommitTime;
+    }
+
+    static CommitWatermark of(TrackerState metadataState, TrackerState aclState)
+    {
+        return new CommitWatermark(metadataState.getLastIndexedTxId(),
+                metadataState.getLastIndexedTxCommitTime(),
+                aclState.getLastIndexedChangeSetId(),
+                aclState.getLastIndexedChangeSetCommitTime());
+    }
+
+    public long getTxId()
+    {
+        return txId;
+    }
+
+    public long getTxCommitTime()
+    {
+        return txCommitTime;
+    }
+
+    public long getChangeSetId()
+    {
+        return changeSetId;
+    }
+
+    public long getChangeSetCommitTime()
+    {
+        return changeSetCommitTime;
+    }
+
+    /**
+     * Moves the last indexed transaction and change set of the state back to the watermark, if the state is ahead
+     * of it. The last good commit times are recomputed with the hole retention, as for an initial state.
+     *
+     * @param state a state freshly read from the index
+     * @param holeRetention the hole retention, in milliseconds
+     * @return the same state
+     */
+    TrackerState rewind(TrackerState state, long holeRetention)
+    {
+        if (state.getLastIndexedTxCommitTime() > txCommitTime)
+        {
+            state.setLastIndexedTxId(txId);
+            state.setLastIndexedTxCommitTime(txCommitTime);
+            state.setLastGoodTxCommitTimeInIndex(Math.max(txCommitTime - holeRetention, 0));
+        }
+
+        if (state.getLastIndexedChangeSetCommitTime() > changeSetCommitTime)
+        {
+            state.setLastIndexedChangeSetId(changeSetId);
+            state.setLastIndexedChangeSetCommitTime(changeSetCommitTime);
+            state.setLastGoodChangeSetCommitTimeInIndex(Math.max(changeSetCommitTime - holeRetention, 0));
+        }
+        return state;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CommitWatermark{" +
+                "txId=" + txId +
+                ", txCommitTime=" + txCommitTime +
+                ", changeSetId=" + changeSetId +
+                ", changeSetCommitTime=" + changeSetCommitTime +
+                '}';
+    }
+}
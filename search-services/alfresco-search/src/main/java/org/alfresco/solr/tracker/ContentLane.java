@@ -1,40 +1,47 @@
-/*
- * #%L
- * Alfresco Search Services
- * %%
- * Copyright (C) 2005 - 2020 Alfresco Software Limited
- * %%
- * This file is part of the Alfresco software. 
- * If the software was purchased under a paid Alfresco license, the terms of 
- * the paid license agreement will prevail.  Otherwise, the software is 
- * provided under the following open source license terms:
- * 
- * Alfresco is free software: you can redistribute it and/or modify
- * it under the terms of the GNU Lesser General Public License as published by
- * the Free Software Foundation, either version 3 of the License, or
- * (at your option) any later version.
- * 
- * Alfresco is distributed in the hope that it will be useful,
- * but WITHOUT ANY WARRANTY; without even the implied warranty of
- * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
- * GNU Lesser General Public License for more details.
- * 
- * You should have received a copy of the GNU Lesser General Public License
- * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
- * #L%
- */
-
-package org.alfresco.solr.query;
-
-public class EmptyHybridBitSet extends HybridBitSet
-{
-    public void set(long bit)
-    {
-
-    }
-
-    public boolean get(long bit)
-    {
-        return false;
-    }
-}
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.tracker;
+
+/**
+ * The lanes of the documents waiting for their text content, each one served by the {@link ContentTracker} with its
+ * own parallelism, so a backlog of large documents does not delay the content of the documents changed a few minutes
+ * ago.
+ *
+ * <ul>
+ *     <li>RECENT: documents indexed less than alfresco.content.lanes.recentAge milliseconds ago</li>
+ *     <li>SMALL: documents whose content is not larger than alfresco.content.lanes.smallContentSize bytes</li>
+ *     <li>BULK: all the others, including the documents found in the index at startup</li>
+ * </ul>
+ *
+ * Recent documents which are still waiting when they get older than the recent age move to the small or bulk lane.
+ */
+public enum ContentLane
+{
+    RECENT,
+    SMALL,
+    BULK
+}
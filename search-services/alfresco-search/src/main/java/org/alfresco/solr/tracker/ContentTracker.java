@@ -26,7 +26,6 @@
 
 package org.alfresco.solr.tracker;
 
-import com.google.common.collect.Lists;
 import org.alfresco.solr.AlfrescoSolrDataModel.TenantDbId;
 import org.alfresco.solr.InformationServer;
 import org.alfresco.solr.client.SOLRAPIClient;
@@ -34,11 +33,21 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.Semaphore;
 
 import static org.alfresco.solr.utils.Utils.notNullOrEmpty;
@@ -46,6 +55,13 @@ import static org.alfresco.solr.utils.Utils.notNullOrEmpty;
 /**
  * This tracker queries for docs with unclean content, and then updates them.
  * Similar to org.alfresco.repo.search.impl.lucene.ADMLuceneIndexerImpl
+ *
+ * The docs are served per {@link ContentLane}: each lane keeps up to its own number of read batches running, so
+ * recently changed and small docs do not wait behind a backlog of large ones. The recent and small lanes run in a
+ * pool of their own, the bulk lane in a pool of alfresco.content.tracker.maxParallelism threads: a recent batch never
+ * waits for a bulk batch to free a thread. A lane with nothing left to do lends its share to the others, as long as
+ * the pool of the borrowing lane has a thread for each of its batches. The text content of each read batch is
+ * fetched with up to as many concurrent requests as the pool of its lane has threads, in the same pool.
  * 
  * @author Ahmed Owian
  */
@@ -58,11 +74,14 @@ public class ContentTracker extends ActivatableTracker
 
     private int contentTrackerParallelism;
     private int contentUpdateBatchSize;
+    private int contentReadBatchSize;
+    private Map<ContentLane, Integer> laneParallelism;
     
     // Share run and write locks across all ContentTracker threads
     private static final Map<String, Semaphore> RUN_LOCK_BY_CORE = new ConcurrentHashMap<>();
     private static final Map<String, Semaphore> WRITE_LOCK_BY_CORE = new ConcurrentHashMap<>();
     private ForkJoinPool forkJoinPool;
+    private ForkJoinPool priorityPool;
 
     @Override
     public Semaphore getWriteLock()
@@ -80,15 +99,30 @@ public class ContentTracker extends ActivatableTracker
     {
         super(p, client, coreName, informationServer, Tracker.Type.CONTENT);
         int DEFAULT_CONTENT_UPDATE_BATCH_SIZE = 2000;
+        int DEFAULT_CONTENT_READ_BATCH_SIZE = 100;
 
         contentUpdateBatchSize = Integer.parseInt(p.getProperty("alfresco.contentUpdateBatchSize",
                 String.valueOf(DEFAULT_CONTENT_UPDATE_BATCH_SIZE)));
 
+        contentReadBatchSize = Integer.parseInt(p.getProperty("alfresco.contentReadBatchSize",
+                String.valueOf(DEFAULT_CONTENT_READ_BATCH_SIZE)));
+
         contentTrackerParallelism = Integer.parseInt(p.getProperty("alfresco.content.tracker.maxParallelism",
                 String.valueOf(DEFAULT_CONTENT_TRACKER_MAX_PARALLELISM)));
 
         forkJoinPool = new ForkJoinPool(contentTrackerParallelism);
 
+        // By default the lanes share the pool: a quarter each for recent and small docs, the rest for bulk
+        int priorityLaneParallelism = Math.max(1, contentTrackerParallelism / 4);
+        laneParallelism = new EnumMap<>(ContentLane.class);
+        laneParallelism.put(ContentLane.RECENT, Integer.parseInt(p.getProperty("alfresco.content.tracker.lanes.recent.parallelism",
+                String.valueOf(priorityLaneParallelism))));
+        laneParallelism.put(ContentLane.SMALL, Integer.parseInt(p.getProperty("alfresco.content.tracker.lanes.small.parallelism",
+                String.valueOf(priorityLaneParallelism))));
+        laneParallelism.put(ContentLane.BULK, Integer.parseInt(p.getProperty("alfresco.content.tracker.lanes.bulk.parallelism",
+                String.valueOf(Math.max(1, contentTrackerParallelism - 2 * priorityLaneParallelism)))));
+        priorityPool = new ForkJoinPool(Math.max(1, laneParallelism.get(ContentLane.RECENT) + laneParallelism.get(ContentLane.SMALL)));
+
         RUN_LOCK_BY_CORE.put(coreName, new Semaphore(1, true));
         WRITE_LOCK_BY_CORE.put(coreName, new Semaphore(1, true));
     }
@@ -103,58 +137,121 @@ public class ContentTracker extends ActivatableTracker
     {
         try
         {
-            long startElapsed = System.nanoTime();
-
-            checkShutdown();
-            long totalDocs = 0L;
             checkShutdown();
-            while (true)
+            long totalDocs;
+            try
             {
-                try
-                {
-                    getWriteLock().acquire();
+                getWriteLock().acquire();
+                totalDocs = trackLanes();
+            }
+            finally
+            {
+                getWriteLock().release();
+            }
+
+            LOGGER.info("{}-[CORE {}] Total number of docs with content updated: {} ", Thread.currentThread().getId(), coreName, totalDocs);
+
+        }
+        catch(Exception e)
+        {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Runs the read batches of all the lanes until none of them has docs with unclean content left.
+     * Each read batch is fetched with concurrent requests and indexed in a single update session.
+     *
+     * @return the number of docs processed.
+     */
+    private long trackLanes() throws Exception
+    {
+        // The batches of all the lanes complete in the same queue, whatever their pool
+        BlockingQueue<Future<ContentBatch>> completed = new LinkedBlockingQueue<>();
+        Map<ContentLane, Lane> lanes = new EnumMap<>(ContentLane.class);
+        laneParallelism.forEach((lane, parallelism) -> {
+            ForkJoinPool pool = lane == ContentLane.BULK ? forkJoinPool : priorityPool;
+            lanes.put(lane, new Lane(lane, parallelism, pool, new ExecutorCompletionService<>(pool, completed)));
+        });
 
-                    List<TenantDbId> docs = notNullOrEmpty(this.infoSrv.getDocsWithUncleanContent());
-                    if (docs.isEmpty())
+        int runningBatches = 0;
+        long totalDocs = 0L;
+        long startElapsed = System.nanoTime();
+        while (true)
+        {
+            for (Lane lane : lanes.values())
+            {
+                while (lane.running < slots(lanes, lane))
+                {
+                    if (lane.waiting.isEmpty() && !lane.drained)
+                    {
+                        List<TenantDbId> docs = notNullOrEmpty(this.infoSrv.getDocsWithUncleanContent(lane.contentLane, contentUpdateBatchSize));
+                        lane.waiting.addAll(docs);
+                        lane.drained = docs.isEmpty();
+                    }
+                    if (lane.waiting.isEmpty())
                     {
-                        LOGGER.trace("No unclean document has been detected in the current ContentTracker cycle.");
                         break;
                     }
 
-                    List<List<TenantDbId>> docBatches = Lists.partition(docs, contentUpdateBatchSize);
-                    for (List<TenantDbId> batch : docBatches)
+                    List<TenantDbId> readBatch = new ArrayList<>(contentReadBatchSize);
+                    while (readBatch.size() < contentReadBatchSize && !lane.waiting.isEmpty())
                     {
-                        Integer processedDocuments = forkJoinPool.submit(() ->
-                                // Parallel task here, for example
-                                batch.parallelStream().map(doc -> {
-                                    ContentIndexWorkerRunnable ciwr = new ContentIndexWorkerRunnable(doc, infoSrv);
-                                    ciwr.run();
-                                    return 1;
-                                }).reduce(0, Integer::sum)
-                        ).get();
-
-                        long endElapsed = System.nanoTime();
-                        trackerStats.addElapsedContentTime(processedDocuments, endElapsed - startElapsed);
-                        startElapsed = endElapsed;
-
+                        readBatch.add(lane.waiting.poll());
                     }
-
-                    totalDocs += docs.size();
-                    checkShutdown();
-                }
-                finally
-                {
-                    getWriteLock().release();
+                    lane.completionService.submit(new ContentBatch(lane, readBatch));
+                    lane.running++;
+                    runningBatches++;
                 }
             }
 
-            LOGGER.info("{}-[CORE {}] Total number of docs with content updated: {} ", Thread.currentThread().getId(), coreName, totalDocs);
+            if (runningBatches == 0)
+            {
+                LOGGER.trace("No unclean document has been detected in the current ContentTracker cycle.");
+                break;
+            }
+
+            ContentBatch batch = completed.take().get();
+            batch.lane.running--;
+            runningBatches--;
 
+            long endElapsed = System.nanoTime();
+            trackerStats.addElapsedContentTime(batch.docs.size(), endElapsed - startElapsed);
+            trackerStats.addContentLaneTime(batch.lane.contentLane.name(), batch.docs.size(), batch.elapsed);
+            startElapsed = endElapsed;
+            totalDocs += batch.docs.size();
+
+            // Docs committed while the batch was running may have reached the drained lanes in the meantime
+            lanes.values().forEach(lane -> lane.drained = false);
+            checkShutdown();
         }
-        catch(Exception e)
+        return totalDocs;
+    }
+
+    /**
+     * @return the number of batches the lane can run: its own parallelism plus the parallelism of the other lanes
+     * which have nothing to do, without running more batches than the threads of its pool.
+     */
+    private int slots(Map<ContentLane, Lane> lanes, Lane lane)
+    {
+        int spareParallelism = 0;
+        int runningInPool = 0;
+        for (Lane other : lanes.values())
         {
-            throw new IOException(e);
+            if (other == lane)
+            {
+                continue;
+            }
+            if (other.drained && other.running == 0 && other.waiting.isEmpty())
+            {
+                spareParallelism += other.parallelism;
+            }
+            if (other.pool == lane.pool)
+            {
+                runningInPool += other.running;
+            }
         }
+        return Math.min(lane.parallelism + spareParallelism, lane.pool.getParallelism() - runningInPool);
     }
 
     public boolean hasMaintenance()
@@ -167,21 +264,58 @@ public class ContentTracker extends ActivatableTracker
         // Nothing to be done here
     }
 
-    public void invalidateState()
+    static class Lane
     {
-        super.invalidateState();
-        this.infoSrv.setCleanContentTxnFloor(-1);
+        final ContentLane contentLane;
+        final int parallelism;
+        final ForkJoinPool pool;
+        final CompletionService<ContentBatch> completionService;
+        final Deque<TenantDbId> waiting = new ArrayDeque<>();
+        int running;
+        boolean drained;
+
+        Lane(ContentLane contentLane, int parallelism, ForkJoinPool pool, CompletionService<ContentBatch> completionService)
+        {
+            this.contentLane = contentLane;
+            this.parallelism = parallelism;
+            this.pool = pool;
+            this.completionService = completionService;
+        }
+    }
+
+    class ContentBatch implements Callable<ContentBatch>
+    {
+        final Lane lane;
+        final List<TenantDbId> docs;
+        long elapsed;
+
+        ContentBatch(Lane lane, List<TenantDbId> docs)
+        {
+            this.lane = lane;
+            this.docs = docs;
+        }
+
+        @Override
+        public ContentBatch call()
+        {
+            long start = System.nanoTime();
+            new ContentIndexWorkerRunnable(docs, infoSrv, lane.pool).run();
+            elapsed = System.nanoTime() - start;
+            return this;
+        }
     }
 
     class ContentIndexWorkerRunnable extends AbstractWorker
     {
         InformationServer infoServer;
-        TenantDbId docRef;
+        List<TenantDbId> docRefs;
+        ForkJoinPool fetchPool;
 
-        ContentIndexWorkerRunnable(TenantDbId doc, InformationServer infoServer)
+        ContentIndexWorkerRunnable(List<TenantDbId> docs, InformationServer infoServer, ForkJoinPool fetchPool)
         {
-            this.docRef = doc;
+            this.docRefs = docs;
             this.infoServer = infoServer;
+            this.fetchPool = fetchPool;
         }
 
         @Override
@@ -189,14 +323,17 @@ public class ContentTracker extends ActivatableTracker
         {
             checkShutdown();
 
-            infoServer.updateContent(docRef);
+            // The fetches of all the running batches of a pool share it, its parallelism bounds them overall
+            infoServer.updateContent(docRefs, fetchPool, fetchPool.getParallelism());
         }
         
         @Override
         protected void onFail(Throwable failCausedBy)
         {
-            // This will be redone in future tracking operations
             LOGGER.warn("Content tracker failed due to {}", failCausedBy.getMessage(), failCausedBy);
+
+            // The docs of the batch are handed out again after the next commit
+            infoServer.retryContentUpdate(docRefs);
         }
     }
 }
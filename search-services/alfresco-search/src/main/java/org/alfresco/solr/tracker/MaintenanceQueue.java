@@ -0,0 +1,152 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.tracker;
+
+import java.util.Arrays;
+
+import com.carrotsearch.hppc.LongArrayDeque;
+import com.carrotsearch.hppc.LongHashSet;
+
+/**
+ * A bounded FIFO queue of the ids (transactions, nodes, ACLs...) scheduled for maintenance through the admin API.
+ * The ids are kept as primitives and an id already waiting in the queue is not added twice.
+ *
+ * Once the capacity is reached, {@link #add(long)} refuses the new ids, so the caller gets the back-pressure
+ * instead of the tracker heap.
+ */
+final class MaintenanceQueue
+{
+    private final String name;
+    private final int capacity;
+    private final LongArrayDeque ids = new LongArrayDeque();
+    private final LongHashSet queued = new LongHashSet();
+
+    /**
+     * @param name what the queue holds, e.g. "Transactions to be indexed"
+     */
+    MaintenanceQueue(String name, int capacity)
+    {
+        this.name = name;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Adds the id to the end of the queue, unless it is already waiting.
+     *
+     * @throws IllegalStateException if the queue is full
+     */
+    synchronized void add(long id)
+    {
+        if (queued.contains(id))
+        {
+            return;
+        }
+        if (ids.size() >= capacity)
+        {
+            throw new IllegalStateException(name + " queue is full (" + capacity + " ids), retry when the scheduled work has been processed.");
+        }
+        ids.addLast(id);
+        queued.add(id);
+    }
+
+    /**
+     * Removes up to max ids from the head of the queue.
+     *
+     * @return the ids removed, in ascending order, or an empty array if the queue is empty
+     */
+    synchronized long[] poll(int max)
+    {
+        long[] batch = new long[Math.min(Math.max(1, max), ids.size())];
+        for (int i = 0; i < batch.length; i++)
+        {
+            batch[i] = ids.removeFirst();
+            queued.remove(batch[i]);
+        }
+        if (ids.isEmpty())
+        {
+            // Gives back the memory of a large drained batch of work
+            release();
+        }
+        Arrays.sort(batch);
+        return batch;
+    }
+
+    /**
+     * Empties the queue.
+     *
+     * @return the ids removed
+     */
+    synchronized long[] clear()
+    {
+        long[] removed = ids.toArray();
+        release();
+        return removed;
+    }
+
+    private void release()
+    {
+        ids.release();
+        queued.release();
+    }
+
+    synchronized int size()
+    {
+        return ids.size();
+    }
+
+    boolean isEmpty()
+    {
+        return size() == 0;
+    }
+
+    int getCapacity()
+    {
+        return capacity;
+    }
+
+    String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Finds the end of the run of ids, starting at the given index, that can be fetched from the repository
+     * with a single id range request returning at most maxSpan items.
+     *
+     * @param sortedIds ids in ascending order
+     * @return the index following the last id of the run
+     */
+    static int rangeEnd(long[] sortedIds, int start, long maxSpan)
+    {
+        int end = start + 1;
+        while (end < sortedIds.length && sortedIds[end] - sortedIds[start] < maxSpan)
+        {
+            end++;
+        }
+        return end;
+    }
+}
@@ -41,6 +41,7 @@ import org.alfresco.solr.client.SOLRAPIClient;
 import org.alfresco.solr.client.Transaction;
 import org.alfresco.solr.client.Transactions;
 import org.alfresco.util.Pair;
+import org.alfresco.util.TraceableThreadFactory;
 import org.apache.commons.codec.EncoderException;
 import org.json.JSONException;
 import org.slf4j.Logger;
@@ -48,16 +49,25 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
@@ -80,25 +90,38 @@ public class MetadataTracker extends ActivatableTracker
     private static final String DEFAULT_INITIAL_TRANSACTION_RANGE = "0-2000";
     private static final long DEFAULT_METADATA_TRACKER_TIMESTEP = TIME_STEP_1_HR_IN_MS;
     private static final long INITIAL_MAX_TXN_ID = 2000L;
+    private static final int DEFAULT_PIPELINE_QUEUE_SIZE = 2;
+    private static final int DEFAULT_BATCH_JOURNAL_MAX_ATTEMPTS = 3;
+    private static final int DEFAULT_INITIAL_BUILD_PARTITIONS = 1;
+    // Order of the transactions in the tracker state: by commit time, tie-broken by tx id
+    private static final Comparator<Transaction> COMMIT_ORDER =
+            Comparator.comparingLong(Transaction::getCommitTimeMs).thenComparingLong(Transaction::getId);
 
     private int matadataTrackerParallelism;
-    private int transactionDocsBatchSize;
-    private int nodeBatchSize;
-    private int maxNumberOfTransactions;
+    private AdaptiveBatchSize transactionDocsBatchSize;
+    private AdaptiveBatchSize nodeBatchSize;
+    private AdaptiveBatchSize maxNumberOfTransactions;
     private long timeStep;
-
-    private final ConcurrentLinkedQueue<Long> transactionsToReindex = new ConcurrentLinkedQueue<>();
-    private final ConcurrentLinkedQueue<Long> transactionsToIndex = new ConcurrentLinkedQueue<>();
-    private final ConcurrentLinkedQueue<Long> transactionsToPurge = new ConcurrentLinkedQueue<>();
-    private final ConcurrentLinkedQueue<Long> nodesToReindex = new ConcurrentLinkedQueue<>();
-    private final ConcurrentLinkedQueue<Long> nodesToIndex = new ConcurrentLinkedQueue<>();
-    private final ConcurrentLinkedQueue<Long> nodesToPurge = new ConcurrentLinkedQueue<>();
+    private boolean pipelineEnabled;
+    private int pipelineQueueSize;
+    private boolean batchJournalEnabled;
+    private BatchJournal<Transaction> batchJournal;
+    private int initialBuildPartitions;
+
+    private final MaintenanceQueue transactionsToReindex = new MaintenanceQueue("Transactions to be re-indexed", maintenanceQueueCapacity);
+    private final MaintenanceQueue transactionsToIndex = new MaintenanceQueue("Transactions to be indexed", maintenanceQueueCapacity);
+    private final MaintenanceQueue transactionsToPurge = new MaintenanceQueue("Transactions to be purged", maintenanceQueueCapacity);
+    private final MaintenanceQueue nodesToReindex = new MaintenanceQueue("Nodes to be re-indexed", maintenanceQueueCapacity);
+    private final MaintenanceQueue nodesToIndex = new MaintenanceQueue("Nodes to be indexed", maintenanceQueueCapacity);
+    private final MaintenanceQueue nodesToPurge = new MaintenanceQueue("Nodes to be purged", maintenanceQueueCapacity);
     private final ConcurrentLinkedQueue<String> queriesToReindex = new ConcurrentLinkedQueue<>();
 
     private final boolean isRunningInProduction =
             !Boolean.parseBoolean(System.getProperty("alfresco.test", "false"));
 
     private ForkJoinPool forkJoinPool;
+    // Threads running the discovery and fetch stages when pipelined tracking is enabled
+    private ExecutorService pipelineExecutor;
 
     // Share run and write locks across all MetadataTracker threads
     private static final Map<String, Semaphore> RUN_LOCK_BY_CORE = new ConcurrentHashMap<>();
@@ -114,6 +137,20 @@ public class MetadataTracker extends ActivatableTracker
         return RUN_LOCK_BY_CORE.get(coreName);
     }
 
+    @Override
+    public void shutdown()
+    {
+        super.shutdown();
+        synchronized (this)
+        {
+            // The pipeline threads may be waiting on the stage queues
+            if (pipelineExecutor != null)
+            {
+                pipelineExecutor.shutdownNow();
+            }
+        }
+    }
+
     /**
      * Check if nextTxCommitTimeService is available in the repository.
      * This service is used to find the next available transaction commit time from a given time,
@@ -161,18 +198,29 @@ public class MetadataTracker extends ActivatableTracker
     {
         super(p, client, coreName, informationServer, Tracker.Type.METADATA);
 
-        transactionDocsBatchSize = Integer.parseInt(p.getProperty("alfresco.transactionDocsBatchSize",
-                String.valueOf(DEFAULT_TRANSACTION_DOCS_BATCH_SIZE)));
-        nodeBatchSize = Integer.parseInt(p.getProperty("alfresco.nodeBatchSize",
-                String.valueOf(DEFAULT_NODE_BATCH_SIZE)));
-        maxNumberOfTransactions = Integer.parseInt(p.getProperty("alfresco.metadata.tracker.maxNumberOfTransactions",
-                String.valueOf(DEFAULT_MAX_NUMBER_OF_TRANSACTIONS)));
+        transactionDocsBatchSize = AdaptiveBatchSize.fromProperties(p, "alfresco.transactionDocsBatchSize",
+                DEFAULT_TRANSACTION_DOCS_BATCH_SIZE);
+        nodeBatchSize = AdaptiveBatchSize.fromProperties(p, "alfresco.nodeBatchSize", DEFAULT_NODE_BATCH_SIZE);
+        maxNumberOfTransactions = AdaptiveBatchSize.fromProperties(p, "alfresco.metadata.tracker.maxNumberOfTransactions",
+                DEFAULT_MAX_NUMBER_OF_TRANSACTIONS);
         matadataTrackerParallelism = Integer.parseInt(p.getProperty("alfresco.metadata.tracker.maxParallelism",
                 String.valueOf(DEFAULT_METADATA_TRACKER_MAX_PARALLELISM)));
 
         timeStep = Long.parseLong(p.getProperty("alfresco.metadata.tracker.timestep",
                 String.valueOf(DEFAULT_METADATA_TRACKER_TIMESTEP)));
 
+        pipelineEnabled = Boolean.parseBoolean(p.getProperty("alfresco.metadata.tracker.pipeline.enabled", "false"));
+        pipelineQueueSize = Integer.parseInt(p.getProperty("alfresco.metadata.tracker.pipeline.queueSize",
+                String.valueOf(DEFAULT_PIPELINE_QUEUE_SIZE)));
+
+        batchJournalEnabled = Boolean.parseBoolean(p.getProperty("alfresco.batch.journal.enabled", "false"));
+        batchJournal = new BatchJournal<>(coreName, "transaction", Transaction::getId,
+                Integer.parseInt(p.getProperty("alfresco.batch.journal.maxAttempts",
+                        String.valueOf(DEFAULT_BATCH_JOURNAL_MAX_ATTEMPTS))));
+
+        initialBuildPartitions = Integer.parseInt(p.getProperty("alfresco.metadata.tracker.initialBuild.partitions",
+                String.valueOf(DEFAULT_INITIAL_BUILD_PARTITIONS)));
+
         String[] minTxninitialRangeString =
                 p.getProperty("solr.initial.transaction.range", DEFAULT_INITIAL_TRANSACTION_RANGE)
                         .split("-");
@@ -267,12 +315,12 @@ public class MetadataTracker extends ActivatableTracker
 
     public boolean hasMaintenance()
     {
-        return  transactionsToReindex.size() > 0 ||
-                transactionsToIndex.size() > 0 ||
-                transactionsToPurge.size() > 0 ||
-                nodesToReindex.size() > 0 ||
-                nodesToIndex.size() > 0 ||
-                nodesToPurge.size() > 0 ||
+        return  !transactionsToReindex.isEmpty() ||
+                !transactionsToIndex.isEmpty() ||
+                !transactionsToPurge.isEmpty() ||
+                !nodesToReindex.isEmpty() ||
+                !nodesToIndex.isEmpty() ||
+                !nodesToPurge.isEmpty() ||
                 queriesToReindex.size() > 0;
     }
 
@@ -436,196 +484,154 @@ public class MetadataTracker extends ActivatableTracker
         }
     }
     
-    private void indexTransactions() throws IOException, AuthenticationException, JSONException
+    private void indexTransactions() throws IOException, AuthenticationException, JSONException, ExecutionException, InterruptedException
     {
-        long startElapsed = System.nanoTime();
-        
-        int docCount = 0;
-        boolean requiresCommit = false;
-        while (transactionsToIndex.peek() != null)
-        {
-            Long transactionId = transactionsToIndex.poll();
-            if (transactionId != null)
-            {
-                Transactions transactions = client.getTransactions(null, transactionId,
-                        null, transactionId + 1, 1);
-                if ((transactions.getTransactions().size() > 0) &&
-                        (transactionId.equals(transactions.getTransactions().get(0).getId())))
-                {
-                    Transaction info = transactions.getTransactions().get(0);
-
-                    GetNodesParameters gnp = new GetNodesParameters();
-                    ArrayList<Long> txs = new ArrayList<>();
-                    txs.add(info.getId());
-                    gnp.setTransactionIds(txs);
-                    gnp.setStoreProtocol(storeRef.getProtocol());
-                    gnp.setStoreIdentifier(storeRef.getIdentifier());
-                    updateShardProperty();
-
-                    shardProperty.ifPresent(gnp::setShardProperty);
-
-                    gnp.setCoreName(coreName);
-
-                    List<Node> nodes = client.getNodes(gnp, (int) info.getUpdates());
-                    for (Node node : nodes)
-                    {
-                        docCount++;
-                        if (LOGGER.isDebugEnabled())
-                        {
-                            LOGGER.debug(node.toString());
-                        }
-                        this.infoSrv.indexNode(node, false);
-                        checkShutdown();
-                    }
-
-                    // Index the transaction doc after the node - if this is not found then a reindex will be done.
-                    this.infoSrv.indexTransaction(info, false);
-                    LOGGER.info("INDEX ACTION - Transaction {} has been indexed", transactionId);
-                    requiresCommit = true;
-
-                    trackerStats.addTxDocs(nodes.size());
-
-                }
-                else
-                {
-                    LOGGER.info("INDEX ACTION - Transaction {} was not found in database, it has NOT been reindexed",
-                            transactionId);
-                }
-            }
-        }
-        if (requiresCommit)
-        {
-            checkShutdown();
-            long endElapsed = System.nanoTime();
-            trackerStats.addElapsedNodeTime(docCount, endElapsed - startElapsed);
-        }
+        indexTransactions(transactionsToIndex, false);
     }
 
     private void indexNodes() throws IOException, AuthenticationException, JSONException
     {
-        boolean requiresCommit = false;
-        while (nodesToIndex.peek() != null)
-        {
-            Long nodeId = nodesToIndex.poll();
-            if (nodeId != null)
-            {
-                Node node = new Node();
-                node.setId(nodeId);
-                node.setStatus(SolrApiNodeStatus.UNKNOWN);
-                node.setTxnId(Long.MAX_VALUE);
+        indexNodes(nodesToIndex, false);
+    }
 
-                this.infoSrv.indexNode(node, false);
-                LOGGER.info("INDEX ACTION - Node {} has been reindexed", node.getId());
-                requiresCommit = true;
-            }
-            checkShutdown();
-        }
+    private void reindexTransactions() throws IOException, AuthenticationException, JSONException, ExecutionException, InterruptedException
+    {
+        indexTransactions(transactionsToReindex, true);
+    }
 
-        if(requiresCommit) {
-            checkShutdown();
-            //this.infoSrv.commit();
-        }
+    private void reindexNodes() throws IOException, AuthenticationException, JSONException
+    {
+        indexNodes(nodesToReindex, true);
     }
 
-    private void reindexTransactions() throws IOException, AuthenticationException, JSONException
+    /**
+     * Drains the queue in batches of transactions. The transactions of a batch are fetched with id range requests,
+     * their nodes with a single request, and the nodes are indexed in batches of nodeBatchSize.
+     *
+     * @param reindex true if the transactions documents must be deleted first, so no delete is missed
+     */
+    private void indexTransactions(MaintenanceQueue queue, boolean reindex)
+            throws IOException, AuthenticationException, JSONException, ExecutionException, InterruptedException
     {
-        long startElapsed = System.nanoTime();
-        int docCount = 0;
-        while (transactionsToReindex.peek() != null)
+        final String action = reindex ? "REINDEX" : "INDEX";
+        while (!queue.isEmpty())
         {
-            Long transactionId = transactionsToReindex.poll();
-
-            if (transactionId != null)
+            long startElapsed = System.nanoTime();
+            long[] transactionIds = queue.poll(transactionDocsBatchSize.get());
+            if (reindex)
             {
                 // make sure it is cleaned out so we do not miss deletes
-                this.infoSrv.deleteByTransactionId(transactionId);
+                this.infoSrv.deleteByTransactionIds(transactionIds);
+            }
 
-                Transactions transactions = client.getTransactions(null, transactionId,
-                        null, transactionId+1, 1);
-                if ((transactions.getTransactions().size() > 0) &&
-                        (transactionId.equals(transactions.getTransactions().get(0).getId())))
-                {
-                    Transaction info = transactions.getTransactions().get(0);
-                    this.infoSrv.dirtyTransaction(info.getId());
-                    GetNodesParameters gnp = new GetNodesParameters();
-                    ArrayList<Long> txs = new ArrayList<>();
-                    txs.add(info.getId());
-                    gnp.setTransactionIds(txs);
-                    gnp.setStoreProtocol(storeRef.getProtocol());
-                    gnp.setStoreIdentifier(storeRef.getIdentifier());
-                    gnp.setCoreName(coreName);
-                    List<Node> nodes =   client.getNodes(gnp, (int) info.getUpdates());
-                    for (Node node : nodes)
-                    {
-                        docCount++;
-                        if (LOGGER.isDebugEnabled())
-                        {
-                            LOGGER.debug(node.toString());
-                        }
-                        this.infoSrv.indexNode(node, true);
-                        checkShutdown();
-                    }
+            List<Transaction> transactions = getTransactionsById(transactionIds);
+            logTransactionsNotFound(action, transactionIds, transactions);
+            if (reindex)
+            {
+                transactions.forEach(transaction -> this.infoSrv.dirtyTransaction(transaction.getId()));
+            }
 
-                    // Index the transaction doc after the node - if this is not found then a reindex will be done.
-                    this.infoSrv.indexTransaction(info, true);
-                    LOGGER.info("REINDEX ACTION - Transaction {} has been reindexed", transactionId);
-                }
-                else
-                {
-                    LOGGER.info("REINDEX ACTION - Transaction {} was not found in database, it has NOT been reindexed",
-                            transactionId);
-                }
+            int docCount = 0;
+            for (List<Node> nodes : buildBatchOfTransactions(transactions, 0, 0, false))
+            {
+                this.infoSrv.indexNodes(nodes, reindex);
+                docCount += nodes.size();
+                checkShutdown();
             }
 
-            if (docCount > batchCount)
+            // Index the transaction docs after the nodes - if one is not found then a reindex will be done.
+            for (Transaction transaction : transactions)
             {
-                if(this.infoSrv.getRegisteredSearcherCount() < getMaxLiveSearchers())
-                {
-                    checkShutdown();
-                    long endElapsed = System.nanoTime();
-                    trackerStats.addElapsedNodeTime(docCount, endElapsed-startElapsed);
-                    startElapsed = endElapsed;
-                    docCount = 0;
-                }
+                this.infoSrv.indexTransaction(transaction, reindex);
+                trackerStats.addTxDocs((int) (transaction.getUpdates() + transaction.getDeletes()));
+                LOGGER.debug("{} ACTION - Transaction {} has been indexed", action, transaction.getId());
+            }
+
+            if (!transactions.isEmpty())
+            {
+                LOGGER.info("{} ACTION - {} transactions from {} to {} have been indexed", action,
+                        transactions.size(), transactions.get(0).getId(), transactions.get(transactions.size() - 1).getId());
+            }
+            if (docCount > 0)
+            {
+                trackerStats.addElapsedNodeTime(docCount, System.nanoTime() - startElapsed);
             }
-        }
-        if (docCount > 0)
-        {
             checkShutdown();
-            //this.infoSrv.commit();
-            long endElapsed = System.nanoTime();
-            trackerStats.addElapsedNodeTime(docCount, endElapsed - startElapsed);
         }
     }
 
-    
-    private void reindexNodes() throws IOException, AuthenticationException, JSONException
+    /**
+     * Drains the queue in batches of nodeBatchSize nodes, the metadata of a batch is fetched with a single request.
+     *
+     * @param reindex true if the nodes documents must be deleted first, so no delete is missed
+     */
+    private void indexNodes(MaintenanceQueue queue, boolean reindex)
+            throws IOException, AuthenticationException, JSONException
     {
-        boolean requiresCommit = false;
-        while (nodesToReindex.peek() != null)
+        final String action = reindex ? "REINDEX" : "INDEX";
+        while (!queue.isEmpty())
         {
-            Long nodeId = nodesToReindex.poll();
-            if (nodeId != null)
+            long[] nodeIds = queue.poll(nodeBatchSize.get());
+            if (reindex)
             {
                 // make sure it is cleaned out so we do not miss deletes
-                this.infoSrv.deleteByNodeId(nodeId);
+                this.infoSrv.deleteByNodeIds(nodeIds);
+            }
 
+            List<Node> nodes = new ArrayList<>(nodeIds.length);
+            for (long nodeId : nodeIds)
+            {
                 Node node = new Node();
                 node.setId(nodeId);
                 node.setStatus(SolrApiNodeStatus.UNKNOWN);
                 node.setTxnId(Long.MAX_VALUE);
-
-                this.infoSrv.indexNode(node, true);
-                LOGGER.info("REINDEX ACTION - Node {} has been reindexed", node.getId());
-                requiresCommit = true;
+                nodes.add(node);
             }
+
+            this.infoSrv.indexNodes(nodes, reindex);
+            LOGGER.info("{} ACTION - Nodes {} have been indexed", action, Arrays.toString(nodeIds));
             checkShutdown();
         }
+    }
 
-        if(requiresCommit)
+    /**
+     * Fetches the transactions with the given ids, close ids are fetched together with a single id range request.
+     *
+     * @param transactionIds the transaction ids, in ascending order
+     * @return the transactions found in the repository
+     */
+    private List<Transaction> getTransactionsById(long[] transactionIds)
+            throws AuthenticationException, IOException, JSONException
+    {
+        Set<Long> requested = Arrays.stream(transactionIds).boxed().collect(Collectors.toSet());
+        int maxSpan = maxNumberOfTransactions.get();
+        List<Transaction> transactions = new ArrayList<>(transactionIds.length);
+        for (int start = 0, end; start < transactionIds.length; start = end)
         {
-            checkShutdown();
-            //this.infoSrv.commit();
+            end = MaintenanceQueue.rangeEnd(transactionIds, start, maxSpan);
+            long minTxnId = transactionIds[start];
+            long maxTxnId = transactionIds[end - 1] + 1;
+            for (Transaction transaction : client.getTransactions(null, minTxnId, null, maxTxnId, (int) (maxTxnId - minTxnId)).getTransactions())
+            {
+                if (requested.contains(transaction.getId()))
+                {
+                    transactions.add(transaction);
+                }
+            }
+        }
+        return transactions;
+    }
+
+    private void logTransactionsNotFound(String action, long[] transactionIds, List<Transaction> transactions)
+    {
+        if (transactions.size() < transactionIds.length)
+        {
+            Set<Long> found = transactions.stream().map(Transaction::getId).collect(Collectors.toSet());
+            Arrays.stream(transactionIds)
+                    .filter(transactionId -> !found.contains(transactionId))
+                    .forEach(transactionId ->
+                            LOGGER.info("{} ACTION - Transaction {} was not found in database, it has NOT been reindexed",
+                                    action, transactionId));
         }
     }
     
@@ -654,37 +660,22 @@ public class MetadataTracker extends ActivatableTracker
 
     private void purgeTransactions() throws IOException, JSONException
     {
-        boolean requiresCommit = false;
-        while (transactionsToPurge.peek() != null)
-        {
-            Long transactionId = transactionsToPurge.poll();
-            if (transactionId != null)
-            {
-                // make sure it is cleaned out so we do not miss deletes
-                this.infoSrv.deleteByTransactionId(transactionId);
-                requiresCommit = true;
-                LOGGER.info("PURGE ACTION - Purged transactionId {}", transactionId);
-            }
-            checkShutdown();
-        }
-        
-        if(requiresCommit)
+        while (!transactionsToPurge.isEmpty())
         {
+            long[] transactionIds = transactionsToPurge.poll(transactionDocsBatchSize.get());
+            this.infoSrv.deleteByTransactionIds(transactionIds);
+            LOGGER.info("PURGE ACTION - Purged transactionIds {}", Arrays.toString(transactionIds));
             checkShutdown();
         }
     }
 
     private void purgeNodes() throws IOException, JSONException
     {
-        while (nodesToPurge.peek() != null)
+        while (!nodesToPurge.isEmpty())
         {
-            Long nodeId = nodesToPurge.poll();
-            if (nodeId != null)
-            {
-                // make sure it is cleaned out so we do not miss deletes
-                this.infoSrv.deleteByNodeId(nodeId);
-                LOGGER.info("PURGE ACTION - Purged nodeId {}", nodeId);
-            }
+            long[] nodeIds = nodesToPurge.poll(nodeBatchSize.get());
+            this.infoSrv.deleteByNodeIds(nodeIds);
+            LOGGER.info("PURGE ACTION - Purged nodeIds {}", Arrays.toString(nodeIds));
             checkShutdown();
         }
     }
@@ -737,6 +728,33 @@ public class MetadataTracker extends ActivatableTracker
         }
     }
 
+    /**
+     * Gets the next transactions to be indexed, at most "maxNumberOfTransactions". The time taken by full pages of
+     * transactions tunes their size when adaptive batch sizing is enabled.
+     */
+    private Transactions discoverSomeTransactions(BoundedDeque<Transaction> txnsFound, Long fromCommitTime,
+                long timeToStopIndexing)
+            throws AuthenticationException, IOException, JSONException, EncoderException, NoSuchMethodException
+    {
+        int maxResults = maxNumberOfTransactions.get();
+        long start = System.nanoTime();
+        Transactions transactions = getSomeTransactions(txnsFound, fromCommitTime, timeStep, maxResults, timeToStopIndexing);
+        // A partial page doesn't depend on its size
+        if (transactions.getTransactions().size() >= maxResults)
+        {
+            maxNumberOfTransactions.record(maxResults, System.nanoTime() - start);
+        }
+        return transactions;
+    }
+
+    /**
+     * @return the batch sizes of the tracker, as currently used
+     */
+    public List<AdaptiveBatchSize> getBatchSizes()
+    {
+        return Arrays.asList(transactionDocsBatchSize, nodeBatchSize, maxNumberOfTransactions);
+    }
+
     protected Transactions getSomeTransactions(BoundedDeque<Transaction> txnsFound, Long fromCommitTime, long timeStep,
                 int maxResults, long endTime)
             throws AuthenticationException, IOException, JSONException, EncoderException, NoSuchMethodException
@@ -788,9 +806,11 @@ public class MetadataTracker extends ActivatableTracker
      *
      * @param fromCommitTime Starting commit time to get transactions from Repository
      * @param txnsFound List of transactions previously found
+     * @param timeToStopIndexing Upper commit time bound for the transactions to be indexed
      * @return List of transactions to be indexed
      */
-    private Transactions getDBIDRangeTransactions(Long fromCommitTime, BoundedDeque<Transaction> txnsFound)
+    private Transactions getDBIDRangeTransactions(Long fromCommitTime, BoundedDeque<Transaction> txnsFound,
+                long timeToStopIndexing)
             throws NoSuchMethodException, AuthenticationException, IOException, JSONException, EncoderException
     {
         boolean shardOutOfRange = false;
@@ -828,8 +848,8 @@ public class MetadataTracker extends ActivatableTracker
             fromCommitTime = shardMinCommitTime;
         }
 
-        Transactions transactions = getSomeTransactions(txnsFound, fromCommitTime, timeStep, maxNumberOfTransactions,
-                                           state.getTimeToStopIndexing());
+        Transactions transactions = getSomeTransactions(txnsFound, fromCommitTime, timeStep, maxNumberOfTransactions.get(),
+                                           timeToStopIndexing);
 
 
         // When transactions are out of Shard range, only the latest transaction needs to be indexed
@@ -849,10 +869,15 @@ public class MetadataTracker extends ActivatableTracker
     }
 
     private boolean isTransactionIndexed(Transaction transaction)
+    {
+        return isTransactionIndexed(transaction, state.getLastIndexedTxCommitTime());
+    }
+
+    private boolean isTransactionIndexed(Transaction transaction, long lastIndexedTxCommitTime)
     {
         try
         {
-            boolean isInIndex = (transaction.getCommitTimeMs() <= state.getLastIndexedTxCommitTime() &&
+            boolean isInIndex = (transaction.getCommitTimeMs() <= lastIndexedTxCommitTime &&
                     infoSrv.txnInIndex(transaction.getId(), true));
             if (LOGGER.isTraceEnabled())
             {
@@ -884,6 +909,18 @@ public class MetadataTracker extends ActivatableTracker
      */
     protected void trackTransactions() throws IOException, JSONException
     {
+        if (initialBuildPartitions > 1 && !trackTransactionPartitions())
+        {
+            // Rolled back in the middle of the build, the next cycle splits the range left again
+            return;
+        }
+
+        if (pipelineEnabled)
+        {
+            trackTransactionsPipelined();
+            return;
+        }
+
         long startElapsed = System.nanoTime();
 
         Transactions transactions;
@@ -909,6 +946,8 @@ public class MetadataTracker extends ActivatableTracker
                 */
                 this.state = getTrackerState();
 
+                totalUpdatedDocs += retryFailedTransactions();
+
                 Long fromCommitTime = getTxFromCommitTime(txnsFound,
                         state.getLastIndexedTxCommitTime() == 0 ? state.getLastGoodTxCommitTimeInIndex()
                                 : state.getLastIndexedTxCommitTime());
@@ -916,12 +955,11 @@ public class MetadataTracker extends ActivatableTracker
                 // Get transaction list to be indexed
                 if (docRouter instanceof DBIDRangeRouter && txIntervalCommitTimeServiceAvailable)
                 {
-                    transactions = getDBIDRangeTransactions(fromCommitTime, txnsFound);
+                    transactions = getDBIDRangeTransactions(fromCommitTime, txnsFound, state.getTimeToStopIndexing());
                 }
                 else
                 {
-                    transactions = getSomeTransactions(txnsFound, fromCommitTime, timeStep, maxNumberOfTransactions,
-                            state.getTimeToStopIndexing());
+                    transactions = discoverSomeTransactions(txnsFound, fromCommitTime, state.getTimeToStopIndexing());
                 }
 
                 long idTrackerCycle = System.currentTimeMillis();
@@ -956,11 +994,12 @@ public class MetadataTracker extends ActivatableTracker
                 }
 
                 final AtomicInteger counterTransaction = new AtomicInteger();
+                final int txDocsBatchSize = transactionDocsBatchSize.get();
                 Collection<List<Transaction>> txBatches = transactions.getTransactions().stream()
                         .peek(txnsFound::add)
                         .filter(this::isTransactionIndexed)
                         .collect(Collectors.groupingBy(transaction -> counterTransaction.getAndAdd(
-                                (int) (transaction.getDeletes() + transaction.getUpdates())) / transactionDocsBatchSize))
+                                (int) (transaction.getDeletes() + transaction.getUpdates())) / txDocsBatchSize))
                         .values();
 
                 // Index batches of transactions and the nodes updated or deleted within the transaction
@@ -973,21 +1012,7 @@ public class MetadataTracker extends ActivatableTracker
                     nodeBatches.addAll(buildBatchOfTransactions(batch, idTrackerCycle, idTxBatch));
                 }
                 
-                // Counter used to identify the worker inside the parallel stream processing
-                final AtomicInteger counterBatch = new AtomicInteger(0);
-                long idThread = Thread.currentThread().getId();
-                totalUpdatedDocs += forkJoinPool.submit(() ->
-                        nodeBatches.parallelStream().map(batch -> {
-                            int count = counterBatch.addAndGet(1);
-                            if (LOGGER.isTraceEnabled())
-                            {
-                                LOGGER.trace("{}:{}:{}-[CORE {}] indexing {} nodes ...",
-                                        idThread, idTrackerCycle, count,
-                                        coreName, batch.size());
-                            }
-                            new NodeIndexWorker(batch, infoSrv, idThread, idTrackerCycle, count).run();
-                            return batch.size();
-                        }).reduce(0, Integer::sum)).get();
+                totalUpdatedDocs += indexNodeBatches(nodeBatches, idTrackerCycle);
 
                 for (List<Transaction> batch : txBatches)
                 {
@@ -1018,6 +1043,605 @@ public class MetadataTracker extends ActivatableTracker
         LOGGER.info("{}-[CORE {}] Tracked {} DOCs", Thread.currentThread().getId(), coreName, totalUpdatedDocs);
     }
 
+    /**
+     * Initial build mode: when the commit time range left to track spans more than 32 days per partition, it is
+     * split in partitions of transactions tracked concurrently through the forkJoinPool. Every round discovers
+     * the next page of transactions of each partition in progress and gets their nodes in parallel, then all the
+     * nodes are indexed together. The write lock is released between rounds, so the CommitTracker can commit or
+     * roll back.
+     *
+     * With DB_ID_RANGE sharding the range is narrowed to the commit times of the shard nodes, and partitions
+     * without any transaction are skipped when the repository provides the next transaction commit time.
+     *
+     * The partitions do not move the tracker state on their own: it only moves to the merged watermark, the last
+     * transaction indexed before the first partition still in progress. If the tracker stops before the end of
+     * the build, nothing after a gap is taken as indexed.
+     *
+     * @return false if the tracker state was rolled back during the build
+     * @throws IOException
+     */
+    private boolean trackTransactionPartitions() throws IOException
+    {
+        List<CommitTimePartition<Transaction>> partitions;
+        TrackerState buildState;
+        try
+        {
+            getWriteLock().acquire();
+
+            this.state = getTrackerState();
+            buildState = state;
+
+            long fromCommitTime = state.getLastIndexedTxCommitTime() == 0 ? state.getLastGoodTxCommitTimeInIndex()
+                    : state.getLastIndexedTxCommitTime();
+            long toCommitTime = state.getTimeToStopIndexing();
+            if (docRouter instanceof DBIDRangeRouter && txIntervalCommitTimeServiceAvailable)
+            {
+                DBIDRangeRouter dbIdRangeRouter = (DBIDRangeRouter) docRouter;
+                Pair<Long, Long> commitTimes = client.getTxIntervalCommitTime(coreName,
+                        dbIdRangeRouter.getStartRange(), dbIdRangeRouter.getEndRange());
+                if (commitTimes.getFirst() == -1)
+                {
+                    // No nodes of the shard range in the repository yet
+                    return true;
+                }
+                fromCommitTime = Math.max(fromCommitTime, commitTimes.getFirst());
+                toCommitTime = Math.min(toCommitTime, commitTimes.getSecond() + 1);
+            }
+            if (toCommitTime - fromCommitTime <= initialBuildPartitions * TIME_STEP_32_DAYS_IN_MS)
+            {
+                return true;
+            }
+
+            partitions = CommitTimePartition.split(fromCommitTime, toCommitTime, initialBuildPartitions,
+                    Transaction::getCommitTimeMs, Transaction::getId, METADATA_TRANSACTIONS_FOUND_QUEUE_SIZE);
+            if (nextTxCommitTimeServiceAvailable)
+            {
+                for (CommitTimePartition<Transaction> partition : partitions)
+                {
+                    partition.skipTo(client.getNextTxCommitTime(coreName, partition.getStartTime()));
+                }
+            }
+        }
+        catch (Exception e)
+        {
+            throw new IOException(e);
+        }
+        finally
+        {
+            getWriteLock().release();
+        }
+
+        LOGGER.info("{}-[CORE {}] Starting metadata tracker execution in {} commit time partitions: {}",
+                Thread.currentThread().getId(), coreName, partitions.size(), partitions);
+
+        long startElapsed = System.nanoTime();
+        int totalUpdatedDocs = 0;
+        while (partitions.stream().anyMatch(partition -> !partition.isDone()))
+        {
+            try
+            {
+                getWriteLock().acquire();
+
+                this.state = getTrackerState();
+                if (state != buildState)
+                {
+                    LOGGER.info("{}-[CORE {}] Tracker state rolled back, stopping the partitioned build at {}",
+                            Thread.currentThread().getId(), coreName, CommitTimePartition.watermark(partitions));
+                    return false;
+                }
+
+                long idTrackerCycle = System.currentTimeMillis();
+                List<ForkJoinTask<PartitionPage>> fetches = partitions.stream()
+                        .filter(partition -> !partition.isDone())
+                        .map(partition -> forkJoinPool.submit(() -> fetchPartitionPage(partition, idTrackerCycle)))
+                        .collect(Collectors.toList());
+                List<PartitionPage> pages = new ArrayList<>(fetches.size());
+                for (ForkJoinTask<PartitionPage> fetch : fetches)
+                {
+                    pages.add(fetch.get());
+                }
+
+                int updatedDocs = indexNodeBatches(pages.stream()
+                        .flatMap(page -> page.nodeBatches.stream())
+                        .collect(Collectors.toList()), idTrackerCycle);
+
+                // Transactions whose nodes failed are neither indexed nor covered by the watermark
+                Set<Long> notIndexed = new HashSet<>();
+                for (PartitionPage page : pages)
+                {
+                    for (Transaction tx : page.toIndex)
+                    {
+                        if (batchJournalEnabled && !batchJournal.settle(tx))
+                        {
+                            notIndexed.add(tx.getId());
+                        }
+                    }
+                    page.partition.indexed(page.found.stream()
+                            .filter(tx -> !notIndexed.contains(tx.getId()))
+                            .collect(Collectors.toList()));
+                }
+
+                Transaction watermark = CommitTimePartition.watermark(partitions);
+                boolean watermarkMoved = watermark != null
+                        && (watermark.getCommitTimeMs() > state.getLastIndexedTxCommitTime()
+                        || watermark.getCommitTimeMs() == state.getLastIndexedTxCommitTime()
+                        && watermark.getId() > state.getLastIndexedTxId());
+                boolean watermarkIndexed = false;
+                for (PartitionPage page : pages)
+                {
+                    for (Transaction tx : page.toIndex)
+                    {
+                        if (!notIndexed.contains(tx.getId()))
+                        {
+                            boolean isWatermark = watermarkMoved && tx.equals(watermark);
+                            infoSrv.indexTransaction(tx, true, isWatermark && canMoveStateTo(tx));
+                            watermarkIndexed |= isWatermark;
+                            trackerStats.addTxDocs((int) (tx.getDeletes() + tx.getUpdates()));
+                        }
+                    }
+                    setLastTxCommitTimeAndTxIdInTrackerState(page.transactions);
+                }
+
+                if (watermarkMoved)
+                {
+                    if (!watermarkIndexed)
+                    {
+                        // Already in the index before the build, only the tracker state document is behind
+                        infoSrv.indexTransaction(watermark, true, canMoveStateTo(watermark));
+                    }
+                    state.setLastIndexedTxCommitTime(watermark.getCommitTimeMs());
+                    state.setLastIndexedTxId(watermark.getId());
+                }
+
+                LOGGER.info("{}:{}-[CORE {}] Found {} transactions in {} commit time partitions, indexed up to {}",
+                        Thread.currentThread().getId(), idTrackerCycle, coreName,
+                        pages.stream().mapToInt(page -> page.found.size()).sum(), pages.size(), watermark);
+
+                long endElapsed = System.nanoTime();
+                trackerStats.addElapsedNodeTime(updatedDocs, endElapsed - startElapsed);
+                startElapsed = endElapsed;
+                totalUpdatedDocs += updatedDocs;
+            }
+            catch (Exception e)
+            {
+                throw new IOException(e);
+            }
+            finally
+            {
+                getWriteLock().release();
+            }
+        }
+
+        LOGGER.info("{}-[CORE {}] Tracked {} DOCs in {} commit time partitions", Thread.currentThread().getId(),
+                coreName, totalUpdatedDocs, partitions.size());
+        return true;
+    }
+
+    /**
+     * Discovers the next page of transactions of a partition and gets the nodes of the ones not indexed yet.
+     *
+     * @param partition Partition of the initial build in progress
+     * @param idTrackerCycle Id of the Tracker Cycle being executed
+     * @return the transactions and nodes of the partition to be indexed
+     */
+    private PartitionPage fetchPartitionPage(CommitTimePartition<Transaction> partition, long idTrackerCycle)
+            throws AuthenticationException, IOException, JSONException, EncoderException, NoSuchMethodException,
+            ExecutionException, InterruptedException
+    {
+        Transactions transactions = discoverSomeTransactions(partition.getFound(), partition.getNextCommitTime(),
+                partition.getEndTime());
+        List<Transaction> found = partition.accept(transactions.getTransactions());
+        List<Transaction> toIndex = found.stream()
+                .filter(this::isTransactionIndexed)
+                .collect(Collectors.toList());
+
+        final AtomicInteger counterTransaction = new AtomicInteger();
+        final int txDocsBatchSize = transactionDocsBatchSize.get();
+        Collection<List<Transaction>> txBatches = toIndex.stream()
+                .collect(Collectors.groupingBy(transaction -> counterTransaction.getAndAdd(
+                        (int) (transaction.getDeletes() + transaction.getUpdates())) / txDocsBatchSize))
+                .values();
+
+        PartitionPage page = new PartitionPage(partition, transactions, found, toIndex);
+        for (List<Transaction> batch : txBatches)
+        {
+            long idTxBatch = System.currentTimeMillis();
+            page.nodeBatches.addAll(buildBatchOfTransactions(batch, idTrackerCycle, idTxBatch));
+        }
+        return page;
+    }
+
+    /**
+     * Transactions of a partition found in a round of the initial build, with the nodes to be indexed.
+     */
+    private static class PartitionPage
+    {
+        final CommitTimePartition<Transaction> partition;
+        final Transactions transactions;
+        final List<Transaction> found;
+        final List<Transaction> toIndex;
+        final List<List<Node>> nodeBatches = new ArrayList<>();
+
+        PartitionPage(CommitTimePartition<Transaction> partition, Transactions transactions, List<Transaction> found,
+                    List<Transaction> toIndex)
+        {
+            this.partition = partition;
+            this.transactions = transactions;
+            this.found = found;
+            this.toIndex = toIndex;
+        }
+    }
+
+    /**
+     * Pipelined version of {@link #trackTransactions()}.
+     *
+     * Transaction discovery, node fetching and node indexing run as three stages connected by bounded queues
+     * of "pipelineQueueSize" cycles, so nodes for the next cycle are retrieved from Repository while the current
+     * cycle is being indexed. Indexing and tracker state updates are still performed by the tracker thread,
+     * holding the write lock and in the same order transactions have been discovered.
+     *
+     * When the tracker state is invalidated by a rollback, pending cycles are discarded and tracking is resumed
+     * from the state stored in the index on the next tracker run.
+     *
+     * @throws IOException
+     */
+    protected void trackTransactionsPipelined() throws IOException
+    {
+        long startElapsed = System.nanoTime();
+        int totalUpdatedDocs = 0;
+
+        LOGGER.info("{}-[CORE {}] Starting pipelined metadata tracker execution", Thread.currentThread().getId(), coreName);
+
+        TrackerState pipelineState;
+        long lastIndexedTxCommitTime;
+        long startCommitTime;
+        long timeToStopIndexing;
+        try
+        {
+            getWriteLock().acquire();
+            this.state = getTrackerState();
+            pipelineState = this.state;
+
+            // The discovery stage works on these values only, the tracker state is updated by this thread
+            lastIndexedTxCommitTime = pipelineState.getLastIndexedTxCommitTime();
+            startCommitTime = lastIndexedTxCommitTime == 0 ? pipelineState.getLastGoodTxCommitTimeInIndex()
+                    : lastIndexedTxCommitTime;
+            timeToStopIndexing = pipelineState.getTimeToStopIndexing();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+        finally
+        {
+            getWriteLock().release();
+        }
+
+        BlockingQueue<PipelineCycle> discoveredCycles = new ArrayBlockingQueue<>(pipelineQueueSize);
+        BlockingQueue<PipelineCycle> fetchedCycles = new ArrayBlockingQueue<>(pipelineQueueSize);
+        Future<?> discoverer = getPipelineExecutor().submit(() ->
+                discoverTransactions(startCommitTime, lastIndexedTxCommitTime, timeToStopIndexing, discoveredCycles));
+        Future<?> fetcher = getPipelineExecutor().submit(() -> fetchNodes(discoveredCycles, fetchedCycles));
+
+        try
+        {
+            while (true)
+            {
+                PipelineCycle cycle = fetchedCycles.take();
+                if (cycle.isLast())
+                {
+                    if (cycle.failure != null && this.state == pipelineState)
+                    {
+                        if (cycle.failure instanceof RuntimeException)
+                        {
+                            throw (RuntimeException) cycle.failure;
+                        }
+                        throw new IOException(cycle.failure);
+                    }
+                    break;
+                }
+
+                try
+                {
+                    /*
+                     * This write lock is used to lock out the Commit Tracker. The ensures that the MetaDataTracker will
+                     * not be indexing content while commits or rollbacks are occurring.
+                     */
+                    getWriteLock().acquire();
+
+                    // The tracker state has been invalidated by a rollback (or it is about to be):
+                    // cycles fetched from the previous state are not valid anymore.
+                    if (this.state != pipelineState || getRollback())
+                    {
+                        LOGGER.info("{}-[CORE {}] Tracker state has been invalidated, discarding pending pipeline cycles",
+                                Thread.currentThread().getId(), coreName);
+                        break;
+                    }
+
+                    totalUpdatedDocs += retryFailedTransactions();
+                    totalUpdatedDocs += indexNodeBatches(cycle.nodeBatches, cycle.idTrackerCycle);
+
+                    for (List<Transaction> batch : cycle.txBatches)
+                    {
+                        indexTransactionsAfterWorker(batch);
+                        long endElapsed = System.nanoTime();
+                        trackerStats.addElapsedNodeTime(totalUpdatedDocs, endElapsed - startElapsed);
+                        startElapsed = endElapsed;
+                    }
+
+                    setLastTxCommitTimeAndTxIdInTrackerState(cycle.transactions);
+                }
+                finally
+                {
+                    getWriteLock().release();
+                }
+            }
+        }
+        catch (InterruptedException | ExecutionException | AuthenticationException | JSONException e)
+        {
+            throw new IOException(e);
+        }
+        finally
+        {
+            discoverer.cancel(true);
+            fetcher.cancel(true);
+        }
+
+        LOGGER.info("{}-[CORE {}] Tracked {} DOCs", Thread.currentThread().getId(), coreName, totalUpdatedDocs);
+    }
+
+    /**
+     * Discovery stage of the pipeline: finds the transactions to be indexed and groups them in batches
+     * of "transactionDocsBatchSize" docs. A last cycle is always queued, even on failure, so the following
+     * stages can finish.
+     *
+     * @param startCommitTime Commit time to start discovering transactions from
+     * @param lastIndexedTxCommitTime Commit time of the last transaction indexed when the pipeline was started
+     * @param timeToStopIndexing Commit time after which transactions are not indexed in this run
+     * @param discoveredCycles Output queue
+     */
+    private void discoverTransactions(long startCommitTime, long lastIndexedTxCommitTime, long timeToStopIndexing,
+                BlockingQueue<PipelineCycle> discoveredCycles)
+    {
+        BoundedDeque<Transaction> txnsFound = new BoundedDeque<>(METADATA_TRANSACTIONS_FOUND_QUEUE_SIZE);
+        Throwable failure = null;
+        try
+        {
+            while (true)
+            {
+                checkShutdown();
+
+                Long fromCommitTime = getTxFromCommitTime(txnsFound, startCommitTime);
+
+                Transactions transactions;
+                if (docRouter instanceof DBIDRangeRouter && txIntervalCommitTimeServiceAvailable)
+                {
+                    transactions = getDBIDRangeTransactions(fromCommitTime, txnsFound, timeToStopIndexing);
+                }
+                else
+                {
+                    transactions = discoverSomeTransactions(txnsFound, fromCommitTime, timeToStopIndexing);
+                }
+
+                long idTrackerCycle = System.currentTimeMillis();
+                if (transactions.getTransactions().isEmpty())
+                {
+                    LOGGER.info("{}:{}-[CORE {}] No transaction found after lastTxCommitTime {}",
+                            Thread.currentThread().getId(), idTrackerCycle, coreName, fromCommitTime);
+                    break;
+                }
+
+                LOGGER.info("{}:{}-[CORE {}] Found {} transactions after lastTxCommitTime {}, transactions from {} to {}",
+                        Thread.currentThread().getId(),
+                        idTrackerCycle,
+                        coreName,
+                        transactions.getTransactions().size(),
+                        fromCommitTime,
+                        transactions.getTransactions().get(0),
+                        transactions.getTransactions().get(transactions.getTransactions().size() - 1));
+
+                // Make sure we do not go ahead of where we started - we will check the holes here
+                // correctly next time
+                if (transactions.getTransactions()
+                        .stream()
+                        .anyMatch(transaction -> transaction.getCommitTimeMs() > timeToStopIndexing))
+                {
+                    break;
+                }
+
+                final AtomicInteger counterTransaction = new AtomicInteger();
+                final int txDocsBatchSize = transactionDocsBatchSize.get();
+                Collection<List<Transaction>> txBatches = transactions.getTransactions().stream()
+                        .peek(txnsFound::add)
+                        .filter(transaction -> isTransactionIndexed(transaction, lastIndexedTxCommitTime))
+                        .collect(Collectors.groupingBy(transaction -> counterTransaction.getAndAdd(
+                                (int) (transaction.getDeletes() + transaction.getUpdates())) / txDocsBatchSize))
+                        .values();
+
+                discoveredCycles.put(new PipelineCycle(transactions, txBatches, idTrackerCycle));
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        catch (Throwable t)
+        {
+            failure = t;
+        }
+        queueLastCycle(discoveredCycles, failure);
+    }
+
+    /**
+     * Fetch stage of the pipeline: gets the nodes for every discovered cycle and splits them in batches
+     * of "nodeBatchSize" nodes.
+     *
+     * @param discoveredCycles Input queue
+     * @param fetchedCycles Output queue
+     */
+    private void fetchNodes(BlockingQueue<PipelineCycle> discoveredCycles, BlockingQueue<PipelineCycle> fetchedCycles)
+    {
+        Throwable failure = null;
+        try
+        {
+            PipelineCycle cycle;
+            while (!(cycle = discoveredCycles.take()).isLast())
+            {
+                checkShutdown();
+                for (List<Transaction> batch : cycle.txBatches)
+                {
+                    long idTxBatch = System.currentTimeMillis();
+                    cycle.nodeBatches.addAll(buildBatchOfTransactions(batch, cycle.idTrackerCycle, idTxBatch));
+                }
+                fetchedCycles.put(cycle);
+            }
+            failure = cycle.failure;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        catch (Throwable t)
+        {
+            failure = t;
+        }
+        queueLastCycle(fetchedCycles, failure);
+    }
+
+    private void queueLastCycle(BlockingQueue<PipelineCycle> cycles, Throwable failure)
+    {
+        try
+        {
+            cycles.put(PipelineCycle.last(failure));
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized ExecutorService getPipelineExecutor()
+    {
+        if (pipelineExecutor == null)
+        {
+            TraceableThreadFactory threadFactory = new TraceableThreadFactory();
+            threadFactory.setThreadDaemon(true);
+            threadFactory.setNamePrefix("MetadataTrackerPipeline-" + coreName + "-");
+            // One thread for the discovery stage and another one for the fetch stage
+            pipelineExecutor = Executors.newFixedThreadPool(2, threadFactory);
+        }
+        return pipelineExecutor;
+    }
+
+    /**
+     * Index batches of nodes in parallel using the tracker ForkJoinPool.
+     *
+     * @param nodeBatches List of Nodes to be indexed splitted by nodeBatchSize count
+     * @param idTrackerCycle Id of the Tracker Cycle being executed
+     * @return Number of nodes indexed
+     */
+    private int indexNodeBatches(List<List<Node>> nodeBatches, long idTrackerCycle)
+            throws ExecutionException, InterruptedException
+    {
+        // Counter used to identify the worker inside the parallel stream processing
+        final AtomicInteger counterBatch = new AtomicInteger(0);
+        long idThread = Thread.currentThread().getId();
+        return forkJoinPool.submit(() ->
+                nodeBatches.parallelStream().map(batch -> {
+                    int count = counterBatch.addAndGet(1);
+                    if (LOGGER.isTraceEnabled())
+                    {
+                        LOGGER.trace("{}:{}:{}-[CORE {}] indexing {} nodes ...",
+                                idThread, idTrackerCycle, count,
+                                coreName, batch.size());
+                    }
+                    long start = System.nanoTime();
+                    new NodeIndexWorker(batch, infoSrv, idThread, idTrackerCycle, count).run();
+                    nodeBatchSize.record(batch.size(), System.nanoTime() - start);
+                    return batch.size();
+                }).reduce(0, Integer::sum)).get();
+    }
+
+    /**
+     * Indexes again the transactions whose batch failed in a previous cycle, when the batch journal is enabled.
+     * Transactions failing again are queued for another retry or quarantined by the journal.
+     *
+     * @return Number of nodes indexed
+     */
+    private int retryFailedTransactions()
+            throws AuthenticationException, IOException, JSONException, ExecutionException, InterruptedException
+    {
+        if (!batchJournalEnabled)
+        {
+            return 0;
+        }
+
+        List<Transaction> retries = batchJournal.takeRetries();
+        if (retries.isEmpty())
+        {
+            return 0;
+        }
+
+        long idTrackerCycle = System.currentTimeMillis();
+        LOGGER.info("{}:{}-[CORE {}] Retrying {} transactions whose batch failed: {}",
+                Thread.currentThread().getId(), idTrackerCycle, coreName, retries.size(),
+                retries.stream().map(Transaction::getId).collect(Collectors.toList()));
+
+        int updatedDocs;
+        try
+        {
+            updatedDocs = indexNodeBatches(buildBatchOfTransactions(retries, idTrackerCycle, idTrackerCycle, false), idTrackerCycle);
+        }
+        catch (Exception e)
+        {
+            // Keep the transactions in the journal, the cycle is rolled back
+            retries.forEach(tx -> batchJournal.failed(tx.getId()));
+            retries.forEach(batchJournal::settle);
+            throw e;
+        }
+        indexTransactionsAfterWorker(retries);
+        return updatedDocs;
+    }
+
+    /**
+     * Unit of work passed between the stages of the pipelined tracking.
+     */
+    private static class PipelineCycle
+    {
+        final Transactions transactions;
+        final Collection<List<Transaction>> txBatches;
+        final List<List<Node>> nodeBatches = new ArrayList<>();
+        final long idTrackerCycle;
+        final Throwable failure;
+
+        PipelineCycle(Transactions transactions, Collection<List<Transaction>> txBatches, long idTrackerCycle)
+        {
+            this(transactions, txBatches, idTrackerCycle, null);
+        }
+
+        private PipelineCycle(Transactions transactions, Collection<List<Transaction>> txBatches, long idTrackerCycle,
+                    Throwable failure)
+        {
+            this.transactions = transactions;
+            this.txBatches = txBatches;
+            this.idTrackerCycle = idTrackerCycle;
+            this.failure = failure;
+        }
+
+        static PipelineCycle last(Throwable failure)
+        {
+            return new PipelineCycle(null, Collections.emptyList(), -1, failure);
+        }
+
+        boolean isLast()
+        {
+            return transactions == null;
+        }
+    }
+
     /**
      * Update latest transaction indexed in MetadataTracker state
      * @param transactions List of transactions indexed
@@ -1047,7 +1671,13 @@ public class MetadataTracker extends ActivatableTracker
     {
         for (Transaction tx : txsIndexed)
         {
-            infoSrv.indexTransaction(tx, true);
+            // Nodes of the transaction failed: it is not in the index yet
+            if (batchJournalEnabled && !batchJournal.settle(tx))
+            {
+                continue;
+            }
+
+            infoSrv.indexTransaction(tx, true, canMoveStateTo(tx));
             // Transactions are ordered by commit time and tie-broken by tx id
             if (tx.getCommitTimeMs() > state.getLastIndexedTxCommitTime()
                     || tx.getCommitTimeMs() == state.getLastIndexedTxCommitTime()
@@ -1077,7 +1707,19 @@ public class MetadataTracker extends ActivatableTracker
     private List<List<Node>> buildBatchOfTransactions(List<Transaction> txBatch, long idTrackerCycle, long idTxBatch)
             throws AuthenticationException, IOException, JSONException, ExecutionException, InterruptedException 
     {
-        
+        return buildBatchOfTransactions(txBatch, idTrackerCycle, idTxBatch, true);
+    }
+
+    /**
+     * Build a batch of transactions, recording its timing in the transactionDocsBatchSize when recordBatchSize is true.
+     * Maintenance and retry batches are not sized by the transactionDocsBatchSize, so they are not recorded.
+     */
+    private List<List<Node>> buildBatchOfTransactions(List<Transaction> txBatch, long idTrackerCycle, long idTxBatch,
+                boolean recordBatchSize)
+            throws AuthenticationException, IOException, JSONException, ExecutionException, InterruptedException
+    {
+        long start = System.nanoTime();
+
         // Skip transactions without modifications (updates, deletes)
         ArrayList<Long> txIds = new ArrayList<>();
         for (Transaction tx : txBatch)
@@ -1112,8 +1754,15 @@ public class MetadataTracker extends ActivatableTracker
                     coreName, nodes.size(), txIds);
         }
 
+        if (recordBatchSize)
+        {
+            transactionDocsBatchSize.record(
+                    (int) txBatch.stream().mapToLong(tx -> tx.getDeletes() + tx.getUpdates()).sum(),
+                    System.nanoTime() - start);
+        }
+
         // Group the nodes in batches of nodeBatchSize (or less)
-        return Lists.partition(nodes, nodeBatchSize);
+        return Lists.partition(nodes, nodeBatchSize.get());
 
     }
 
@@ -1160,7 +1809,15 @@ public class MetadataTracker extends ActivatableTracker
         @Override
         protected void onFail(Throwable failCausedBy)
         {
-            setRollback(true, failCausedBy);
+            if (batchJournalEnabled)
+            {
+                // Only the transactions of this batch are indexed again, instead of all the work since the last commit
+                nodes.stream().mapToLong(Node::getTxnId).distinct().forEach(batchJournal::failed);
+            }
+            else
+            {
+                setRollback(true, failCausedBy);
+            }
         }
         
         private List<Node> filterNodes(List<Node> nodes)
@@ -1297,7 +1954,7 @@ public class MetadataTracker extends ActivatableTracker
         long endTime = System.currentTimeMillis() + infoSrv.getHoleRetention();
         DO: do
         {
-            transactions = getSomeTransactions(txnsFound, lastTxCommitTime, timeStep, maxNumberOfTransactions, endTime);
+            transactions = getSomeTransactions(txnsFound, lastTxCommitTime, timeStep, maxNumberOfTransactions.get(), endTime);
             for (Transaction info : transactions.getTransactions())
             {
                 // include
@@ -1336,47 +1993,88 @@ public class MetadataTracker extends ActivatableTracker
         return this.infoSrv.reportIndexTransactions(minTxId, txIdsInDb, maxTxId);
     }
 
+    /**
+     * @throws IllegalStateException if the queue of transactions to be purged is full
+     */
     public void addTransactionToPurge(Long txId)
     {
-        this.transactionsToPurge.offer(txId);
+        this.transactionsToPurge.add(txId);
     }
 
+    /**
+     * @throws IllegalStateException if the queue of nodes to be purged is full
+     */
     public void addNodeToPurge(Long nodeId)
     {
-        this.nodesToPurge.offer(nodeId);
+        this.nodesToPurge.add(nodeId);
     }
 
+    /**
+     * @throws IllegalStateException if the queue of transactions to be re-indexed is full
+     */
     public void addTransactionToReindex(Long txId)
     {
-        this.transactionsToReindex.offer(txId);
+        this.transactionsToReindex.add(txId);
+        if (batchJournalEnabled)
+        {
+            batchJournal.release(txId);
+        }
     }
 
+    /**
+     * The tracker state document is only moved to a transaction when the batch journal holds no transaction
+     * committed before it, which would not be found again after a restart otherwise.
+     */
+    private boolean canMoveStateTo(Transaction tx)
+    {
+        return !batchJournalEnabled || !batchJournal.hasPendingBefore(tx, COMMIT_ORDER);
+    }
+
+    public boolean isBatchJournalEnabled()
+    {
+        return batchJournalEnabled;
+    }
+
+    public BatchJournal<Transaction> getBatchJournal()
+    {
+        return batchJournal;
+    }
+
+    /**
+     * @throws IllegalStateException if the queue of nodes to be re-indexed is full
+     */
     public void addNodeToReindex(Long nodeId)
     {
-        nodesToReindex.offer(nodeId);
+        nodesToReindex.add(nodeId);
     }
 
+    /**
+     * @throws IllegalStateException if the queue of transactions to be indexed is full
+     */
     public void addTransactionToIndex(Long txId)
     {
-        transactionsToIndex.offer(txId);
+        transactionsToIndex.add(txId);
     }
 
     @Override
     protected void clearScheduledMaintenanceWork()
     {
-        logAndClear(transactionsToIndex, "Transactions to be indexed");
-        logAndClear(nodesToIndex, "Nodes to be indexed");
+        logAndClear(transactionsToIndex);
+        logAndClear(nodesToIndex);
 
-        logAndClear(transactionsToReindex, "Transactions to be re-indexed");
-        logAndClear(nodesToReindex, "Nodes to be re-indexed");
+        logAndClear(transactionsToReindex);
+        logAndClear(nodesToReindex);
 
-        logAndClear(transactionsToPurge, "Transactions to be purged");
-        logAndClear(nodesToPurge, "Nodes to be purged");
+        logAndClear(transactionsToPurge);
+        logAndClear(nodesToPurge);
     }
 
+    /**
+     * @throws IllegalStateException if the queue of nodes to be indexed is full
+     */
     public void addNodeToIndex(Long nodeId)
     {
-        this.nodesToIndex.offer(nodeId);
+        this.nodesToIndex.add(nodeId);
     }
 
     public void invalidateState() {
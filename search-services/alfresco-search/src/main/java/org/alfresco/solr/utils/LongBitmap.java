@@ -0,0 +1,159 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.utils;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * Concurrent bitmap of long ids.
+ *
+ * As in roaring bitmaps, ids are split by their high bits in chunks of 65536 ids, each one backed by a bit set
+ * allocated when the first id of its range is added. Additions, removals and membership checks are lock free
+ * and O(1), and ids are never boxed: the footprint is 8KB for each chunk in use, which suits dense sequences
+ * such as transaction and ACL change set ids.
+ */
+public class LongBitmap implements Accountable
+{
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+    private static final int WORDS_PER_CHUNK = (1 << CHUNK_SHIFT) >>> 6;
+
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(LongBitmap.class);
+    private static final long CHUNK_RAM_BYTES_USED =
+            RamUsageEstimator.shallowSizeOfInstance(AtomicLongArray.class)
+                    + RamUsageEstimator.sizeOf(new long[WORDS_PER_CHUNK])
+                    // map entry and boxed key
+                    + 2 * RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + 3 * RamUsageEstimator.NUM_BYTES_OBJECT_REF + Long.BYTES;
+
+    private final ConcurrentHashMap<Long, AtomicLongArray> chunks = new ConcurrentHashMap<>();
+
+    /**
+     * @return true if the id has been added, false if it was already in the bitmap.
+     */
+    public boolean add(long id)
+    {
+        AtomicLongArray chunk = chunks.computeIfAbsent(id >>> CHUNK_SHIFT, key -> new AtomicLongArray(WORDS_PER_CHUNK));
+        int bit = (int) id & CHUNK_MASK;
+        int word = bit >>> 6;
+        long mask = 1L << bit;
+        long current;
+        do
+        {
+            current = chunk.get(word);
+            if ((current & mask) != 0)
+            {
+                return false;
+            }
+        }
+        while (!chunk.compareAndSet(word, current, current | mask));
+        return true;
+    }
+
+    /**
+     * Adds all the ids of the given bitmap.
+     */
+    public void addAll(LongBitmap other)
+    {
+        other.chunks.forEach((key, otherChunk) -> {
+            AtomicLongArray chunk = chunks.computeIfAbsent(key, k -> new AtomicLongArray(WORDS_PER_CHUNK));
+            for (int word = 0; word < WORDS_PER_CHUNK; word++)
+            {
+                long bits = otherChunk.get(word);
+                if (bits != 0)
+                {
+                    chunk.accumulateAndGet(word, bits, (a, b) -> a | b);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return true if the id has been removed, false if it wasn't in the bitmap.
+     */
+    public boolean remove(long id)
+    {
+        AtomicLongArray chunk = chunks.get(id >>> CHUNK_SHIFT);
+        if (chunk == null)
+        {
+            return false;
+        }
+        int bit = (int) id & CHUNK_MASK;
+        long mask = 1L << bit;
+        return (chunk.getAndAccumulate(bit >>> 6, mask, (a, b) -> a & ~b) & mask) != 0;
+    }
+
+    public boolean contains(long id)
+    {
+        AtomicLongArray chunk = chunks.get(id >>> CHUNK_SHIFT);
+        if (chunk == null)
+        {
+            return false;
+        }
+        int bit = (int) id & CHUNK_MASK;
+        return (chunk.get(bit >>> 6) & (1L << bit)) != 0;
+    }
+
+    /**
+     * Counts the ids in the bitmap. This is a linear scan of the chunks, meant for reporting.
+     */
+    public long cardinality()
+    {
+        long cardinality = 0;
+        for (AtomicLongArray chunk : chunks.values())
+        {
+            for (int word = 0; word < WORDS_PER_CHUNK; word++)
+            {
+                cardinality += Long.bitCount(chunk.get(word));
+            }
+        }
+        return cardinality;
+    }
+
+    @Override
+    public long ramBytesUsed()
+    {
+        return BASE_RAM_BYTES_USED + chunks.size() * CHUNK_RAM_BYTES_USED;
+    }
+
+    @Override
+    public Collection<Accountable> getChildResources()
+    {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "LongBitmap(chunks=" + chunks.size() + ")";
+    }
+}
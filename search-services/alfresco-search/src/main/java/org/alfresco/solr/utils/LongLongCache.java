@@ -0,0 +1,302 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.utils;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import com.carrotsearch.hppc.BitMixer;
+import com.carrotsearch.hppc.LongIntHashMap;
+import com.carrotsearch.hppc.predicates.LongLongPredicate;
+
+/**
+ * Size bounded cache of long keys and long values.
+ *
+ * The cache is split in segments, each one locked on its own, so concurrent callers rarely wait for each other.
+ * Entries live in preallocated arrays and are never boxed; when a segment is full the CLOCK algorithm evicts
+ * the first entry which has not been looked up since the hand last passed over it, an approximation of LRU which
+ * does not reorder anything on reads. Clearing drops the entries without releasing the arrays.
+ */
+public class LongLongCache
+{
+    private static final int SEGMENTS = 16;
+
+    private static final byte EMPTY = 0;
+    private static final byte PRESENT = 1;
+    private static final byte REFERENCED = 2;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final int maxSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public LongLongCache(int maxSize)
+    {
+        if (maxSize < SEGMENTS)
+        {
+            throw new IllegalArgumentException("The cache size must be at least " + SEGMENTS + ", was " + maxSize);
+        }
+        this.maxSize = maxSize;
+        int segmentSize = (maxSize + SEGMENTS - 1) / SEGMENTS;
+        for (int i = 0; i < SEGMENTS; i++)
+        {
+            segments[i] = new Segment(segmentSize);
+        }
+    }
+
+    /**
+     * Looks the key up, counting a hit or a miss.
+     */
+    public boolean containsKey(long key)
+    {
+        return segment(key).containsKey(key);
+    }
+
+    /**
+     * Looks the key up, counting a hit or a miss.
+     *
+     * @return the value of the key, or defaultValue if it is not in the cache.
+     */
+    public long get(long key, long defaultValue)
+    {
+        return segment(key).get(key, defaultValue);
+    }
+
+    public void put(long key, long value)
+    {
+        segment(key).put(key, value);
+    }
+
+    /**
+     * @return true if the key was in the cache.
+     */
+    public boolean remove(long key)
+    {
+        return segment(key).remove(key);
+    }
+
+    /**
+     * Removes the entries matching the predicate, one segment at a time.
+     *
+     * @return the number of removed entries.
+     */
+    public int removeIf(LongLongPredicate predicate)
+    {
+        int removed = 0;
+        for (Segment segment : segments)
+        {
+            removed += segment.removeIf(predicate);
+        }
+        return removed;
+    }
+
+    public void clear()
+    {
+        for (Segment segment : segments)
+        {
+            segment.clear();
+        }
+    }
+
+    public int size()
+    {
+        int size = 0;
+        for (Segment segment : segments)
+        {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public int getMaxSize()
+    {
+        return maxSize;
+    }
+
+    public long getHits()
+    {
+        return hits.sum();
+    }
+
+    public long getMisses()
+    {
+        return misses.sum();
+    }
+
+    public long getEvictions()
+    {
+        return evictions.sum();
+    }
+
+    public float getHitRatio()
+    {
+        long hitCount = getHits();
+        long lookups = hitCount + getMisses();
+        return lookups == 0 ? 0 : (float) hitCount / lookups;
+    }
+
+    private Segment segment(long key)
+    {
+        return segments[(int) (BitMixer.mix64(key) >>> 60)];
+    }
+
+    private class Segment
+    {
+        // Slot of each key in the arrays below
+        private final LongIntHashMap slots;
+        private final long[] keys;
+        private final long[] values;
+        private final byte[] states;
+
+        // Slots released by removals, reused before the unused ones
+        private final int[] freeSlots;
+        private int freeCount;
+
+        // Slots in [0, used) have been handed out at least once since the last clear
+        private int used;
+        private int hand;
+
+        Segment(int capacity)
+        {
+            slots = new LongIntHashMap(capacity);
+            keys = new long[capacity];
+            values = new long[capacity];
+            states = new byte[capacity];
+            freeSlots = new int[capacity];
+        }
+
+        synchronized boolean containsKey(long key)
+        {
+            return lookup(key) != -1;
+        }
+
+        synchronized long get(long key, long defaultValue)
+        {
+            int slot = lookup(key);
+            return slot == -1 ? defaultValue : values[slot];
+        }
+
+        synchronized void put(long key, long value)
+        {
+            int index = slots.indexOf(key);
+            if (slots.indexExists(index))
+            {
+                values[slots.indexGet(index)] = value;
+                return;
+            }
+
+            int slot = freeCount > 0 ? freeSlots[--freeCount] : used < keys.length ? used++ : evict();
+            keys[slot] = key;
+            values[slot] = value;
+            states[slot] = PRESENT;
+            slots.put(key, slot);
+        }
+
+        synchronized boolean remove(long key)
+        {
+            int index = slots.indexOf(key);
+            if (!slots.indexExists(index))
+            {
+                return false;
+            }
+            release(slots.indexGet(index));
+            return true;
+        }
+
+        synchronized int removeIf(LongLongPredicate predicate)
+        {
+            int removed = 0;
+            for (int slot = 0; slot < used; slot++)
+            {
+                if (states[slot] != EMPTY && predicate.apply(keys[slot], values[slot]))
+                {
+                    release(slot);
+                    removed++;
+                }
+            }
+            return removed;
+        }
+
+        synchronized void clear()
+        {
+            slots.clear();
+            used = 0;
+            freeCount = 0;
+            hand = 0;
+        }
+
+        synchronized int size()
+        {
+            return slots.size();
+        }
+
+        private int lookup(long key)
+        {
+            int index = slots.indexOf(key);
+            if (!slots.indexExists(index))
+            {
+                misses.increment();
+                return -1;
+            }
+            hits.increment();
+            int slot = slots.indexGet(index);
+            states[slot] = REFERENCED;
+            return slot;
+        }
+
+        private void release(int slot)
+        {
+            slots.remove(keys[slot]);
+            states[slot] = EMPTY;
+            freeSlots[freeCount++] = slot;
+        }
+
+        /**
+         * Called when every slot is taken: gives a second chance to the referenced entries and frees the first
+         * one which has not been referenced.
+         */
+        private int evict()
+        {
+            while (true)
+            {
+                int slot = hand;
+                hand = (hand + 1) % keys.length;
+                if (states[slot] == REFERENCED)
+                {
+                    states[slot] = PRESENT;
+                }
+                else
+                {
+                    slots.remove(keys[slot]);
+                    evictions.increment();
+                    return slot;
+                }
+            }
+        }
+    }
+}
@@ -427,6 +427,33 @@ public class AlfrescoCoreAdminHandlerTest
         assertEquals(13, transactionCount.get());
     }
 
+    @Test
+    public void manageTransactionsToBeFixed_shouldStopSchedulingWhenTheTrackerQueueIsFull()
+    {
+        AtomicInteger limit = new AtomicInteger(10);
+        AtomicInteger transactionCount = new AtomicInteger();
+
+        IOpenBitSet transactions = new SolrOpenBitSetAdapter();
+        range(1, 7).forEach(transactions::set);
+
+        Consumer<Long> boundedScheduler = tx -> {
+            if (transactionCount.incrementAndGet() > 3)
+            {
+                throw new IllegalStateException("Transactions to be re-indexed queue is full");
+            }
+        };
+        NamedList<Object> scheduled = admin.manageTransactionsToBeFixed(transactions, tx -> 0, boundedScheduler, limit);
+
+        // Only the transactions accepted by the queue are reported, and no other transaction set is processed
+        assertEquals(3, scheduled.size());
+        assertEquals(0, limit.get());
+
+        IOpenBitSet otherTransactions = new SolrOpenBitSetAdapter();
+        range(10, 12).forEach(otherTransactions::set);
+        assertEquals(0, admin.manageTransactionsToBeFixed(otherTransactions, tx -> 0, boundedScheduler, limit).size());
+        assertEquals(4, transactionCount.get());
+    }
+
     @Test
     public void noAclTransactionToReindex_shouldReturnAnEmptyResponse()
     {
@@ -0,0 +1,115 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr;
+
+import static org.alfresco.repo.search.adaptor.QueryConstants.FIELD_ACLID;
+import static org.alfresco.repo.search.adaptor.QueryConstants.FIELD_DBID;
+import static org.alfresco.repo.search.adaptor.QueryConstants.FIELD_INTXID;
+
+import org.apache.solr.SolrTestCaseJ4;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks the deletes by id sets of {@link SolrInformationServer} against a real index.
+ */
+@SolrTestCaseJ4.SuppressSSL
+public class SolrInformationServerDeleteIT extends AbstractAlfrescoSolrIT
+{
+    private static SolrInformationServer informationServer;
+
+    @BeforeClass
+    public static void beforeClass() throws Exception
+    {
+        initAlfrescoCore("schema.xml");
+        admin = (AlfrescoCoreAdminHandler) getCore().getCoreContainer().getMultiCoreHandler();
+        informationServer = (SolrInformationServer) admin.getInformationServers().get(getCore().getName());
+    }
+
+    /**
+     * Six node docs, two per transaction, spread over three ACLs.
+     */
+    @Before
+    public void indexNodes()
+    {
+        clearIndex();
+        long[] txIds = {10, 10, 20, 20, 30, 30};
+        long[] aclIds = {100, 200, 100, 200, 100, 300};
+        for (int i = 0; i < txIds.length; i++)
+        {
+            long dbId = i + 1;
+            assertU(adoc("id", "deleteByIds-" + dbId,
+                    "_version_", "0",
+                    FIELD_DBID, String.valueOf(dbId),
+                    FIELD_INTXID, String.valueOf(txIds[i]),
+                    FIELD_ACLID, String.valueOf(aclIds[i])));
+        }
+        assertU(commit());
+        assertNodes(1, 2, 3, 4, 5, 6);
+    }
+
+    @Test
+    public void deleteByIds_shouldDeleteTheDocsOfEveryId() throws Exception
+    {
+        informationServer.deleteByNodeIds(new long[] {1, 3});
+        assertU(commit());
+        assertNodes(2, 4, 5, 6);
+
+        // Ids without docs are ignored
+        informationServer.deleteByTransactionIds(new long[] {20, 99});
+        assertU(commit());
+        assertNodes(2, 5, 6);
+
+        informationServer.deleteByAclIds(new long[] {300, 200});
+        assertU(commit());
+        assertNodes(5);
+
+        informationServer.deleteByNodeId(5L);
+        assertU(commit());
+        assertNodes();
+    }
+
+    @Test
+    public void deleteByIds_shouldKeepTheDocsWhenThereIsNoId() throws Exception
+    {
+        informationServer.deleteByNodeIds(new long[0]);
+        informationServer.deleteByTransactionIds(new long[0]);
+        informationServer.deleteByAclIds(new long[0]);
+        assertU(commit());
+        assertNodes(1, 2, 3, 4, 5, 6);
+    }
+
+    private static void assertNodes(long... dbIds)
+    {
+        assertQ(req("q", FIELD_DBID + ":[1 TO 6]"), "*[count(//doc)=" + dbIds.length + "]");
+        for (long dbId : dbIds)
+        {
+            assertQ(req("q", FIELD_DBID + ":" + dbId), "*[count(//doc)=1]");
+        }
+    }
+}
@@ -52,27 +52,42 @@ import static org.alfresco.solr.SolrInformationServer.UNIT_OF_TIME_MONTH_FIELD_S
 import static org.alfresco.solr.SolrInformationServer.UNIT_OF_TIME_QUARTER_FIELD_SUFFIX;
 import static org.alfresco.solr.SolrInformationServer.UNIT_OF_TIME_SECOND_FIELD_SUFFIX;
 import static org.alfresco.solr.SolrInformationServer.UNIT_OF_TIME_YEAR_FIELD_SUFFIX;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 import org.alfresco.repo.search.adaptor.QueryConstants;
 import org.alfresco.service.cmr.dictionary.DataTypeDefinition;
 import org.alfresco.service.cmr.dictionary.PropertyDefinition;
+import org.alfresco.service.cmr.repository.NodeRef;
 import org.alfresco.solr.client.NodeMetaData;
+import org.alfresco.solr.client.NodeMetaDataParameters;
 import org.alfresco.solr.client.SOLRAPIClient;
+import org.alfresco.solr.client.SOLRAPIClient.GetTextContentResponse;
+import org.alfresco.solr.tracker.ContentLane;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.params.CommonParams;
@@ -82,6 +97,11 @@ import org.apache.solr.core.SolrResourceLoader;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.request.SolrRequestHandler;
 import org.apache.solr.response.SolrQueryResponse;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.update.AddUpdateCommand;
+import org.apache.solr.update.processor.UpdateRequestProcessor;
+import org.apache.solr.update.processor.UpdateRequestProcessorChain;
+import org.apache.solr.util.RefCounted;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -393,6 +413,281 @@ public class SolrInformationServerTest
 
     }
     
+    @Test
+    public void termsQuery_shouldListTheIdsForTheTermsParser()
+    {
+        assertEquals("{!terms f=DBID}12", SolrInformationServer.termsQuery(QueryConstants.FIELD_DBID, new long[] {12}));
+        assertEquals("{!terms f=INTXID}1,2,30", SolrInformationServer.termsQuery(QueryConstants.FIELD_INTXID, new long[] {1, 2, 30}));
+    }
+
+    @Test
+    public void outdatedContentQueue_shouldHandOutCommittedNodesOnceSearcherIsOpen()
+    {
+        SolrInformationServer.OutdatedContentQueue queue = new SolrInformationServer.OutdatedContentQueue(600000, 100);
+        assertTrue(queue.needsRebuild());
+        queue.rebuild(new long[] {1, 2}, System.nanoTime());
+        assertFalse(queue.needsRebuild());
+
+        queue.added(3, 10);
+        queue.added(1, 10);
+        long searcherBeforeCommit = System.nanoTime();
+        queue.afterCommit(queue.beforeCommit());
+
+        assertArrayEquals(new long[] {1}, queue.poll(ContentLane.BULK, 1, searcherBeforeCommit));
+        assertArrayEquals(new long[] {2}, queue.poll(ContentLane.BULK, 5, searcherBeforeCommit));
+        assertEquals(0, queue.poll(ContentLane.RECENT, 5, searcherBeforeCommit).length);
+
+        long searcherAfterCommit = System.nanoTime() + 1000;
+        long[] recent = queue.poll(ContentLane.RECENT, 5, searcherAfterCommit);
+        Arrays.sort(recent);
+        assertArrayEquals(new long[] {1, 3}, recent);
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void outdatedContentQueue_shouldMoveOldNodesToTheirSizeLane()
+    {
+        SolrInformationServer.OutdatedContentQueue queue = new SolrInformationServer.OutdatedContentQueue(0, 100);
+        queue.rebuild(new long[0], System.nanoTime());
+
+        queue.added(1, 100);
+        queue.added(2, 101);
+        queue.afterCommit(queue.beforeCommit());
+
+        long searcherAfterCommit = System.nanoTime() + 1000;
+        assertEquals(0, queue.poll(ContentLane.RECENT, 5, searcherAfterCommit).length);
+        assertEquals(1, queue.size(ContentLane.SMALL));
+        assertEquals(1, queue.size(ContentLane.BULK));
+        assertArrayEquals(new long[] {1}, queue.poll(ContentLane.SMALL, 5, searcherAfterCommit));
+        assertArrayEquals(new long[] {2}, queue.poll(ContentLane.BULK, 5, searcherAfterCommit));
+    }
+
+    @Test
+    public void outdatedContentQueue_shouldForgetRolledBackNodes()
+    {
+        SolrInformationServer.OutdatedContentQueue queue = new SolrInformationServer.OutdatedContentQueue(600000, 100);
+        queue.rebuild(new long[0], System.nanoTime());
+
+        queue.added(3, 10);
+        queue.rollback();
+        queue.afterCommit(queue.beforeCommit());
+
+        assertEquals(0, queue.poll(ContentLane.RECENT, 5, System.nanoTime() + 1000).length);
+    }
+
+    @Test
+    public void outdatedContentQueue_shouldRebuildAfterRollback()
+    {
+        SolrInformationServer.OutdatedContentQueue queue = new SolrInformationServer.OutdatedContentQueue(600000, 100);
+        queue.rebuild(new long[0], System.nanoTime());
+
+        queue.rollback();
+
+        assertTrue(queue.needsRebuild());
+    }
+
+    @Test
+    public void outdatedContentQueue_shouldHandOutRetriedNodesInTheBulkLaneOnceSearcherIsOpen()
+    {
+        SolrInformationServer.OutdatedContentQueue queue = new SolrInformationServer.OutdatedContentQueue(600000, 100);
+        queue.rebuild(new long[0], System.nanoTime());
+
+        long searcherBeforeRetry = System.nanoTime();
+        queue.retry(new long[] {1, 2});
+
+        assertEquals(0, queue.poll(ContentLane.BULK, 5, searcherBeforeRetry).length);
+
+        long[] retried = queue.poll(ContentLane.BULK, 5, System.nanoTime() + 1000);
+        Arrays.sort(retried);
+        assertArrayEquals(new long[] {1, 2}, retried);
+    }
+
+    @Test
+    public void indexedIds_shouldKeepIdsCommittedBeforeTheyAreLoaded() throws Exception
+    {
+        SolrInformationServer.IndexedIds indexedIds = new SolrInformationServer.IndexedIds(SolrInformationServer.DOC_TYPE_TX, QueryConstants.FIELD_TXID);
+        indexedIds.added(10);
+        indexedIds.afterCommit(indexedIds.beforeCommit());
+
+        // The searcher doesn't see the commit yet
+        when(core.getSearcher()).thenReturn(new RefCounted<SolrIndexSearcher>(mock(SolrIndexSearcher.class))
+        {
+            @Override
+            protected void close()
+            {
+            }
+        });
+
+        assertTrue(indexedIds.isInIndex(10, false, core));
+        assertFalse(indexedIds.isInIndex(11, false, core));
+    }
+
+    @Test
+    public void appendTextContent_shouldDecodeCharsSplitAcrossChunks() throws IOException
+    {
+        // Two and three byte chars, so that some of them straddle the read chunks
+        String text = "é€a".repeat(10_000);
+        GetTextContentResponse textResponse = textContentResponse(text.getBytes(StandardCharsets.UTF_8), null);
+        StringBuilder target = new StringBuilder("\u0000en\u0000");
+
+        infoServer.appendTextContent(textResponse, target);
+
+        assertEquals("\u0000en\u0000" + text, target.toString());
+        verify(textResponse).release();
+    }
+
+    @Test
+    public void appendTextContent_shouldDecodeGzipContent() throws IOException
+    {
+        String text = "Some gzipped text content ".repeat(1_000);
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(gzipped))
+        {
+            gzip.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        GetTextContentResponse textResponse = textContentResponse(gzipped.toByteArray(), "gzip");
+        StringBuilder target = new StringBuilder();
+
+        infoServer.appendTextContent(textResponse, target);
+
+        assertEquals(text, target.toString());
+    }
+
+    @Test
+    public void appendTextContent_shouldStopAtContentStreamLimit() throws IOException
+    {
+        Properties properties = new Properties();
+        properties.setProperty("alfresco.contentStreamLimit", "10");
+        when(resourceLoader.getCoreProperties()).thenReturn(properties);
+        SolrInformationServer limitedInfoServer = new SolrInformationServer(adminHandler, core, client);
+        GetTextContentResponse textResponse = textContentResponse("0123456789ABCDEF".getBytes(StandardCharsets.UTF_8), null);
+        StringBuilder target = new StringBuilder();
+
+        limitedInfoServer.appendTextContent(textResponse, target);
+
+        assertEquals("0123456789", target.toString());
+    }
+
+    @Test
+    public void appendTextContent_shouldAppendNothingWithoutContent() throws IOException
+    {
+        GetTextContentResponse textResponse = mock(GetTextContentResponse.class);
+        StringBuilder target = new StringBuilder("\u0000en\u0000");
+
+        infoServer.appendTextContent(textResponse, target);
+
+        assertEquals("\u0000en\u0000", target.toString());
+        verify(textResponse).release();
+    }
+
+    @Test
+    public void cascadeUpdateChildren_shouldUpdateOlderChildrenInBatches() throws Exception
+    {
+        SolrInformationServer cascadeInfoServer = cascadeInfoServer(2);
+        List<List<Long>> requestedBatches = Collections.synchronizedList(new ArrayList<>());
+        when(client.getNodesMetaData(any(NodeMetaDataParameters.class))).thenAnswer(invocation -> {
+            List<Long> nodeIds = invocation.getArgument(0, NodeMetaDataParameters.class).getNodeIds();
+            requestedBatches.add(nodeIds);
+            return nodeIds.stream().map(this::childNodeMetaData).collect(Collectors.toList());
+        });
+        List<Long> updatedChildren = recordCascadeUpdates();
+
+        // Child 5 has been changed by a later transaction than its parent: it is left to the metadata tracker
+        cascadeInfoServer.cascadeUpdateChildren(parentNodeMetaData(), List.of(1L, 2L, 3L, 4L, 5L), true);
+
+        assertEquals(3, requestedBatches.size());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L),
+                requestedBatches.stream().flatMap(List::stream).sorted().collect(Collectors.toList()));
+        assertTrue(requestedBatches.stream().allMatch(batch -> batch.size() <= 2));
+        assertEquals(List.of(1L, 2L, 3L, 4L), updatedChildren.stream().sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void cascadeUpdateChildren_shouldThrowWhenABatchFails() throws Exception
+    {
+        SolrInformationServer cascadeInfoServer = cascadeInfoServer(2);
+        when(client.getNodesMetaData(any(NodeMetaDataParameters.class))).thenAnswer(invocation -> {
+            List<Long> nodeIds = invocation.getArgument(0, NodeMetaDataParameters.class).getNodeIds();
+            if (nodeIds.contains(3L))
+            {
+                throw new IOException("Repository unavailable");
+            }
+            return nodeIds.stream().map(this::childNodeMetaData).collect(Collectors.toList());
+        });
+        List<Long> updatedChildren = recordCascadeUpdates();
+
+        try
+        {
+            cascadeInfoServer.cascadeUpdateChildren(parentNodeMetaData(), List.of(1L, 2L, 3L, 4L), true);
+            fail("The failure of the batch of child 3 should have been thrown");
+        }
+        catch (IOException exception)
+        {
+            assertEquals(1, exception.getSuppressed().length);
+        }
+
+        // The other batch has been updated anyway
+        assertEquals(List.of(1L, 2L), updatedChildren.stream().sorted().collect(Collectors.toList()));
+    }
+
+    private SolrInformationServer cascadeInfoServer(int metadataBatchSize)
+    {
+        Properties properties = new Properties();
+        properties.setProperty("alfresco.cascade.tracker.metadataBatchSize", String.valueOf(metadataBatchSize));
+        when(resourceLoader.getCoreProperties()).thenReturn(properties);
+        return new SolrInformationServer(adminHandler, core, client);
+    }
+
+    /**
+     * @return the DBIDs of the children added to the update sessions.
+     */
+    private List<Long> recordCascadeUpdates() throws IOException
+    {
+        List<Long> updatedChildren = Collections.synchronizedList(new ArrayList<>());
+        UpdateRequestProcessor processor = new UpdateRequestProcessor(null)
+        {
+            @Override
+            public void processAdd(AddUpdateCommand cmd)
+            {
+                String id = (String) cmd.solrDoc.getFieldValue(QueryConstants.FIELD_SOLR4_ID);
+                updatedChildren.add(AlfrescoSolrDataModel.decodeNodeDocumentId(id).dbId);
+            }
+        };
+        UpdateRequestProcessorChain chain = mock(UpdateRequestProcessorChain.class);
+        when(chain.createProcessor(any(), any())).thenReturn(processor);
+        when(core.getUpdateProcessingChain(null)).thenReturn(chain);
+        return updatedChildren;
+    }
+
+    private NodeMetaData parentNodeMetaData()
+    {
+        NodeMetaData parent = new NodeMetaData();
+        parent.setId(100L);
+        parent.setTxnId(50L);
+        parent.setNodeRef(new NodeRef("workspace://SpacesStore/parent"));
+        return parent;
+    }
+
+    private NodeMetaData childNodeMetaData(long id)
+    {
+        NodeMetaData child = new NodeMetaData();
+        child.setId(id);
+        child.setTxnId(id == 5L ? 60L : 40L);
+        child.setNodeRef(new NodeRef("workspace://SpacesStore/child-" + id));
+        child.setPaths(List.of());
+        child.setAncestorPaths(List.of());
+        child.setNamePaths(List.of());
+        return child;
+    }
+
+    private GetTextContentResponse textContentResponse(byte[] content, String contentEncoding)
+    {
+        GetTextContentResponse textResponse = mock(GetTextContentResponse.class);
+        when(textResponse.getContent()).thenReturn(new ByteArrayInputStream(content));
+        when(textResponse.getContentEncoding()).thenReturn(contentEncoding);
+        return textResponse;
+    }
+
     /**
      * Repeat the indexing operation 2 times to verify that updating and existing document 
      * removes previous information in ANAME and APATH fields
@@ -0,0 +1,215 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.search.CacheRegenerator;
+import org.apache.solr.search.SolrCache;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.junit.Test;
+
+public class AlfrescoLRUCacheTest
+{
+    private final List<Object> regenerated = new ArrayList<>();
+
+    // Keys the regenerator does not put into the new cache
+    private final Set<Object> notRegenerated = new HashSet<>();
+
+    private AlfrescoLRUCache<String, String> cache(String autowarmCount, String maxAutowarmTimeMs, long regenerationTimeMs)
+    {
+        Map<String, String> args = new HashMap<>();
+        args.put("name", "alfrescoPathCache");
+        args.put("size", "10");
+        args.put("autowarmCount", autowarmCount);
+        args.put("maxAutowarmTimeMs", maxAutowarmTimeMs);
+
+        CacheRegenerator regenerator = (newSearcher, newCache, oldCache, oldKey, oldValue) ->
+        {
+            try
+            {
+                Thread.sleep(regenerationTimeMs);
+            }
+            catch (InterruptedException e)
+            {
+                throw new IOException(e);
+            }
+            regenerated.add(oldKey);
+            if (!notRegenerated.contains(oldKey))
+            {
+                newCache.put(oldKey, oldValue);
+            }
+            return true;
+        };
+
+        AlfrescoLRUCache<String, String> cache = new AlfrescoLRUCache<>();
+        cache.init(args, null, regenerator);
+        return cache;
+    }
+
+    private static void hit(AlfrescoLRUCache<String, String> cache, String key, int times)
+    {
+        for (int i = 0; i < times; i++)
+        {
+            cache.get(key);
+        }
+    }
+
+    @Test
+    public void mostHitEntries_shouldBeWarmedFirst()
+    {
+        AlfrescoLRUCache<String, String> old = cache("2", "-1", 0);
+        old.put("cold", "cold");
+        old.put("warm", "warm");
+        old.put("hot", "hot");
+        old.put("recent", "recent");
+        old.setState(SolrCache.State.LIVE);
+        hit(old, "hot", 5);
+        hit(old, "warm", 2);
+        hit(old, "cold", 1);
+
+        AlfrescoLRUCache<String, String> cache = cache("2", "-1", 0);
+        cache.warm(mock(SolrIndexSearcher.class), old);
+
+        assertEquals(List.of("hot", "warm"), regenerated);
+        assertEquals("hot", cache.get("hot"));
+        assertNull(cache.get("recent"));
+        assertEquals(2, cache.getHits("hot"));
+        assertEquals(1, cache.getHits("warm"));
+
+        NamedList<?> statistics = cache.getStatistics();
+        assertEquals(2, statistics.get("warmupEntries"));
+        assertEquals(0, statistics.get("warmupSkippedEntries"));
+        assertEquals(false, statistics.get("warmupTimedOut"));
+    }
+
+    @Test
+    public void evictedEntries_shouldNotKeepTheirHits()
+    {
+        Map<String, String> args = new HashMap<>();
+        args.put("name", "alfrescoAuthorityCache");
+        args.put("size", "2");
+        AlfrescoLRUCache<String, String> cache = new AlfrescoLRUCache<>();
+        cache.init(args, null, null);
+        cache.setState(SolrCache.State.LIVE);
+
+        for (int i = 0; i < 10; i++)
+        {
+            cache.put("key" + i, "value" + i);
+            hit(cache, "key" + i, 1);
+        }
+
+        assertEquals(0, cache.getHits("key0"));
+        assertEquals(1, cache.getHits("key8"));
+        assertEquals(1, cache.getHits("key9"));
+    }
+
+    @Test
+    public void entriesWithoutHits_shouldBeWarmedMostRecentFirst()
+    {
+        AlfrescoLRUCache<String, String> old = cache("2", "-1", 0);
+        old.put("oldest", "oldest");
+        old.put("older", "older");
+        old.put("newest", "newest");
+
+        cache("2", "-1", 0).warm(mock(SolrIndexSearcher.class), old);
+
+        assertEquals(List.of("newest", "older"), regenerated);
+    }
+
+    @Test
+    public void timeBudget_shouldStopWarming()
+    {
+        AlfrescoLRUCache<String, String> old = cache("100%", "50", 0);
+        for (int i = 0; i < 5; i++)
+        {
+            old.put("key" + i, "value" + i);
+        }
+
+        AlfrescoLRUCache<String, String> cache = cache("100%", "50", 100);
+        cache.warm(mock(SolrIndexSearcher.class), old);
+
+        assertEquals(1, regenerated.size());
+        NamedList<?> statistics = cache.getStatistics();
+        assertEquals(1, statistics.get("warmupEntries"));
+        assertEquals(4, statistics.get("warmupSkippedEntries"));
+        assertEquals(true, statistics.get("warmupTimedOut"));
+    }
+
+    @Test
+    public void entriesSkippedByTheRegenerator_shouldNotCountAsWarmed()
+    {
+        AlfrescoLRUCache<String, String> old = cache("100%", "-1", 0);
+        old.put("small", "small");
+        old.put("big", "big");
+        notRegenerated.add("big");
+
+        AlfrescoLRUCache<String, String> cache = cache("100%", "-1", 0);
+        cache.warm(mock(SolrIndexSearcher.class), old);
+
+        assertEquals(2, regenerated.size());
+        assertNull(cache.get("big"));
+        assertEquals("small", cache.get("small"));
+        assertEquals(1, cache.getStatistics().get("warmupEntries"));
+    }
+
+    @Test
+    public void ramBudget_shouldKeepFractionsOfMegabytes()
+    {
+        Map<String, String> args = new HashMap<>();
+        args.put("name", "alfrescoAuthorityCache");
+        args.put("maxRamMB", "0.5");
+        AlfrescoLRUCache<String, Accountable> cache = new AlfrescoLRUCache<>();
+        cache.init(args, null, null);
+
+        assertEquals(512 * 1024, cache.getRamBudget().getMaxRamBytes());
+        assertTrue(CacheRamBudget.fits(cache, (Accountable) () -> 512 * 1024));
+        assertFalse(CacheRamBudget.fits(cache, (Accountable) () -> 512 * 1024 + 1));
+    }
+
+    @Test
+    public void ramBudget_shouldBeUnboundedWithoutMaxRamMB()
+    {
+        AlfrescoLRUCache<String, String> cache = cache("2", "-1", 0);
+
+        assertTrue(CacheRamBudget.fits(cache, (Accountable) () -> Long.MAX_VALUE));
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.junit.Test;
+
+public class SearcherCacheLoaderTest
+{
+    private final Map<Object, Object> cache = new ConcurrentHashMap<>();
+
+    private SolrIndexSearcher searcher(String coreName)
+    {
+        SolrCore core = mock(SolrCore.class);
+        when(core.getName()).thenReturn(coreName);
+
+        SolrIndexSearcher searcher = mock(SolrIndexSearcher.class);
+        when(searcher.getCore()).thenReturn(core);
+        when(searcher.cacheLookup(anyString(), any())).thenAnswer(invocation -> cache.get(invocation.getArgument(1)));
+        doAnswer(invocation -> cache.put(invocation.getArgument(1), invocation.getArgument(2)))
+                .when(searcher).cacheInsert(anyString(), any(), any());
+        return searcher;
+    }
+
+    @Test
+    public void cachedValue_shouldNotBeLoaded() throws Exception
+    {
+        SolrIndexSearcher searcher = searcher("cached");
+        cache.put("key", "cached");
+
+        assertEquals("cached", SearcherCacheLoader.get(searcher, CacheConstants.ALFRESCO_READER_CACHE, "key", () -> {
+            fail("A cached value must not be loaded");
+            return null;
+        }));
+    }
+
+    @Test
+    public void concurrentMisses_shouldLoadOnce() throws Exception
+    {
+        SolrIndexSearcher searcher = searcher("concurrent");
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch waiting = new CountDownLatch(1);
+        Object value = new Object();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            List<Future<Object>> results = new ArrayList<>();
+            results.add(executor.submit(() -> SearcherCacheLoader.get(searcher, CacheConstants.ALFRESCO_READER_CACHE, "key", () -> {
+                loads.incrementAndGet();
+                try
+                {
+                    waiting.await(10, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException exception)
+                {
+                    throw new IOException(exception);
+                }
+                return value;
+            })));
+            // Wait for the first request to start loading before missing the same key again
+            while (loads.get() == 0)
+            {
+                Thread.sleep(1);
+            }
+            for (int i = 0; i < 3; i++)
+            {
+                results.add(executor.submit(() -> SearcherCacheLoader.get(searcher, CacheConstants.ALFRESCO_READER_CACHE, "key", () -> {
+                    loads.incrementAndGet();
+                    return new Object();
+                })));
+            }
+            while (SearcherCacheLoader.getSharedLoads("concurrent").getOrDefault(CacheConstants.ALFRESCO_READER_CACHE, 0L) < 3)
+            {
+                Thread.sleep(1);
+            }
+            waiting.countDown();
+
+            for (Future<Object> result : results)
+            {
+                assertSame(value, result.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+            assertSame(value, cache.get("key"));
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void valueInsertedAfterTheLookup_shouldNotBeLoaded() throws Exception
+    {
+        SolrIndexSearcher searcher = searcher("inserted");
+        AtomicInteger lookups = new AtomicInteger();
+        // A concurrent load inserts the value and finishes right after the first lookup has missed it
+        doAnswer(invocation -> lookups.getAndIncrement() == 0 ? null : "inserted").when(searcher).cacheLookup(anyString(), any());
+
+        assertEquals("inserted", SearcherCacheLoader.get(searcher, CacheConstants.ALFRESCO_PATH_CACHE, "key", () -> {
+            fail("A value inserted by a concurrent load must not be loaded again");
+            return null;
+        }));
+    }
+
+    @Test
+    public void failedLoad_shouldBeRetriedByTheNextMiss() throws Exception
+    {
+        SolrIndexSearcher searcher = searcher("failed");
+        try
+        {
+            SearcherCacheLoader.get(searcher, CacheConstants.ALFRESCO_DENIED_CACHE, "key", () -> {
+                throw new IOException("failed");
+            });
+            fail("The load failure must be propagated");
+        }
+        catch (IOException expected)
+        {
+            // The failed load is not cached
+        }
+
+        assertEquals("loaded", SearcherCacheLoader.get(searcher, CacheConstants.ALFRESCO_DENIED_CACHE, "key", () -> "loaded"));
+    }
+}
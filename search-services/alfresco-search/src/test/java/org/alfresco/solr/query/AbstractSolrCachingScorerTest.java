@@ -0,0 +1,159 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.solr.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.alfresco.repo.search.adaptor.QueryConstants;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.solr.search.BitDocSet;
+import org.apache.solr.search.DocIterator;
+import org.apache.solr.search.DocSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AbstractSolrCachingScorerTest
+{
+    private static final long NO_ACLID = -1L;
+
+    private Directory directory;
+    private DirectoryReader reader;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        directory = new RAMDirectory();
+        IndexWriterConfig config = new IndexWriterConfig(new KeywordAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE);
+        try (IndexWriter writer = new IndexWriter(directory, config))
+        {
+            // First segment: docs 0 to 5
+            addDocument(writer, "0", 5L);
+            addDocument(writer, "1", NO_ACLID);
+            addDocument(writer, "2", 5L);
+            addDocument(writer, "3", NO_ACLID);
+            addDocument(writer, "4", 5L);
+            addDocument(writer, "5", 7L);
+            writer.commit();
+
+            // Second segment: docs 6 and 7
+            addDocument(writer, "6", 5L);
+            addDocument(writer, "7", NO_ACLID);
+            writer.commit();
+
+            writer.deleteDocuments(new Term("id", "4"));
+        }
+        reader = DirectoryReader.open(directory);
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        reader.close();
+        directory.close();
+    }
+
+    @Test
+    public void getAclIds_shouldSkipAclDocsWithoutAclId() throws IOException
+    {
+        AclIdSet aclIds = AbstractSolrCachingScorer.getAclIds(reader, docSet(0, 1));
+
+        assertEquals(1, aclIds.size());
+        assertTrue(aclIds.contains(5L));
+        assertFalse(aclIds.contains(0L));
+    }
+
+    @Test
+    public void getDocsForAclIds_shouldMatchLiveDocsWithAclIdOnly() throws IOException
+    {
+        // 0 is in the set: the docs without an ACL id must not match it
+        AclIdSet aclIds = AclIdSet.builder().add(0L).add(5L).build();
+
+        CompressedDocSet docs = AbstractSolrCachingScorer.getDocsForAclIds(reader, aclIds, docSet(0, 1));
+
+        // Doc 0 is the ACL doc, 3 and 7 have no ACL id, 4 is deleted and 5 has another ACL id
+        assertEquals(List.of(2, 6), toList(docs));
+    }
+
+    @Test
+    public void getDocsForAclIds_shouldReturnEmptySetForNoAclIds() throws IOException
+    {
+        CompressedDocSet docs = AbstractSolrCachingScorer.getDocsForAclIds(reader, AclIdSet.EMPTY, docSet(0, 1));
+
+        assertEquals(0, docs.size());
+    }
+
+    private void addDocument(IndexWriter writer, String id, long aclId) throws IOException
+    {
+        Document document = new Document();
+        document.add(new StringField("id", id, Field.Store.NO));
+        if (aclId != NO_ACLID)
+        {
+            document.add(new NumericDocValuesField(QueryConstants.FIELD_ACLID, aclId));
+        }
+        writer.addDocument(document);
+    }
+
+    private DocSet docSet(int... docs)
+    {
+        FixedBitSet bits = new FixedBitSet(reader.maxDoc());
+        for (int doc : docs)
+        {
+            bits.set(doc);
+        }
+        return new BitDocSet(bits);
+    }
+
+    private List<Integer> toList(DocSet docs)
+    {
+        List<Integer> list = new ArrayList<>();
+        for (DocIterator it = docs.iterator(); it.hasNext(); /**/)
+        {
+            list.add(it.nextDoc());
+        }
+        return list;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.solr.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class AclIdSetTest
+{
+    @Test
+    public void emptyBuilder_shouldReturnEmptySet()
+    {
+        AclIdSet set = AclIdSet.builder().build();
+
+        assertSame(AclIdSet.EMPTY, set);
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(0));
+        assertFalse(set.contains(1));
+    }
+
+    @Test
+    public void contiguousIds_shouldUseDenseRepresentation()
+    {
+        AclIdSet.Builder builder = AclIdSet.builder();
+        for (long aclId = 1000; aclId < 2000; aclId += 2)
+        {
+            builder.add(aclId);
+        }
+        AclIdSet set = builder.build();
+
+        assertTrue(set.isDense());
+        assertEquals(500, set.size());
+        assertTrue(set.contains(1000));
+        assertTrue(set.contains(1998));
+        assertFalse(set.contains(1001));
+        assertFalse(set.contains(999));
+        assertFalse(set.contains(2000));
+        assertFalse(set.contains(-1));
+    }
+
+    @Test
+    public void scatteredIds_shouldUseSparseRepresentation()
+    {
+        AclIdSet set = AclIdSet.builder()
+                .add(3)
+                .add(70_000_000L)
+                .add(Long.MAX_VALUE)
+                .add(3)
+                .build();
+
+        assertFalse(set.isDense());
+        assertEquals(3, set.size());
+        assertTrue(set.contains(3));
+        assertTrue(set.contains(70_000_000L));
+        assertTrue(set.contains(Long.MAX_VALUE));
+        assertFalse(set.contains(4));
+        assertFalse(set.contains(0));
+    }
+
+    @Test
+    public void smallSet_shouldNotAllocateForHighestAclId()
+    {
+        AclIdSet set = AclIdSet.builder().add(59_999_999L).add(60_000_001L).build();
+
+        assertTrue(set.ramBytesUsed() < 1024);
+        assertTrue(set.contains(59_999_999L));
+        assertTrue(set.contains(60_000_001L));
+        assertFalse(set.contains(60_000_000L));
+    }
+
+    @Test
+    public void sameIds_shouldBeEqual()
+    {
+        AclIdSet dense = AclIdSet.builder().add(1).add(2).add(3).build();
+        AclIdSet sparse = AclIdSet.builder().add(3).add(70_000_000L).build();
+
+        assertEquals(dense, AclIdSet.builder().add(3).add(2).add(1).build());
+        assertEquals(dense.hashCode(), AclIdSet.builder().add(3).add(2).add(1).build().hashCode());
+        assertEquals(sparse, AclIdSet.builder().add(70_000_000L).add(3).build());
+        assertNotEquals(dense, AclIdSet.builder().add(1).add(3).build());
+        assertNotEquals(sparse, AclIdSet.builder().add(3).add(70_000_001L).build());
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.solr.search.BitDocSet;
+import org.apache.solr.search.DocIterator;
+import org.apache.solr.search.DocSet;
+import org.junit.Test;
+
+public class CompressedDocSetTest
+{
+    private static final int MAX_DOC = 300_000;
+
+    @Test
+    public void emptyBuilder_shouldReturnEmptySet()
+    {
+        CompressedDocSet set = CompressedDocSet.builder(MAX_DOC).build();
+
+        assertEquals(0, set.size());
+        assertFalse(set.exists(0));
+        assertFalse(set.iterator().hasNext());
+        assertTrue(set.ramBytesUsed() < 1024);
+    }
+
+    @Test
+    public void sparseDocs_shouldTakeLessMemoryThanBits()
+    {
+        CompressedDocSet set = docs(0, 10, 65_535, 65_536, 299_999);
+
+        assertEquals(5, set.size());
+        assertTrue(set.exists(65_535));
+        assertTrue(set.exists(65_536));
+        assertTrue(set.exists(299_999));
+        assertFalse(set.exists(11));
+        assertFalse(set.exists(300_000));
+        assertEquals(List.of(0, 10, 65_535, 65_536, 299_999), toList(set));
+        assertTrue(set.ramBytesUsed() < new FixedBitSet(MAX_DOC).ramBytesUsed() / 10);
+    }
+
+    @Test
+    public void fullBlocks_shouldNotTakeMemory()
+    {
+        CompressedDocSet.Builder builder = CompressedDocSet.builder(MAX_DOC);
+        for (int doc = 0; doc < MAX_DOC; doc++)
+        {
+            builder.add(doc);
+        }
+        CompressedDocSet set = builder.build();
+
+        assertEquals(MAX_DOC, set.size());
+        assertTrue(set.exists(MAX_DOC - 1));
+        assertTrue(set.ramBytesUsed() < 1024);
+    }
+
+    @Test
+    public void denseAndSparseBlocks_shouldMatchBitDocSet()
+    {
+        BitDocSet bits = new BitDocSet(new FixedBitSet(MAX_DOC));
+        for (int doc = 0; doc < MAX_DOC; doc += (doc < 100_000 ? 3 : 1_000))
+        {
+            bits.add(doc);
+        }
+        BitDocSet other = new BitDocSet(new FixedBitSet(MAX_DOC));
+        for (int doc = 0; doc < MAX_DOC; doc += 5)
+        {
+            other.add(doc);
+        }
+
+        CompressedDocSet set = CompressedDocSet.of(bits, MAX_DOC);
+
+        assertEquals(bits.size(), set.size());
+        assertEquals(toList(bits), toList(set));
+        assertSame(set, CompressedDocSet.of(set, MAX_DOC));
+        assertEquals(toList(bits.intersection(other)), toList(set.intersection(other)));
+        assertEquals(toList(bits.union(other)), toList(set.union(other)));
+        assertEquals(toList(bits.andNot(other)), toList(set.andNot(other)));
+        assertEquals(bits.intersectionSize(other), set.intersectionSize(other));
+        assertEquals(bits.unionSize(other), set.unionSize(other));
+        assertEquals(bits.andNotSize(other), set.andNotSize(other));
+        assertTrue(set.intersects(other));
+    }
+
+    @Test
+    public void segmentIterator_shouldReturnDocsRelativeToTheSegment() throws Exception
+    {
+        CompressedDocSet set = docs(5, 99_999, 100_000, 100_001, 150_000, 200_000);
+
+        DocIdSetIterator segment = set.iterator(100_000, 100_000);
+        assertEquals(0, segment.nextDoc());
+        assertEquals(1, segment.nextDoc());
+        assertEquals(50_000, segment.advance(2));
+        assertEquals(DocIdSetIterator.NO_MORE_DOCS, segment.nextDoc());
+
+        assertEquals(DocIdSetIterator.NO_MORE_DOCS, set.iterator(10, 1_000).nextDoc());
+    }
+
+    @Test
+    public void segmentBits_shouldBeCompressed()
+    {
+        FixedBitSet bits = new FixedBitSet(70_000);
+        bits.set(0);
+        bits.set(65_535);
+        bits.set(69_999);
+
+        CompressedDocSet set = CompressedDocSet.of(bits);
+
+        assertEquals(3, set.size());
+        assertEquals(List.of(0, 65_535, 69_999), toList(set));
+        assertEquals(0, CompressedDocSet.of(new FixedBitSet(0)).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unorderedDocs_shouldBeRejected()
+    {
+        docs(10, 5);
+    }
+
+    private static CompressedDocSet docs(int... docs)
+    {
+        CompressedDocSet.Builder builder = CompressedDocSet.builder(MAX_DOC);
+        for (int doc : docs)
+        {
+            builder.add(doc);
+        }
+        return builder.build();
+    }
+
+    private static List<Integer> toList(DocSet set)
+    {
+        List<Integer> docs = new ArrayList<>();
+        for (DocIterator it = set.iterator(); it.hasNext(); /**/)
+        {
+            docs.add(it.nextDoc());
+        }
+        return docs;
+    }
+}
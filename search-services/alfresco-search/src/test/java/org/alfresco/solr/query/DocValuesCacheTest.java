@@ -0,0 +1,128 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.solr.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DocValuesCacheTest
+{
+    private static final String FIELD = "ACLID";
+
+    private Directory directory;
+    private DirectoryReader reader;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        directory = new RAMDirectory();
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new KeywordAnalyzer())))
+        {
+            for (int segment = 0; segment < 3; segment++)
+            {
+                for (int i = 0; i < 100; i++)
+                {
+                    Document document = new Document();
+                    document.add(new NumericDocValuesField(FIELD, valueOf(segment, i)));
+                    writer.addDocument(document);
+                }
+                writer.commit();
+            }
+        }
+        reader = DirectoryReader.open(directory);
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        reader.close();
+        directory.close();
+    }
+
+    @Test
+    public void cachedValues_shouldMatchIndexedValues() throws IOException
+    {
+        DocValuesCache.warm(FIELD, reader);
+
+        for (LeafReaderContext context : reader.leaves())
+        {
+            LeafReader leafReader = context.reader();
+            NumericDocValues expected = leafReader.getNumericDocValues(FIELD);
+            NumericDocValues cached = DocValuesCache.getNumericDocValues(FIELD, leafReader);
+            for (int i = 0; i < leafReader.maxDoc(); i++)
+            {
+                assertEquals(expected.get(i), cached.get(i));
+            }
+            assertSame(cached, DocValuesCache.getNumericDocValues(FIELD, leafReader));
+        }
+        assertTrue(DocValuesCache.ramBytesUsed() > 0);
+    }
+
+    @Test
+    public void missingField_shouldReturnNull() throws IOException
+    {
+        assertNull(DocValuesCache.getNumericDocValues("NOT_A_FIELD", reader.leaves().get(0).reader()));
+    }
+
+    @Test
+    public void closedSegments_shouldBeReleased() throws IOException
+    {
+        DocValuesCache.warm(FIELD, reader);
+        long before = DocValuesCache.ramBytesUsed();
+        assertTrue(before > 0);
+
+        reader.close();
+        reader = DirectoryReader.open(directory);
+
+        assertTrue(DocValuesCache.ramBytesUsed() < before);
+    }
+
+    private long valueOf(int segment, int i)
+    {
+        return segment == 2 ? Integer.MAX_VALUE + 10L * i : 1000L * segment + i;
+    }
+}
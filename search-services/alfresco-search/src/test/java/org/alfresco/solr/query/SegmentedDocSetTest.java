@@ -0,0 +1,177 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.Bits;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SegmentedDocSetTest
+{
+    private Directory directory;
+    private IndexWriter writer;
+    private DirectoryReader reader;
+
+    // Doc bases of the segments computed by the loader
+    private final Queue<Integer> loaded = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Matches all the live docs of the segment.
+     */
+    private final SegmentedDocSet.SegmentLoader loader = context -> {
+        loaded.add(context.docBase);
+        Bits liveDocs = context.reader().getLiveDocs();
+        CompressedDocSet.Builder docs = CompressedDocSet.builder(context.reader().maxDoc());
+        for (int doc = 0; doc < context.reader().maxDoc(); doc++)
+        {
+            if (liveDocs == null || liveDocs.get(doc))
+            {
+                docs.add(doc);
+            }
+        }
+        return docs.build();
+    };
+
+    @Before
+    public void setUp() throws IOException
+    {
+        directory = new RAMDirectory();
+        IndexWriterConfig config = new IndexWriterConfig(new KeywordAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE);
+        writer = new IndexWriter(directory, config);
+
+        // First segment: docs 0 to 3, second segment: docs 4 and 5
+        addSegment("0", "1", "2", "3");
+        addSegment("4", "5");
+        reader = DirectoryReader.open(directory);
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        reader.close();
+        writer.close();
+        directory.close();
+    }
+
+    @Test
+    public void build_shouldComputeEverySegmentWithoutPreviousSet() throws IOException
+    {
+        SegmentedDocSet docs = SegmentedDocSet.build(reader, "source", null, loader);
+
+        assertEquals(List.of(0, 4), loaded.stream().sorted().collect(Collectors.toList()));
+        assertEquals(0, docs.getReusedSegments());
+        assertEquals(6, docs.size());
+        assertEquals(6, docs.maxDoc);
+    }
+
+    @Test
+    public void build_shouldReuseSegmentsAndComputeNewOnes() throws IOException
+    {
+        SegmentedDocSet previous = SegmentedDocSet.build(reader, "source", null, loader);
+        loaded.clear();
+
+        // New deletes in the first segment, the second one is unchanged, a third segment has docs 6 and 7
+        writer.deleteDocuments(new Term("id", "1"));
+        addSegment("6", "7");
+        reopen();
+
+        SegmentedDocSet docs = SegmentedDocSet.build(reader, "source", previous, loader);
+
+        assertEquals(List.of(6), List.copyOf(loaded));
+        assertEquals(2, docs.getReusedSegments());
+        assertEquals(7, docs.size());
+        assertEquals(8, docs.maxDoc);
+
+        // The doc deleted from the reused segment is gone
+        assertFalse(docs.exists(1));
+        for (int doc : new int[] {0, 2, 3, 4, 5, 6, 7})
+        {
+            assertTrue("Doc " + doc, docs.exists(doc));
+        }
+    }
+
+    @Test
+    public void build_shouldNotReuseSegmentsComputedFromAnotherSource() throws IOException
+    {
+        SegmentedDocSet previous = SegmentedDocSet.build(reader, "source", null, loader);
+        loaded.clear();
+
+        SegmentedDocSet docs = SegmentedDocSet.build(reader, "another source", previous, loader);
+
+        assertEquals(2, loaded.size());
+        assertEquals(0, docs.getReusedSegments());
+        assertEquals(6, docs.size());
+    }
+
+    @Test(expected = IOException.class)
+    public void build_shouldThrowTheFailureOfASegment() throws IOException
+    {
+        SegmentedDocSet.build(reader, "source", null, context -> {
+            throw new IOException("Segment at " + context.docBase + " cannot be loaded");
+        });
+    }
+
+    private void addSegment(String... ids) throws IOException
+    {
+        for (String id : ids)
+        {
+            Document document = new Document();
+            document.add(new StringField("id", id, Field.Store.NO));
+            writer.addDocument(document);
+        }
+        writer.commit();
+    }
+
+    private void reopen() throws IOException
+    {
+        DirectoryReader reopened = DirectoryReader.openIfChanged(reader);
+        reader.close();
+        reader = reopened;
+    }
+}
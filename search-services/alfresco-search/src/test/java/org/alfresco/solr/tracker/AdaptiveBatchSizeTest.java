@@ -0,0 +1,132 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.tracker;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class AdaptiveBatchSizeTest
+{
+    private static final long TARGET_LATENCY_MS = 1000;
+
+    @Test
+    public void record_shouldKeepTheConfiguredSizeWhenNotAdaptive()
+    {
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize("alfresco.nodeBatchSize", 100, 25, 400, TARGET_LATENCY_MS, false);
+
+        window(batchSize, 100, 10);
+
+        assertEquals(100, batchSize.get());
+    }
+
+    @Test
+    public void record_shouldGrowWhileTheThroughputImproves()
+    {
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize("alfresco.nodeBatchSize", 100, 25, 400, TARGET_LATENCY_MS, true);
+
+        window(batchSize, 100, 100);
+        assertEquals(125, batchSize.get());
+
+        window(batchSize, 125, 100);
+        assertEquals(157, batchSize.get());
+    }
+
+    @Test
+    public void record_shouldTurnBackWhenTheThroughputGetsWorse()
+    {
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize("alfresco.nodeBatchSize", 100, 25, 400, TARGET_LATENCY_MS, true);
+
+        window(batchSize, 100, 100);
+        assertEquals(125, batchSize.get());
+
+        // Twice the time for 25% more items
+        window(batchSize, 125, 200);
+        assertEquals(100, batchSize.get());
+    }
+
+    @Test
+    public void record_shouldShrinkBatchesSlowerThanTheTargetLatency()
+    {
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize("alfresco.nodeBatchSize", 100, 25, 400, TARGET_LATENCY_MS, true);
+
+        window(batchSize, 100, 2 * TARGET_LATENCY_MS);
+
+        assertEquals(80, batchSize.get());
+    }
+
+    @Test
+    public void record_shouldStayWithinTheBounds()
+    {
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize("alfresco.nodeBatchSize", 100, 90, 110, TARGET_LATENCY_MS, true);
+
+        window(batchSize, 100, 100);
+        window(batchSize, 110, 100);
+        assertEquals(110, batchSize.get());
+
+        for (int i = 0; i < 5; i++)
+        {
+            window(batchSize, batchSize.get(), 2 * TARGET_LATENCY_MS);
+        }
+        assertEquals(90, batchSize.get());
+    }
+
+    @Test
+    public void fromProperties_shouldDefaultTheBoundsAroundTheConfiguredSize()
+    {
+        Properties properties = new Properties();
+        properties.setProperty("alfresco.adaptiveBatchSize.enabled", "true");
+        properties.setProperty("alfresco.changeSetAclsBatchSize", "500");
+        properties.setProperty("alfresco.aclBatchSize.max", "120");
+
+        AdaptiveBatchSize changeSets = AdaptiveBatchSize.fromProperties(properties, "alfresco.changeSetAclsBatchSize", 2000, 512);
+        AdaptiveBatchSize acls = AdaptiveBatchSize.fromProperties(properties, "alfresco.aclBatchSize", 100);
+
+        assertEquals(500, changeSets.get());
+        for (int i = 0; i < 5; i++)
+        {
+            window(changeSets, changeSets.get(), 1);
+            window(acls, acls.get(), 1);
+        }
+        assertEquals(512, changeSets.get());
+        assertEquals(120, acls.get());
+    }
+
+    /**
+     * Records a full window of batches with the given size, taking the given time each.
+     */
+    private static void window(AdaptiveBatchSize batchSize, int items, long elapsedMs)
+    {
+        for (int i = 0; i < AdaptiveBatchSize.WINDOW; i++)
+        {
+            batchSize.record(items, TimeUnit.MILLISECONDS.toNanos(elapsedMs));
+        }
+    }
+}
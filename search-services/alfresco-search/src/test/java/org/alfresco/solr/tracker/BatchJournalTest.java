@@ -0,0 +1,157 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.tracker;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Comparator;
+import java.util.stream.Collectors;
+
+import org.alfresco.solr.client.Transaction;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BatchJournalTest
+{
+    private BatchJournal<Transaction> journal;
+
+    @Before
+    public void setUp()
+    {
+        journal = new BatchJournal<>("theCoreName", "transaction", Transaction::getId, 2);
+    }
+
+    @Test
+    public void settle_shouldIndexTransactionsWhoseBatchesSucceeded()
+    {
+        assertTrue(journal.settle(transaction(1)));
+        assertEquals(0, journal.getRetryCount());
+        assertTrue(journal.takeRetries().isEmpty());
+    }
+
+    @Test
+    public void settle_shouldQueueFailedTransactionsForRetry()
+    {
+        Transaction failed = transaction(2);
+        journal.failed(2);
+
+        assertTrue(journal.settle(transaction(1)));
+        assertFalse(journal.settle(failed));
+        assertEquals(1, journal.getRetryCount());
+
+        assertEquals(singletonList(failed), journal.takeRetries());
+        assertEquals(0, journal.getRetryCount());
+    }
+
+    @Test
+    public void settle_shouldQuarantineTransactionsFailingMaxAttemptsTimes()
+    {
+        Transaction failed = transaction(2);
+        journal.failed(2);
+        assertFalse(journal.settle(failed));
+        journal.takeRetries();
+
+        journal.failed(2);
+        assertFalse(journal.settle(failed));
+
+        assertTrue(journal.takeRetries().isEmpty());
+        assertEquals(singletonList(2L), journal.getQuarantinedIds());
+    }
+
+    @Test
+    public void settle_shouldResetAttemptsWhenARetrySucceeds()
+    {
+        Transaction failed = transaction(2);
+        journal.failed(2);
+        journal.settle(failed);
+        journal.takeRetries();
+        assertTrue(journal.settle(failed));
+
+        journal.failed(2);
+        assertFalse(journal.settle(failed));
+        assertEquals(1, journal.getRetryCount());
+        assertTrue(journal.getQuarantinedIds().isEmpty());
+    }
+
+    @Test
+    public void takeRetries_shouldReturnTransactionsInIdOrder()
+    {
+        for (long id : asList(5L, 3L, 4L))
+        {
+            journal.failed(id);
+            journal.settle(transaction(id));
+        }
+
+        assertEquals(asList(3L, 4L, 5L), journal.takeRetries().stream().map(Transaction::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void release_shouldForgetQuarantinedTransactions()
+    {
+        BatchJournal<Transaction> oneAttempt = new BatchJournal<>("theCoreName", "transaction", Transaction::getId, 1);
+        oneAttempt.failed(2);
+        oneAttempt.settle(transaction(2));
+        assertEquals(singletonList(2L), oneAttempt.getQuarantinedIds());
+
+        oneAttempt.release(2);
+        assertTrue(oneAttempt.getQuarantinedIds().isEmpty());
+    }
+
+    @Test
+    public void hasPendingBefore_shouldHoldOnTransactionsUntilTheyAreIndexed()
+    {
+        Comparator<Transaction> byId = Comparator.comparingLong(Transaction::getId);
+        Transaction failed = transaction(2);
+        journal.failed(2);
+        journal.settle(failed);
+        assertFalse(journal.hasPendingBefore(transaction(1), byId));
+        assertTrue(journal.hasPendingBefore(transaction(3), byId));
+
+        // Still pending while it is retried
+        journal.takeRetries();
+        assertTrue(journal.hasPendingBefore(transaction(3), byId));
+
+        // Quarantined
+        journal.failed(2);
+        journal.settle(failed);
+        assertTrue(journal.hasPendingBefore(transaction(3), byId));
+
+        journal.release(2);
+        assertFalse(journal.hasPendingBefore(transaction(3), byId));
+    }
+
+    private static Transaction transaction(long id)
+    {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        return transaction;
+    }
+}
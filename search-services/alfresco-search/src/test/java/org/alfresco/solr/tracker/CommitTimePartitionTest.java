@@ -0,0 +1,147 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.tracker;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.alfresco.solr.client.AclChangeSet;
+import org.junit.Test;
+
+public class CommitTimePartitionTest
+{
+    private static final int FOUND_QUEUE_SIZE = 100;
+
+    @Test
+    public void split_shouldCoverTheWholeRange()
+    {
+        List<CommitTimePartition<AclChangeSet>> partitions = split(1000, 2003, 4);
+
+        assertEquals(4, partitions.size());
+        assertEquals(1000, partitions.get(0).getStartTime());
+        for (int i = 1; i < partitions.size(); i++)
+        {
+            assertEquals(partitions.get(i - 1).getEndTime(), partitions.get(i).getStartTime());
+        }
+        assertEquals(2003, partitions.get(3).getEndTime());
+    }
+
+    @Test
+    public void accept_shouldKeepOnlyNewChangeSetsOfTheRange()
+    {
+        CommitTimePartition<AclChangeSet> partition = split(1000, 2000, 1).get(0);
+
+        List<AclChangeSet> first = partition.accept(asList(new AclChangeSet(2, 1200, 1), new AclChangeSet(1, 1100, 1)));
+        assertEquals(asList(new AclChangeSet(1, 1100, 1), new AclChangeSet(2, 1200, 1)), first);
+        assertEquals(1200, partition.getNextCommitTime());
+        assertFalse(partition.isDone());
+
+        // The next page starts again from the commit time of the last change set found
+        List<AclChangeSet> second = partition.accept(asList(new AclChangeSet(2, 1200, 1), new AclChangeSet(3, 1900, 1),
+                new AclChangeSet(4, 2000, 1)));
+        assertEquals(asList(new AclChangeSet(3, 1900, 1)), second);
+        assertTrue("A change set after the range ends the partition", partition.isDone());
+    }
+
+    @Test
+    public void accept_shouldEndThePartitionWhenNothingIsFound()
+    {
+        CommitTimePartition<AclChangeSet> partition = split(1000, 2000, 1).get(0);
+
+        assertEquals(emptyList(), partition.accept(emptyList()));
+        assertTrue(partition.isDone());
+        assertEquals(1000, partition.getNextCommitTime());
+    }
+
+    @Test
+    public void watermark_shouldStopAtTheFirstPartitionInProgress()
+    {
+        List<CommitTimePartition<AclChangeSet>> partitions = split(1000, 4000, 3);
+        assertNull(CommitTimePartition.watermark(partitions));
+
+        // The last partition is done first, but there is a gap before it
+        index(partitions.get(2), new AclChangeSet(30, 3500, 1));
+        partitions.get(2).accept(emptyList());
+        assertNull(CommitTimePartition.watermark(partitions));
+
+        index(partitions.get(0), new AclChangeSet(10, 1500, 1));
+        assertEquals(new AclChangeSet(10, 1500, 1), CommitTimePartition.watermark(partitions));
+
+        partitions.get(0).accept(emptyList());
+        index(partitions.get(1), new AclChangeSet(20, 2500, 1));
+        assertEquals(new AclChangeSet(20, 2500, 1), CommitTimePartition.watermark(partitions));
+
+        partitions.get(1).accept(emptyList());
+        assertEquals(new AclChangeSet(30, 3500, 1), CommitTimePartition.watermark(partitions));
+    }
+
+    @Test
+    public void watermark_shouldSkipEmptyPartitions()
+    {
+        List<CommitTimePartition<AclChangeSet>> partitions = split(1000, 3000, 2);
+
+        index(partitions.get(0), new AclChangeSet(10, 1500, 1));
+        partitions.get(0).accept(emptyList());
+        partitions.get(1).accept(emptyList());
+
+        assertEquals(new AclChangeSet(10, 1500, 1), CommitTimePartition.watermark(partitions));
+    }
+
+    @Test
+    public void skipTo_shouldStartThePartitionAtTheFirstCommitTime()
+    {
+        List<CommitTimePartition<AclChangeSet>> partitions = split(1000, 3000, 2);
+
+        partitions.get(0).skipTo(1500);
+        partitions.get(1).skipTo(-1);
+
+        assertEquals(1500, partitions.get(0).getNextCommitTime());
+        assertFalse(partitions.get(0).isDone());
+        assertTrue("Nothing to find in the second partition", partitions.get(1).isDone());
+
+        partitions.get(0).skipTo(3000);
+        assertTrue("First commit time after the end of the partition", partitions.get(0).isDone());
+    }
+
+    private static List<CommitTimePartition<AclChangeSet>> split(long fromTime, long toTime, int count)
+    {
+        return CommitTimePartition.split(fromTime, toTime, count, AclChangeSet::getCommitTimeMs, AclChangeSet::getId,
+                FOUND_QUEUE_SIZE);
+    }
+
+    private static void index(CommitTimePartition<AclChangeSet> partition, AclChangeSet changeSet)
+    {
+        partition.indexed(partition.accept(asList(changeSet)));
+    }
+}
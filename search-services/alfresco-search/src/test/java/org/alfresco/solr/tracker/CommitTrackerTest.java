@@ -0,0 +1,229 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.tracker;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Properties;
+import java.util.concurrent.Semaphore;
+
+import org.alfresco.solr.InformationServer;
+import org.alfresco.solr.TrackerState;
+import org.alfresco.solr.client.SOLRAPIClient;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class CommitTrackerTest
+{
+    private static final long TX_ID = 100L;
+    private static final long TX_COMMIT_TIME = 1000000L;
+    private static final long CHANGE_SET_ID = 20L;
+    private static final long CHANGE_SET_COMMIT_TIME = 900000L;
+
+    @Mock
+    private InformationServer srv;
+
+    @Mock
+    private SOLRAPIClient repositoryClient;
+
+    @Mock
+    private MetadataTracker metadataTracker;
+
+    @Mock
+    private AclTracker aclTracker;
+
+    @Mock
+    private ContentTracker contentTracker;
+
+    private final Semaphore metadataWriteLock = new Semaphore(1, true);
+    private final Semaphore aclWriteLock = new Semaphore(1, true);
+
+    @Before
+    public void setUp()
+    {
+        when(srv.getTrackerStats()).thenReturn(mock(TrackerStats.class));
+
+        TrackerState state = new TrackerState();
+        state.setLastIndexedTxId(TX_ID);
+        state.setLastIndexedTxCommitTime(TX_COMMIT_TIME);
+        state.setLastIndexedChangeSetId(CHANGE_SET_ID);
+        state.setLastIndexedChangeSetCommitTime(CHANGE_SET_COMMIT_TIME);
+
+        when(metadataTracker.getWriteLock()).thenReturn(metadataWriteLock);
+        when(metadataTracker.getTrackerState()).thenReturn(state);
+        when(metadataTracker.isEnabled()).thenReturn(true);
+        when(aclTracker.getWriteLock()).thenReturn(aclWriteLock);
+        when(aclTracker.getTrackerState()).thenReturn(state);
+        when(aclTracker.isEnabled()).thenReturn(true);
+        when(contentTracker.getWriteLock()).thenReturn(new Semaphore(1, true));
+    }
+
+    @Test
+    public void blockingCommit_shouldHoldTheTrackerWriteLocks() throws Throwable
+    {
+        CommitTracker commitTracker = commitTracker(false);
+        doAnswer(invocation -> {
+            assertEquals(0, metadataWriteLock.availablePermits());
+            assertEquals(0, aclWriteLock.availablePermits());
+            return false;
+        }).when(srv).commit(anyBoolean());
+
+        commitTracker.doTrack("AnIterationId");
+
+        verify(srv).commit(anyBoolean());
+        assertEquals(1, metadataWriteLock.availablePermits());
+        assertEquals(1, aclWriteLock.availablePermits());
+    }
+
+    @Test
+    public void nonBlockingCommit_shouldCommitWithoutTheTrackerWriteLocks() throws Throwable
+    {
+        CommitTracker commitTracker = commitTracker(true);
+        doAnswer(invocation -> {
+            assertEquals(1, metadataWriteLock.availablePermits());
+            assertEquals(1, aclWriteLock.availablePermits());
+            return false;
+        }).when(srv).commit(anyBoolean());
+
+        commitTracker.doTrack("AnIterationId");
+
+        verify(srv).commit(anyBoolean());
+        CommitWatermark watermark = commitTracker.getLastCommitWatermark();
+        assertEquals(TX_ID, watermark.getTxId());
+        assertEquals(TX_COMMIT_TIME, watermark.getTxCommitTime());
+        assertEquals(CHANGE_SET_ID, watermark.getChangeSetId());
+        assertEquals(CHANGE_SET_COMMIT_TIME, watermark.getChangeSetCommitTime());
+    }
+
+    @Test
+    public void nonBlockingCommit_failedCommitShouldNotRecordTheWatermark() throws Throwable
+    {
+        CommitTracker commitTracker = commitTracker(true);
+        when(srv.commit(anyBoolean())).thenThrow(new IllegalStateException("Commit failed"));
+
+        try
+        {
+            commitTracker.doTrack("AnIterationId");
+        }
+        catch (IllegalStateException expected)
+        {
+            // The tracker framework takes care of the failure
+        }
+
+        assertNull(commitTracker.getLastCommitWatermark());
+        assertEquals(1, metadataWriteLock.availablePermits());
+        assertEquals(1, aclWriteLock.availablePermits());
+    }
+
+    @Test
+    public void nonBlockingRollback_shouldRestartTheTrackersFromTheLastCommitWatermark() throws Throwable
+    {
+        CommitTracker commitTracker = commitTracker(true);
+        commitTracker.doTrack("AnIterationId");
+        CommitWatermark watermark = commitTracker.getLastCommitWatermark();
+
+        when(metadataTracker.getRollback()).thenReturn(true);
+        commitTracker.doTrack("AnotherIterationId");
+
+        verify(srv).rollback();
+        verify(metadataTracker).invalidateState(watermark);
+        verify(aclTracker).invalidateState(watermark);
+        verify(srv).commit(anyBoolean());
+        assertEquals(1, commitTracker.getRollbackCount());
+    }
+
+    @Test
+    public void blockingRollback_shouldRestartTheTrackersFromTheIndex() throws Throwable
+    {
+        CommitTracker commitTracker = commitTracker(false);
+        commitTracker.doTrack("AnIterationId");
+
+        when(metadataTracker.getRollback()).thenReturn(true);
+        commitTracker.doTrack("AnotherIterationId");
+
+        verify(srv).rollback();
+        verify(metadataTracker).invalidateState();
+        verify(aclTracker).invalidateState();
+        verify(metadataTracker, never()).invalidateState(commitTracker.getLastCommitWatermark());
+    }
+
+    @Test
+    public void rewind_shouldMoveAStateAheadOfTheWatermarkBack()
+    {
+        TrackerState state = new TrackerState();
+        state.setLastIndexedTxId(TX_ID + 10);
+        state.setLastIndexedTxCommitTime(TX_COMMIT_TIME + 5000);
+        state.setLastIndexedChangeSetId(CHANGE_SET_ID + 10);
+        state.setLastIndexedChangeSetCommitTime(CHANGE_SET_COMMIT_TIME + 5000);
+
+        new CommitWatermark(TX_ID, TX_COMMIT_TIME, CHANGE_SET_ID, CHANGE_SET_COMMIT_TIME).rewind(state, 1000);
+
+        assertEquals(TX_ID, state.getLastIndexedTxId());
+        assertEquals(TX_COMMIT_TIME, state.getLastIndexedTxCommitTime());
+        assertEquals(TX_COMMIT_TIME - 1000, state.getLastGoodTxCommitTimeInIndex());
+        assertEquals(CHANGE_SET_ID, state.getLastIndexedChangeSetId());
+        assertEquals(CHANGE_SET_COMMIT_TIME, state.getLastIndexedChangeSetCommitTime());
+        assertEquals(CHANGE_SET_COMMIT_TIME - 1000, state.getLastGoodChangeSetCommitTimeInIndex());
+    }
+
+    @Test
+    public void rewind_shouldLeaveAStateBehindTheWatermarkUnchanged()
+    {
+        TrackerState state = new TrackerState();
+        state.setLastIndexedTxId(TX_ID - 10);
+        state.setLastIndexedTxCommitTime(TX_COMMIT_TIME - 5000);
+        state.setLastGoodTxCommitTimeInIndex(TX_COMMIT_TIME - 6000);
+
+        new CommitWatermark(TX_ID, TX_COMMIT_TIME, CHANGE_SET_ID, CHANGE_SET_COMMIT_TIME).rewind(state, 1000);
+
+        assertEquals(TX_ID - 10, state.getLastIndexedTxId());
+        assertEquals(TX_COMMIT_TIME - 5000, state.getLastIndexedTxCommitTime());
+        assertEquals(TX_COMMIT_TIME - 6000, state.getLastGoodTxCommitTimeInIndex());
+        assertEquals(0, state.getLastIndexedChangeSetId());
+    }
+
+    private CommitTracker commitTracker(boolean nonBlocking)
+    {
+        Properties properties = new Properties();
+        properties.setProperty("alfresco.commitInterval", "-1");
+        properties.setProperty("alfresco.commit.nonBlocking", Boolean.toString(nonBlocking));
+        return new CommitTracker(properties, repositoryClient, "theCoreName", srv,
+                asList(metadataTracker, aclTracker, contentTracker));
+    }
+}
@@ -78,7 +78,7 @@ public class ContentTrackerIT
     public void doTrackWithNoContentDoesNothing() throws Exception
     {
         this.contentTracker.doTrack("anIterationId");
-        verify(srv, never()).updateContent(any());
+        verify(srv, never()).updateContent(anyList(), any(), anyInt());
         verify(srv, never()).commit();
     }
 
@@ -109,14 +109,14 @@ public class ContentTrackerIT
             doc.tenant = "2";
             docs2.add(doc);
         }
-        when(this.srv.getDocsWithUncleanContent())
+        when(this.srv.getDocsWithUncleanContent(ContentLane.BULK, UPDATE_BATCH))
                 .thenReturn(docs1)
                 .thenReturn(docs2)
             .thenReturn(emptyList);
         this.contentTracker.doTrack("anIterationId");
         
         InOrder order = inOrder(srv);
-        order.verify(srv).getDocsWithUncleanContent();
+        order.verify(srv).getDocsWithUncleanContent(ContentLane.BULK, UPDATE_BATCH);
         
         /*
          * I had to make each bunch of calls have different parameters to prevent Mockito from incorrectly failing
@@ -137,7 +137,7 @@ public class ContentTrackerIT
         order.verify(srv).updateContent(thirdDoc);
         order.verify(srv).commit();
         
-        order.verify(srv).getDocsWithUncleanContent();
+        order.verify(srv).getDocsWithUncleanContent(ContentLane.BULK, UPDATE_BATCH);
         
         // From docs2
         docRef = new TenantDbId();
@@ -146,7 +146,7 @@ public class ContentTrackerIT
         order.verify(srv, times(UPDATE_BATCH)).updateContent(docRef);
         order.verify(srv).commit();
         
-        order.verify(srv).getDocsWithUncleanContent();
+        order.verify(srv).getDocsWithUncleanContent(ContentLane.BULK, UPDATE_BATCH);
     }
     @Test
     public void typeCheck()
@@ -0,0 +1,146 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.tracker;
+
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.alfresco.solr.AlfrescoSolrDataModel.TenantDbId;
+import org.alfresco.solr.InformationServer;
+import org.alfresco.solr.client.SOLRAPIClient;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ContentTrackerTest
+{
+    private static final int UPDATE_BATCH = 100;
+
+    private ContentTracker contentTracker;
+
+    @Mock
+    private SOLRAPIClient repositoryClient;
+
+    @Mock
+    private InformationServer srv;
+
+    @Mock
+    private TrackerStats trackerStats;
+
+    @Before
+    public void setUp()
+    {
+        // A quarter of the parallelism for the recent and small lanes each, the rest for the bulk lane
+        Properties props = new Properties();
+        props.setProperty("alfresco.stores", "workspace://SpacesStore");
+        props.setProperty("alfresco.content.tracker.maxParallelism", "4");
+        props.setProperty("alfresco.contentUpdateBatchSize", String.valueOf(UPDATE_BATCH));
+        props.setProperty("alfresco.contentReadBatchSize", "1");
+        when(srv.getTrackerStats()).thenReturn(trackerStats);
+        this.contentTracker = new ContentTracker(props, repositoryClient, "theCoreName", srv);
+    }
+
+    @Test
+    public void doTrack_shouldRunRecentAndSmallBatchesWhileBulkBatchesAreRunning() throws Exception
+    {
+        when(srv.getDocsWithUncleanContent(ContentLane.RECENT, UPDATE_BATCH)).thenReturn(docs(1)).thenReturn(emptyList());
+        when(srv.getDocsWithUncleanContent(ContentLane.SMALL, UPDATE_BATCH)).thenReturn(docs(2)).thenReturn(emptyList());
+        when(srv.getDocsWithUncleanContent(ContentLane.BULK, UPDATE_BATCH)).thenReturn(docs(3, 4)).thenReturn(emptyList());
+
+        // The bulk batches only complete once the recent and small ones have run
+        CountDownLatch priorityBatches = new CountDownLatch(2);
+        Queue<Boolean> bulkBatchesWaited = new ConcurrentLinkedQueue<>();
+        doAnswer(invocation -> {
+            List<TenantDbId> docs = invocation.getArgument(0);
+            if (docs.get(0).dbId < 3)
+            {
+                priorityBatches.countDown();
+            }
+            else
+            {
+                bulkBatchesWaited.add(priorityBatches.await(10, TimeUnit.SECONDS));
+            }
+            return null;
+        }).when(srv).updateContent(anyList(), any(), anyInt());
+
+        this.contentTracker.doTrack("anIterationId");
+
+        InOrder dispatch = inOrder(srv);
+        dispatch.verify(srv).getDocsWithUncleanContent(ContentLane.RECENT, UPDATE_BATCH);
+        dispatch.verify(srv).getDocsWithUncleanContent(ContentLane.SMALL, UPDATE_BATCH);
+        dispatch.verify(srv).getDocsWithUncleanContent(ContentLane.BULK, UPDATE_BATCH);
+        assertEquals(List.of(true, true), List.copyOf(bulkBatchesWaited));
+        verify(srv, never()).retryContentUpdate(anyList());
+    }
+
+    @Test
+    public void doTrack_shouldLendTheSlotsOfDrainedLanes() throws Exception
+    {
+        when(srv.getDocsWithUncleanContent(ContentLane.RECENT, UPDATE_BATCH)).thenReturn(emptyList());
+        when(srv.getDocsWithUncleanContent(ContentLane.SMALL, UPDATE_BATCH)).thenReturn(emptyList());
+        when(srv.getDocsWithUncleanContent(ContentLane.BULK, UPDATE_BATCH)).thenReturn(docs(1, 2, 3, 4)).thenReturn(emptyList());
+
+        // The bulk lane has a parallelism of 2: the 4 batches only meet when it runs them all at once
+        CyclicBarrier bulkBatches = new CyclicBarrier(4);
+        doAnswer(invocation -> {
+            bulkBatches.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(srv).updateContent(anyList(), any(), anyInt());
+
+        this.contentTracker.doTrack("anIterationId");
+
+        verify(srv, times(4)).updateContent(anyList(), any(), anyInt());
+        verify(srv, never()).retryContentUpdate(anyList());
+        assertFalse(bulkBatches.isBroken());
+    }
+
+    private static List<TenantDbId> docs(long... dbIds)
+    {
+        return LongStream.of(dbIds).mapToObj(dbId -> {
+            TenantDbId doc = new TenantDbId();
+            doc.dbId = dbId;
+            doc.tenant = "";
+            return doc;
+        }).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.tracker;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class MaintenanceQueueTest
+{
+    @Test
+    public void poll_shouldReturnTheOldestIdsInAscendingOrder()
+    {
+        MaintenanceQueue queue = new MaintenanceQueue("Transactions to be indexed", 10);
+        queue.add(7);
+        queue.add(3);
+        queue.add(5);
+        queue.add(1);
+
+        assertArrayEquals(new long[] {3, 5, 7}, queue.poll(3));
+        assertArrayEquals(new long[] {1}, queue.poll(3));
+        assertArrayEquals(new long[0], queue.poll(3));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void add_shouldIgnoreAnIdAlreadyWaiting()
+    {
+        MaintenanceQueue queue = new MaintenanceQueue("Transactions to be indexed", 10);
+        queue.add(1);
+        queue.add(1);
+        assertEquals(1, queue.size());
+
+        // Once polled, the id can be scheduled again
+        queue.poll(10);
+        queue.add(1);
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    public void add_shouldRefuseIdsOnceTheQueueIsFull()
+    {
+        MaintenanceQueue queue = new MaintenanceQueue("Transactions to be indexed", 2);
+        queue.add(1);
+        queue.add(2);
+        queue.add(2);
+
+        try
+        {
+            queue.add(3);
+            fail("The queue should be full");
+        }
+        catch (IllegalStateException expected)
+        {
+            assertTrue(expected.getMessage().startsWith("Transactions to be indexed"));
+        }
+
+        queue.poll(1);
+        queue.add(3);
+        assertArrayEquals(new long[] {2, 3}, queue.poll(10));
+    }
+
+    @Test
+    public void clear_shouldReturnTheIdsRemoved()
+    {
+        MaintenanceQueue queue = new MaintenanceQueue("Nodes to be purged", 10);
+        queue.add(4);
+        queue.add(2);
+
+        assertArrayEquals(new long[] {4, 2}, queue.clear());
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.clear().length);
+    }
+
+    @Test
+    public void rangeEnd_shouldGroupIdsWithinTheMaxSpan()
+    {
+        long[] ids = {1, 2, 5, 10, 11, 30};
+
+        assertEquals(3, MaintenanceQueue.rangeEnd(ids, 0, 9));
+        assertEquals(5, MaintenanceQueue.rangeEnd(ids, 3, 9));
+        assertEquals(6, MaintenanceQueue.rangeEnd(ids, 5, 9));
+        assertEquals(1, MaintenanceQueue.rangeEnd(ids, 0, 1));
+    }
+}
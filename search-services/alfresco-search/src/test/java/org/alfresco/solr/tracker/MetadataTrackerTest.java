@@ -31,8 +31,11 @@ import static org.mockito.Mockito.*;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import org.alfresco.httpclient.AuthenticationException;
 import org.alfresco.repo.index.shard.ShardState;
@@ -47,6 +50,7 @@ import org.alfresco.solr.client.Transaction;
 import org.alfresco.solr.client.Transactions;
 import org.apache.commons.codec.EncoderException;
 import org.json.JSONException;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -82,7 +86,13 @@ public class MetadataTrackerTest
         when(srv.getTrackerStats()).thenReturn(trackerStats);
         String coreName = "theCoreName";
         this.metadataTracker = spy(new MetadataTracker(props, repositoryClient, coreName, srv));
+    }
 
+    /**
+     * doTrack only runs once the models have been tracked.
+     */
+    private void mockModelTracker()
+    {
         ModelTracker modelTracker = mock(ModelTracker.class);
         when(modelTracker.hasModels()).thenReturn(true);
         AlfrescoCoreAdminHandler adminHandler = mock(AlfrescoCoreAdminHandler.class);
@@ -92,10 +102,177 @@ public class MetadataTrackerTest
         when(srv.getAdminHandler()).thenReturn(adminHandler);
     }
 
+    @After
+    public void tearDown()
+    {
+        this.metadataTracker.shutdown();
+    }
+
+    @Test
+    public void trackTransactionsPipelined_shouldIndexTransactionsInDiscoveryOrder() throws Exception
+    {
+        TrackerState state = new TrackerState();
+        state.setLastGoodTxCommitTimeInIndex(1000L);
+        state.setTimeToStopIndexing(10000L);
+        doReturn(state).when(this.metadataTracker).getTrackerState();
+
+        Transaction tx1 = transaction(1L, 1100L);
+        Transaction tx2 = transaction(2L, 1200L);
+        Transaction tx3 = transaction(3L, 1300L);
+        when(repositoryClient.getTransactions(anyLong(), isNull(), anyLong(), isNull(), anyInt()))
+                .thenReturn(new Transactions(List.of(tx1, tx2), 1200L, 2L))
+                .thenReturn(new Transactions(List.of(tx3), 1300L, 3L))
+                .thenReturn(new Transactions(Collections.emptyList(), 1300L, 3L));
+
+        // One node updated by every transaction
+        when(repositoryClient.getNodes(any(GetNodesParameters.class), eq(Integer.MAX_VALUE))).thenAnswer(invocation ->
+                invocation.getArgument(0, GetNodesParameters.class).getTransactionIds().stream()
+                        .map(txId -> {
+                            Node node = new Node();
+                            node.setId(DB_ID + txId);
+                            node.setTxnId(txId);
+                            return node;
+                        })
+                        .collect(Collectors.toList()));
+
+        this.metadataTracker.trackTransactionsPipelined();
+
+        InOrder inOrder = inOrder(srv);
+        inOrder.verify(srv).indexTransaction(tx1, true, true);
+        inOrder.verify(srv).indexTransaction(tx2, true, true);
+        inOrder.verify(srv).indexTransaction(tx3, true, true);
+        verify(srv, times(2)).indexNodes(anyList(), eq(true));
+        verify(repositoryClient, times(2)).getNodes(any(GetNodesParameters.class), eq(Integer.MAX_VALUE));
+        assertEquals(1300L, state.getLastIndexedTxCommitTime());
+        assertEquals(3L, state.getLastIndexedTxId());
+    }
+
+    @Test
+    public void trackTransactionsPipelined_shouldRetryThenQuarantineFailedTransactionBehindTrackerState() throws Exception
+    {
+        this.metadataTracker.shutdown();
+        props.setProperty("alfresco.batch.journal.enabled", "true");
+        props.setProperty("alfresco.batch.journal.maxAttempts", "2");
+        props.setProperty("alfresco.nodeBatchSize", "1");
+        this.metadataTracker = spy(new MetadataTracker(props, repositoryClient, "theCoreName", srv));
+
+        TrackerState state = new TrackerState();
+        state.setLastGoodTxCommitTimeInIndex(1000L);
+        state.setTimeToStopIndexing(10000L);
+        doReturn(state).when(this.metadataTracker).getTrackerState();
+
+        Transaction tx1 = transaction(1L, 1100L);
+        Transaction tx2 = transaction(2L, 1200L);
+        Transaction tx3 = transaction(3L, 1300L);
+        when(repositoryClient.getTransactions(anyLong(), isNull(), anyLong(), isNull(), anyInt()))
+                .thenReturn(new Transactions(List.of(tx1, tx2), 1200L, 2L))
+                .thenReturn(new Transactions(List.of(tx3), 1300L, 3L))
+                .thenReturn(new Transactions(Collections.emptyList(), 1300L, 3L));
+        when(repositoryClient.getNodes(any(GetNodesParameters.class), eq(Integer.MAX_VALUE))).thenAnswer(invocation ->
+                invocation.getArgument(0, GetNodesParameters.class).getTransactionIds().stream()
+                        .map(txId -> {
+                            Node node = new Node();
+                            node.setId(DB_ID + txId);
+                            node.setTxnId(txId);
+                            return node;
+                        })
+                        .collect(Collectors.toList()));
+
+        // The node of the first transaction always fails
+        doAnswer(invocation -> {
+            List<Node> nodes = invocation.getArgument(0);
+            if (nodes.stream().anyMatch(node -> node.getTxnId() == tx1.getId()))
+            {
+                throw new IOException("Node of the first transaction cannot be indexed");
+            }
+            return null;
+        }).when(srv).indexNodes(anyList(), eq(true));
+
+        this.metadataTracker.trackTransactionsPipelined();
+
+        // Retried on the second cycle, then quarantined
+        verify(srv, times(2)).indexNodes(argThat(nodes -> nodes.get(0).getTxnId() == tx1.getId()), eq(true));
+        verify(srv, never()).indexTransaction(eq(tx1), anyBoolean(), anyBoolean());
+        BatchJournal<Transaction> journal = this.metadataTracker.getBatchJournal();
+        assertEquals(List.of(tx1.getId()), journal.getQuarantinedIds());
+        assertEquals(0, journal.getRetryCount());
+
+        // The following transactions are indexed, but the tracker state document stays behind the quarantined one
+        verify(srv).indexTransaction(tx2, true, false);
+        verify(srv).indexTransaction(tx3, true, false);
+        assertEquals(1300L, state.getLastIndexedTxCommitTime());
+    }
+
+    @Test
+    public void maintenance_shouldNotRecordIndexBatchesInTransactionDocsBatchSize() throws Exception
+    {
+        this.metadataTracker.shutdown();
+        props.setProperty("alfresco.adaptiveBatchSize.enabled", "true");
+        props.setProperty("alfresco.adaptiveBatchSize.targetLatency", "0");
+        props.setProperty("alfresco.transactionDocsBatchSize", "4");
+        this.metadataTracker = spy(new MetadataTracker(props, repositoryClient, "theCoreName", srv));
+
+        // Every batch is slower than the target latency: recording a window of them would shrink the size
+        List<Transaction> transactions = LongStream.rangeClosed(1, 4 * AdaptiveBatchSize.WINDOW)
+                .mapToObj(id -> transaction(id, 1000L + id))
+                .collect(Collectors.toList());
+        transactions.forEach(tx -> this.metadataTracker.addTransactionToIndex(tx.getId()));
+        when(repositoryClient.getTransactions(isNull(), anyLong(), isNull(), anyLong(), anyInt()))
+                .thenReturn(new Transactions(transactions, null, null));
+        when(repositoryClient.getNodes(any(GetNodesParameters.class), eq(Integer.MAX_VALUE)))
+                .thenReturn(Collections.emptyList());
+
+        this.metadataTracker.maintenance();
+
+        verify(srv, times(transactions.size())).indexTransaction(any(Transaction.class), eq(false));
+        AdaptiveBatchSize transactionDocsBatchSize = this.metadataTracker.getBatchSizes().get(0);
+        assertEquals("alfresco.transactionDocsBatchSize", transactionDocsBatchSize.getName());
+        assertEquals(4, transactionDocsBatchSize.get());
+    }
+
+    @Test
+    public void shutdown_shouldStopPipelineThreads() throws Exception
+    {
+        TrackerState state = new TrackerState();
+        state.setLastGoodTxCommitTimeInIndex(1000L);
+        state.setTimeToStopIndexing(10000L);
+        doReturn(state).when(this.metadataTracker).getTrackerState();
+        when(repositoryClient.getTransactions(anyLong(), isNull(), anyLong(), isNull(), anyInt()))
+                .thenReturn(new Transactions(Collections.emptyList(), null, null));
+
+        this.metadataTracker.trackTransactionsPipelined();
+        assertFalse(pipelineThreads().isEmpty());
+
+        this.metadataTracker.shutdown();
+
+        for (Thread thread : pipelineThreads())
+        {
+            thread.join(10000L);
+            assertFalse(thread.isAlive());
+        }
+    }
+
+    private static List<Thread> pipelineThreads()
+    {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("MetadataTrackerPipeline-theCoreName-"))
+                .collect(Collectors.toList());
+    }
+
+    private static Transaction transaction(long id, long commitTimeMs)
+    {
+        Transaction tx = new Transaction();
+        tx.setId(id);
+        tx.setCommitTimeMs(commitTimeMs);
+        tx.setUpdates(1);
+        return tx;
+    }
+
     @Test
     @Ignore("Superseded by AlfrescoSolrTrackerTest")
     public void doTrackWithOneTransactionUpdatesOnce() throws AuthenticationException, IOException, JSONException, EncoderException
     {
+        mockModelTracker();
         TrackerState state = new TrackerState();
         state.setTimeToStopIndexing(2L);
         when(srv.getTrackerInitialState()).thenReturn(state);
@@ -128,7 +305,7 @@ public class MetadataTrackerTest
 
         InOrder inOrder = inOrder(srv);
         inOrder.verify(srv).indexNodes(nodes, true);
-        inOrder.verify(srv).indexTransaction(tx, true);
+        inOrder.verify(srv).indexTransaction(tx, true, true);
         inOrder.verify(srv).commit();
     }
 
@@ -136,6 +313,7 @@ public class MetadataTrackerTest
     @Ignore("Superseded by AlfrescoSolrTrackerTest")
     public void doTrackWithNoTransactionsDoesNothing() throws AuthenticationException, IOException, JSONException, EncoderException
     {
+        mockModelTracker();
         TrackerState state = new TrackerState();
         when(srv.getTrackerInitialState()).thenReturn(state);
         when(this.metadataTracker.getTrackerState()).thenReturn(state);
@@ -0,0 +1,104 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.stream.LongStream;
+
+import org.junit.Test;
+
+public class LongBitmapTest
+{
+    @Test
+    public void addedIds_shouldBeContained()
+    {
+        LongBitmap bitmap = new LongBitmap();
+
+        assertTrue(bitmap.add(1));
+        assertTrue(bitmap.add(65535));
+        assertTrue(bitmap.add(65536));
+        assertTrue(bitmap.add(5_000_000_000L));
+        assertFalse(bitmap.add(65536));
+
+        assertTrue(bitmap.contains(1));
+        assertTrue(bitmap.contains(65535));
+        assertTrue(bitmap.contains(65536));
+        assertTrue(bitmap.contains(5_000_000_000L));
+        assertFalse(bitmap.contains(0));
+        assertFalse(bitmap.contains(2));
+        assertFalse(bitmap.contains(65537));
+        assertFalse(bitmap.contains(5_000_000_001L));
+        assertEquals(4, bitmap.cardinality());
+    }
+
+    @Test
+    public void removedIds_shouldNotBeContained()
+    {
+        LongBitmap bitmap = new LongBitmap();
+        bitmap.add(10);
+        bitmap.add(11);
+
+        assertTrue(bitmap.remove(10));
+        assertFalse(bitmap.remove(10));
+        assertFalse(bitmap.remove(1_000_000));
+
+        assertFalse(bitmap.contains(10));
+        assertTrue(bitmap.contains(11));
+        assertEquals(1, bitmap.cardinality());
+    }
+
+    @Test
+    public void addAll_shouldMergeBitmaps()
+    {
+        LongBitmap bitmap = new LongBitmap();
+        bitmap.add(1);
+        LongBitmap other = new LongBitmap();
+        other.add(2);
+        other.add(200_000);
+
+        bitmap.addAll(other);
+
+        assertTrue(bitmap.contains(1));
+        assertTrue(bitmap.contains(2));
+        assertTrue(bitmap.contains(200_000));
+        assertEquals(3, bitmap.cardinality());
+    }
+
+    @Test
+    public void concurrentAdds_shouldNotLoseIds()
+    {
+        LongBitmap bitmap = new LongBitmap();
+
+        LongStream.range(0, 1_000_000).parallel().forEach(bitmap::add);
+
+        assertEquals(1_000_000, bitmap.cardinality());
+        assertTrue(bitmap.ramBytesUsed() < 200_000);
+    }
+}
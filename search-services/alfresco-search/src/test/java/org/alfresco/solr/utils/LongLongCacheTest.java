@@ -0,0 +1,123 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.stream.LongStream;
+
+import org.junit.Test;
+
+public class LongLongCacheTest
+{
+    @Test
+    public void putEntries_shouldBeFound()
+    {
+        LongLongCache cache = new LongLongCache(1000);
+        cache.put(1, 10);
+        cache.put(2, 20);
+        cache.put(2, 21);
+
+        assertTrue(cache.containsKey(1));
+        assertEquals(21, cache.get(2, -1));
+        assertEquals(-1, cache.get(3, -1));
+        assertEquals(2, cache.size());
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void removedEntries_shouldNotBeFound()
+    {
+        LongLongCache cache = new LongLongCache(1000);
+        cache.put(1, 10);
+        cache.put(2, 20);
+
+        assertTrue(cache.remove(1));
+        assertFalse(cache.remove(1));
+
+        assertFalse(cache.containsKey(1));
+        assertTrue(cache.containsKey(2));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void fullCache_shouldEvictAndStayBounded()
+    {
+        LongLongCache cache = new LongLongCache(1000);
+        LongStream.range(0, 10000).forEach(key -> cache.put(key, key));
+
+        assertTrue(cache.size() <= 1008);
+        assertEquals(10000 - cache.size(), cache.getEvictions());
+        assertTrue(cache.containsKey(9999));
+    }
+
+    @Test
+    public void referencedEntries_shouldSurviveTheEviction()
+    {
+        LongLongCache cache = new LongLongCache(16000);
+        LongStream.range(0, 8000).forEach(key -> cache.put(key, key));
+        LongStream.range(0, 8000).filter(key -> key % 2 == 0).forEach(cache::containsKey);
+
+        // The hand has to pass over the referenced entries to evict the other ones
+        LongStream.range(8000, 20000).forEach(key -> cache.put(key, key));
+
+        assertTrue(cache.getEvictions() > 0);
+        assertTrue(LongStream.range(0, 8000).filter(key -> key % 2 == 0).allMatch(cache::containsKey));
+    }
+
+    @Test
+    public void removeIf_shouldRemoveTheMatchingEntries()
+    {
+        LongLongCache cache = new LongLongCache(1000);
+        LongStream.range(0, 50).forEach(key -> cache.put(key, key * 10));
+
+        assertEquals(25, cache.removeIf((key, value) -> value >= 250));
+
+        assertEquals(25, cache.size());
+        assertTrue(cache.containsKey(24));
+        assertFalse(cache.containsKey(25));
+    }
+
+    @Test
+    public void clearedCache_shouldBeReusable()
+    {
+        LongLongCache cache = new LongLongCache(1000);
+        LongStream.range(0, 100).forEach(key -> cache.put(key, key));
+
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertFalse(cache.containsKey(1));
+        LongStream.range(100, 150).forEach(key -> cache.put(key, key));
+        assertEquals(50, cache.size());
+        assertEquals(120, cache.get(120, -1));
+        assertEquals(0, cache.removeIf((key, value) -> key < 100));
+    }
+}
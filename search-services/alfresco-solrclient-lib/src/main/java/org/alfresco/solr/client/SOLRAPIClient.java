@@ -27,7 +27,9 @@
 package org.alfresco.solr.client;
 
 import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.JsonToken;
 import org.alfresco.error.AlfrescoRuntimeException;
 import org.alfresco.httpclient.AlfrescoHttpClient;
@@ -76,15 +78,18 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.util.Optional.ofNullable;
 
@@ -182,34 +187,66 @@ public class SOLRAPIClient
         url.append(args);
         
         GetRequest req = new GetRequest(url.toString());
-        JSONObject json = callRepository(GET_ACL_CHANGESETS_URL, req);
-        
-        JSONArray aclChangeSetsJSON = json.getJSONArray("aclChangeSets");
-        List<AclChangeSet> aclChangeSets = new ArrayList<AclChangeSet>(aclChangeSetsJSON.length());
-        for (int i = 0; i < aclChangeSetsJSON.length(); i++)
-        {
-            JSONObject aclChangeSetJSON = aclChangeSetsJSON.getJSONObject(i);
-            long aclChangeSetId = aclChangeSetJSON.getLong("id");
-            long commitTimeMs = aclChangeSetJSON.getLong("commitTimeMs");
-            int aclCount = aclChangeSetJSON.getInt("aclCount");
-            AclChangeSet aclChangeSet = new AclChangeSet(aclChangeSetId, commitTimeMs, aclCount);
-            aclChangeSets.add(aclChangeSet);
-        }
+        return callRepository(GET_ACL_CHANGESETS_URL, req, this::parseAclChangeSets);
+    }
 
+    private AclChangeSets parseAclChangeSets(JsonParser parser) throws IOException
+    {
+        List<AclChangeSet> aclChangeSets = null;
         Long maxChangeSetCommitTime = null;
-        if(json.has("maxChangeSetCommitTime"))
-        {
-            maxChangeSetCommitTime = json.getLong("maxChangeSetCommitTime");
+        Long maxChangeSetIdOnServer = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            switch (fieldName)
+            {
+                case "aclChangeSets":
+                    aclChangeSets = parseArray(parser, this::parseAclChangeSet);
+                    break;
+                case "maxChangeSetCommitTime":
+                    maxChangeSetCommitTime = longValueOrNull(parser);
+                    break;
+                case "maxChangeSetId":
+                    maxChangeSetIdOnServer = longValueOrNull(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
         }
 
-        Long maxChangeSetIdOnServer = null;
-        if(json.has("maxChangeSetId"))
-        {
-            maxChangeSetIdOnServer = json.getLong("maxChangeSetId");
+        return new AclChangeSets(requireField(GET_ACL_CHANGESETS_URL, "aclChangeSets", aclChangeSets),
+                maxChangeSetCommitTime, maxChangeSetIdOnServer);
+    }
+
+    private AclChangeSet parseAclChangeSet(JsonParser parser) throws IOException
+    {
+        expect(parser, JsonToken.START_OBJECT);
+        long aclChangeSetId = 0;
+        long commitTimeMs = 0;
+        int aclCount = 0;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            switch (fieldName)
+            {
+                case "id":
+                    aclChangeSetId = parser.getValueAsLong();
+                    break;
+                case "commitTimeMs":
+                    commitTimeMs = parser.getValueAsLong();
+                    break;
+                case "aclCount":
+                    aclCount = parser.getValueAsInt();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
         }
-        
-        // Done
-        return new AclChangeSets(aclChangeSets, maxChangeSetCommitTime, maxChangeSetIdOnServer);
+        return new AclChangeSet(aclChangeSetId, commitTimeMs, aclCount);
     }
     
     /**
@@ -250,20 +287,32 @@ public class SOLRAPIClient
         jsonReq.put("aclChangeSetIds", aclChangeSetIdsJSON);
 
         PostRequest req = new PostRequest(url.toString(), jsonReq.toString(), "application/json");
-        JSONObject json = callRepository(GET_ACL_CHANGESETS_URL, req);
+        return callRepository(GET_ACLS, req, parser -> parseResponseArray(GET_ACLS, "acls", parser, this::parseAcl));
+    }
 
-        JSONArray aclsJSON = json.getJSONArray("acls");
-        List<Acl> acls = new ArrayList<Acl>(aclsJSON.length());
-        for (int i = 0; i < aclsJSON.length(); i++)
-        {
-            JSONObject aclJSON = aclsJSON.getJSONObject(i);
-            long aclChangeSetId = aclJSON.getLong("aclChangeSetId");
-            long aclId = aclJSON.getLong("id");
-            Acl acl = new Acl(aclChangeSetId, aclId);
-            acls.add(acl);
+    private Acl parseAcl(JsonParser parser) throws IOException
+    {
+        expect(parser, JsonToken.START_OBJECT);
+        long aclChangeSetId = 0;
+        long aclId = 0;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            switch (fieldName)
+            {
+                case "aclChangeSetId":
+                    aclChangeSetId = parser.getValueAsLong();
+                    break;
+                case "id":
+                    aclId = parser.getValueAsLong();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
         }
-        // Done
-        return acls;
+        return new Acl(aclChangeSetId, aclId);
     }
     
     /**
@@ -288,49 +337,49 @@ public class SOLRAPIClient
         jsonReq.put("aclIds", aclIdsJSON);
 
         PostRequest req = new PostRequest(url.toString(), jsonReq.toString(), "application/json");
-        JSONObject json = callRepository(GET_ACLS_READERS, req);
-
-        JSONArray aclsReadersJSON = json.getJSONArray("aclsReaders");
-        List<AclReaders> aclsReaders = new ArrayList<AclReaders>(aclsReadersJSON.length());
-        for (int i = 0; i < aclsReadersJSON.length(); i++)
-        {
-            JSONObject aclReadersJSON = aclsReadersJSON.getJSONObject(i);
-            long aclId = aclReadersJSON.getLong("aclId");
-            JSONArray readersJSON = aclReadersJSON.getJSONArray("readers");
-            List<String> readers = authorityListFromJSON(readersJSON);
-            JSONArray deniedJSON = aclReadersJSON.getJSONArray("denied");
-            List<String> denied = authorityListFromJSON(deniedJSON);
-            long aclChangeSetId = aclReadersJSON.getLong("aclChangeSetId");
-            
-            String tenantDomain = aclReadersJSON.getString("tenantDomain");
-            if (tenantDomain == null)
-            {
-                tenantDomain = TenantService.DEFAULT_DOMAIN;
-            }
-            
-            AclReaders aclReaders = new AclReaders(aclId, readers, denied, aclChangeSetId, tenantDomain);
-            aclsReaders.add(aclReaders);
-        }
-        // Done
-        return aclsReaders;
+        return callRepository(GET_ACLS_READERS, req, parser -> parseResponseArray(GET_ACLS_READERS, "aclsReaders", parser, this::parseAclReaders));
     }
-    
-    /**
-     * Convert a JSON array of authorities to a simple Java List&lt;String&gt;
-     * 
-     * @param jsonArray JSONArray
-     * @return List&lt;String&gt;
-     * @throws JSONException
-     */
-    private List<String> authorityListFromJSON(JSONArray jsonArray) throws JSONException
+
+    private AclReaders parseAclReaders(JsonParser parser) throws IOException
     {
-        List<String> authorities = new ArrayList<String>(jsonArray.length());
-        for (int j = 0; j < jsonArray.length(); j++)
+        expect(parser, JsonToken.START_OBJECT);
+        long aclId = 0;
+        List<String> readers = Collections.emptyList();
+        List<String> denied = Collections.emptyList();
+        long aclChangeSetId = 0;
+        String tenantDomain = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            switch (fieldName)
+            {
+                case "aclId":
+                    aclId = parser.getValueAsLong();
+                    break;
+                case "readers":
+                    readers = parseArray(parser, SOLRAPIClient::stringValue);
+                    break;
+                case "denied":
+                    denied = parseArray(parser, SOLRAPIClient::stringValue);
+                    break;
+                case "aclChangeSetId":
+                    aclChangeSetId = parser.getValueAsLong();
+                    break;
+                case "tenantDomain":
+                    tenantDomain = stringValue(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        if (tenantDomain == null)
         {
-            String authority = jsonArray.getString(j);
-            authorities.add(authority);
+            tenantDomain = TenantService.DEFAULT_DOMAIN;
         }
-        return authorities;
+        return new AclReaders(aclId, readers, denied, aclChangeSetId, tenantDomain);
     }
     
     public Transactions getTransactions(Long fromCommitTime, Long minTxnId, Long toCommitTime, Long maxTxnId, int maxResults) throws AuthenticationException, IOException, JSONException
@@ -575,165 +624,174 @@ public class SOLRAPIClient
 
         
         PostRequest req = new PostRequest(url.toString(), body.toString(), "application/json");
-        JSONObject json = callRepository(GET_NODES_URL, req);
-
-        JSONArray jsonNodes = json.getJSONArray("nodes");
-        List<Node> nodes = new ArrayList<>(jsonNodes.length());
-        for(int i = 0; i < jsonNodes.length(); i++)
-        {
-            JSONObject jsonNodeInfo = jsonNodes.getJSONObject(i);
-            Node nodeInfo = new Node();
-            if(jsonNodeInfo.has("id"))
-            {
-                nodeInfo.setId(jsonNodeInfo.getLong("id"));
-            }
-
-            if(jsonNodeInfo.has("nodeRef"))
-            {
-                nodeInfo.setNodeRef(jsonNodeInfo.getString("nodeRef"));
-            }
-            
-            if(jsonNodeInfo.has("txnId"))
-            {
-                nodeInfo.setTxnId(jsonNodeInfo.getLong("txnId"));
-            }
-            
-            if(jsonNodeInfo.has("aclId"))
-            {
-                nodeInfo.setAclId(jsonNodeInfo.getLong("aclId"));
-            }
-            
-            if(jsonNodeInfo.has("shardPropertyValue"))
-            {
-                nodeInfo.setShardPropertyValue(jsonNodeInfo.getString("shardPropertyValue"));
-            }
-
-            if(jsonNodeInfo.has("explicitShardId"))
-            {
-                nodeInfo.setExplicitShardId(jsonNodeInfo.getInt("explicitShardId"));
-            }
-            
-            if(jsonNodeInfo.has("tenant"))
-            {
-                nodeInfo.setTenant(jsonNodeInfo.getString("tenant"));
-            }
+        return callRepository(GET_NODES_URL, req, parser -> parseResponseArray(GET_NODES_URL, "nodes", parser, this::parseNode));
+    }
 
-            if(jsonNodeInfo.has("status"))
-            {
-                Node.SolrApiNodeStatus status;
-                String statusStr = jsonNodeInfo.getString("status");
-                if(statusStr.equals("u"))
-                {
-                    status = Node.SolrApiNodeStatus.UPDATED;
-                }
-                else if(statusStr.equals("d"))
-                {
-                    status = Node.SolrApiNodeStatus.DELETED;
-                }
-                else
-                {
-                    status = Node.SolrApiNodeStatus.UNKNOWN;
-                }
-                nodeInfo.setStatus(status);
+    private Node parseNode(JsonParser parser) throws IOException
+    {
+        expect(parser, JsonToken.START_OBJECT);
+        Node nodeInfo = new Node();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            switch (fieldName)
+            {
+                case "id":
+                    nodeInfo.setId(parser.getValueAsLong());
+                    break;
+                case "nodeRef":
+                    nodeInfo.setNodeRef(stringValue(parser));
+                    break;
+                case "txnId":
+                    nodeInfo.setTxnId(parser.getValueAsLong());
+                    break;
+                case "aclId":
+                    nodeInfo.setAclId(parser.getValueAsLong());
+                    break;
+                case "shardPropertyValue":
+                    nodeInfo.setShardPropertyValue(stringValue(parser));
+                    break;
+                case "explicitShardId":
+                    nodeInfo.setExplicitShardId(parser.getValueAsInt());
+                    break;
+                case "tenant":
+                    nodeInfo.setTenant(stringValue(parser));
+                    break;
+                case "status":
+                    String statusStr = stringValue(parser);
+                    Node.SolrApiNodeStatus status;
+                    if ("u".equals(statusStr))
+                    {
+                        status = Node.SolrApiNodeStatus.UPDATED;
+                    }
+                    else if ("d".equals(statusStr))
+                    {
+                        status = Node.SolrApiNodeStatus.DELETED;
+                    }
+                    else
+                    {
+                        status = Node.SolrApiNodeStatus.UNKNOWN;
+                    }
+                    nodeInfo.setStatus(status);
+                    break;
+                default:
+                    parser.skipChildren();
             }
-            
-            nodes.add(nodeInfo);
         }
-
-        return nodes;
+        return nodeInfo;
     }
     
-    private PropertyValue getSinglePropertyValue(DataTypeDefinition dataType, Object value) throws JSONException
+    private PropertyValue parseSinglePropertyValue(DataTypeDefinition dataType, JsonParser parser) throws IOException
     {
-        PropertyValue ret = null;
         QName dataTypeName = dataType.getName();
 
-        if(value == null || value == JSONObject.NULL)
+        if (parser.getCurrentToken() == JsonToken.VALUE_NULL)
         {
-            ret = null;
+            return null;
         }
-        else if(dataTypeName.equals(DataTypeDefinition.MLTEXT))
+        else if (dataTypeName.equals(DataTypeDefinition.MLTEXT))
         {
-            JSONArray a = (JSONArray)value;
-            Map<Locale, String> mlValues = new HashMap<Locale, String>(a.length());
-
-            for(int k = 0; k < a.length(); k++)
+            expect(parser, JsonToken.START_ARRAY);
+            Map<Locale, String> mlValues = new HashMap<>();
+            while (parser.nextToken() != JsonToken.END_ARRAY)
             {
-                JSONObject pair = a.getJSONObject(k);
-                Locale locale = deserializer.deserializeValue(Locale.class, pair.getString("locale"));
-                String mlValue = pair.has("value") && !pair.isNull("value") ? pair.getString("value") : null;
+                expect(parser, JsonToken.START_OBJECT);
+                Locale locale = null;
+                String mlValue = null;
+                while (parser.nextToken() == JsonToken.FIELD_NAME)
+                {
+                    String fieldName = parser.getCurrentName();
+                    parser.nextToken();
+                    switch (fieldName)
+                    {
+                        case "locale":
+                            locale = deserializer.deserializeValue(Locale.class, stringValue(parser));
+                            break;
+                        case "value":
+                            mlValue = stringValue(parser);
+                            break;
+                        default:
+                            parser.skipChildren();
+                    }
+                }
                 mlValues.put(locale, mlValue);
             }
-
-            ret = new MLTextPropertyValue(mlValues);
+            return new MLTextPropertyValue(mlValues);
         }
-        else if(dataTypeName.equals(DataTypeDefinition.CONTENT))
+        else if (dataTypeName.equals(DataTypeDefinition.CONTENT))
         {
-            JSONObject o = (JSONObject)value;
-            
-            String localeStr = o.has("locale") && !o.isNull("locale") ? o.getString("locale") : null;
-            Locale locale = (o.has("locale") && !o.isNull("locale") ? deserializer.deserializeValue(Locale.class, localeStr) : null);
-
-            long size = o.has("size") && !o.isNull("size") ? o.getLong("size") : 0;
-
-            String encoding = o.has("encoding") && !o.isNull("encoding") ? o.getString("encoding") : null;
-            String mimetype = o.has("mimetype") && !o.isNull("mimetype") ? o.getString("mimetype") : null;
-
-            Long id = o.has("contentId") && !o.isNull("contentId") ? o.getLong("contentId") : null;
-            
-            ret = new ContentPropertyValue(locale, size, encoding, mimetype, id);
+            expect(parser, JsonToken.START_OBJECT);
+            Locale locale = null;
+            long size = 0;
+            String encoding = null;
+            String mimetype = null;
+            Long id = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME)
+            {
+                String fieldName = parser.getCurrentName();
+                parser.nextToken();
+                switch (fieldName)
+                {
+                    case "locale":
+                        String localeStr = stringValue(parser);
+                        locale = localeStr != null ? deserializer.deserializeValue(Locale.class, localeStr) : null;
+                        break;
+                    case "size":
+                        size = parser.getValueAsLong();
+                        break;
+                    case "encoding":
+                        encoding = stringValue(parser);
+                        break;
+                    case "mimetype":
+                        mimetype = stringValue(parser);
+                        break;
+                    case "contentId":
+                        id = longValueOrNull(parser);
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            return new ContentPropertyValue(locale, size, encoding, mimetype, id);
         }
         else
         {
-            ret = new StringPropertyValue((String)value);
+            return new StringPropertyValue(stringValue(parser));
         }
-        
-        return ret;
     }
 
-    private PropertyValue getPropertyValue(PropertyDefinition propertyDef, Object value) throws JSONException
+    private PropertyValue parsePropertyValue(PropertyDefinition propertyDef, JsonParser parser) throws IOException
     {
-        PropertyValue ret = null;
-
-        if(value == null || value == JSONObject.NULL)
+        if (parser.getCurrentToken() == JsonToken.VALUE_NULL)
         {
-            ret = null;
+            return null;
         }
-        else if(propertyDef == null)
+        else if (propertyDef == null)
         {
             // assume a string
-            ret = new StringPropertyValue((String)value);
+            return new StringPropertyValue(stringValue(parser));
         }
-        else
+
+        DataTypeDefinition dataType = propertyDef.getDataType();
+        if (propertyDef.isMultiValued())
         {
-            DataTypeDefinition dataType = propertyDef.getDataType();
-            
-            boolean isMulti = propertyDef.isMultiValued();
-            if(isMulti)
+            if (parser.getCurrentToken() != JsonToken.START_ARRAY)
             {
-                if(!(value instanceof JSONArray))
-                {
-                    throw new IllegalArgumentException("Expected json array, got " + value.getClass().getName());
-                }
-
-                MultiPropertyValue multi = new MultiPropertyValue();
-                JSONArray array = (JSONArray)value;
-                for(int j = 0; j < array.length(); j++)
-                {
-                    multi.addValue(getSinglePropertyValue(dataType, array.get(j)));
-                }
-    
-                ret = multi;
+                throw new IllegalArgumentException("Expected json array, got " + parser.getCurrentToken());
             }
-            else
+
+            MultiPropertyValue multi = new MultiPropertyValue();
+            while (parser.nextToken() != JsonToken.END_ARRAY)
             {
-                ret = getSinglePropertyValue(dataType, value);
+                multi.addValue(parseSinglePropertyValue(dataType, parser));
             }
+            return multi;
         }
-        
-        return ret;
+        return parseSinglePropertyValue(dataType, parser);
     }
-    
+
     public List<NodeMetaData> getNodesMetaData(NodeMetaDataParameters params) throws AuthenticationException, IOException, JSONException
     {
         List<Long> nodeIds = params.getNodeIds();
@@ -809,187 +867,153 @@ public class SOLRAPIClient
         }
 
         PostRequest req = new PostRequest(url.toString(), body.toString(), "application/json");
-        JSONObject json = callRepository(GET_METADATA_URL, req);
+        return callRepository(GET_METADATA_URL, req, parser -> parseResponseArray(GET_METADATA_URL, "nodes", parser, this::parseNodeMetaData));
+    }
 
-        JSONArray jsonNodes = json.getJSONArray("nodes");
-        List<NodeMetaData> nodes = new ArrayList<>(jsonNodes.length());
-        for(int i = 0; i < jsonNodes.length(); i++)
-        {
-            JSONObject jsonNodeInfo = jsonNodes.getJSONObject(i);
-            NodeMetaData metaData = new NodeMetaData();
-            
-            if(jsonNodeInfo.has("id"))
-            {
-                metaData.setId(jsonNodeInfo.getLong("id"));
-            }
-            
-            if(jsonNodeInfo.has("tenantDomain"))
-            {
-                metaData.setTenantDomain(jsonNodeInfo.getString("tenantDomain"));
-            }
-            
-            if(jsonNodeInfo.has("txnId"))
-            {
-                metaData.setTxnId(jsonNodeInfo.getLong("txnId"));
-            }
-            
-            if(jsonNodeInfo.has("aclId"))
-            {
-                metaData.setAclId(jsonNodeInfo.getLong("aclId"));
+    private NodeMetaData parseNodeMetaData(JsonParser parser) throws IOException
+    {
+        expect(parser, JsonToken.START_OBJECT);
+        NodeMetaData metaData = new NodeMetaData();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            switch (fieldName)
+            {
+                case "id":
+                    metaData.setId(parser.getValueAsLong());
+                    break;
+                case "tenantDomain":
+                    metaData.setTenantDomain(stringValue(parser));
+                    break;
+                case "txnId":
+                    metaData.setTxnId(parser.getValueAsLong());
+                    break;
+                case "aclId":
+                    metaData.setAclId(parser.getValueAsLong());
+                    break;
+                case "nodeRef":
+                    metaData.setNodeRef(new NodeRef(stringValue(parser)));
+                    break;
+                case "type":
+                    metaData.setType(deserializer.deserializeValue(QName.class, stringValue(parser)));
+                    break;
+                case "aspects":
+                    metaData.setAspects(new HashSet<>(parseArray(parser, p -> deserializer.deserializeValue(QName.class, stringValue(p)))));
+                    break;
+                case "paths":
+                    parsePaths(parser, metaData);
+                    break;
+                case "namePaths":
+                    metaData.setNamePaths(parseArray(parser, this::parseNamePath));
+                    break;
+                case "ancestors":
+                    metaData.setAncestors(new HashSet<>(parseArray(parser, p -> new NodeRef(stringValue(p)))));
+                    break;
+                case "properties":
+                    metaData.setProperties(parseProperties(parser));
+                    break;
+                case "parentAssocsCrc":
+                    metaData.setParentAssocsCrc(parser.getValueAsLong());
+                    break;
+                case "parentAssocs":
+                    metaData.setParentAssocs(parseArray(parser, p -> new ChildAssociationRef(stringValue(p))));
+                    break;
+                case "childAssocs":
+                    metaData.setChildAssocs(parseArray(parser, p -> new ChildAssociationRef(stringValue(p))));
+                    break;
+                case "childIds":
+                    metaData.setChildIds(parseArray(parser, JsonParser::getValueAsLong));
+                    break;
+                case "owner":
+                    metaData.setOwner(stringValue(parser));
+                    break;
+                default:
+                    parser.skipChildren();
             }
+        }
+        return metaData;
+    }
 
-            if(jsonNodeInfo.has("nodeRef"))
-            {
-                metaData.setNodeRef(new NodeRef(jsonNodeInfo.getString("nodeRef")));
-            }
-            
-            if(jsonNodeInfo.has("type"))
-            {
-                metaData.setType(deserializer.deserializeValue(QName.class, jsonNodeInfo.getString("type")));
-            }
-            
-            if(jsonNodeInfo.has("aspects"))
-            {
-                JSONArray jsonAspects = jsonNodeInfo.getJSONArray("aspects");
-                Set<QName> aspects = new HashSet<QName>(jsonAspects.length());
-                for(int j = 0; j < jsonAspects.length(); j++)
-                {
-                    String jsonAspect = (String)jsonAspects.get(j);
-                    aspects.add(deserializer.deserializeValue(QName.class, jsonAspect));
-                }
-                metaData.setAspects(aspects);
-            }
+    private void parsePaths(JsonParser parser, NodeMetaData metaData) throws IOException
+    {
+        expect(parser, JsonToken.START_ARRAY);
+        List<Pair<String, QName>> paths = new ArrayList<>();
+        List<String> ancestorPaths = new ArrayList<>();
 
-            if(jsonNodeInfo.has("paths"))
-            {
-                JSONArray jsonPaths = jsonNodeInfo.getJSONArray("paths");
-                List<Pair<String, QName>> paths = new ArrayList<Pair<String, QName>>(jsonPaths.length());
-                List<String> ancestorPaths = new ArrayList<String>();
-                for(int j = 0; j < jsonPaths.length(); j++)
-                {
-                    JSONObject path = jsonPaths.getJSONObject(j);
-                    String pathValue = path.getString("path");
-                    QName qname = path.has("qname") ? deserializer.deserializeValue(QName.class, path.getString("qname")) : null;
-                    paths.add(new Pair<String, QName>(pathValue, qname));
-                    if(path.has("apath"))
-                    {
-                    	String ancestorPath = path.getString("apath");
-                    	ancestorPaths.add(ancestorPath);
-                    }
-                }
-                metaData.setPaths(paths);
-                metaData.setAncestorPaths(ancestorPaths);
-            }
-            
-            if(jsonNodeInfo.has("namePaths"))
-            {
-                JSONArray jsonNamePaths = jsonNodeInfo.getJSONArray("namePaths");
-                List<List<String>> namePaths = new ArrayList<List<String>>(jsonNamePaths.length());
-                for(int j = 0; j < jsonNamePaths.length(); j++)
-                {
-                    JSONObject jsonNamePath = jsonNamePaths.getJSONObject(j);
-                    JSONArray jsonNameElements = jsonNamePath.getJSONArray("namePath");
-                    List<String> namePath = new ArrayList<String>(jsonNameElements.length());
-                    for(int k = 0; k < jsonNameElements.length(); k++)
-                    {
-                        String namePathElement =  jsonNameElements.getString(k);
-                        namePath.add(namePathElement);
-                    }
-                    namePaths.add(namePath);
-                }
-                metaData.setNamePaths(namePaths);
-            }
-            
-            if(jsonNodeInfo.has("ancestors"))
+        while (parser.nextToken() != JsonToken.END_ARRAY)
+        {
+            expect(parser, JsonToken.START_OBJECT);
+            String pathValue = null;
+            QName qname = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME)
             {
-                JSONArray jsonAncestors = jsonNodeInfo.getJSONArray("ancestors");
-                HashSet<NodeRef> ancestors = new HashSet<NodeRef>(jsonAncestors.length());
-                for(int j = 0; j < jsonAncestors.length(); j++)
+                String fieldName = parser.getCurrentName();
+                parser.nextToken();
+                switch (fieldName)
                 {
-                    String ancestorNodeRefString = jsonAncestors.getString(j);
-                    NodeRef ancestorNodeRef = new NodeRef(ancestorNodeRefString);
-                    ancestors.add(ancestorNodeRef);
+                    case "path":
+                        pathValue = stringValue(parser);
+                        break;
+                    case "qname":
+                        String qnameStr = stringValue(parser);
+                        qname = qnameStr != null ? deserializer.deserializeValue(QName.class, qnameStr) : null;
+                        break;
+                    case "apath":
+                        String ancestorPath = stringValue(parser);
+                        if (ancestorPath != null)
+                        {
+                            ancestorPaths.add(ancestorPath);
+                        }
+                        break;
+                    default:
+                        parser.skipChildren();
                 }
-                metaData.setAncestors(ancestors);
             }
+            paths.add(new Pair<>(pathValue, qname));
+        }
 
-            if(jsonNodeInfo.has("properties"))
-            {
-                JSONObject jsonProperties = jsonNodeInfo.getJSONObject("properties");
-                Map<QName, PropertyValue> properties = new HashMap<QName, PropertyValue>(jsonProperties.length());
-                @SuppressWarnings("rawtypes")
-                Iterator propKeysIterator = jsonProperties.keys();
-                while(propKeysIterator.hasNext())
-                {
-                    String propName = (String)propKeysIterator.next();
-                    QName propQName = deserializer.deserializeValue(QName.class, propName);
-                    Object propValueObj = jsonProperties.opt(propName);
-
-                    // check the expected property type to determine how to process the value
-                    PropertyDefinition propertyDef = dictionaryService.getProperty(propQName);
-//                    if(propertyDef == null)
-//                    {
-//                        // TODO which exception here?
-//                        throw new IllegalArgumentException("Could not find property definition for property " + propName);
-//                    }
-                    
-                    properties.put(propQName, getPropertyValue(propertyDef, propValueObj));
-                }
-                metaData.setProperties(properties);
-            }
-            
-            if(jsonNodeInfo.has("parentAssocsCrc"))
-            {
-                metaData.setParentAssocsCrc(jsonNodeInfo.getLong("parentAssocsCrc"));
-            }
-            
-            if(jsonNodeInfo.has("parentAssocs"))
-            {
-                JSONArray jsonParentAssocs = jsonNodeInfo.getJSONArray("parentAssocs");
-                List<ChildAssociationRef> assocs = new ArrayList<ChildAssociationRef>(jsonParentAssocs.length());
-                for(int j = 0; j < jsonParentAssocs.length(); j++)
-                {
-                    String childAssocRefStr = jsonParentAssocs.getString(j);
-                    ChildAssociationRef childAssociationRef = new ChildAssociationRef(childAssocRefStr);
-                    assocs.add(childAssociationRef);
-                }
-                metaData.setParentAssocs(assocs);
-            }
-            
-            if(jsonNodeInfo.has("childAssocs"))
-            {
-                JSONArray jsonParentAssocs = jsonNodeInfo.getJSONArray("childAssocs");
-                List<ChildAssociationRef> assocs = new ArrayList<ChildAssociationRef>(jsonParentAssocs.length());
-                for(int j = 0; j < jsonParentAssocs.length(); j++)
-                {
-                    String childAssocRefStr = jsonParentAssocs.getString(j);
-                    ChildAssociationRef childAssociationRef = new ChildAssociationRef(childAssocRefStr);
-                    assocs.add(childAssociationRef);
-                }
-                metaData.setChildAssocs(assocs);
-            }
-            
-            if(jsonNodeInfo.has("childIds"))
+        metaData.setPaths(paths);
+        metaData.setAncestorPaths(ancestorPaths);
+    }
+
+    private List<String> parseNamePath(JsonParser parser) throws IOException
+    {
+        expect(parser, JsonToken.START_OBJECT);
+        List<String> namePath = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            if ("namePath".equals(fieldName))
             {
-                JSONArray jsonChildIds = jsonNodeInfo.getJSONArray("childIds");
-                List<Long> childIds = new ArrayList<Long>(jsonChildIds.length());
-                for(int j = 0; j < jsonChildIds.length(); j++)
-                {
-                    Long childId = jsonChildIds.getLong(j);
-                    childIds.add(childId);
-                }
-                metaData.setChildIds(childIds);
+                namePath = parseArray(parser, SOLRAPIClient::stringValue);
             }
-            
-            if(jsonNodeInfo.has("owner"))
+            else
             {
-                metaData.setOwner(jsonNodeInfo.getString("owner"));
+                parser.skipChildren();
             }
-            
-            nodes.add(metaData);
         }
+        return requireField(GET_METADATA_URL, "namePath", namePath);
+    }
+
+    private Map<QName, PropertyValue> parseProperties(JsonParser parser) throws IOException
+    {
+        expect(parser, JsonToken.START_OBJECT);
+        Map<QName, PropertyValue> properties = new HashMap<>();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            QName propQName = deserializer.deserializeValue(QName.class, parser.getCurrentName());
+            parser.nextToken();
 
-        return nodes;
+            // check the expected property type to determine how to process the value
+            PropertyDefinition propertyDef = dictionaryService.getProperty(propQName);
+            properties.put(propQName, parsePropertyValue(propertyDef, parser));
+        }
+        return properties;
     }
     
     public GetTextContentResponse getTextContent(Long nodeId, QName propertyQName, Long modifiedSince) throws AuthenticationException, IOException {
@@ -1049,6 +1073,60 @@ public class SOLRAPIClient
 
         return new GetTextContentResponse(response);
     }
+
+    /**
+     * Fetches the text content of a batch of nodes.
+     * The repository serves the text content of one node per request, so the batch is fetched with concurrent
+     * requests sharing the client connection pool. Up to maxConcurrentRequests fetchers take the nodes one by one:
+     * the calling thread is one of them and the others run in the given pool. When the caller is a task of that pool,
+     * the fetchers which haven't started by the time it runs out of nodes are run, and finish at once, on its thread.
+     * Each response is handed to the consumer on the thread that fetched it, and released when the consumer returns.
+     *
+     * @param nodeIds the nodes whose text content has to be fetched.
+     * @param propertyQName the content property.
+     * @param pool the pool where the fetchers other than the calling thread run.
+     * @param maxConcurrentRequests the maximum number of requests outstanding at any time.
+     * @param consumer the consumer of each response.
+     * @return the failures by node id; the nodes which are not listed have been fetched and consumed.
+     */
+    public Map<Long, Exception> getTextContent(List<Long> nodeIds, QName propertyQName, ForkJoinPool pool,
+            int maxConcurrentRequests, TextContentConsumer consumer)
+    {
+        Map<Long, Exception> failures = new ConcurrentHashMap<>();
+        AtomicInteger nextNode = new AtomicInteger();
+        Runnable fetcher = () -> {
+            for (int i = nextNode.getAndIncrement(); i < nodeIds.size(); i = nextNode.getAndIncrement())
+            {
+                Long nodeId = nodeIds.get(i);
+                try (GetTextContentResponse response = getTextContent(nodeId, propertyQName, null))
+                {
+                    consumer.accept(nodeId, response);
+                }
+                catch (Exception exception)
+                {
+                    failures.put(nodeId, exception);
+                }
+            }
+        };
+
+        List<ForkJoinTask<?>> fetchers = new ArrayList<>();
+        for (int i = 1; i < Math.min(maxConcurrentRequests, nodeIds.size()); i++)
+        {
+            fetchers.add(pool.submit(fetcher));
+        }
+        fetcher.run();
+        fetchers.forEach(ForkJoinTask::join);
+        return failures;
+    }
+
+    /**
+     * Receives the text content of a node fetched within a batch.
+     */
+    @FunctionalInterface
+    public interface TextContentConsumer
+    {
+        void accept(Long nodeId, GetTextContentResponse response) throws AuthenticationException, IOException;
+    }
     
     public AlfrescoModel getModel(String coreName, QName modelName) throws AuthenticationException, IOException
     {
@@ -1100,26 +1178,45 @@ public class SOLRAPIClient
         body.put("models", jsonModels);
 
         PostRequest req = new PostRequest(url.toString(), body.toString(), "application/json");
-        JSONObject json = callRepository(GET_MODELS_DIFF, req);
-
-        JSONArray jsonDiffs = json.getJSONArray("diffs");
-        if(jsonDiffs == null)
-        {
-            throw new AlfrescoRuntimeException("GetModelsDiff badly formatted response");
-        }
+        return callRepository(GET_MODELS_DIFF, req, parser -> parseResponseArray(GET_MODELS_DIFF, "diffs", parser, this::parseModelDiff));
+    }
 
-        List<AlfrescoModelDiff> diffs = new ArrayList<AlfrescoModelDiff>(jsonDiffs.length());
-        for(int i = 0; i < jsonDiffs.length(); i++)
-        {
-            JSONObject jsonDiff = jsonDiffs.getJSONObject(i);
-            diffs.add(new AlfrescoModelDiff(
-                    QName.createQName(jsonDiff.getString("name")),
-                    AlfrescoModelDiff.TYPE.valueOf(jsonDiff.getString("type")),
-                    (jsonDiff.isNull("oldChecksum") ? null : jsonDiff.getLong("oldChecksum")),
-                    (jsonDiff.isNull("newChecksum") ? null : jsonDiff.getLong("newChecksum"))));
+    private AlfrescoModelDiff parseModelDiff(JsonParser parser) throws IOException
+    {
+        expect(parser, JsonToken.START_OBJECT);
+        String name = null;
+        String type = null;
+        Long oldChecksum = null;
+        Long newChecksum = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            switch (fieldName)
+            {
+                case "name":
+                    name = stringValue(parser);
+                    break;
+                case "type":
+                    type = stringValue(parser);
+                    break;
+                case "oldChecksum":
+                    oldChecksum = longValueOrNull(parser);
+                    break;
+                case "newChecksum":
+                    newChecksum = longValueOrNull(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
         }
 
-        return diffs;
+        return new AlfrescoModelDiff(
+                QName.createQName(requireField(GET_MODELS_DIFF, "name", name)),
+                AlfrescoModelDiff.TYPE.valueOf(requireField(GET_MODELS_DIFF, "type", type)),
+                oldChecksum,
+                newChecksum);
     }
     
     /**
@@ -1583,11 +1680,19 @@ public class SOLRAPIClient
        repositoryHttpClient.close();
     }
 
-    private JSONObject callRepository(String msgId, Request req) throws IOException, AuthenticationException
+    /**
+     * Sends the request and decodes the JSON object in the response body as it is read, so the whole
+     * response is never held in memory as a JSON tree.
+     *
+     * @param msgId the endpoint name, used in error messages
+     * @param req the request
+     * @param responseParser decodes the response, called with the parser positioned on the opening brace of the body
+     * @return the decoded response
+     */
+    private <T> T callRepository(String msgId, Request req, JsonValueParser<T> responseParser) throws IOException, AuthenticationException
     {
         Response response = null;
         LookAheadBufferedReader reader = null;
-        JSONObject json;
         try
         {
             response = repositoryHttpClient.sendRequest(req);
@@ -1597,15 +1702,15 @@ public class SOLRAPIClient
             }
 
             reader = new LookAheadBufferedReader(new InputStreamReader(response.getContentAsStream(), StandardCharsets.UTF_8), LOGGER);
-            json = new JSONObject(new JSONTokener(reader));
+            JsonParser parser = jsonFactory.createParser(reader);
+            parser.nextToken();
+            expect(parser, JsonToken.START_OBJECT);
 
-            if (LOGGER.isDebugEnabled())
-            {
-                LOGGER.debug(json.toString(3));
-            }
-            return json;
+            T result = responseParser.parse(parser);
+            parser.close();
+            return result;
         }
-        catch (JSONException exception)
+        catch (JsonProcessingException exception)
         {
             String message = "Received a malformed JSON payload. Request was \"" +
                     req.getFullUri() +
@@ -1623,6 +1728,79 @@ public class SOLRAPIClient
         }
     }
 
+    /**
+     * Decodes a response body made of a single array of entities, e.g. {"nodes": [...]}.
+     */
+    private <T> List<T> parseResponseArray(String msgId, String arrayName, JsonParser parser, JsonValueParser<T> elementParser) throws IOException
+    {
+        List<T> values = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            if (arrayName.equals(fieldName))
+            {
+                values = parseArray(parser, elementParser);
+            }
+            else
+            {
+                parser.skipChildren();
+            }
+        }
+        return requireField(msgId, arrayName, values);
+    }
+
+    private static <T> List<T> parseArray(JsonParser parser, JsonValueParser<T> elementParser) throws IOException
+    {
+        expect(parser, JsonToken.START_ARRAY);
+        List<T> values = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY)
+        {
+            values.add(elementParser.parse(parser));
+        }
+        return values;
+    }
+
+    private static String stringValue(JsonParser parser) throws IOException
+    {
+        if (parser.getCurrentToken().isStructStart())
+        {
+            throw new JsonParseException(parser, "Expected a scalar value, got " + parser.getCurrentToken());
+        }
+        return parser.getValueAsString();
+    }
+
+    private static Long longValueOrNull(JsonParser parser) throws IOException
+    {
+        return parser.getCurrentToken() == JsonToken.VALUE_NULL ? null : parser.getValueAsLong();
+    }
+
+    private static void expect(JsonParser parser, JsonToken expected) throws JsonParseException
+    {
+        if (parser.getCurrentToken() != expected)
+        {
+            throw new JsonParseException(parser, "Expected " + expected + ", got " + parser.getCurrentToken());
+        }
+    }
+
+    private static <T> T requireField(String msgId, String fieldName, T value)
+    {
+        if (value == null)
+        {
+            throw new AlfrescoRuntimeException(msgId + " badly formatted response, missing " + fieldName);
+        }
+        return value;
+    }
+
+    @FunctionalInterface
+    private interface JsonValueParser<T>
+    {
+        /**
+         * Decodes the value the parser is positioned on, leaving the parser on its last token.
+         */
+        T parse(JsonParser parser) throws IOException;
+    }
+
     private void silentlyClose(Closeable closeable)
     {
         try
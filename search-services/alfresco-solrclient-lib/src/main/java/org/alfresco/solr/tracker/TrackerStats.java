@@ -31,7 +31,9 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.concurrent.NotThreadSafe;
@@ -65,6 +67,13 @@ public class TrackerStats
     
     ConcurrentHashMap<String, IncrementalStats> elapsedContentTimes = new ConcurrentHashMap<String, IncrementalStats>();
 
+    ConcurrentHashMap<String, IncrementalStats> elapsedCascadeTimes = new ConcurrentHashMap<String, IncrementalStats>();
+
+    // Content indexing time per document and queue depth of each content lane, keyed by lane rather than by thread
+    ConcurrentHashMap<String, IncrementalStats> contentLaneTimes = new ConcurrentHashMap<String, IncrementalStats>();
+
+    ConcurrentHashMap<String, Long> contentLaneDepths = new ConcurrentHashMap<String, Long>();
+
     private InformationServerCollectionProvider infoSrv;
     
     public TrackerStats(InformationServerCollectionProvider server)
@@ -173,6 +182,30 @@ public class TrackerStats
         return aggregateResults(docTransformationTimes);
     }
 
+    /**
+     * @return the elapsed time of cascading updates, per updated document
+     */
+    public SimpleStats getCascadeTimes()
+    {
+        return aggregateResults(elapsedCascadeTimes);
+    }
+
+    /**
+     * @return the content indexing time per document, with the details of each content lane
+     */
+    public SimpleStats getContentLaneTimes()
+    {
+        return aggregateResults(contentLaneTimes);
+    }
+
+    /**
+     * @return the number of documents waiting in each content lane
+     */
+    public Map<String, Long> getContentLaneDepths()
+    {
+        return new TreeMap<String, Long>(contentLaneDepths);
+    }
+
     public double getMeanModelSyncTime()
     {
         return aggregateResults(modelTimes).getMean();
@@ -198,6 +231,11 @@ public class TrackerStats
         return aggregateResults(elapsedContentTimes).getMean();
     }
 
+    public double getMeanCascadeElapsedIndexTime()
+    {
+        return aggregateResults(elapsedCascadeTimes).getMean();
+    }
+
     public double getNodeIndexingThreadCount()
     {
         return nodeTimes.size();
@@ -919,6 +957,58 @@ public class TrackerStats
         
     }
     
+    /**
+     * @param docCount int
+     * @param time long
+     */
+    public void addElapsedCascadeTime(int docCount, long time)
+    {
+        if(docCount < 1)
+        {
+            return;
+        }
+        IncrementalStats stats = elapsedCascadeTimes.get(Thread.currentThread().getName());
+        if (stats == null)
+        {
+            stats = new IncrementalStats(TIME_SCALE, 50, this.infoSrv);
+            elapsedCascadeTimes.put(Thread.currentThread().getName(), stats);
+        }
+        long meanTime = time / docCount;
+        for(int i = 0; i < docCount; i++)
+        {
+            stats.add(meanTime);
+        }
+        
+    }
+    
+    /**
+     * @param lane String
+     * @param docCount int
+     * @param time long
+     */
+    public void addContentLaneTime(String lane, int docCount, long time)
+    {
+        if(docCount < 1)
+        {
+            return;
+        }
+        IncrementalStats stats = contentLaneTimes.computeIfAbsent(lane, key -> new IncrementalStats(TIME_SCALE, 50, this.infoSrv));
+        long meanTime = time / docCount;
+        for(int i = 0; i < docCount; i++)
+        {
+            stats.add(meanTime);
+        }
+    }
+
+    /**
+     * @param lane String
+     * @param depth long
+     */
+    public void setContentLaneDepth(String lane, long depth)
+    {
+        contentLaneDepths.put(lane, depth);
+    }
+
     /**
      * @param size int
      */
@@ -984,6 +1074,8 @@ public class TrackerStats
         txDocs.clear();
         docTransformationTimes.clear();
         nodeTimes.clear();
+        elapsedCascadeTimes.clear();
+        contentLaneTimes.clear();
     }
 
  
@@ -0,0 +1,257 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.solr.client;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.alfresco.error.AlfrescoRuntimeException;
+import org.alfresco.httpclient.AlfrescoHttpClient;
+import org.alfresco.httpclient.Response;
+import org.alfresco.repo.dictionary.NamespaceDAO;
+import org.alfresco.service.cmr.dictionary.DataTypeDefinition;
+import org.alfresco.service.cmr.dictionary.DictionaryService;
+import org.alfresco.service.cmr.dictionary.PropertyDefinition;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.namespace.QName;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+/**
+ * Decodes recorded repository payloads through the streaming parser of {@link SOLRAPIClient}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SOLRAPIClientResponseParsingTest
+{
+    private static final String CONTENT_MODEL = "{http://www.alfresco.org/model/content/1.0}";
+
+    @Mock
+    private AlfrescoHttpClient repositoryHttpClient;
+    @Mock
+    private DictionaryService dictionaryService;
+    @Mock
+    private NamespaceDAO namespaceDAO;
+    @Mock
+    private Response response;
+
+    private SOLRAPIClient client;
+
+    @Before
+    public void setUp()
+    {
+        client = new SOLRAPIClient(repositoryHttpClient, dictionaryService, namespaceDAO);
+    }
+
+    @Test
+    public void metadataPayload_shouldBeDecodedIntoNodeMetaData() throws Exception
+    {
+        respondWith(resource("metadata-response.json"));
+        defineProperty("name", DataTypeDefinition.TEXT, false);
+        defineProperty("title", DataTypeDefinition.MLTEXT, false);
+        defineProperty("content", DataTypeDefinition.CONTENT, false);
+        defineProperty("taggable", DataTypeDefinition.TEXT, true);
+        defineProperty("description", DataTypeDefinition.TEXT, false);
+
+        List<NodeMetaData> nodes = client.getNodesMetaData(new NodeMetaDataParameters());
+
+        assertEquals(2, nodes.size());
+        NodeMetaData node = nodes.get(0);
+        assertEquals(1001, node.getId());
+        assertEquals("", node.getTenantDomain());
+        assertEquals(7, node.getAclId());
+        assertEquals(42, node.getTxnId());
+        assertEquals(new NodeRef("workspace://SpacesStore/5b8c7c6f-8dfa-4b7b-9b2a-3d29e6c3c001"), node.getNodeRef());
+        assertEquals(QName.createQName(CONTENT_MODEL + "content"), node.getType());
+        assertEquals(2, node.getAspects().size());
+        assertTrue(node.getAspects().contains(QName.createQName(CONTENT_MODEL + "titled")));
+        assertEquals(QName.createQName(CONTENT_MODEL + "report.pdf"), node.getPaths().get(0).getSecond());
+        assertEquals(singletonList("/5b8c7c6f-8dfa-4b7b-9b2a-3d29e6c3c000"), node.getAncestorPaths());
+        assertEquals(singletonList(asList("Company Home", "report.pdf")), node.getNamePaths());
+        assertTrue(node.getAncestors().contains(new NodeRef("workspace://SpacesStore/5b8c7c6f-8dfa-4b7b-9b2a-3d29e6c3c000")));
+        assertEquals(1, node.getParentAssocs().size());
+        assertEquals(123456789L, node.getParentAssocsCrc());
+        assertEquals(asList(1002L, 1003L), node.getChildIds());
+        assertEquals("admin", node.getOwner());
+
+        Map<QName, PropertyValue> properties = node.getProperties();
+        assertEquals(6, properties.size());
+        assertEquals("report.pdf", ((StringPropertyValue) properties.get(QName.createQName(CONTENT_MODEL + "name"))).getValue());
+        assertEquals("not in the dictionary",
+                ((StringPropertyValue) properties.get(QName.createQName("{http://example.com/model/unknown}extra"))).getValue());
+        assertNull(properties.get(QName.createQName(CONTENT_MODEL + "description")));
+
+        MLTextPropertyValue title = (MLTextPropertyValue) properties.get(QName.createQName(CONTENT_MODEL + "title"));
+        assertEquals("Quarterly report", title.getValue(new Locale("en")));
+        assertNull(title.getValue(new Locale("fr")));
+
+        ContentPropertyValue content = (ContentPropertyValue) properties.get(QName.createQName(CONTENT_MODEL + "content"));
+        assertEquals(2048, content.getLength());
+        assertEquals("application/pdf", content.getMimetype());
+        assertEquals("UTF-8", content.getEncoding());
+        assertEquals(Long.valueOf(12), content.getId());
+
+        MultiPropertyValue tags = (MultiPropertyValue) properties.get(QName.createQName(CONTENT_MODEL + "taggable"));
+        assertEquals(2, tags.getValues().size());
+
+        NodeMetaData sparseNode = nodes.get(1);
+        assertEquals(1004, sparseNode.getId());
+        assertNull(sparseNode.getProperties());
+    }
+
+    @Test
+    public void aclReadersPayload_shouldDefaultMissingTenant() throws Exception
+    {
+        respondWith(resource("aclsReaders-response.json"));
+
+        List<AclReaders> aclReaders = client.getAclReaders(asList(new Acl(3, 7), new Acl(3, 8)));
+
+        assertEquals(2, aclReaders.size());
+        assertEquals(7, aclReaders.get(0).getId());
+        assertEquals(3, aclReaders.get(0).getAclChangeSetId());
+        assertEquals(asList("GROUP_EVERYONE", "admin"), aclReaders.get(0).getReaders());
+        assertEquals(singletonList("guest"), aclReaders.get(0).getDenied());
+        assertEquals("", aclReaders.get(0).getTenantDomain());
+        assertEquals("acme.com", aclReaders.get(1).getTenantDomain());
+        assertEquals(emptyList(), aclReaders.get(1).getReaders());
+    }
+
+    @Test
+    public void aclReadersPayload_shouldDefaultMissingAuthoritiesToEmpty() throws Exception
+    {
+        respondWith(stream("{\"aclsReaders\": [{\"aclId\": 7, \"aclChangeSetId\": 3}]}"));
+
+        List<AclReaders> aclReaders = client.getAclReaders(singletonList(new Acl(3, 7)));
+
+        assertEquals(1, aclReaders.size());
+        assertEquals(emptyList(), aclReaders.get(0).getReaders());
+        assertEquals(emptyList(), aclReaders.get(0).getDenied());
+    }
+
+    @Test
+    public void nodesPayload_shouldBeDecodedIntoNodes() throws Exception
+    {
+        respondWith(resource("nodes-response.json"));
+
+        List<Node> nodes = client.getNodes(new GetNodesParameters(), 100);
+
+        assertEquals(2, nodes.size());
+        assertEquals(Node.SolrApiNodeStatus.UPDATED, nodes.get(0).getStatus());
+        assertEquals("2020-01-01", nodes.get(0).getShardPropertyValue());
+        assertEquals(Integer.valueOf(2), nodes.get(0).getExplicitShardId());
+        assertEquals(Node.SolrApiNodeStatus.DELETED, nodes.get(1).getStatus());
+        assertEquals(1005, nodes.get(1).getId());
+        verify(response).release();
+    }
+
+    @Test
+    public void aclsPayload_shouldBeDecodedIntoAcls() throws Exception
+    {
+        respondWith(stream("{\"acls\": [{\"aclChangeSetId\": 3, \"id\": 7}, {\"id\": 8, \"aclChangeSetId\": 4}]}"));
+
+        List<Acl> acls = client.getAcls(singletonList(new AclChangeSet(3, 0, 2)), null, 10);
+
+        assertEquals(2, acls.size());
+        assertEquals(7, acls.get(0).getId());
+        assertEquals(4, acls.get(1).getAclChangeSetId());
+    }
+
+    @Test
+    public void aclChangeSetsPayload_shouldKeepMissingMaximumsNull() throws Exception
+    {
+        respondWith(stream("{\"aclChangeSets\": [{\"id\": 3, \"commitTimeMs\": 1000, \"aclCount\": 2}], \"maxChangeSetId\": 9}"));
+
+        AclChangeSets aclChangeSets = client.getAclChangeSets(null, null, null, null, 10);
+
+        assertEquals(1, aclChangeSets.getAclChangeSets().size());
+        assertEquals(2, aclChangeSets.getAclChangeSets().get(0).getAclCount());
+        assertEquals(Long.valueOf(9), aclChangeSets.getMaxChangeSetId());
+        assertNull(aclChangeSets.getMaxChangeSetCommitTime());
+    }
+
+    @Test(expected = AlfrescoRuntimeException.class)
+    public void payloadWithoutEntityArray_shouldFail() throws Exception
+    {
+        respondWith(stream("{\"somethingElse\": []}"));
+
+        client.getNodes(new GetNodesParameters(), 100);
+    }
+
+    @Test(expected = JsonProcessingException.class)
+    public void truncatedPayload_shouldFail() throws Exception
+    {
+        respondWith(stream("{\"nodes\": [{\"id\": 1001, \"status\": "));
+
+        client.getNodes(new GetNodesParameters(), 100);
+    }
+
+    private void respondWith(InputStream payload) throws Exception
+    {
+        when(repositoryHttpClient.sendRequest(any())).thenReturn(response);
+        when(response.getStatus()).thenReturn(200);
+        when(response.getContentAsStream()).thenReturn(payload);
+    }
+
+    private void defineProperty(String localName, QName dataTypeName, boolean multiValued)
+    {
+        DataTypeDefinition dataType = mock(DataTypeDefinition.class);
+        when(dataType.getName()).thenReturn(dataTypeName);
+        PropertyDefinition propertyDef = mock(PropertyDefinition.class);
+        when(propertyDef.getDataType()).thenReturn(dataType);
+        when(propertyDef.isMultiValued()).thenReturn(multiValued);
+        when(dictionaryService.getProperty(QName.createQName(CONTENT_MODEL + localName))).thenReturn(propertyDef);
+    }
+
+    private InputStream resource(String name)
+    {
+        return getClass().getResourceAsStream(name);
+    }
+
+    private InputStream stream(String json)
+    {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
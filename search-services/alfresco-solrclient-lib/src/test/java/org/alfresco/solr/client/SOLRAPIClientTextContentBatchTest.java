@@ -0,0 +1,247 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.alfresco.error.AlfrescoRuntimeException;
+import org.alfresco.httpclient.AlfrescoHttpClient;
+import org.alfresco.httpclient.Request;
+import org.alfresco.httpclient.Response;
+import org.alfresco.repo.dictionary.NamespaceDAO;
+import org.alfresco.service.cmr.dictionary.DictionaryService;
+import org.alfresco.service.namespace.QName;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+/**
+ * Fetches batches of text content from a local stand-in of the repository text content endpoint.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SOLRAPIClientTextContentBatchTest
+{
+    private static final QName CONTENT = QName.createQName("{http://www.alfresco.org/model/content/1.0}content");
+    private static final int PARALLELISM = 4;
+
+    @Mock
+    private AlfrescoHttpClient repositoryHttpClient;
+    @Mock
+    private DictionaryService dictionaryService;
+    @Mock
+    private NamespaceDAO namespaceDAO;
+
+    private SOLRAPIClient client;
+    private ForkJoinPool pool;
+
+    private final AtomicInteger outstandingRequests = new AtomicInteger();
+    private final AtomicInteger maxOutstandingRequests = new AtomicInteger();
+    private final AtomicInteger releasedResponses = new AtomicInteger();
+    private volatile long failingNodeId = -1;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        client = new SOLRAPIClient(repositoryHttpClient, dictionaryService, namespaceDAO);
+        pool = new ForkJoinPool(PARALLELISM);
+        when(repositoryHttpClient.sendRequest(any())).thenAnswer(invocation -> serve(invocation.getArgument(0)));
+    }
+
+    @After
+    public void tearDown()
+    {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void batch_shouldFetchAndReleaseEveryNode() throws Exception
+    {
+        List<Long> nodeIds = LongStream.rangeClosed(1, 40).boxed().collect(Collectors.toList());
+        Map<Long, String> texts = new ConcurrentHashMap<>();
+
+        Map<Long, Exception> failures = pool.submit(() ->
+                client.getTextContent(nodeIds, CONTENT, pool, PARALLELISM, (nodeId, response) ->
+                        texts.put(nodeId, text(response)))).get();
+
+        assertTrue(failures.isEmpty());
+        assertEquals(nodeIds.size(), texts.size());
+        assertEquals("text of node 17", texts.get(17L));
+        assertEquals(nodeIds.size(), releasedResponses.get());
+        assertTrue(maxOutstandingRequests.get() > 1);
+        assertTrue(maxOutstandingRequests.get() <= PARALLELISM);
+    }
+
+    @Test
+    public void failingNode_shouldBeReportedWithoutStoppingTheBatch() throws Exception
+    {
+        failingNodeId = 3;
+        List<Long> nodeIds = LongStream.rangeClosed(1, 10).boxed().collect(Collectors.toList());
+        Map<Long, String> texts = new ConcurrentHashMap<>();
+
+        Map<Long, Exception> failures = pool.submit(() ->
+                client.getTextContent(nodeIds, CONTENT, pool, PARALLELISM, (nodeId, response) -> {
+                    if (nodeId == 7L)
+                    {
+                        throw new IllegalStateException("Unable to consume node 7");
+                    }
+                    texts.put(nodeId, text(response));
+                })).get();
+
+        assertEquals(2, failures.size());
+        assertTrue(failures.get(3L) instanceof AlfrescoRuntimeException);
+        assertTrue(failures.get(7L) instanceof IllegalStateException);
+        assertEquals(8, texts.size());
+        assertEquals(nodeIds.size(), releasedResponses.get());
+    }
+
+    @Test
+    public void batch_shouldKeepToMaxConcurrentRequests() throws Exception
+    {
+        List<Long> nodeIds = LongStream.rangeClosed(1, 40).boxed().collect(Collectors.toList());
+        Map<Long, String> texts = new ConcurrentHashMap<>();
+
+        Map<Long, Exception> failures = pool.submit(() ->
+                client.getTextContent(nodeIds, CONTENT, pool, 2, (nodeId, response) ->
+                        texts.put(nodeId, text(response)))).get();
+
+        assertTrue(failures.isEmpty());
+        assertEquals(nodeIds.size(), texts.size());
+        assertTrue(maxOutstandingRequests.get() <= 2);
+    }
+
+    @Test
+    public void batchFromOutsideThePool_shouldFetchEveryNode()
+    {
+        List<Long> nodeIds = LongStream.rangeClosed(1, 20).boxed().collect(Collectors.toList());
+        Map<Long, String> texts = new ConcurrentHashMap<>();
+
+        Map<Long, Exception> failures = client.getTextContent(nodeIds, CONTENT, pool, PARALLELISM, (nodeId, response) ->
+                texts.put(nodeId, text(response)));
+
+        assertTrue(failures.isEmpty());
+        assertEquals(nodeIds.size(), texts.size());
+        assertEquals(nodeIds.size(), releasedResponses.get());
+        assertTrue(maxOutstandingRequests.get() <= PARALLELISM);
+    }
+
+    private String text(SOLRAPIClient.GetTextContentResponse response) throws IOException
+    {
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        byte[] buffer = new byte[256];
+        int read;
+        while ((read = response.getContent().read(buffer)) != -1)
+        {
+            text.write(buffer, 0, read);
+        }
+        return new String(text.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Stands in for the repository: the failing node gets a server error, every other node has a small text content.
+     */
+    private Response serve(Request request) throws InterruptedException
+    {
+        String uri = request.getFullUri();
+        long nodeId = Long.parseLong(uri.replaceAll(".*nodeId=(\\d+).*", "$1"));
+
+        int outstanding = outstandingRequests.incrementAndGet();
+        maxOutstandingRequests.accumulateAndGet(outstanding, Math::max);
+        try
+        {
+            Thread.sleep(10);
+        }
+        finally
+        {
+            outstandingRequests.decrementAndGet();
+        }
+
+        return nodeId == failingNodeId
+                ? new StandInResponse(500, "")
+                : new StandInResponse(200, "text of node " + nodeId);
+    }
+
+    private class StandInResponse implements Response
+    {
+        private final int status;
+        private final byte[] content;
+
+        StandInResponse(int status, String content)
+        {
+            this.status = status;
+            this.content = content.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public InputStream getContentAsStream()
+        {
+            return new ByteArrayInputStream(content);
+        }
+
+        @Override
+        public String getHeader(String name)
+        {
+            return null;
+        }
+
+        @Override
+        public String getContentType()
+        {
+            return "text/plain";
+        }
+
+        @Override
+        public int getStatus()
+        {
+            return status;
+        }
+
+        @Override
+        public void release()
+        {
+            releasedResponses.incrementAndGet();
+        }
+    }
+}